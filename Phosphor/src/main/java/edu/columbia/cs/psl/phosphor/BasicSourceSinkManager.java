@@ -12,26 +12,24 @@ import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.util.Scanner;
 
+/* Determines which methods are sources, sinks or taintThrough methods. Queries do not acquire any locks: the methods
+ * read from the sources, sinks and taintThrough files are stored in immutable AutoTaintMethods instances that are
+ * replaced as a whole when the methods change, and the methods that each class inherits are memoized in a concurrent
+ * map. */
 public class BasicSourceSinkManager extends SourceSinkManager {
 
-    private static final Map<String, Object> sourceLabels = new HashMap<>();
-    // Maps class names to a set of all the methods listed as sources for the class
-    private static final Map<String, Set<String>> sources = new HashMap<>();
-    // Maps class names to a set of all the methods listed as sinks for the class
-    private static final Map<String, Set<String>> sinks = new HashMap<>();
-    // Maps class names to a set of all the methods listed as taintThrough methods for the class
-    private static final Map<String, Set<String>> taintThrough = new HashMap<>();
+    private static final ConcurrentHashMap<String, Object> sourceLabels = new ConcurrentHashMap<>();
     // Maps class names to sets of class instances
     private static final Map<String, Set<Class<?>>> classMap = new HashMap<>();
     public static InputStream sourcesFile;
     public static InputStream sinksFile;
     public static InputStream taintThroughFile;
-    // Maps class names to a set of all methods listed as sources for the class or one of its supertypes or superinterfaces
-    private static Map<String, Set<String>> inheritedSources = new HashMap<>();
-    // Maps class names to a set of all methods listed as sinks for the class or one of its supertypes or superinterfaces
-    private static Map<String, Set<String>> inheritedSinks = new HashMap<>();
-    // Maps class names to a set of all methods listed as taintThrough methods for the class or one of its supertypes or superinterfaces
-    private static Map<String, Set<String>> inheritedTaintThrough = new HashMap<>();
+    // Methods listed as sources and the methods that each class inherits from those methods
+    private static volatile AutoTaintMethods sources = new AutoTaintMethods(new HashMap<String, Set<String>>());
+    // Methods listed as sinks and the methods that each class inherits from those methods
+    private static volatile AutoTaintMethods sinks = new AutoTaintMethods(new HashMap<String, Set<String>>());
+    // Methods listed as taintThrough methods and the methods that each class inherits from those methods
+    private static volatile AutoTaintMethods taintThrough = new AutoTaintMethods(new HashMap<String, Set<String>>());
 
     /* Private constructor ensures that only one instance of BasicSourceSinkManager is ever created. */
     private BasicSourceSinkManager() {
@@ -39,77 +37,70 @@ public class BasicSourceSinkManager extends SourceSinkManager {
 
     @Override
     public boolean isSourceOrSinkOrTaintThrough(Class<?> clazz) {
-        synchronized (BasicSourceSinkManager.class) {
-            String className = clazz.getName().replace(".", "/");
-            // This class has a sink, source or taintThrough method
-            return !getAutoTaintMethods(className, sinks, inheritedSinks).isEmpty()
-                    || !getAutoTaintMethods(className, sources, inheritedSources).isEmpty()
-                    || !getAutoTaintMethods(className, taintThrough, inheritedTaintThrough).isEmpty();
-        }
+        String className = clazz.getName().replace('.', '/');
+        // This class has a sink, source or taintThrough method
+        return !sinks.getMethods(className).isEmpty()
+                || !sources.getMethods(className).isEmpty()
+                || !taintThrough.getMethods(className).isEmpty();
     }
 
     @Override
     public Object getLabel(String str) {
-        synchronized (BasicSourceSinkManager.class) {
-            return sourceLabels.get(str);
-        }
+        return sourceLabels.get(str);
     }
 
     @Override
     public boolean isTaintThrough(String str) {
-        synchronized (BasicSourceSinkManager.class) {
-            if (str.startsWith("[")) {
-                return false;
-            } else {
-                String[] parsed = str.split("\\.");
-                // Check if the set of taintThrough methods for the class name contains the method name
-                return getAutoTaintMethods(parsed[0], taintThrough, inheritedTaintThrough).contains(parsed[1]);
-            }
-        }
+        int dot = findMethodNameSeparator(str);
+        // Check if the set of taintThrough methods for the class name contains the method name
+        return dot != -1 && taintThrough.getMethods(str.substring(0, dot)).contains(str.substring(dot + 1));
     }
 
     @Override
     public boolean isSource(String str) {
-        synchronized (BasicSourceSinkManager.class) {
-            if (str.startsWith("[")) {
-                return false;
-            } else {
-                String[] parsed = str.split("\\.");
-                // Check if the set of source methods for the class name contains the method name
-                if (getAutoTaintMethods(parsed[0], sources, inheritedSources).contains(parsed[1])) {
-                    String baseSource = findSuperTypeAutoTaintProvider(parsed[0], parsed[1], sources, inheritedSources);
-                    if (!sourceLabels.containsKey(str)) {
-                        sourceLabels.put(str, sourceLabels.get(String.format("%s.%s", baseSource, parsed[1])));
-                    }
-                    return true;
-                } else {
-                    return false;
+        int dot = findMethodNameSeparator(str);
+        if (dot == -1) {
+            return false;
+        }
+        AutoTaintMethods current = sources;
+        String className = str.substring(0, dot);
+        String methodName = str.substring(dot + 1);
+        // Check if the set of source methods for the class name contains the method name
+        if (current.getMethods(className).contains(methodName)) {
+            if (!sourceLabels.containsKey(str)) {
+                // Use the label of the source method from which this method inherited its source property
+                String baseSource = current.findSuperTypeAutoTaintProvider(className, methodName);
+                Object label = baseSource == null ? null : sourceLabels.get(baseSource + "." + methodName);
+                if (label != null) {
+                    sourceLabels.putIfAbsent(str, label);
                 }
             }
+            return true;
+        } else {
+            return false;
         }
     }
 
     @Override
     public boolean isSink(String str) {
-        synchronized (BasicSourceSinkManager.class) {
-            if (str.startsWith("[")) {
-                return false;
-            } else {
-                String[] parsed = str.split("\\.");
-                // Check if the set of sink methods for the class name contains the method name
-                return getAutoTaintMethods(parsed[0], sinks, inheritedSinks).contains(parsed[1]);
-            }
-        }
+        int dot = findMethodNameSeparator(str);
+        // Check if the set of sink methods for the class name contains the method name
+        return dot != -1 && sinks.getMethods(str.substring(0, dot)).contains(str.substring(dot + 1));
     }
 
     /* Returns the name of sink method from which the specified method inherited its sink property or null if the specified
      * method is not a sink. */
     public String getBaseSink(String str) {
-        synchronized (BasicSourceSinkManager.class) {
-            String[] parsed = str.split("\\.");
-            String baseSink = findSuperTypeAutoTaintProvider(parsed[0], parsed[1], sinks, inheritedSinks);
-            return baseSink == null ? null : String.format("%s.%s", baseSink, parsed[1]);
-        }
+        int dot = str.indexOf('.');
+        String methodName = str.substring(dot + 1);
+        String baseSink = sinks.findSuperTypeAutoTaintProvider(str.substring(0, dot), methodName);
+        return baseSink == null ? null : baseSink + "." + methodName;
+    }
+
+    /* Returns the index of the '.' that separates the class name from the method name in the specified string or -1 if
+     * the string does not name a method of a class or interface. */
+    private static int findMethodNameSeparator(String str) {
+        return str.startsWith("[") ? -1 : str.indexOf('.');
     }
 
     /* Updates the FileInputStream of souces/sinks/taintThrough files based on the values of
@@ -152,11 +143,11 @@ public class BasicSourceSinkManager extends SourceSinkManager {
         }
     }
 
-    /* Reads source, sink and taintThrough methods from their files into their respective maps. */
+    /* Reads source, sink and taintThrough methods from their files into their respective sets of methods. */
     public static synchronized void loadTaintMethods() {
-        readTaintMethods(sourcesFile, AutoTaint.SOURCE);
-        readTaintMethods(sinksFile, AutoTaint.SINK);
-        readTaintMethods(taintThroughFile, AutoTaint.TAINT_THROUGH);
+        sources = sources.withAdditionalMethods(readTaintMethods(sourcesFile, AutoTaint.SOURCE));
+        sinks = sinks.withAdditionalMethods(readTaintMethods(sinksFile, AutoTaint.SINK));
+        taintThrough = taintThrough.withAdditionalMethods(readTaintMethods(taintThroughFile, AutoTaint.TAINT_THROUGH));
     }
 
     /* Provides access to the single instance of BasicSourceSinkManager */
@@ -164,22 +155,12 @@ public class BasicSourceSinkManager extends SourceSinkManager {
         return BasicSourceSinkManagerSingleton.INSTANCE;
     }
 
-    /* Adds method names from the specified input stream into the map of base autoTaint methods of the specified type.
-     * If reading in source methods then sourceLabels are also created for each method name added. */
-    private static synchronized void readTaintMethods(InputStream src, AutoTaint type) {
+    /* Returns a map from class names to the method names read from the specified input stream for the class. If reading
+     * in source methods then sourceLabels are also created for each method name read. */
+    private static synchronized Map<String, Set<String>> readTaintMethods(InputStream src, AutoTaint type) {
         Scanner s = null;
         String lastLine = null;
-        Map<String, Set<String>> baseMethods;
-        switch (type) {
-            case SOURCE:
-                baseMethods = sources;
-                break;
-            case SINK:
-                baseMethods = sinks;
-                break;
-            default:
-                baseMethods = taintThrough;
-        }
+        Map<String, Set<String>> baseMethods = new HashMap<>();
         try {
             if (src != null) {
                 s = new Scanner(src);
@@ -209,6 +190,7 @@ public class BasicSourceSinkManager extends SourceSinkManager {
                 s.close();
             }
         }
+        return baseMethods;
     }
 
     /* Stores the specified class instance so that it can last be used to retransform the class if it's autoTaint methods
@@ -233,46 +215,40 @@ public class BasicSourceSinkManager extends SourceSinkManager {
      * any class with a method whose status as an autoTaint methods of the specified type has changed. Returns a list of
      * the replaced base autoTaint methods of the specified type. */
     public static synchronized java.util.LinkedList<String> replaceAutoTaintMethods(InputStream src, AutoTaint type) {
-        Map<String, Set<String>> baseMethods;
-        Map<String, Set<String>> inheritedMethods;
-        Map<String, Set<String>> prevInheritedMethods;
+        AutoTaintMethods prevMethods;
         switch (type) {
             case SOURCE:
-                baseMethods = sources;
-                prevInheritedMethods = inheritedSources;
-                // Clear the map of inherited or derived autoTaint methods of the specified type
-                inheritedMethods = new HashMap<>();
-                inheritedSources = inheritedMethods;
+                prevMethods = sources;
                 break;
             case SINK:
-                baseMethods = sinks;
-                prevInheritedMethods = inheritedSinks;
-                // Clear the map of inherited or derived autoTaint methods of the specified type
-                inheritedMethods = new HashMap<>();
-                inheritedSinks = inheritedMethods;
+                prevMethods = sinks;
                 break;
             default:
-                baseMethods = taintThrough;
-                prevInheritedMethods = inheritedTaintThrough;
-                // Clear the map of inherited or derived autoTaint methods of the specified type
-                inheritedMethods = new HashMap<>();
-                inheritedTaintThrough = inheritedMethods;
+                prevMethods = taintThrough;
         }
         // Reconstruct the original set of base methods
         java.util.LinkedList<String> prevBaseMethods = new java.util.LinkedList<>();
-        for (String className : baseMethods.keySet()) {
-            for (String methodName : baseMethods.get(className)) {
+        for (String className : prevMethods.baseMethods.keySet()) {
+            for (String methodName : prevMethods.baseMethods.get(className)) {
                 prevBaseMethods.add(className + "." + methodName);
             }
         }
         // Update the set of base autoTaint methods of the specified type
-        baseMethods.clear();
-        readTaintMethods(src, type);
+        AutoTaintMethods methods = new AutoTaintMethods(readTaintMethods(src, type));
+        switch (type) {
+            case SOURCE:
+                sources = methods;
+                break;
+            case SINK:
+                sinks = methods;
+                break;
+            default:
+                taintThrough = methods;
+        }
         // Retransform any class that has a method that changed from being a autoTaint methods of the specified type
         // to a not being an autoTaint methods of the specified type or vice versa
-        for (String className : prevInheritedMethods.keySet()) {
-            Set<String> autoTaintMethods = getAutoTaintMethods(className, baseMethods, inheritedMethods);
-            if (!autoTaintMethods.equals(prevInheritedMethods.get(className))) {
+        for (String className : prevMethods.inheritedMethods.keySet()) {
+            if (!methods.getMethods(className).equals(prevMethods.inheritedMethods.get(className))) {
                 // Set of autoTaint methods for this class changed
                 try {
                     if (classMap.containsKey(className)) {
@@ -292,18 +268,47 @@ public class BasicSourceSinkManager extends SourceSinkManager {
         return prevBaseMethods;
     }
 
-    /* Returns the set of methods that are a particular type of auto taint method (i.e. source, sink or taintThrough) for
-     * the class or interface with the specified slash-separated string class name. A method is considered to be an auto
-     * taint method if the method is present in the set of base auto taint methods for either the specified class or a supertype of the
-     * specified class. Previously determined auto taint methods are stored in inheritedMethods. */
-    private static synchronized Set<String> getAutoTaintMethods(String className, Map<String, Set<String>> baseMethods,
-                                                                Map<String, Set<String>> inheritedMethods) {
-        if (inheritedMethods.containsKey(className)) {
-            // The auto taint methods for this class have already been determined.
-            return inheritedMethods.get(className);
-        } else {
+    /* Stores the methods that are a particular type of auto taint method (i.e. source, sink or taintThrough). The base
+     * methods are never modified after construction. The auto taint methods of each class are determined the first time
+     * that they are requested and are memoized in a concurrent map, so instances can be queried without locking. */
+    private static final class AutoTaintMethods {
+        // Maps class names to a set of all the methods listed as auto taint methods for the class
+        private final Map<String, Set<String>> baseMethods;
+        // Maps class names to a set of all methods listed as auto taint methods for the class or one of its supertypes
+        // or superinterfaces
+        private final ConcurrentHashMap<String, Set<String>> inheritedMethods = new ConcurrentHashMap<>();
+
+        AutoTaintMethods(Map<String, Set<String>> baseMethods) {
+            this.baseMethods = baseMethods;
+        }
+
+        /* Returns a new instance whose base methods are the base methods of this instance and the specified methods. */
+        AutoTaintMethods withAdditionalMethods(Map<String, Set<String>> methods) {
+            Map<String, Set<String>> combined = new HashMap<>();
+            for (String className : baseMethods.keySet()) {
+                combined.put(className, new HashSet<>(baseMethods.get(className)));
+            }
+            for (String className : methods.keySet()) {
+                if (!combined.containsKey(className)) {
+                    combined.put(className, new HashSet<String>());
+                }
+                combined.get(className).addAll(methods.get(className));
+            }
+            return new AutoTaintMethods(combined);
+        }
+
+        /* Returns the set of auto taint methods for the class or interface with the specified slash-separated string
+         * class name. A method is considered to be an auto taint method if the method is present in the set of base auto
+         * taint methods for either the specified class or a supertype of the specified class. The returned set must not
+         * be modified. */
+        Set<String> getMethods(String className) {
+            Set<String> set = inheritedMethods.get(className);
+            if (set != null) {
+                // The auto taint methods for this class have already been determined.
+                return set;
+            }
             // Recursively build the set of auto taint methods for this class
-            Set<String> set = new HashSet<>();
+            set = new HashSet<>();
             if (baseMethods.containsKey(className)) {
                 // Add any methods from this class that are directly listed as auto taint methods
                 set.addAll(baseMethods.get(className));
@@ -313,51 +318,53 @@ public class BasicSourceSinkManager extends SourceSinkManager {
                 if (cn.interfaces != null) {
                     // Add all auto taint methods from interfaces implemented by this class
                     for (String inter : cn.interfaces) {
-                        set.addAll(getAutoTaintMethods(inter, baseMethods, inheritedMethods));
+                        set.addAll(getMethods(inter));
                     }
                 }
                 if (cn.superName != null && !cn.superName.equals("java/lang/Object")) {
                     // Add all auto taint methods from the superclass of this class
-                    set.addAll(getAutoTaintMethods(cn.superName, baseMethods, inheritedMethods));
+                    set.addAll(getMethods(cn.superName));
                 }
             }
-            inheritedMethods.put(className, set);
-            return set;
+            if (set.isEmpty()) {
+                // Most classes have no auto taint methods, share a single empty set between them
+                set = Collections.emptySet();
+            }
+            // Another thread may have determined the auto taint methods of this class concurrently
+            Set<String> existing = inheritedMethods.putIfAbsent(className, set);
+            return existing == null ? set : existing;
         }
-    }
 
-    /* Returns the string class name of the supertype of the class or interface with specified string class name from which
-     * its method with the specified method name derived its status as an auto taint (i.e. source, sink or taintThrough)
-     * method. */
-    private static synchronized String findSuperTypeAutoTaintProvider(String className, String methodName, Map<String,
-            Set<String>> baseMethods, Map<String, Set<String>> inheritedMethods) {
-        SinglyLinkedList<String> queue = new SinglyLinkedList<>();
-        queue.enqueue(className);
-        while (!queue.isEmpty()) {
-            String curClassName = queue.pop();
-            // Check that the current class actually has an inherited auto taint method with the target method name
-            if (inheritedMethods.containsKey(curClassName) && inheritedMethods.get(curClassName).contains(methodName)) {
-                if (baseMethods.containsKey(curClassName) && baseMethods.get(curClassName).contains(methodName)) {
-                    return curClassName;
-                }
-                ClassNode cn = ClassNodeCache.getClassNode(curClassName);
-                if (cn != null) {
-                    if (cn.interfaces != null) {
-                        // Enqueue interfaces implemented by the current class
-                        for (String inter : cn.interfaces) {
-                            queue.enqueue(inter);
-                        }
+        /* Returns the string class name of the supertype of the class or interface with specified string class name from
+         * which its method with the specified method name derived its status as an auto taint method. */
+        String findSuperTypeAutoTaintProvider(String className, String methodName) {
+            SinglyLinkedList<String> queue = new SinglyLinkedList<>();
+            queue.enqueue(className);
+            while (!queue.isEmpty()) {
+                String curClassName = queue.pop();
+                // Check that the current class actually has an inherited auto taint method with the target method name
+                if (getMethods(curClassName).contains(methodName)) {
+                    if (baseMethods.containsKey(curClassName) && baseMethods.get(curClassName).contains(methodName)) {
+                        return curClassName;
                     }
-                    if (cn.superName != null && !cn.superName.equals("java/lang/Object")) {
-                        // Enqueue the superclass of the current class
-                        queue.enqueue(cn.superName);
+                    ClassNode cn = ClassNodeCache.getClassNode(curClassName);
+                    if (cn != null) {
+                        if (cn.interfaces != null) {
+                            // Enqueue interfaces implemented by the current class
+                            for (String inter : cn.interfaces) {
+                                queue.enqueue(inter);
+                            }
+                        }
+                        if (cn.superName != null && !cn.superName.equals("java/lang/Object")) {
+                            // Enqueue the superclass of the current class
+                            queue.enqueue(cn.superName);
+                        }
                     }
                 }
             }
+            // The specified method for the specified class is not an auto taint method of this type
+            return null;
         }
-        // The specified method for the specified class is not the particular type of auto taint method corresponding to
-        // the specified maps
-        return null;
     }
 
     /* Represents the different types of auto-taint methods: sources, sinks and taintThroughs. */
@@ -57,6 +57,7 @@ public final class ClassNodeCache {
                             super.visit(version, access, name, signature, superName, interfaces);
                             cn = new ClassNode();
                             cn.name = name;
+                            cn.access = access;
                             cn.superName = superName;
                             cn.interfaces = new java.util.ArrayList<>(java.util.Arrays.asList(interfaces));
                             cn.methods = new java.util.LinkedList<>();
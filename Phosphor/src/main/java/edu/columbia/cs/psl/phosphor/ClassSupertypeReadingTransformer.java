@@ -24,6 +24,7 @@ public class ClassSupertypeReadingTransformer extends PhosphorBaseTransformer {
                 super.visit(version, access, name, signature, superName, interfaces);
                 ClassNode cn = new ClassNode();
                 cn.name = name;
+                cn.access = access;
                 cn.superName = superName;
                 cn.interfaces = new ArrayList<>(Arrays.asList(interfaces));
                 if(classNodes == null) {
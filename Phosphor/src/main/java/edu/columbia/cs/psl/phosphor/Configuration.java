@@ -41,6 +41,24 @@ public class Configuration {
     public static boolean READ_AND_SAVE_BCI = false;
     public static boolean ALWAYS_CHECK_FOR_FRAMES = false;
     public static boolean REENABLE_CACHES = false;
+    public static boolean TAINT_LIVENESS_ANALYSIS = false;
+    public static boolean TAINT_CONSTANT_PROPAGATION = false;
+    public static boolean STRING_CONCAT_BOOTSTRAP = false;
+    /**
+     * Number of background threads used to instrument class path classes before they are loaded in agent mode or 0 if
+     * classes should only be instrumented when they are loaded
+     */
+    public static int PREFETCH_THREADS = 0;
+    /**
+     * True if counters for taint propagation should be collected by
+     * {@link edu.columbia.cs.psl.phosphor.runtime.TaintMetrics}
+     */
+    public static boolean TAINT_METRICS = false;
+    /**
+     * Number of seconds between snapshots of the taint propagation counters written to standard error or 0 if
+     * snapshots should not be written
+     */
+    public static int TAINT_METRICS_LOG_INTERVAL = 0;
     public static Class<? extends ClassVisitor> PRIOR_CLASS_VISITOR = null;
     public static Class<? extends ClassVisitor> POST_CLASS_VISITOR = null;
     public static ControlFlowManager controlFlowManager = new StandardControlFlowManager();
@@ -51,7 +69,11 @@ public class Configuration {
     public static TaintTagFactory taintTagFactory = new DataAndControlFlowTagFactory();
     public static String taintTagFactoryPackage = null;
     public static TaintSourceWrapper<?> autoTainter = new TaintSourceWrapper<>();
-    public static DerivedTaintListener derivedTaintListener = new DerivedTaintListener();
+    /**
+     * Listener notified of derived taint tags or null if no listener is installed. When null, taint propagation skips
+     * all listener hooks.
+     */
+    public static DerivedTaintListener derivedTaintListener = null;
     public static boolean TAINT_THROUGH_SERIALIZATION = true;
 
     private Configuration() {
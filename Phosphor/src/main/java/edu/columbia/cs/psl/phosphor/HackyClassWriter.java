@@ -9,31 +9,9 @@ public final class HackyClassWriter extends ClassWriter {
         super(classReader, flags);
     }
 
+    /* Resolves the common superclass from the class files' headers instead of loading the classes. */
     @Override
     protected String getCommonSuperClass(String type1, String type2) {
-        if (Phosphor.RUNTIME_INST) {
-            return "java/lang/Object";
-        }
-        Class<?> clazz1;
-        Class<?> clazz2;
-        try {
-            clazz1 = Class.forName(type1.replace('/', '.'), false, Phosphor.bigLoader);
-            clazz2 = Class.forName(type2.replace('/', '.'), false, Phosphor.bigLoader);
-        } catch (Throwable t) {
-            return "java/lang/Object";
-        }
-        if (clazz1.isAssignableFrom(clazz2)) {
-            return type1;
-        } else if (clazz2.isAssignableFrom(clazz1)) {
-            return type2;
-        }
-        if (clazz1.isInterface() || clazz2.isInterface()) {
-            return "java/lang/Object";
-        } else {
-            do {
-                clazz1 = clazz1.getSuperclass();
-            } while (!clazz1.isAssignableFrom(clazz2));
-            return clazz1.getName().replace('.', '/');
-        }
+        return TypeHierarchy.getInstance().getCommonSuperClass(type1, type2);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,321 @@
+package edu.columbia.cs.psl.phosphor;
+
+import edu.columbia.cs.psl.phosphor.instrumenter.ProfilingClassVisitor;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.ArrayList;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.ConcurrentHashMap;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.List;
+import org.objectweb.asm.ClassVisitor;
+
+import javax.management.ObjectName;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects opt-in metrics about the time spent instrumenting classes. Time is recorded for named stages: the visitors
+ * in the chain built by {@link PCLoggingTransformer}, which are timed exclusively of each other using
+ * {@link ProfilingClassVisitor} probes, and the analyses run by those visitors, whose times are also included in the
+ * time of the visitor that runs them. The metrics are exposed through the platform MBean server and written as JSON to
+ * a file when the JVM exits.
+ */
+public final class InstrumentationProfiler implements InstrumentationProfilerMXBean {
+
+    public static final String OBJECT_NAME = "edu.columbia.cs.psl.phosphor:type=InstrumentationProfiler";
+
+    /**
+     * The profiler that metrics are recorded to or null if profiling is disabled
+     */
+    private static volatile InstrumentationProfiler instance = null;
+
+    private final ConcurrentHashMap<String, Stage> stages = new ConcurrentHashMap<>();
+    private final AtomicLong classesInstrumented = new AtomicLong();
+    private final AtomicLong classesSkipped = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    InstrumentationProfiler() {
+    }
+
+    /**
+     * @return the profiler that metrics should be recorded to or null if profiling is disabled
+     */
+    public static InstrumentationProfiler getInstance() {
+        return instance;
+    }
+
+    /**
+     * Enables profiling, registers the profiler with the platform MBean server and, if an output file is specified,
+     * writes the collected metrics to that file when the JVM exits.
+     *
+     * @param outputFile the path of the file that the metrics should be written to or null
+     */
+    public static synchronized void enable(final String outputFile) {
+        if (instance != null) {
+            return;
+        }
+        final InstrumentationProfiler profiler = new InstrumentationProfiler();
+        instance = profiler;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(profiler, new ObjectName(OBJECT_NAME));
+        } catch (Throwable t) {
+            System.err.println("Failed to register the instrumentation profiler MBean: " + t);
+        }
+        if (outputFile != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    profiler.writeJson(outputFile);
+                }
+            }, "Phosphor-Instrumentation-Profile"));
+        }
+    }
+
+    /**
+     * Stops recording metrics and unregisters the profiler from the platform MBean server.
+     */
+    static synchronized void disable() {
+        if (instance == null) {
+            return;
+        }
+        instance = null;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (Throwable t) {
+            //
+        }
+    }
+
+    /**
+     * @return the current time in nanoseconds if profiling is enabled, otherwise 0
+     */
+    public static long start() {
+        return instance == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Records the time elapsed since a call to {@link #start()} for the specified stage if profiling is enabled.
+     */
+    public static void stop(String stage, long start) {
+        InstrumentationProfiler profiler = instance;
+        if (profiler != null && start != 0) {
+            profiler.recordTime(stage, System.nanoTime() - start);
+        }
+    }
+
+    public void recordTime(String stage, long nanos) {
+        Stage s = stages.get(stage);
+        if (s == null) {
+            Stage created = new Stage();
+            s = stages.putIfAbsent(stage, created);
+            if (s == null) {
+                s = created;
+            }
+        }
+        s.nanos.addAndGet(nanos);
+        s.count.incrementAndGet();
+    }
+
+    public void classInstrumented(int originalLength, int instrumentedLength) {
+        classesInstrumented.incrementAndGet();
+        bytesIn.addAndGet(originalLength);
+        bytesOut.addAndGet(instrumentedLength);
+    }
+
+    public void classSkipped() {
+        classesSkipped.incrementAndGet();
+    }
+
+    public void cacheLookup(boolean hit) {
+        (hit ? cacheHits : cacheMisses).incrementAndGet();
+    }
+
+    public void retried() {
+        retries.incrementAndGet();
+    }
+
+    public void failed() {
+        failures.incrementAndGet();
+    }
+
+    @Override
+    public long getClassesInstrumented() {
+        return classesInstrumented.get();
+    }
+
+    @Override
+    public long getClassesSkipped() {
+        return classesSkipped.get();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.get();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.get();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.get();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.get();
+    }
+
+    @Override
+    public Map<String, Long> getStageNanos() {
+        Map<String, Long> result = new TreeMap<>();
+        for (String stage : stages.keySet()) {
+            result.put(stage, stages.get(stage).nanos.get());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getStageCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        for (String stage : stages.keySet()) {
+            result.put(stage, stages.get(stage).count.get());
+        }
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        stages.clear();
+        for (AtomicLong counter : new AtomicLong[]{classesInstrumented, classesSkipped, cacheHits, cacheMisses,
+                retries, failures, bytesIn, bytesOut}) {
+            counter.set(0);
+        }
+    }
+
+    @Override
+    public String toJson() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\n");
+        appendField(builder, "classesInstrumented", getClassesInstrumented());
+        appendField(builder, "classesSkipped", getClassesSkipped());
+        appendField(builder, "cacheHits", getCacheHits());
+        appendField(builder, "cacheMisses", getCacheMisses());
+        appendField(builder, "retries", getRetries());
+        appendField(builder, "failures", getFailures());
+        appendField(builder, "bytesIn", getBytesIn());
+        appendField(builder, "bytesOut", getBytesOut());
+        builder.append("  \"stages\": {");
+        Map<String, Long> nanos = getStageNanos();
+        Map<String, Long> counts = getStageCounts();
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : nanos.entrySet()) {
+            builder.append(first ? "\n" : ",\n");
+            first = false;
+            builder.append("    \"").append(escape(entry.getKey())).append("\": {\"nanos\": ").append(entry.getValue())
+                    .append(", \"count\": ").append(counts.get(entry.getKey())).append('}');
+        }
+        builder.append(first ? "}\n" : "\n  }\n");
+        builder.append("}\n");
+        return builder.toString();
+    }
+
+    void writeJson(String outputFile) {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+        } catch (IOException e) {
+            System.err.println("Failed to write instrumentation profile to " + outputFile + ": " + e);
+        }
+    }
+
+    private static void appendField(StringBuilder builder, String name, long value) {
+        builder.append("  \"").append(name).append("\": ").append(value).append(",\n");
+    }
+
+    private static String escape(String s) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static final class Stage {
+        private final AtomicLong nanos = new AtomicLong();
+        private final AtomicLong count = new AtomicLong();
+    }
+
+    /**
+     * Inserts probes between the stages of a class visitor chain as it is built from the innermost visitor outwards
+     * and records the time spent in each stage once the chain has been run. If profiling is disabled, no probes are
+     * inserted.
+     */
+    public static final class VisitorChain {
+
+        private final InstrumentationProfiler profiler = instance;
+        /**
+         * Probes in front of each stage ordered from the innermost stage to the outermost one
+         */
+        private final List<ProfilingClassVisitor> probes = new ArrayList<>();
+
+        /**
+         * @param cv the visitor that was just added to the front of the chain
+         * @return the new front of the chain
+         */
+        public ClassVisitor probe(ClassVisitor cv) {
+            if (profiler == null) {
+                return cv;
+            }
+            String name = cv.getClass().getName();
+            ProfilingClassVisitor probe = new ProfilingClassVisitor(cv, "visitor:" + name.substring(name.lastIndexOf('.') + 1));
+            probes.add(probe);
+            return probe;
+        }
+
+        /**
+         * Records the time spent in each stage of the chain.
+         *
+         * @param totalNanos the total time spent running the chain, any time not spent in a stage is attributed to
+         *                   reading the class
+         */
+        public void record(long totalNanos) {
+            if (profiler == null || probes.isEmpty()) {
+                return;
+            }
+            long inner = 0;
+            for (ProfilingClassVisitor probe : probes) {
+                profiler.recordTime(probe.getStage(), probe.getNanos() - inner);
+                inner = probe.getNanos();
+            }
+            profiler.recordTime("ClassReader", totalNanos - inner);
+        }
+    }
+}
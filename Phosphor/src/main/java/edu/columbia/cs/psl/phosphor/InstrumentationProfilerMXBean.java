@@ -0,0 +1,42 @@
+package edu.columbia.cs.psl.phosphor;
+
+import java.util.Map;
+
+/**
+ * Management interface for the metrics collected by {@link InstrumentationProfiler}.
+ */
+public interface InstrumentationProfilerMXBean {
+
+    long getClassesInstrumented();
+
+    long getClassesSkipped();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getRetries();
+
+    long getFailures();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    /**
+     * @return for each stage of instrumentation, the total number of nanoseconds spent in that stage
+     */
+    Map<String, Long> getStageNanos();
+
+    /**
+     * @return for each stage of instrumentation, the number of times that stage was timed
+     */
+    Map<String, Long> getStageCounts();
+
+    /**
+     * @return all of the collected metrics as a JSON object
+     */
+    String toJson();
+
+    void reset();
+}
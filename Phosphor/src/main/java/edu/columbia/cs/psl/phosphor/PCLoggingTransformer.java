@@ -4,14 +4,10 @@ import edu.columbia.cs.psl.phosphor.instrumenter.*;
 import edu.columbia.cs.psl.phosphor.instrumenter.asm.OffsetPreservingClassReader;
 import edu.columbia.cs.psl.phosphor.org.objectweb.asm.commons.OurSerialVersionUIDAdder;
 import edu.columbia.cs.psl.phosphor.runtime.StringUtils;
-import edu.columbia.cs.psl.phosphor.runtime.TaintInstrumented;
-import edu.columbia.cs.psl.phosphor.struct.TaintedWithObjTag;
 import edu.columbia.cs.psl.phosphor.struct.harmony.util.HashSet;
-import edu.columbia.cs.psl.phosphor.struct.harmony.util.LinkedList;
 import edu.columbia.cs.psl.phosphor.struct.harmony.util.List;
 import edu.columbia.cs.psl.phosphor.struct.harmony.util.Set;
 import org.objectweb.asm.*;
-import org.objectweb.asm.tree.AnnotationNode;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.MethodNode;
@@ -45,36 +41,28 @@ public final class PCLoggingTransformer extends PhosphorBaseTransformer {
             return classfileBuffer;
         }
         Configuration.taintTagFactory.instrumentationStarting(className);
+        InstrumentationProfiler profiler = InstrumentationProfiler.getInstance();
         try {
-            ClassNode cn = new ClassNode();
-            cr.accept(cn, ClassReader.SKIP_CODE);
+            long start = InstrumentationProfiler.start();
+            ClassPreScan scan = ClassPreScan.scan(cr);
+            InstrumentationProfiler.stop("ClassPreScan", start);
+            if (scan.isAlreadyInstrumented()) {
+                if (profiler != null) {
+                    profiler.classSkipped();
+                }
+                return classfileBuffer;
+            }
+            int version = scan.getVersion();
             boolean upgradeVersion = false;
             if (className.equals("org/jruby/parser/Ruby20YyTables")) {
-                cn.version = 51;
+                version = 51;
                 upgradeVersion = true;
             }
-            if (cn.invisibleAnnotations != null) {
-                for (Object o : cn.invisibleAnnotations) {
-                    AnnotationNode an = (AnnotationNode) o;
-                    if (an.desc.equals(Type.getDescriptor(TaintInstrumented.class))) {
-                        return classfileBuffer;
-                    }
-                }
-            }
-            if (cn.interfaces != null) {
-                for (Object s : cn.interfaces) {
-                    if (s.equals(Type.getInternalName(TaintedWithObjTag.class))) {
-                        return classfileBuffer;
-                    }
-                }
-            }
-            for (Object mn : cn.methods) {
-                if (((MethodNode) mn).name.equals("getPHOSPHOR_TAG")) {
-                    return classfileBuffer;
-                }
-            }
             if (Phosphor.CACHE != null) {
                 byte[] cachedClass = Phosphor.CACHE.load(className, classfileBuffer);
+                if (profiler != null) {
+                    profiler.cacheLookup(cachedClass != null);
+                }
                 if (cachedClass != null) {
                     return cachedClass;
                 }
@@ -93,20 +81,22 @@ public final class PCLoggingTransformer extends PhosphorBaseTransformer {
                     ex.printStackTrace();
                 }
             }
-            boolean isiFace = (cn.access & Opcodes.ACC_INTERFACE) != 0;
-            List<FieldNode> fields = new LinkedList<>();
-            for (FieldNode node : cn.fields) {
-                fields.add(node);
-            }
-            boolean skipFrames = LegacyClassFixer.shouldFixFrames(cn, className, cr);
+            boolean isiFace = scan.isInterface();
+            List<FieldNode> fields = scan.getFields();
+            start = InstrumentationProfiler.start();
+            boolean skipFrames = LegacyClassFixer.shouldFixFrames(version, className, cr);
             if (skipFrames) {
                 // This class is old enough to not guarantee frames.
                 // Generate new frames for analysis reasons, then make sure to not emit ANY frames.
                 cr = LegacyClassFixer.fix(cr);
             }
+            InstrumentationProfiler.stop("LegacyClassFixer", start);
             try {
                 byte[] instrumentedBytes = instrumentWithRetry(cr, classfileBuffer, isiFace, className, skipFrames,
                         upgradeVersion, fields, null, false, isAnonymousClassDefinition);
+                if (profiler != null) {
+                    profiler.classInstrumented(classfileBuffer.length, instrumentedBytes.length);
+                }
                 if (Phosphor.DEBUG) {
                     File f = new File("debug/" + className + ".class");
                     f.getParentFile().mkdirs();
@@ -134,7 +124,8 @@ public final class PCLoggingTransformer extends PhosphorBaseTransformer {
         try {
             try {
                 ClassWriter cw = new HackyClassWriter(null, ClassWriter.COMPUTE_MAXS);
-                ClassVisitor _cv = cw;
+                InstrumentationProfiler.VisitorChain chain = new InstrumentationProfiler.VisitorChain();
+                ClassVisitor _cv = chain.probe(cw);
                 if (traceClass) {
                     System.out.println("Saving " + className + " to debug-preinst/");
                     File f = new File("debug-preinst/" + className.replace("/", ".") +
@@ -151,55 +142,61 @@ public final class PCLoggingTransformer extends PhosphorBaseTransformer {
                         }
                     }
                     debugTracer = new TraceClassVisitor(null, null);
-                    _cv = debugTracer;
+                    _cv = chain.probe(debugTracer);
                 }
                 if (Configuration.POST_CLASS_VISITOR != null) {
                     try {
                         Constructor<? extends ClassVisitor> extra = Configuration.POST_CLASS_VISITOR
                                 .getConstructor(ClassVisitor.class, Boolean.TYPE, byte[].class);
-                        _cv = extra.newInstance(_cv, skipFrames, classFileBuffer);
+                        _cv = chain.probe(extra.newInstance(_cv, skipFrames, classFileBuffer));
                     } catch (Exception e) {
                         //
                     }
                 }
                 if (Phosphor.DEBUG || TaintUtils.VERIFY_CLASS_GENERATION) {
-                    _cv = new CheckClassAdapter(_cv, false);
+                    _cv = chain.probe(new CheckClassAdapter(_cv, false));
                 }
                 if (SerializationFixingCV.isApplicable(className)) {
-                    _cv = new SerializationFixingCV(_cv, className);
+                    _cv = chain.probe(new SerializationFixingCV(_cv, className));
                 }
-                _cv = new ClinitRetransformClassVisitor(_cv);
+                _cv = chain.probe(new ClinitRetransformClassVisitor(_cv));
                 boolean isGenerateConstructorAccessor = StringUtils.startsWith(className, "sun/reflect/GeneratedConstructor")
                         || StringUtils.startsWith(className, "jdk/internal/reflect/GeneratedConstructor"); // Calculating SVUID could trigger constructor generation causing stack overflow/infinite recursion
-                if (isiFace || isGenerateConstructorAccessor) {
-                    _cv = new TaintTrackingClassVisitor(_cv, skipFrames, fields, methodsToReduceSizeOf, isAnonymousClassDefinition);
-                } else {
-                    _cv = new OurSerialVersionUIDAdder(new TaintTrackingClassVisitor(_cv, skipFrames, fields,
-                            methodsToReduceSizeOf, isAnonymousClassDefinition));
+                _cv = chain.probe(new TaintTrackingClassVisitor(_cv, skipFrames, fields, methodsToReduceSizeOf,
+                        isAnonymousClassDefinition));
+                if (!isiFace && !isGenerateConstructorAccessor) {
+                    _cv = chain.probe(new OurSerialVersionUIDAdder(_cv));
                 }
                 if (EclipseCompilerCV.isEclipseCompilerClass(className)) {
-                    _cv = new EclipseCompilerCV(_cv);
+                    _cv = chain.probe(new EclipseCompilerCV(_cv));
                 }
                 if (OgnlUtilCV.isOgnlUtilClass(className) && !Configuration.REENABLE_CACHES) {
-                    _cv = new OgnlUtilCV(_cv);
+                    _cv = chain.probe(new OgnlUtilCV(_cv));
                 }
                 if (JettyBufferUtilCV.isApplicable(className)) {
-                    _cv = new JettyBufferUtilCV(_cv);
+                    _cv = chain.probe(new JettyBufferUtilCV(_cv));
                 }
                 if (PowerMockUtilCV.isApplicable(className)) {
-                    _cv = new PowerMockUtilCV(_cv);
+                    _cv = chain.probe(new PowerMockUtilCV(_cv));
                 }
                 if (Configuration.PRIOR_CLASS_VISITOR != null) {
                     try {
                         Constructor<? extends ClassVisitor> extra = Configuration.PRIOR_CLASS_VISITOR.getConstructor(ClassVisitor.class, Boolean.TYPE);
-                        _cv = extra.newInstance(_cv, skipFrames);
+                        _cv = chain.probe(extra.newInstance(_cv, skipFrames));
                     } catch (Exception e) {
                         //
                     }
                 }
+                long start = InstrumentationProfiler.start();
                 cr.accept(_cv, ClassReader.EXPAND_FRAMES);
+                if (start != 0) {
+                    chain.record(System.nanoTime() - start);
+                }
+                start = InstrumentationProfiler.start();
                 byte[] instrumentedBytes = cw.toByteArray();
+                InstrumentationProfiler.stop("ClassWriter.toByteArray", start);
                 if (!traceClass && (Phosphor.DEBUG || TaintUtils.VERIFY_CLASS_GENERATION)) {
+                    start = InstrumentationProfiler.start();
                     ClassReader cr2 = new ClassReader(instrumentedBytes);
                     try {
                         cr2.accept(new CheckClassAdapter(new ClassWriter(0), true), ClassReader.EXPAND_FRAMES);
@@ -233,20 +230,30 @@ public final class PCLoggingTransformer extends PhosphorBaseTransformer {
                             }
                         }
                     }
+                    InstrumentationProfiler.stop("verification", start);
                 }
                 return instrumentedBytes;
             } catch (MethodTooLargeException ex) {
+                // Oversized methods are not predicted from their original code length because instrumentation can
+                // grow a method anywhere from barely at all (e.g., array literal initializers) to several times over,
+                // and methods in this set are instrumented with reduced or disabled taint tracking
                 if (methodsToReduceSizeOf == null) {
                     methodsToReduceSizeOf = new HashSet<>();
                 }
                 if (!methodsToReduceSizeOf.add(ex.getMethodName() + ex.getDescriptor())) {
                     throw ex; //We already tried and failed to make this fit :(
                 }
+                if (InstrumentationProfiler.getInstance() != null) {
+                    InstrumentationProfiler.getInstance().retried();
+                }
                 return instrumentWithRetry(cr, classFileBuffer, isiFace, className, skipFrames, upgradeVersion, fields, methodsToReduceSizeOf, false, isAnonymousClassDefinition);
             }
         } catch (Throwable ex) {
             Phosphor.INSTRUMENTATION_EXCEPTION_OCCURRED = true;
             if (!traceClass) {
+                if (InstrumentationProfiler.getInstance() != null) {
+                    InstrumentationProfiler.getInstance().failed();
+                }
                 System.err.println("Exception occurred while instrumenting " + className + ":");
                 ex.printStackTrace();
                 instrumentWithRetry(cr, classFileBuffer, isiFace, className, skipFrames, upgradeVersion, fields, methodsToReduceSizeOf, true, isAnonymousClassDefinition);
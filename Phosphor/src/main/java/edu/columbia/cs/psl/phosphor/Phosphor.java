@@ -3,6 +3,7 @@ package edu.columbia.cs.psl.phosphor;
 import edu.columbia.cs.psl.phosphor.instrumenter.InvokedViaInstrumentation;
 import edu.columbia.cs.psl.phosphor.instrumenter.TaintMethodRecord;
 import edu.columbia.cs.psl.phosphor.runtime.StringUtils;
+import edu.columbia.cs.psl.phosphor.runtime.TaintMetrics;
 import edu.columbia.cs.psl.phosphor.struct.SinglyLinkedList;
 
 import static edu.columbia.cs.psl.phosphor.Configuration.controlFlowManagerPackage;
@@ -31,7 +32,15 @@ public final class Phosphor {
             CACHE = TransformationCache.getInstance(System.getProperty("phosphorCacheDirectory"));
         }
         BasicSourceSinkManager.init();
-        instrumentation.addTransformer(new PCLoggingTransformer());
+        if (Configuration.TAINT_METRICS) {
+            TaintMetrics.start();
+        }
+        if (Configuration.PREFETCH_THREADS > 0) {
+            instrumentation.addTransformer(TransformationPrefetcher.create(new PCLoggingTransformer(),
+                    System.getProperty("java.class.path"), Configuration.PREFETCH_THREADS));
+        } else {
+            instrumentation.addTransformer(new PCLoggingTransformer());
+        }
         instrumentation.addTransformer(new SourceSinkTransformer(), true);
     }
 
@@ -3,6 +3,7 @@ package edu.columbia.cs.psl.phosphor;
 import edu.columbia.cs.psl.phosphor.control.ControlFlowManager;
 import edu.columbia.cs.psl.phosphor.control.standard.StandardControlFlowManager;
 import edu.columbia.cs.psl.phosphor.instrumenter.TaintTagFactory;
+import edu.columbia.cs.psl.phosphor.runtime.DerivedTaintListener;
 import edu.columbia.cs.psl.phosphor.runtime.TaintSourceWrapper;
 import org.apache.commons.cli.*;
 import org.objectweb.asm.ClassVisitor;
@@ -111,6 +112,28 @@ public enum PhosphorOption {
             Configuration.REENABLE_CACHES = isPresent;
         }
     },
+    TAINT_LIVENESS_ANALYSIS(new PhosphorOptionBuilder("Remove stores to shadow taint local variables whose taint " +
+            "tags are never read", true, true).alternativeName("taintLiveness")) {
+        @Override
+        public void configure(boolean forRuntimeInst, boolean isPresent, CommandLine commandLine) {
+            Configuration.TAINT_LIVENESS_ANALYSIS = isPresent;
+        }
+    },
+    TAINT_CONSTANT_PROPAGATION(new PhosphorOptionBuilder("Remove operations that combine taint tags with taint tags " +
+            "that are provably empty", true, true).alternativeName("taintConstants")) {
+        @Override
+        public void configure(boolean forRuntimeInst, boolean isPresent, CommandLine commandLine) {
+            Configuration.TAINT_CONSTANT_PROPAGATION = isPresent;
+        }
+    },
+    STRING_CONCAT_BOOTSTRAP(new PhosphorOptionBuilder("Bootstrap invokedynamic string concatenations with a " +
+            "Phosphor method that copies the taint tags of each argument to the result instead of using " +
+            "StringConcatFactory", true, true).alternativeName("stringConcat")) {
+        @Override
+        public void configure(boolean forRuntimeInst, boolean isPresent, CommandLine commandLine) {
+            Configuration.STRING_CONCAT_BOOTSTRAP = isPresent;
+        }
+    },
     IMPLICIT_HEADERS_NO_TRACKING(new PhosphorOptionBuilder("Add method headers for doing implicit tracking, but " +
             "don't actually propagate them", true, false)
             .group(PhosphorOptionGroup.CONTROL_PROPAGATION)) {
@@ -196,6 +219,47 @@ public enum PhosphorOption {
                     null;
         }
     },
+    PREFETCH_THREADS(new PhosphorOptionBuilder("Number of background threads used to instrument the classes in " +
+            "the JARs on the class path before they are loaded", false, true)
+            .argType(String.class).alternativeName("prefetch")) {
+        @Override
+        public void configure(boolean forRuntimeInst, boolean isPresent, CommandLine commandLine) {
+            Configuration.PREFETCH_THREADS = 0;
+            if(isPresent) {
+                try {
+                    Configuration.PREFETCH_THREADS = Math.max(0, Integer.parseInt(commandLine.getOptionValue(optionName)));
+                } catch(NumberFormatException e) {
+                    System.err.println("Invalid number of prefetch threads: " + commandLine.getOptionValue(optionName));
+                }
+            }
+        }
+    },
+    TAINT_METRICS(new PhosphorOptionBuilder("Collect counters for taint propagation and expose them through " +
+            "JMX; the argument is the number of seconds between snapshots written to standard error or 0 for none",
+            true, true).argType(String.class).alternativeName("taintMetrics")) {
+        @Override
+        public void configure(boolean forRuntimeInst, boolean isPresent, CommandLine commandLine) {
+            // Not reset when absent so that a value embedded into an instrumented JDK is kept at runtime
+            if(isPresent) {
+                Configuration.TAINT_METRICS = true;
+                try {
+                    Configuration.TAINT_METRICS_LOG_INTERVAL = Math.max(0, Integer.parseInt(commandLine.getOptionValue(optionName)));
+                } catch(NumberFormatException e) {
+                    System.err.println("Invalid taint metrics interval: " + commandLine.getOptionValue(optionName));
+                }
+            }
+        }
+    },
+    INSTRUMENTATION_PROFILE(new PhosphorOptionBuilder("Record the time spent in each stage of instrumentation and " +
+            "write it as JSON to the specified file when the JVM exits", true, true)
+            .argType(String.class).alternativeName("profileInstrumentation")) {
+        @Override
+        public void configure(boolean forRuntimeInst, boolean isPresent, CommandLine commandLine) {
+            if(isPresent) {
+                InstrumentationProfiler.enable(commandLine.getOptionValue(optionName));
+            }
+        }
+    },
     TAINT_SOURCES(new PhosphorOptionBuilder(null, false, true).argType(String.class)) {
         @Override
         public void configure(boolean forRuntimeInst, boolean isPresent, CommandLine commandLine) {
@@ -251,6 +315,23 @@ public enum PhosphorOption {
             }
         }
     },
+    DERIVED_TAINT_LISTENER(new PhosphorOptionBuilder("Install an instance of the specified DerivedTaintListener " +
+            "subclass to be notified of derived taint tags", false, true).argType(Class.class)) {
+        @Override
+        public void configure(boolean forRuntimeInst, boolean isPresent, CommandLine commandLine) {
+            if(isPresent) {
+                try {
+                    @SuppressWarnings("unchecked")
+                    Class<? extends DerivedTaintListener> clazz = (Class<? extends DerivedTaintListener>) commandLine.getParsedOptionValue(optionName);
+                    if(clazz != null) {
+                        Configuration.derivedTaintListener = clazz.newInstance();
+                    }
+                } catch(Exception e) {
+                    System.err.println("Failed to create derived taint listener: " + commandLine.getOptionValue(optionName));
+                }
+            }
+        }
+    },
     TAINT_TAG_FACTORY(new PhosphorOptionBuilder(null, true, true).argType(Class.class)) {
         @Override
         public void configure(boolean forRuntimeInst, boolean isPresent, CommandLine commandLine) {
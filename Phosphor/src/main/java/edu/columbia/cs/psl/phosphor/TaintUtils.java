@@ -105,11 +105,8 @@ public class TaintUtils {
         if (src instanceof TaggedArray && dest instanceof TaggedArray) {
             TaggedArray destArr = (TaggedArray) dest;
             TaggedArray srcArr = (TaggedArray) src;
-            if (srcArr.taints != null) {
-                if (destArr.taints == null) {
-                    destArr.taints = new Taint[destArr.getLength()];
-                }
-                System.arraycopy(srcArr.taints, srcPos, destArr.taints, destPos, length);
+            if (srcArr.hasTaints()) {
+                srcArr.copyTaints(srcPos, destArr, destPos, length);
             }
         }
     }
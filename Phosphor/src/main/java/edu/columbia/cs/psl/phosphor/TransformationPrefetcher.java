@@ -0,0 +1,269 @@
+package edu.columbia.cs.psl.phosphor;
+
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.ConcurrentHashMap;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.HashSet;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.Set;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Wraps the transformer used in agent mode and speculatively instruments the classes found in the JARs on the class
+ * path on a pool of background threads. When a class is loaded, its instrumented bytes are taken from the prefetched
+ * results if its original bytes are identical to the bytes that were prefetched, otherwise the class is instrumented
+ * on the loading thread as usual. Classes are prefetched in the order they appear on the class path and in their JARs.
+ * Prefetched classes are stored in memory until they are loaded; instrumented classes are also written to the
+ * {@link TransformationCache} if one is configured.
+ */
+public final class TransformationPrefetcher extends PhosphorBaseTransformer {
+
+    /**
+     * Maximum number of bytes of original and instrumented class files held in memory waiting to be loaded
+     */
+    private static final long MAX_PENDING_BYTES = 128L * 1024 * 1024;
+    /**
+     * Marks a class that is being instrumented by a worker
+     */
+    private static final Object IN_PROGRESS = new Object();
+    /**
+     * Marks a class that has already been requested by a class loader and should not be prefetched
+     */
+    private static final Object CLAIMED = new Object();
+
+    private final PhosphorBaseTransformer delegate;
+    private final List<String> classPath;
+    private final int numberOfThreads;
+    /**
+     * Maps the names of classes to a {@link PrefetchedClass}, {@link #IN_PROGRESS} or {@link #CLAIMED}
+     */
+    private final ConcurrentHashMap<String, Object> classes = new ConcurrentHashMap<>();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final AtomicInteger prefetched = new AtomicInteger();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger stale = new AtomicInteger();
+    /**
+     * The names of the classes found on the class path or null if the workers have not been started
+     */
+    private volatile Set<String> prefetchable = null;
+
+    TransformationPrefetcher(PhosphorBaseTransformer delegate, List<String> classPath, int numberOfThreads) {
+        this.delegate = delegate;
+        this.classPath = classPath;
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                            ProtectionDomain protectionDomain, byte[] classfileBuffer,
+                            boolean isAnonymousClassDefinition) {
+        Set<String> names = prefetchable;
+        if (names == null) {
+            // Workers are started once the first class is transformed so that Phosphor has finished initializing
+            names = start();
+        }
+        if (className != null && classBeingRedefined == null && !isAnonymousClassDefinition
+                && names.contains(className)) {
+            Object value = classes.putIfAbsent(className, CLAIMED);
+            if (value instanceof PrefetchedClass && classes.remove(className, value)) {
+                PrefetchedClass prefetchedClass = (PrefetchedClass) value;
+                pendingBytes.addAndGet(-prefetchedClass.size());
+                if (Arrays.equals(prefetchedClass.original, classfileBuffer)) {
+                    hits.incrementAndGet();
+                    return prefetchedClass.instrumented;
+                }
+                stale.incrementAndGet();
+            } else if (value == null) {
+                // No worker has reached the class yet
+                misses.incrementAndGet();
+            } else if (value == IN_PROGRESS && classes.replace(className, IN_PROGRESS, CLAIMED)) {
+                // The worker's result will be discarded
+                misses.incrementAndGet();
+            }
+        }
+        return delegate.transform(loader, className, classBeingRedefined, protectionDomain, classfileBuffer,
+                isAnonymousClassDefinition);
+    }
+
+    private synchronized Set<String> start() {
+        if (prefetchable != null) {
+            return prefetchable;
+        }
+        final List<String> classNames = new ArrayList<>();
+        final List<String> classSources = new ArrayList<>();
+        for (String entry : classPath) {
+            if (entry.endsWith(".jar") && new File(entry).isFile()) {
+                try (JarFile jar = new JarFile(entry)) {
+                    for (Enumeration<JarEntry> e = jar.entries(); e.hasMoreElements(); ) {
+                        String name = e.nextElement().getName();
+                        if (name.endsWith(".class") && !name.startsWith("META-INF/")
+                                && !name.endsWith("module-info.class")) {
+                            classNames.add(name.substring(0, name.length() - ".class".length()));
+                            classSources.add(entry);
+                        }
+                    }
+                } catch (IOException e) {
+                    // Skip unreadable entries
+                }
+            }
+        }
+        Set<String> names = new HashSet<>(classNames.size());
+        for (String className : classNames) {
+            names.add(className);
+        }
+        prefetchable = names;
+        final AtomicInteger next = new AtomicInteger();
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    prefetch(classNames, classSources, next);
+                }
+            }, "Phosphor-Prefetch-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                printStatistics(classNames.size());
+            }
+        }, "Phosphor-Prefetch-Statistics"));
+        return names;
+    }
+
+    private void prefetch(List<String> classNames, List<String> classSources, AtomicInteger next) {
+        JarFile jar = null;
+        try {
+            for (int i = next.getAndIncrement(); i < classNames.size(); i = next.getAndIncrement()) {
+                if (pendingBytes.get() > MAX_PENDING_BYTES) {
+                    return;
+                }
+                String className = classNames.get(i);
+                if (classes.putIfAbsent(className, IN_PROGRESS) != null) {
+                    continue;
+                }
+                try {
+                    if (jar == null || !jar.getName().equals(classSources.get(i))) {
+                        if (jar != null) {
+                            jar.close();
+                        }
+                        jar = new JarFile(classSources.get(i));
+                    }
+                    byte[] original = readEntry(jar, className + ".class");
+                    byte[] instrumented = delegate.transform(null, className, null, null, original, false);
+                    if (instrumented != null) {
+                        PrefetchedClass prefetchedClass = new PrefetchedClass(original, instrumented);
+                        pendingBytes.addAndGet(prefetchedClass.size());
+                        if (classes.replace(className, IN_PROGRESS, prefetchedClass)) {
+                            prefetched.incrementAndGet();
+                        } else {
+                            pendingBytes.addAndGet(-prefetchedClass.size());
+                        }
+                    } else {
+                        classes.remove(className, IN_PROGRESS);
+                    }
+                } catch (Throwable t) {
+                    // The class will be instrumented when it is loaded
+                    classes.remove(className, IN_PROGRESS);
+                }
+            }
+        } finally {
+            if (jar != null) {
+                try {
+                    jar.close();
+                } catch (IOException e) {
+                    //
+                }
+            }
+        }
+    }
+
+    private void printStatistics(int numberOfClasses) {
+        int unused = 0;
+        for (Object value : classes.values()) {
+            if (value instanceof PrefetchedClass) {
+                unused++;
+            }
+        }
+        int requests = hits.get() + misses.get() + stale.get();
+        System.err.printf("Phosphor prefetch: %d of %d class path classes prefetched, %d never loaded; "
+                        + "%d hits, %d misses, %d stale (hit rate %.1f%% of prefetchable loads)%n",
+                prefetched.get(), numberOfClasses, unused, hits.get(), misses.get(), stale.get(),
+                requests == 0 ? 0.0 : 100.0 * hits.get() / requests);
+    }
+
+    int getHits() {
+        return hits.get();
+    }
+
+    int getMisses() {
+        return misses.get();
+    }
+
+    int getStale() {
+        return stale.get();
+    }
+
+    int getPrefetched() {
+        return prefetched.get();
+    }
+
+    private static byte[] readEntry(JarFile jar, String name) throws IOException {
+        JarEntry entry = jar.getJarEntry(name);
+        try (InputStream in = jar.getInputStream(entry)) {
+            byte[] buffer = new byte[entry.getSize() > 0 ? (int) entry.getSize() : 4096];
+            int length = 0;
+            for (int read; (read = in.read(buffer, length, buffer.length - length)) != -1; ) {
+                length += read;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+        }
+    }
+
+    /**
+     * @param delegate        the transformer whose results should be prefetched
+     * @param classPath       the class path whose JARs should be prefetched, separated by the platform path separator
+     * @param numberOfThreads the number of worker threads used to instrument classes
+     * @return a transformer that returns prefetched results of the specified transformer when they are available
+     */
+    public static TransformationPrefetcher create(PhosphorBaseTransformer delegate, String classPath,
+                                                  int numberOfThreads) {
+        List<String> entries = new ArrayList<>();
+        if (classPath != null) {
+            for (String entry : classPath.split(File.pathSeparator)) {
+                if (!entry.isEmpty()) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return new TransformationPrefetcher(delegate, entries, numberOfThreads);
+    }
+
+    private static final class PrefetchedClass {
+        private final byte[] original;
+        private final byte[] instrumented;
+
+        PrefetchedClass(byte[] original, byte[] instrumented) {
+            this.original = original;
+            this.instrumented = instrumented;
+        }
+
+        long size() {
+            return original.length + instrumented.length;
+        }
+    }
+}
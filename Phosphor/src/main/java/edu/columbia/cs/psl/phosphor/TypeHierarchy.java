@@ -0,0 +1,163 @@
+package edu.columbia.cs.psl.phosphor;
+
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.ConcurrentHashMap;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.HashSet;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.Set;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.InputStream;
+
+/**
+ * Finds the common superclasses of classes by reading the headers of their class files instead of loading them.
+ * Headers are read from the resources of a class loader when instrumenting statically and from
+ * {@link ClassNodeCache} when instrumenting at runtime. The supertypes of every class that has been queried are cached
+ * and can be shared by concurrent instrumentation threads.
+ */
+public final class TypeHierarchy {
+
+    private static final String OBJECT = "java/lang/Object";
+
+    /**
+     * Marks a class whose class file or one of whose supertypes' class files could not be found
+     */
+    private static final TypeInfo MISSING = new TypeInfo(null, false, new HashSet<String>());
+
+    private static volatile TypeHierarchy instance = null;
+
+    /**
+     * The loader whose resources are searched for class files or null if {@link ClassNodeCache} should be used
+     */
+    private final ClassLoader loader;
+    private final ConcurrentHashMap<String, TypeInfo> types = new ConcurrentHashMap<>();
+
+    TypeHierarchy(ClassLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * @return the hierarchy for the classes being instrumented, which are found using {@link Phosphor#bigLoader} when
+     * instrumenting statically
+     */
+    public static TypeHierarchy getInstance() {
+        ClassLoader loader = Phosphor.RUNTIME_INST ? null : Phosphor.bigLoader;
+        TypeHierarchy hierarchy = instance;
+        if (hierarchy == null || hierarchy.loader != loader) {
+            hierarchy = new TypeHierarchy(loader);
+            instance = hierarchy;
+        }
+        return hierarchy;
+    }
+
+    /**
+     * @return the internal name of the most specific common superclass of the two specified classes following the
+     * contract of {@link org.objectweb.asm.ClassWriter#getCommonSuperClass(String, String)}, or java/lang/Object if
+     * either class or any of its supertypes could not be found
+     */
+    public String getCommonSuperClass(String type1, String type2) {
+        if (type1.equals(type2)) {
+            return type1;
+        }
+        TypeInfo info1 = getTypeInfo(type1);
+        TypeInfo info2 = getTypeInfo(type2);
+        if (info1 == MISSING || info2 == MISSING) {
+            return OBJECT;
+        } else if (info2.supertypes.contains(type1)) {
+            return type1;
+        } else if (info1.supertypes.contains(type2)) {
+            return type2;
+        } else if (info1.isInterface || info2.isInterface) {
+            return OBJECT;
+        }
+        String current = info1.superName;
+        while (current != null && !info2.supertypes.contains(current)) {
+            current = getTypeInfo(current).superName;
+        }
+        return current == null ? OBJECT : current;
+    }
+
+    private TypeInfo getTypeInfo(String type) {
+        TypeInfo info = types.get(type);
+        if (info == null) {
+            info = createTypeInfo(type);
+            TypeInfo existing = types.putIfAbsent(type, info);
+            if (existing != null) {
+                info = existing;
+            }
+        }
+        return info;
+    }
+
+    private TypeInfo createTypeInfo(String type) {
+        if (type.startsWith("[")) {
+            return MISSING;
+        }
+        ClassNode header = readHeader(type);
+        if (header == null) {
+            return MISSING;
+        }
+        Set<String> supertypes = new HashSet<>();
+        if (header.superName != null && !addSupertypes(header.superName, supertypes)) {
+            return MISSING;
+        }
+        if (header.interfaces != null) {
+            for (String anInterface : header.interfaces) {
+                if (!addSupertypes(anInterface, supertypes)) {
+                    return MISSING;
+                }
+            }
+        }
+        return new TypeInfo(header.superName, (header.access & Opcodes.ACC_INTERFACE) != 0, supertypes);
+    }
+
+    /**
+     * Adds the specified type and all of its supertypes to the specified set.
+     *
+     * @return false if the specified type or one of its supertypes could not be found
+     */
+    private boolean addSupertypes(String type, Set<String> supertypes) {
+        TypeInfo info = getTypeInfo(type);
+        if (info == MISSING) {
+            return false;
+        }
+        supertypes.add(type);
+        supertypes.addAll(info.supertypes);
+        return true;
+    }
+
+    private ClassNode readHeader(String type) {
+        if (loader == null) {
+            return ClassNodeCache.getClassNode(type);
+        }
+        try (InputStream in = loader.getResourceAsStream(type + ".class")) {
+            if (in == null) {
+                return null;
+            }
+            ClassReader cr = new ClassReader(in);
+            ClassNode header = new ClassNode();
+            header.name = cr.getClassName();
+            header.access = cr.getAccess();
+            header.superName = cr.getSuperName();
+            header.interfaces = java.util.Arrays.asList(cr.getInterfaces());
+            return header;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static final class TypeInfo {
+        private final String superName;
+        private final boolean isInterface;
+        /**
+         * Every proper supertype of this type, including interfaces
+         */
+        private final Set<String> supertypes;
+
+        TypeInfo(String superName, boolean isInterface, Set<String> supertypes) {
+            this.superName = superName;
+            this.isInterface = isInterface;
+            this.supertypes = supertypes;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package edu.columbia.cs.psl.phosphor.agent;
 
 import edu.columbia.cs.psl.phosphor.Configuration;
+import edu.columbia.cs.psl.phosphor.runtime.TaintMetrics;
 import edu.columbia.cs.psl.phosphor.runtime.jdk.unsupported.UnsafeProxy;
 import org.objectweb.asm.*;
 import org.objectweb.asm.tree.ClassNode;
@@ -27,6 +28,8 @@ public class EmbeddedPhosphorPatcher {
     public byte[] patch(String name, byte[] content) throws IOException {
         if (name.equals("edu/columbia/cs/psl/phosphor/Configuration.class")) {
             return setConfigurationVersion(new ByteArrayInputStream(content));
+        } else if (name.equals("edu/columbia/cs/psl/phosphor/runtime/TaintMetrics.class")) {
+            return embedTaintMetricsFlag(new ByteArrayInputStream(content));
         } else if (name.equals("edu/columbia/cs/psl/phosphor/runtime/RuntimeJDKInternalUnsafePropagator.class")) {
             return transformUnsafePropagator(
                     new ByteArrayInputStream(content), "jdk/internal/misc/Unsafe", patchUnsafeNames);
@@ -69,6 +72,40 @@ public class EmbeddedPhosphorPatcher {
         return cw.toByteArray();
     }
 
+    /**
+     * Modify {@link TaintMetrics} to set {@link TaintMetrics#ENABLED} to the current value of
+     * {@link Configuration#TAINT_METRICS} without reading {@link Configuration}.
+     * Stack frames are counted as soon as {@link Thread} is initialized which is too early to initialize
+     * {@link Configuration}.
+     */
+    private static byte[] embedTaintMetricsFlag(InputStream is) throws IOException {
+        ClassReader cr = new ClassReader(is);
+        ClassWriter cw = new ClassWriter(cr, 0);
+        ClassVisitor cv = new ClassVisitor(Configuration.ASM_VERSION, cw) {
+            @Override
+            public MethodVisitor visitMethod(
+                    int access, String name, String descriptor, String signature, String[] exceptions) {
+                MethodVisitor mv = super.visitMethod(access, name, descriptor, signature, exceptions);
+                if (!name.equals("<clinit>")) {
+                    return mv;
+                }
+                return new MethodVisitor(api, mv) {
+                    @Override
+                    public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+                        if (opcode == Opcodes.GETSTATIC && owner.equals(Type.getInternalName(Configuration.class))
+                                && name.equals("TAINT_METRICS")) {
+                            super.visitInsn(Configuration.TAINT_METRICS ? Opcodes.ICONST_1 : Opcodes.ICONST_0);
+                        } else {
+                            super.visitFieldInsn(opcode, owner, name, descriptor);
+                        }
+                    }
+                };
+            }
+        };
+        cr.accept(cv, 0);
+        return cw.toByteArray();
+    }
+
     public static byte[] transformUnsafePropagator(InputStream in, String unsafeInternalName, boolean patchUnsafeNames)
             throws IOException {
         ClassReader cr = new ClassReader(in);
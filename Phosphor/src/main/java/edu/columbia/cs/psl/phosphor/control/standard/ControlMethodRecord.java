@@ -2,7 +2,6 @@ package edu.columbia.cs.psl.phosphor.control.standard;
 
 import edu.columbia.cs.psl.phosphor.instrumenter.MethodRecord;
 import edu.columbia.cs.psl.phosphor.runtime.Taint;
-import edu.columbia.cs.psl.phosphor.struct.EnqueuedTaint;
 import edu.columbia.cs.psl.phosphor.struct.ExceptionalTaintData;
 import org.objectweb.asm.Type;
 
@@ -19,9 +18,9 @@ public enum ControlMethodRecord implements MethodRecord {
     STANDARD_CONTROL_STACK_POP_ALL_EXCEPTION(INVOKEVIRTUAL, StandardControlFlowStack.class, "pop", Void.TYPE, false, int[].class, ExceptionalTaintData.class),
     STANDARD_CONTROL_STACK_POP_ALL(INVOKEVIRTUAL, StandardControlFlowStack.class, "pop", Void.TYPE, false, int[].class),
     STANDARD_CONTROL_STACK_COPY_TAG(INVOKEVIRTUAL, StandardControlFlowStack.class, "copyTag", TAINT_TAG_OBJ_CLASS, false),
-    STANDARD_CONTROL_STACK_EXCEPTION_HANDLER_START(INVOKEVIRTUAL, StandardControlFlowStack.class, "exceptionHandlerStart", EnqueuedTaint.class, false, Throwable.class, Taint.class, EnqueuedTaint.class),
+    STANDARD_CONTROL_STACK_EXCEPTION_HANDLER_START(INVOKEVIRTUAL, StandardControlFlowStack.class, "exceptionHandlerStart", int.class, false, Throwable.class, Taint.class, int.class),
     STANDARD_CONTROL_STACK_EXCEPTION_HANDLER_START_TYPES(INVOKEVIRTUAL, StandardControlFlowStack.class, "exceptionHandlerStart", Void.TYPE, false, Class.class),
-    STANDARD_CONTROL_STACK_EXCEPTION_HANDLER_END(INVOKEVIRTUAL, StandardControlFlowStack.class, "exceptionHandlerEnd", Void.TYPE, false, EnqueuedTaint.class),
+    STANDARD_CONTROL_STACK_EXCEPTION_HANDLER_END(INVOKEVIRTUAL, StandardControlFlowStack.class, "exceptionHandlerEnd", Void.TYPE, false, int.class),
     STANDARD_CONTROL_STACK_TRY_BLOCK_END(INVOKEVIRTUAL, StandardControlFlowStack.class, "tryBlockEnd", Void.TYPE, false, Class.class),
     STANDARD_CONTROL_STACK_APPLY_POSSIBLY_UNTHROWN_EXCEPTION(INVOKEVIRTUAL, StandardControlFlowStack.class, "applyPossiblyUnthrownExceptionToTaint", Void.TYPE, false, Class.class),
     STANDARD_CONTROL_STACK_ADD_UNTHROWN_EXCEPTION(INVOKEVIRTUAL, StandardControlFlowStack.class, "addUnthrownException", Void.TYPE, false, ExceptionalTaintData.class, Class.class),
@@ -8,6 +8,8 @@ import edu.columbia.cs.psl.phosphor.control.standard.ForceControlStore.ForceCont
 import edu.columbia.cs.psl.phosphor.control.standard.ForceControlStore.ForceControlStoreLocal;
 import edu.columbia.cs.psl.phosphor.instrumenter.analyzer.BasicArrayInterpreter;
 import edu.columbia.cs.psl.phosphor.struct.Field;
+import edu.columbia.cs.psl.phosphor.struct.IntArrayList;
+import edu.columbia.cs.psl.phosphor.struct.IntObjectHashMap;
 import edu.columbia.cs.psl.phosphor.struct.SinglyLinkedList;
 import edu.columbia.cs.psl.phosphor.struct.harmony.util.*;
 import org.objectweb.asm.Opcodes;
@@ -25,7 +27,7 @@ public class StandardControlFlowAnalyzer implements ControlFlowAnalyzer {
 
     private final boolean shouldTrackExceptions;
     private final boolean isImplicitLightTracking;
-    Map<Integer, AnnotatedInstruction> implicitAnalysisBlocks = new HashMap<>();
+    IntObjectHashMap<AnnotatedInstruction> implicitAnalysisBlocks = new IntObjectHashMap<>();
     private int numberOfJumps;
     private int numberOfTryCatch;
     private int numberOfThrows;
@@ -64,11 +66,10 @@ public class StandardControlFlowAnalyzer implements ControlFlowAnalyzer {
                     AnnotatedInstruction startBlock = null;
                     AnnotatedInstruction handlerBlock = null;
                     AnnotatedInstruction endBlock = null;
-                    Integer startKey = null;
-                    Integer endKey = null;
-                    for(Map.Entry<Integer, AnnotatedInstruction> e : implicitAnalysisBlocks.entrySet()) {
-                        AnnotatedInstruction b = e.getValue();
-                        Integer i = e.getKey();
+                    int startKey = -1;
+                    int endKey = -1;
+                    for(int i : implicitAnalysisBlocks.keys()) {
+                        AnnotatedInstruction b = implicitAnalysisBlocks.get(i);
                         if(b.insn == t.handler) {
                             handlerBlock = b;
                         }
@@ -523,8 +524,10 @@ public class StandardControlFlowAnalyzer implements ControlFlowAnalyzer {
     private class FlowAnalyzer extends Analyzer<BasicValue> {
 
         protected int[] insnToLabel;
-        HashMap<Integer, LinkedList<Integer>> edges = new HashMap<>();
-        HashSet<String> visited = new HashSet<>();
+        /**
+         * Maps the index of each instruction to the indices of the instructions with a control flow edge to it
+         */
+        IntObjectHashMap<IntArrayList> edges = new IntObjectHashMap<>();
         InsnList instructions;
 
         public FlowAnalyzer(boolean isStatic, HashMap<AbstractInsnNode, String> referenceArraysToCheckCast, InsnList instructions) {
@@ -607,25 +610,23 @@ public class StandardControlFlowAnalyzer implements ControlFlowAnalyzer {
 
         @Override
         protected void newControlFlowEdge(int insn, int successor) {
-            if(visited.contains(insn + "-" + successor)) {
+            IntArrayList predecessors = edges.get(successor);
+            if(predecessors == null) {
+                predecessors = new IntArrayList();
+                edges.put(successor, predecessors);
+            } else if(predecessors.contains(insn)) {
+                // This edge was already visited
                 return;
             }
-            visited.add(insn + "-" + successor);
-            if(!edges.containsKey(successor)) {
-                edges.put(successor, new LinkedList<>());
-            }
-            if(!edges.get(successor).contains(insn)) {
-                edges.get(successor).add(insn);
-            }
+            predecessors.add(insn);
             AnnotatedInstruction fromBlock;
-            if(!implicitAnalysisBlocks.containsKey(insn)) {
+            fromBlock = implicitAnalysisBlocks.get(insn);
+            if(fromBlock == null) {
                 //insn not added yet
                 fromBlock = new AnnotatedInstruction();
                 fromBlock.idx = insn;
                 fromBlock.insn = instructions.get(insn);
                 implicitAnalysisBlocks.put(insn, fromBlock);
-            } else {
-                fromBlock = implicitAnalysisBlocks.get(insn);
             }
 
             AbstractInsnNode insnN = instructions.get(insn);
@@ -645,10 +646,8 @@ public class StandardControlFlowAnalyzer implements ControlFlowAnalyzer {
                         break;
                 }
             }
-            AnnotatedInstruction successorBlock;
-            if(implicitAnalysisBlocks.containsKey(successor)) {
-                successorBlock = implicitAnalysisBlocks.get(successor);
-            } else {
+            AnnotatedInstruction successorBlock = implicitAnalysisBlocks.get(successor);
+            if(successorBlock == null) {
                 successorBlock = new AnnotatedInstruction();
                 successorBlock.idx = successor;
                 successorBlock.insn = instructions.get(successor);
@@ -8,9 +8,9 @@ import edu.columbia.cs.psl.phosphor.control.LocalVariable;
 import edu.columbia.cs.psl.phosphor.control.standard.ForceControlStore.ForceControlStoreField;
 import edu.columbia.cs.psl.phosphor.control.standard.ForceControlStore.ForceControlStoreLocal;
 import edu.columbia.cs.psl.phosphor.instrumenter.MethodRecord;
-import edu.columbia.cs.psl.phosphor.struct.EnqueuedTaint;
 import edu.columbia.cs.psl.phosphor.struct.ExceptionalTaintData;
 import edu.columbia.cs.psl.phosphor.struct.Field;
+import edu.columbia.cs.psl.phosphor.struct.IntHashSet;
 import edu.columbia.cs.psl.phosphor.struct.SinglyLinkedList;
 import edu.columbia.cs.psl.phosphor.struct.harmony.util.HashSet;
 import edu.columbia.cs.psl.phosphor.struct.harmony.util.Map;
@@ -35,7 +35,7 @@ public class StandardControlFlowPropagationPolicy extends AbstractControlFlowPro
     /**
      * Set containing the indices of local variables that need to be force stored.
      */
-    private final Set<Integer> forceControlStoreVariables = new HashSet<>();
+    private final IntHashSet forceControlStoreVariables = new IntHashSet();
     /**
      * Set containing field that need to be force stored.
      */
@@ -58,7 +58,7 @@ public class StandardControlFlowPropagationPolicy extends AbstractControlFlowPro
     private int nextBranchID = -1;
 
     /**
-     * The local variable index of the EnqueuedTaint instance
+     * The local variable index of the int used to count the number of taints pushed for exception handlers
      */
     private int enqueuedTaintIndex = -1;
 
@@ -95,10 +95,9 @@ public class StandardControlFlowPropagationPolicy extends AbstractControlFlowPro
         numberOfUniqueBranchIDs = flowAnalyzer.getNumberOfUniqueBranchIDs();
         SinglyLinkedList<LocalVariable> newLocalVariables = new SinglyLinkedList<>();
         if(Configuration.IMPLICIT_EXCEPTION_FLOW && flowAnalyzer.getNumberOfTryCatch() > 0) {
-            enqueuedTaintIndex = localVariableManager.createPermanentLocalVariable(EnqueuedTaint.class, "enqueuedTaint");
-            mv.visitInsn(Opcodes.ACONST_NULL);
-            mv.visitVarInsn(ASTORE, enqueuedTaintIndex);
-            newLocalVariables.push(new LocalVariable(enqueuedTaintIndex, Type.getInternalName(EnqueuedTaint.class)));
+            enqueuedTaintIndex = localVariableManager.createPermanentLocalVariable(int.class, "enqueuedTaintCount");
+            mv.visitInsn(Opcodes.ICONST_0);
+            mv.visitVarInsn(ISTORE, enqueuedTaintIndex);
         }
         if(Configuration.IMPLICIT_EXCEPTION_FLOW && flowAnalyzer.getNumberOfThrows() > 0) {
             // Create a local variable for the exception data
@@ -314,7 +313,7 @@ public class StandardControlFlowPropagationPolicy extends AbstractControlFlowPro
             for(Field f : forceControlStoreFields) {
                 addControlTagsToOwnedField(f);
             }
-            for(int var : forceControlStoreVariables) {
+            for(int var : forceControlStoreVariables.toArray()) {
                 int shadowVar = -1;
                 if(analyzer.locals.size() <= var || analyzer.locals.get(var) == Opcodes.TOP) {
                     continue;
@@ -397,9 +396,9 @@ public class StandardControlFlowPropagationPolicy extends AbstractControlFlowPro
             delegate.visitVarInsn(ALOAD, localVariableManager.getIndexOfMasterControlLV());
             delegate.visitInsn(DUP_X2);
             delegate.visitInsn(POP);
-            delegate.visitVarInsn(ALOAD, enqueuedTaintIndex);
+            delegate.visitVarInsn(ILOAD, enqueuedTaintIndex);
             STANDARD_CONTROL_STACK_EXCEPTION_HANDLER_START.delegateVisit(delegate);
-            delegate.visitVarInsn(ASTORE, enqueuedTaintIndex);
+            delegate.visitVarInsn(ISTORE, enqueuedTaintIndex);
             executeForcedControlStores();
         } else {
             delegate.visitVarInsn(ALOAD, localVariableManager.getIndexOfMasterControlLV());
@@ -412,8 +411,10 @@ public class StandardControlFlowPropagationPolicy extends AbstractControlFlowPro
         if(type == null) {
             // End of a handler
             delegate.visitVarInsn(ALOAD, localVariableManager.getIndexOfMasterControlLV());
-            delegate.visitVarInsn(ALOAD, enqueuedTaintIndex);
+            delegate.visitVarInsn(ILOAD, enqueuedTaintIndex);
             STANDARD_CONTROL_STACK_EXCEPTION_HANDLER_END.delegateVisit(delegate);
+            delegate.visitInsn(ICONST_0);
+            delegate.visitVarInsn(ISTORE, enqueuedTaintIndex);
         } else {
             // End of a try block
             executeForcedControlStores();
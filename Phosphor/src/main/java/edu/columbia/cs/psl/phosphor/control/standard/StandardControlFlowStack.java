@@ -2,7 +2,6 @@ package edu.columbia.cs.psl.phosphor.control.standard;
 
 import edu.columbia.cs.psl.phosphor.control.ControlFlowStack;
 import edu.columbia.cs.psl.phosphor.runtime.Taint;
-import edu.columbia.cs.psl.phosphor.struct.EnqueuedTaint;
 import edu.columbia.cs.psl.phosphor.struct.ExceptionalTaintData;
 import edu.columbia.cs.psl.phosphor.struct.MaybeThrownException;
 import edu.columbia.cs.psl.phosphor.struct.SinglyLinkedList;
@@ -15,21 +14,58 @@ public class StandardControlFlowStack<E> extends ControlFlowStack {
     private static final StandardControlFlowStack disabledInstance = new StandardControlFlowStack(true);
     public static final int PUSHED = 1;
     public static final int NOT_PUSHED = 0;
+    private static final int INITIAL_CAPACITY = 8;
 
-    private final SinglyLinkedList<Taint<E>> taintHistory = new SinglyLinkedList<>();
+    /**
+     * Holds the taints pushed onto this stack, the elements between base and top (inclusive) are the live elements of
+     * this stack
+     */
+    private Taint<E>[] taintHistory;
+    /**
+     * Index of the first element of taintHistory that belongs to this stack. Only non-zero for a stack created by
+     * copyTop that is still sharing the array of the stack that it was copied from.
+     */
+    private int base;
+    /**
+     * Index of the element at the top of this stack
+     */
+    private int top;
+    /**
+     * Writes to indices less than or equal to this value must first copy taintHistory because it is shared with
+     * another stack; -1 if taintHistory is not shared
+     */
+    private int sharedLimit = -1;
     private SinglyLinkedList<MaybeThrownException<E>> unthrownExceptions = null;
     private SinglyLinkedList<MaybeThrownException<E>> influenceExceptions = null;
+    /**
+     * True if unthrownExceptions and influenceExceptions may be shared with another stack and must be copied before
+     * being modified
+     */
+    private boolean exceptionsShared = false;
 
+    @SuppressWarnings("unchecked")
     public StandardControlFlowStack(boolean disabled) {
         super(disabled);
-        taintHistory.push(Taint.emptyTaint()); // Starting taint is null/empty
+        taintHistory = new Taint[INITIAL_CAPACITY];
+        taintHistory[0] = Taint.emptyTaint(); // Starting taint is null/empty
     }
 
     private StandardControlFlowStack(StandardControlFlowStack<E> other) {
         super(other.isDisabled());
-        unthrownExceptions = other.unthrownExceptions == null ? null : other.unthrownExceptions.copy();
-        influenceExceptions = other.influenceExceptions == null ? null : other.influenceExceptions.copy();
-        taintHistory.push(other.taintHistory.peek());
+        // Share the other stack's taint history and exception lists until one of the two stacks modifies them
+        taintHistory = other.taintHistory;
+        base = other.top;
+        top = other.top;
+        sharedLimit = Integer.MAX_VALUE;
+        if(other.sharedLimit < other.top) {
+            other.sharedLimit = other.top;
+        }
+        unthrownExceptions = other.unthrownExceptions;
+        influenceExceptions = other.influenceExceptions;
+        if(unthrownExceptions != null || influenceExceptions != null) {
+            exceptionsShared = true;
+            other.exceptionsShared = true;
+        }
     }
 
     @Override
@@ -39,10 +75,14 @@ public class StandardControlFlowStack<E> extends ControlFlowStack {
 
     @Override
     public void reset() {
-        int size = taintHistory.size();
-        taintHistory.clear();
-        for(int i = 0; i < size; i++) {
-            taintHistory.push(Taint.emptyTaint());
+        ensureWritable(top);
+        for(int i = base; i <= top; i++) {
+            taintHistory[i] = Taint.emptyTaint();
+        }
+        if(exceptionsShared) {
+            influenceExceptions = null;
+            unthrownExceptions = null;
+            exceptionsShared = false;
         }
         if(influenceExceptions != null) {
             influenceExceptions.clear();
@@ -65,18 +105,14 @@ public class StandardControlFlowStack<E> extends ControlFlowStack {
     /**
      * Called once at the start of each exception handler. Should inspect the taint tag on the
      * exception, and if there is one, we'll need to add it to the current stack and
-     * return a pointer so it can later be removed
+     * return the updated number of taints pushed for handlers so that they can later be removed
      */
-    public final EnqueuedTaint exceptionHandlerStart(Throwable exceptionCaught, Taint<E> exceptionTaint, EnqueuedTaint enqueuedTaint) {
-        if(exceptionTaint == null || exceptionTaint.isEmpty() || exceptionTaint == taintHistory.peek() || isDisabled()) {
-            return null;
+    public final int exceptionHandlerStart(Throwable exceptionCaught, Taint<E> exceptionTaint, int enqueuedCount) {
+        if(exceptionTaint == null || exceptionTaint.isEmpty() || exceptionTaint == peekTaint() || isDisabled()) {
+            return enqueuedCount;
         }
-        if(enqueuedTaint == null) {
-            enqueuedTaint = new EnqueuedTaint();
-        }
-        enqueuedTaint.activeCount++;
-        taintHistory.push(exceptionTaint.union(taintHistory.peek()));
-        return enqueuedTaint;
+        pushTaint(exceptionTaint.union(peekTaint()));
+        return enqueuedCount + 1;
     }
 
     /**
@@ -90,12 +126,10 @@ public class StandardControlFlowStack<E> extends ControlFlowStack {
 
     /**
      * Called once at the end of each handler to remove an exception from influencing the control state.
-     * Passed the same MaybeThrownException from the start method.
+     * Passed the count returned by the start method.
      */
-    public void exceptionHandlerEnd(EnqueuedTaint enqueuedTaint) {
-        if(enqueuedTaint != null) {
-            pop(enqueuedTaint);
-        }
+    public void exceptionHandlerEnd(int enqueuedCount) {
+        pop(enqueuedCount);
     }
 
     /**
@@ -105,6 +139,7 @@ public class StandardControlFlowStack<E> extends ControlFlowStack {
         if(influenceExceptions == null) {
             return;
         }
+        unshareExceptions();
         Iterator<MaybeThrownException<E>> itr = influenceExceptions.iterator();
         while(itr.hasNext()) {
             MaybeThrownException<E> mte = itr.next();
@@ -123,6 +158,7 @@ public class StandardControlFlowStack<E> extends ControlFlowStack {
         if(unthrownExceptions == null) {
             return;
         }
+        unshareExceptions();
         Iterator<MaybeThrownException<E>> itr = unthrownExceptions.iterator();
         while(itr.hasNext()) {
             MaybeThrownException<E> mte = itr.next();
@@ -144,6 +180,7 @@ public class StandardControlFlowStack<E> extends ControlFlowStack {
      */
     public final void addUnthrownException(ExceptionalTaintData<E> taints, Class<? extends Throwable> t) {
         if(taints != null && taints.getCurrentTaint() != null) {
+            unshareExceptions();
             if(unthrownExceptions == null) {
                 unthrownExceptions = new SinglyLinkedList<>();
             }
@@ -175,14 +212,14 @@ public class StandardControlFlowStack<E> extends ControlFlowStack {
         }
         if(branchTags[branchID] == NOT_PUSHED) {
             // Adding a label for this branch for the first time
-            taintHistory.push(tag.union(taintHistory.peek()));
+            pushTaint(tag.union(peekTaint()));
             if(curMethod != null) {
-                curMethod.push(tag.union(taintHistory.peek()));
+                curMethod.push(tag.union(peekTaint()));
             }
         } else {
-            Taint<E> r = taintHistory.peek();
+            Taint<E> r = peekTaint();
             if(r != tag && !r.isSuperset(tag)) {
-                taintHistory.push(taintHistory.pop().union(tag));
+                replaceTopTaint(r.union(tag));
             }
             if(curMethod != null) {
                 r = curMethod.getCurrentTaint();
@@ -198,7 +235,7 @@ public class StandardControlFlowStack<E> extends ControlFlowStack {
     public final void pop(int[] branchTags, int branchID, ExceptionalTaintData<E> exceptionalTaintData) {
         if(branchTags != null && branchTags[branchID] == PUSHED) {
             exceptionalTaintData.pop();
-            taintHistory.pop();
+            popTaint();
             branchTags[branchID] = NOT_PUSHED;
         }
     }
@@ -206,7 +243,7 @@ public class StandardControlFlowStack<E> extends ControlFlowStack {
     public final void pop(int[] branchTags, int branchID) {
         if(branchTags != null) {
             if(branchTags[branchID] == PUSHED) {
-                taintHistory.pop();
+                popTaint();
             }
             branchTags[branchID] = NOT_PUSHED;
         }
@@ -225,19 +262,16 @@ public class StandardControlFlowStack<E> extends ControlFlowStack {
         if(branchTags != null) {
             for(int i = 0; i < branchTags.length; i++) {
                 if(branchTags[i] == PUSHED) {
-                    taintHistory.pop();
+                    popTaint();
                     branchTags[i] = NOT_PUSHED;
                 }
             }
         }
     }
 
-    public final void pop(EnqueuedTaint enq) {
-        if(enq != null) {
-            while(enq.activeCount > 0) {
-                taintHistory.pop();
-                enq.activeCount--;
-            }
+    public final void pop(int enqueuedCount) {
+        for(int i = 0; i < enqueuedCount; i++) {
+            popTaint();
         }
     }
 
@@ -254,13 +288,60 @@ public class StandardControlFlowStack<E> extends ControlFlowStack {
         if(isDisabled()) {
             return Taint.emptyTaint();
         }
-        Taint<E> ret = taintHistory.peek();
+        Taint<E> ret = peekTaint();
         if (influenceExceptions != null) {
             ret = _copyTagExceptions(ret);
         }
         return ret;
     }
 
+    private Taint<E> peekTaint() {
+        return taintHistory[top];
+    }
+
+    private void pushTaint(Taint<E> tag) {
+        ensureWritable(top + 1);
+        taintHistory[++top] = tag;
+    }
+
+    private void replaceTopTaint(Taint<E> tag) {
+        ensureWritable(top);
+        taintHistory[top] = tag;
+    }
+
+    private void popTaint() {
+        // Elements above the top are not cleared to avoid needlessly copying a shared history
+        if(top > base) {
+            top--;
+        }
+    }
+
+    /**
+     * Ensures that the element at the specified index of taintHistory can be written without affecting another stack
+     * and without overflowing the array. Copying the array moves this stack's base to zero, so callers must re-read
+     * the top index after calling this method.
+     */
+    @SuppressWarnings("unchecked")
+    private void ensureWritable(int index) {
+        if(index <= sharedLimit || index >= taintHistory.length) {
+            int size = top - base + 1;
+            Taint<E>[] copy = new Taint[Math.max(INITIAL_CAPACITY, (index - base + 1) * 2)];
+            System.arraycopy(taintHistory, base, copy, 0, size);
+            taintHistory = copy;
+            top -= base;
+            base = 0;
+            sharedLimit = -1;
+        }
+    }
+
+    private void unshareExceptions() {
+        if(exceptionsShared) {
+            unthrownExceptions = unthrownExceptions == null ? null : unthrownExceptions.copy();
+            influenceExceptions = influenceExceptions == null ? null : influenceExceptions.copy();
+            exceptionsShared = false;
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public static <E> StandardControlFlowStack<E> factory(boolean disabled) {
         if(disabled) {
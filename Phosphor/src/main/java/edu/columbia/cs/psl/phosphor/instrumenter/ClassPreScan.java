@@ -0,0 +1,187 @@
+package edu.columbia.cs.psl.phosphor.instrumenter;
+
+import edu.columbia.cs.psl.phosphor.runtime.TaintInstrumented;
+import edu.columbia.cs.psl.phosphor.struct.TaintedWithObjTag;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.LinkedList;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.List;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.FieldNode;
+
+/**
+ * Summarizes the information about a class needed to decide whether and how it should be instrumented. The summary is
+ * built by walking the class file's header, field and method tables, and attributes directly using the constant pool
+ * offsets already computed by a {@link ClassReader}. Method bodies are skipped using their attribute lengths, and no
+ * visitor events or tree nodes are created for methods.
+ */
+public final class ClassPreScan {
+
+    private static final String TAINT_INSTRUMENTED_DESC = Type.getDescriptor(TaintInstrumented.class);
+    private static final String TAINTED_WITH_OBJ_TAG = Type.getInternalName(TaintedWithObjTag.class);
+
+    private final int version;
+    private final int access;
+    private final List<FieldNode> fields;
+    private final boolean alreadyInstrumented;
+
+    private ClassPreScan(int version, int access, List<FieldNode> fields, boolean alreadyInstrumented) {
+        this.version = version;
+        this.access = access;
+        this.fields = fields;
+        this.alreadyInstrumented = alreadyInstrumented;
+    }
+
+    /**
+     * @return the version of the class in the same format as ClassNode.version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public int getAccess() {
+        return access;
+    }
+
+    public boolean isInterface() {
+        return (access & Opcodes.ACC_INTERFACE) != 0;
+    }
+
+    /**
+     * @return the fields declared by the class including their access flags, names, descriptors, signatures and
+     * constant values
+     */
+    public List<FieldNode> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return true if the class is annotated as {@link TaintInstrumented}, implements {@link TaintedWithObjTag} or
+     * declares a method named getPHOSPHOR_TAG
+     */
+    public boolean isAlreadyInstrumented() {
+        return alreadyInstrumented;
+    }
+
+    public static ClassPreScan scan(ClassReader cr) {
+        char[] buffer = new char[cr.getMaxStringLength()];
+        // The minor version is stored in the two bytes before the major version
+        int version = cr.readInt(4);
+        int offset = cr.header;
+        int access = cr.readUnsignedShort(offset);
+        boolean alreadyInstrumented = false;
+        int interfacesCount = cr.readUnsignedShort(offset + 6);
+        offset += 8;
+        for(int i = 0; i < interfacesCount; i++, offset += 2) {
+            alreadyInstrumented |= TAINTED_WITH_OBJ_TAG.equals(cr.readClass(offset, buffer));
+        }
+        List<FieldNode> fields = new LinkedList<>();
+        int fieldsCount = cr.readUnsignedShort(offset);
+        offset += 2;
+        for(int i = 0; i < fieldsCount; i++) {
+            int fieldAccess = cr.readUnsignedShort(offset);
+            String name = cr.readUTF8(offset + 2, buffer);
+            String desc = cr.readUTF8(offset + 4, buffer);
+            String signature = null;
+            Object value = null;
+            int attributesCount = cr.readUnsignedShort(offset + 6);
+            offset += 8;
+            for(int j = 0; j < attributesCount; j++) {
+                String attributeName = cr.readUTF8(offset, buffer);
+                int length = cr.readInt(offset + 2);
+                offset += 6;
+                switch(attributeName) {
+                    case "ConstantValue":
+                        int constantIndex = cr.readUnsignedShort(offset);
+                        value = constantIndex == 0 ? null : cr.readConst(constantIndex, buffer);
+                        break;
+                    case "Signature":
+                        signature = cr.readUTF8(offset, buffer);
+                        break;
+                    case "Synthetic":
+                        fieldAccess |= Opcodes.ACC_SYNTHETIC;
+                        break;
+                    case "Deprecated":
+                        fieldAccess |= Opcodes.ACC_DEPRECATED;
+                        break;
+                    default:
+                        break;
+                }
+                offset += length;
+            }
+            fields.add(new FieldNode(fieldAccess, name, desc, signature, value));
+        }
+        int methodsCount = cr.readUnsignedShort(offset);
+        offset += 2;
+        for(int i = 0; i < methodsCount; i++) {
+            alreadyInstrumented |= "getPHOSPHOR_TAG".equals(cr.readUTF8(offset + 2, buffer));
+            offset = skipAttributes(cr, offset + 6);
+        }
+        int attributesCount = cr.readUnsignedShort(offset);
+        offset += 2;
+        for(int i = 0; i < attributesCount; i++) {
+            String attributeName = cr.readUTF8(offset, buffer);
+            int length = cr.readInt(offset + 2);
+            offset += 6;
+            if("RuntimeInvisibleAnnotations".equals(attributeName)) {
+                alreadyInstrumented |= hasAnnotation(cr, offset, TAINT_INSTRUMENTED_DESC, buffer);
+            }
+            offset += length;
+        }
+        return new ClassPreScan(version, access, fields, alreadyInstrumented);
+    }
+
+    /* Returns the offset of the end of the attribute table that starts at the specified offset. */
+    private static int skipAttributes(ClassReader cr, int offset) {
+        int attributesCount = cr.readUnsignedShort(offset);
+        offset += 2;
+        for(int i = 0; i < attributesCount; i++) {
+            offset += 6 + cr.readInt(offset + 2);
+        }
+        return offset;
+    }
+
+    /* Returns whether the annotations attribute whose contents start at the specified offset contains an annotation of
+     * the specified type. */
+    private static boolean hasAnnotation(ClassReader cr, int offset, String desc, char[] buffer) {
+        int numberOfAnnotations = cr.readUnsignedShort(offset);
+        offset += 2;
+        for(int i = 0; i < numberOfAnnotations; i++) {
+            if(desc.equals(cr.readUTF8(offset, buffer))) {
+                return true;
+            }
+            offset = skipAnnotation(cr, offset);
+        }
+        return false;
+    }
+
+    /* Returns the offset of the end of the annotation structure that starts at the specified offset. */
+    private static int skipAnnotation(ClassReader cr, int offset) {
+        int numberOfPairs = cr.readUnsignedShort(offset + 2);
+        offset += 4;
+        for(int i = 0; i < numberOfPairs; i++) {
+            offset = skipElementValue(cr, offset + 2);
+        }
+        return offset;
+    }
+
+    /* Returns the offset of the end of the element_value structure that starts at the specified offset. */
+    private static int skipElementValue(ClassReader cr, int offset) {
+        switch(cr.readByte(offset)) {
+            case 'e':
+                return offset + 5;
+            case '@':
+                return skipAnnotation(cr, offset + 1);
+            case '[':
+                int numberOfValues = cr.readUnsignedShort(offset + 1);
+                offset += 3;
+                for(int i = 0; i < numberOfValues; i++) {
+                    offset = skipElementValue(cr, offset);
+                }
+                return offset;
+            default:
+                // Constant values and class literals are a single constant pool index
+                return offset + 3;
+        }
+    }
+}
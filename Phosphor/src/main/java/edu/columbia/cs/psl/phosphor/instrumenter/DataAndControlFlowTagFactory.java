@@ -8,6 +8,7 @@ import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 
+import static edu.columbia.cs.psl.phosphor.instrumenter.TaintMethodRecord.COMBINE_OPERAND_TAGS;
 import static edu.columbia.cs.psl.phosphor.instrumenter.TaintMethodRecord.COMBINE_TAGS;
 import static edu.columbia.cs.psl.phosphor.instrumenter.TaintMethodRecord.NEW_EMPTY_TAINT;
 
@@ -113,7 +114,7 @@ public class DataAndControlFlowTagFactory implements TaintTagFactory, Opcodes {
                     int t2 = lvs.getStackShadowVarFromTop(1);
                     mv.visitVarInsn(ALOAD, t2);
                     mv.visitVarInsn(ALOAD, t1);
-                    COMBINE_TAGS.delegateVisit(mv);
+                    COMBINE_OPERAND_TAGS.delegateVisit(mv);
                 }
                 mv.visitVarInsn(ASTORE, destinationTagSlot);
                 mv.visitInsn(opcode);
@@ -36,12 +36,12 @@ public class LegacyClassFixer {
         return correctFrames(approximateFrames(cr));
     }
 
-    public static boolean shouldFixFrames(ClassNode cn, String className, ClassReader cr) {
-        if (cn.version >= 100 || cn.version <= 50 || className.endsWith("$Access4JacksonSerializer")
+    public static boolean shouldFixFrames(int version, String className, ClassReader cr) {
+        if (version >= 100 || version <= 50 || className.endsWith("$Access4JacksonSerializer")
                 || className.endsWith("$Access4JacksonDeSerializer")) {
             return true;
         } else if (Configuration.ALWAYS_CHECK_FOR_FRAMES) {
-            cn = new ClassNode();
+            ClassNode cn = new ClassNode();
             cr.accept(cn, 0);
             for (MethodNode mn : cn.methods) {
                 if (hasFrames(mn)) {
@@ -5,6 +5,8 @@ import edu.columbia.cs.psl.phosphor.TaintUtils;
 import edu.columbia.cs.psl.phosphor.instrumenter.analyzer.NeverNullArgAnalyzerAdapter;
 import edu.columbia.cs.psl.phosphor.org.objectweb.asm.commons.OurLocalVariablesSorter;
 import edu.columbia.cs.psl.phosphor.runtime.PhosphorStackFrame;
+import edu.columbia.cs.psl.phosphor.struct.IntHashSet;
+import edu.columbia.cs.psl.phosphor.struct.IntObjectHashMap;
 import edu.columbia.cs.psl.phosphor.struct.harmony.util.StringBuilder;
 import edu.columbia.cs.psl.phosphor.struct.harmony.util.*;
 import org.objectweb.asm.Label;
@@ -24,13 +26,13 @@ public class LocalVariableManager extends OurLocalVariablesSorter implements Opc
     private boolean isIgnoreEverything = false;
     private Map<Integer, Integer> origLVMap = new HashMap<>();
     private Map<Integer, Integer> shadowLVMap = new HashMap<>();
-    private Map<Integer, Object> shadowLVMapType = new HashMap<>();
-    private Set<Integer> tmpLVIndices = new HashSet<>();
+    private IntObjectHashMap<Object> shadowLVMapType = new IntObjectHashMap<>();
+    private IntHashSet tmpLVIndices = new IntHashSet();
     private List<TmpLV> tmpLVs = new ArrayList<>();
     private boolean endVisited = false;
     private PrimitiveArrayAnalyzer primitiveArrayFixer;
     private int createdLVIdx = 0;
-    private Map<Integer, LocalVariableNode> curLocalIdxToLVNode = new HashMap<>();
+    private IntObjectHashMap<LocalVariableNode> curLocalIdxToLVNode = new IntObjectHashMap<>();
     private MethodVisitor uninstMV;
     private NeverNullArgAnalyzerAdapter analyzer;
     private boolean isInMethodThatIsTooBig;
@@ -194,7 +196,7 @@ public class LocalVariableManager extends OurLocalVariablesSorter implements Opc
         LocalVariableNode newLVN = new LocalVariableNode(name, type.getDescriptor(), null,
                 new LabelNode(permanentLocalVariableStartLabel), new LabelNode(end), index);
         createdLVs.add(newLVN);
-        analyzer.locals.add(index, type.getInternalName());
+        analyzer.locals.add(index, type.getSort() == Type.INT ? Opcodes.INTEGER : type.getInternalName());
         return index;
     }
 
@@ -494,6 +496,18 @@ public class LocalVariableManager extends OurLocalVariablesSorter implements Opc
         return Collections.unmodifiableMap(varToShadowVar);
     }
 
+    /**
+     * @return the indices of the local variables created to hold the taint tags of local variables and operand stack
+     * slots
+     */
+    public Set<Integer> getShadowTaintLocalVariables() {
+        Set<Integer> result = new HashSet<>(varToShadowVar.values());
+        for (int i = localVariableAdder.getIndexOfFirstStackTaintTag(); i < localVariableAdder.getIndexOfLastStackTaintTag(); i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
     public void setLocalVariableAdder(LocalVariableAdder localVariableAdder) {
         this.localVariableAdder = localVariableAdder;
     }
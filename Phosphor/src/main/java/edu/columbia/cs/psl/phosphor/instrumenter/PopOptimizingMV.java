@@ -2,15 +2,12 @@ package edu.columbia.cs.psl.phosphor.instrumenter;
 
 import edu.columbia.cs.psl.phosphor.Configuration;
 import edu.columbia.cs.psl.phosphor.TaintUtils;
+import edu.columbia.cs.psl.phosphor.struct.IntHashSet;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.*;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map.Entry;
-
 public class PopOptimizingMV extends MethodVisitor implements Opcodes {
 
     public PopOptimizingMV(MethodVisitor cmv, int access, String owner, String name, String desc, String signature, String[] exceptions) {
@@ -157,19 +154,19 @@ public class PopOptimizingMV extends MethodVisitor implements Opcodes {
         }
 
         private int doOptPass() {
-            HashMap<Integer, Boolean> lvIsWrittenNotRead = new HashMap<>();
+            // Integer local variables that are stored to and that are loaded from
+            IntHashSet lvIsWritten = new IntHashSet();
+            IntHashSet lvIsRead = new IntHashSet();
             int nChanges = 0;
             AbstractInsnNode insn = this.instructions.getFirst();
             int nPop = 0;
             while(insn != null) {
                 switch(insn.getOpcode()) {
                     case Opcodes.ISTORE:
-                        if(!lvIsWrittenNotRead.containsKey(((VarInsnNode) insn).var)) {
-                            lvIsWrittenNotRead.put(((VarInsnNode) insn).var, Boolean.TRUE);
-                        }
+                        lvIsWritten.add(((VarInsnNode) insn).var);
                         break;
                     case Opcodes.ILOAD:
-                        lvIsWrittenNotRead.put(((VarInsnNode) insn).var, Boolean.FALSE);
+                        lvIsRead.add(((VarInsnNode) insn).var);
                         break;
                     case Opcodes.IALOAD:
                         if(insn.getPrevious().getOpcode() == Opcodes.POP && insn.getPrevious().getPrevious().getOpcode() == Opcodes.DUP_X2
@@ -510,10 +507,10 @@ public class PopOptimizingMV extends MethodVisitor implements Opcodes {
                 }
                 insn = insn.getNext();
             }
-            HashSet<Integer> lvsToObliterate = new HashSet<>();
-            for(Entry<Integer, Boolean> i : lvIsWrittenNotRead.entrySet()) {
-                if(i.getValue()) {
-                    lvsToObliterate.add(i.getKey());
+            IntHashSet lvsToObliterate = new IntHashSet();
+            for(int var : lvIsWritten.toArray()) {
+                if(!lvIsRead.contains(var)) {
+                    lvsToObliterate.add(var);
                 }
             }
             if(!lvsToObliterate.isEmpty()) {
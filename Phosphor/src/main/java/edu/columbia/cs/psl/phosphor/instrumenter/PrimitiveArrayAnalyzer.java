@@ -1,6 +1,7 @@
 package edu.columbia.cs.psl.phosphor.instrumenter;
 
 import edu.columbia.cs.psl.phosphor.Configuration;
+import edu.columbia.cs.psl.phosphor.InstrumentationProfiler;
 import edu.columbia.cs.psl.phosphor.TaintUtils;
 import edu.columbia.cs.psl.phosphor.control.ControlFlowAnalyzer;
 import edu.columbia.cs.psl.phosphor.control.graph.BaseControlFlowGraphCreator;
@@ -226,7 +227,9 @@ public class PrimitiveArrayAnalyzer extends MethodVisitor {
                     isImplicitLightTracking, referenceArraysToCheckCast);
             Analyzer<BasicValue> a = new PhosphorOpcodeIgnoringAnalyzer<>(interpreter);
             try {
+                long start = InstrumentationProfiler.start();
                 Frame<BasicValue>[] frames = a.analyze(className, this);
+                InstrumentationProfiler.stop("analysis:PrimitiveArrayAnalyzer", start);
                 for(int i = 0; i < instructions.size(); i++) {
                     if(frames[i] == null) {
                         //TODO dead code elimination.
@@ -255,7 +258,9 @@ public class PrimitiveArrayAnalyzer extends MethodVisitor {
             if(Configuration.ANNOTATE_LOOPS) {
                 annotateLoops(this);
             }
+            long start = InstrumentationProfiler.start();
             flowAnalyzer.annotate(className, this);
+            InstrumentationProfiler.stop("analysis:ControlFlowAnalyzer", start);
             patchFrames(instructions);
             this.maxStack += 100;
             for(Map.Entry<AbstractInsnNode, String> each : referenceArraysToCheckCast.entrySet()) {
@@ -0,0 +1,376 @@
+package edu.columbia.cs.psl.phosphor.instrumenter;
+
+import edu.columbia.cs.psl.phosphor.Configuration;
+import org.objectweb.asm.*;
+
+/**
+ * Measures the total time spent in the class and method visitor calls made to the visitor it delegates to, including
+ * the time spent in every visitor further down the chain. Probes are inserted between the stages of a visitor chain;
+ * the time spent in a single stage is the difference between the times measured by the probe in front of it and the
+ * probe behind it.
+ */
+public final class ProfilingClassVisitor extends ClassVisitor {
+
+    /**
+     * The name of the stage that this probe is in front of
+     */
+    private final String stage;
+    private long nanos;
+
+    public ProfilingClassVisitor(ClassVisitor cv, String stage) {
+        super(Configuration.ASM_VERSION, cv);
+        this.stage = stage;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * @return the number of nanoseconds spent in calls made through this probe
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        long start = System.nanoTime();
+        try {
+            super.visit(version, access, name, signature, superName, interfaces);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public void visitSource(String source, String debug) {
+        long start = System.nanoTime();
+        try {
+            super.visitSource(source, debug);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public void visitOuterClass(String owner, String name, String descriptor) {
+        long start = System.nanoTime();
+        try {
+            super.visitOuterClass(owner, name, descriptor);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+        long start = System.nanoTime();
+        try {
+            return super.visitAnnotation(descriptor, visible);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public void visitInnerClass(String name, String outerName, String innerName, int access) {
+        long start = System.nanoTime();
+        try {
+            super.visitInnerClass(name, outerName, innerName, access);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+        long start = System.nanoTime();
+        try {
+            return super.visitField(access, name, descriptor, signature, value);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                     String[] exceptions) {
+        long start = System.nanoTime();
+        try {
+            MethodVisitor mv = super.visitMethod(access, name, descriptor, signature, exceptions);
+            return mv == null ? null : new ProfilingMethodVisitor(mv);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public void visitEnd() {
+        long start = System.nanoTime();
+        try {
+            super.visitEnd();
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    private final class ProfilingMethodVisitor extends MethodVisitor {
+
+        ProfilingMethodVisitor(MethodVisitor mv) {
+            super(Configuration.ASM_VERSION, mv);
+        }
+
+        @Override
+        public void visitParameter(String name, int access) {
+            long start = System.nanoTime();
+            try {
+                super.visitParameter(name, access);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotationDefault() {
+            long start = System.nanoTime();
+            try {
+                return super.visitAnnotationDefault();
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            long start = System.nanoTime();
+            try {
+                return super.visitAnnotation(descriptor, visible);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+            long start = System.nanoTime();
+            try {
+                return super.visitParameterAnnotation(parameter, descriptor, visible);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitCode() {
+            long start = System.nanoTime();
+            try {
+                super.visitCode();
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+            long start = System.nanoTime();
+            try {
+                super.visitFrame(type, numLocal, local, numStack, stack);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            long start = System.nanoTime();
+            try {
+                super.visitInsn(opcode);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitIntInsn(int opcode, int operand) {
+            long start = System.nanoTime();
+            try {
+                super.visitIntInsn(opcode, operand);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int var) {
+            long start = System.nanoTime();
+            try {
+                super.visitVarInsn(opcode, var);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            long start = System.nanoTime();
+            try {
+                super.visitTypeInsn(opcode, type);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+            long start = System.nanoTime();
+            try {
+                super.visitFieldInsn(opcode, owner, name, descriptor);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            long start = System.nanoTime();
+            try {
+                super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle,
+                                           Object... bootstrapMethodArguments) {
+            long start = System.nanoTime();
+            try {
+                super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            long start = System.nanoTime();
+            try {
+                super.visitJumpInsn(opcode, label);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitLabel(Label label) {
+            long start = System.nanoTime();
+            try {
+                super.visitLabel(label);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitLdcInsn(Object value) {
+            long start = System.nanoTime();
+            try {
+                super.visitLdcInsn(value);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitIincInsn(int var, int increment) {
+            long start = System.nanoTime();
+            try {
+                super.visitIincInsn(var, increment);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+            long start = System.nanoTime();
+            try {
+                super.visitTableSwitchInsn(min, max, dflt, labels);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+            long start = System.nanoTime();
+            try {
+                super.visitLookupSwitchInsn(dflt, keys, labels);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+            long start = System.nanoTime();
+            try {
+                super.visitMultiANewArrayInsn(descriptor, numDimensions);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+            long startTime = System.nanoTime();
+            try {
+                super.visitTryCatchBlock(start, end, handler, type);
+            } finally {
+                nanos += System.nanoTime() - startTime;
+            }
+        }
+
+        @Override
+        public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end,
+                                       int index) {
+            long startTime = System.nanoTime();
+            try {
+                super.visitLocalVariable(name, descriptor, signature, start, end, index);
+            } finally {
+                nanos += System.nanoTime() - startTime;
+            }
+        }
+
+        @Override
+        public void visitLineNumber(int line, Label start) {
+            long startTime = System.nanoTime();
+            try {
+                super.visitLineNumber(line, start);
+            } finally {
+                nanos += System.nanoTime() - startTime;
+            }
+        }
+
+        @Override
+        public void visitMaxs(int maxStack, int maxLocals) {
+            long start = System.nanoTime();
+            try {
+                super.visitMaxs(maxStack, maxLocals);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void visitEnd() {
+            long start = System.nanoTime();
+            try {
+                super.visitEnd();
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package edu.columbia.cs.psl.phosphor.instrumenter;
+
+import edu.columbia.cs.psl.phosphor.Configuration;
+import edu.columbia.cs.psl.phosphor.InstrumentationProfiler;
+import edu.columbia.cs.psl.phosphor.instrumenter.analyzer.EmptyTaintPropagationAnalyzer;
+import edu.columbia.cs.psl.phosphor.instrumenter.analyzer.ShadowTaintLivenessAnalyzer;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.HashMap;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.Map;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Buffers a fully instrumented method and optimizes its taint propagation logic before the method is passed to the
+ * next visitor. If enabled, calls to combine taint tags with a provably empty operand are removed and then stores to
+ * shadow taint local variables that are never read are removed.
+ */
+public class ShadowTaintOptimizingMV extends MethodVisitor {
+
+    private final String owner;
+    private LocalVariableManager lvs;
+
+    public ShadowTaintOptimizingMV(MethodVisitor cmv, String owner, int access, String name, String desc,
+                                   String signature, String[] exceptions) {
+        super(Configuration.ASM_VERSION);
+        this.owner = owner;
+        this.mv = new ShadowTaintOptimizingMN(access, name, desc, signature, exceptions, cmv);
+    }
+
+    public void setLocalVariableManager(LocalVariableManager lvs) {
+        this.lvs = lvs;
+    }
+
+    public static boolean isApplicable() {
+        return Configuration.TAINT_LIVENESS_ANALYSIS || Configuration.TAINT_CONSTANT_PROPAGATION;
+    }
+
+    private final class ShadowTaintOptimizingMN extends MethodNode {
+
+        private final MethodVisitor cmv;
+        // Labels visited by this node are shared with MethodNodes earlier in the chain, so their info field cannot be
+        // used to store this node's LabelNodes
+        private final Map<Label, LabelNode> labelNodes = new HashMap<>();
+
+        ShadowTaintOptimizingMN(int access, String name, String desc, String signature, String[] exceptions, MethodVisitor cmv) {
+            super(Configuration.ASM_VERSION, access, name, desc, signature, exceptions);
+            this.cmv = cmv;
+        }
+
+        @Override
+        protected LabelNode getLabelNode(Label label) {
+            LabelNode node = labelNodes.get(label);
+            if(node == null) {
+                node = new LabelNode(label);
+                labelNodes.put(label, node);
+            }
+            return node;
+        }
+
+        @Override
+        public void visitEnd() {
+            super.visitEnd();
+            if(Configuration.TAINT_CONSTANT_PROPAGATION) {
+                long start = InstrumentationProfiler.start();
+                EmptyTaintPropagationAnalyzer.removeEmptyTaintCombines(owner, this);
+                InstrumentationProfiler.stop("analysis:EmptyTaintPropagationAnalyzer", start);
+            }
+            if(Configuration.TAINT_LIVENESS_ANALYSIS && lvs != null) {
+                long start = InstrumentationProfiler.start();
+                ShadowTaintLivenessAnalyzer.removeDeadShadowStores(this, lvs.getShadowTaintLocalVariables());
+                InstrumentationProfiler.stop("analysis:ShadowTaintLivenessAnalyzer", start);
+            }
+            this.accept(cmv);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package edu.columbia.cs.psl.phosphor.instrumenter;
 
 import edu.columbia.cs.psl.phosphor.BasicSourceSinkManager;
 import edu.columbia.cs.psl.phosphor.Configuration;
+import edu.columbia.cs.psl.phosphor.runtime.PhosphorStackFrame;
 import edu.columbia.cs.psl.phosphor.runtime.TaintSourceWrapper;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
@@ -10,6 +11,9 @@ import org.objectweb.asm.commons.AdviceAdapter;
 import org.objectweb.asm.commons.AnalyzerAdapter;
 import org.objectweb.asm.commons.GeneratorAdapter;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class SinkTaintingMV extends AdviceAdapter {
 
     // The arguments of the sink method being visited
@@ -47,6 +51,20 @@ public class SinkTaintingMV extends AdviceAdapter {
 
     }
 
+    /* Converts the specified list of types in the format used by AnalyzerAdapter into the format used by visitFrame. */
+    private static Object[] toFrameTypes(List<Object> types) {
+        List<Object> result = new ArrayList<>();
+        for(int i = 0; i < types.size(); i++) {
+            Object type = types.get(i);
+            result.add(type);
+            if(type == LONG || type == DOUBLE) {
+                // Skip the TOP value that follows longs and doubles
+                i++;
+            }
+        }
+        return result.toArray();
+    }
+
     /* Adds code to make a call to enteringSink. */
     private void callEnteringSink() {
         super.visitFieldInsn(GETSTATIC, Type.getInternalName(Configuration.class), "autoTainter",
@@ -76,9 +94,69 @@ public class SinkTaintingMV extends AdviceAdapter {
         }
     }
 
+    /* Adds code that checks the arguments of the sink for taint tags. The shadow taint tags of the arguments and the
+     * reference arguments are tested first without allocating, only if one of those tests fails is the allocating call
+     * to checkTaint made. The tests are skipped if the auto-tainter does not allow them to replace checkTaint. */
     private void checkTaintsOnArgs(){
         // Call enteringSink before the original body code of the sink
         callEnteringSink(); // start 2
+        if(analyzerAdapter == null || analyzerAdapter.locals == null) {
+            callCheckTaint();
+            return;
+        }
+        Object[] locals = toFrameTypes(analyzerAdapter.locals);
+        Object[] stack = toFrameTypes(analyzerAdapter.stack);
+        Label slowPath = new Label();
+        Label done = new Label();
+        super.visitFieldInsn(GETSTATIC, Type.getInternalName(Configuration.class), "autoTainter",
+                Type.getDescriptor(TaintSourceWrapper.class));
+        super.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(TaintSourceWrapper.class), "canSkipCheckTaint",
+                "()Z", false);
+        super.visitJumpInsn(IFEQ, slowPath);
+        for(int shadowVar : shadowVarsForArgs) {
+            Label next = new Label();
+            super.visitVarInsn(ALOAD, shadowVar);
+            super.visitJumpInsn(IFNULL, next);
+            super.visitVarInsn(ALOAD, shadowVar);
+            super.visitMethodInsn(INVOKEVIRTUAL, Configuration.TAINT_TAG_INTERNAL_NAME, "isEmpty", "()Z", false);
+            super.visitJumpInsn(IFEQ, slowPath);
+            super.visitLabel(next);
+            super.visitFrame(F_NEW, locals.length, locals, stack.length, stack);
+        }
+        if(!isStatic) {
+            checkReferenceArgument(0, slowPath);
+        }
+        int idx = isStatic ? 0 : 1;
+        for(Type argType : argTypes) {
+            // Primitive arguments can only be tainted through their shadow taint tags
+            boolean isReference = argType.getSort() == Type.OBJECT || argType.getSort() == Type.ARRAY;
+            if(isReference && !argType.getInternalName().equals(PhosphorStackFrame.INTERNAL_NAME)) {
+                checkReferenceArgument(idx, slowPath);
+            }
+            idx += argType.getSize();
+        }
+        super.visitJumpInsn(GOTO, done);
+        super.visitLabel(slowPath);
+        super.visitFrame(F_NEW, locals.length, locals, stack.length, stack);
+        callCheckTaint();
+        super.visitLabel(done);
+        super.visitFrame(F_NEW, locals.length, locals, stack.length, stack);
+        // Prevents the next frame visited from having the same offset as the frame at done
+        super.visitInsn(NOP);
+    }
+
+    /* Adds code that jumps to the specified label if the reference stored in the specified local variable is tainted. */
+    private void checkReferenceArgument(int local, Label target) {
+        super.visitFieldInsn(GETSTATIC, Type.getInternalName(Configuration.class), "autoTainter",
+                Type.getDescriptor(TaintSourceWrapper.class));
+        super.visitVarInsn(ALOAD, local);
+        super.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(TaintSourceWrapper.class), "hasTaint",
+                "(Ljava/lang/Object;)Z", false);
+        super.visitJumpInsn(IFNE, target);
+    }
+
+    /* Adds code that boxes the arguments of the sink and passes them along with their shadow taint tags to checkTaint. */
+    private void callCheckTaint(){
         // Add the auto-tainter to the stack
         super.visitFieldInsn(GETSTATIC, Type.getInternalName(Configuration.class), "autoTainter",
                 Type.getDescriptor(TaintSourceWrapper.class));
@@ -7,6 +7,7 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.AnalyzerAdapter;
 import org.objectweb.asm.tree.MethodNode;
 
 import static org.objectweb.asm.Type.*;
@@ -33,7 +34,10 @@ public class SourceSinkTaintingClassVisitor extends ClassVisitor {
         if((access & Opcodes.ACC_NATIVE) == 0 && TaintUtils.containsPhosphorStackFrame(desc)) {
             if(BasicSourceSinkManager.getInstance().isSink(className, name, desc)) {
                 // Method is a sink
-                final SinkTaintingMV sinkMV = new SinkTaintingMV(mv, access, className, name, desc);
+                // Tracks the frame at the point where the sink's arguments are checked
+                AnalyzerAdapter analyzer = new AnalyzerAdapter(className, access, name, desc, mv);
+                final SinkTaintingMV sinkMV = new SinkTaintingMV(analyzer, access, className, name, desc);
+                sinkMV.setAnalyzerAdapter(analyzer);
                 mv = new MethodNode(Configuration.ASM_VERSION, access, name, desc, signature, exceptions) {
                     @Override
                     public void visitEnd() {
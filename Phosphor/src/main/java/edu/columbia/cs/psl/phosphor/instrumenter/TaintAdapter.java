@@ -647,6 +647,32 @@ public class TaintAdapter extends MethodVisitor implements Opcodes {
         mv.visitVarInsn(ALOAD, lvs.getStackShadowVarFromTop(0));
     }
 
+    /**
+     * Given: the lengths operands of a MULTIANEWARRAY instruction with the specified descriptor and number of dimensions
+     * Replaces the lengths with an int array containing them followed by the remaining arguments of
+     * MultiDArrayUtils.MULTIANEWARRAY other than the phosphor stack frame
+     */
+    public void pushMultiANewArrayArguments(String desc, int dims) {
+        Type arrayType = Type.getType(desc);
+        push(dims);
+        super.visitIntInsn(Opcodes.NEWARRAY, Opcodes.T_INT);
+        for (int i = dims - 1; i >= 0; i--) {
+            // length, array -> array, array, length -> array, array, index, length
+            super.visitInsn(Opcodes.DUP_X1);
+            super.visitInsn(Opcodes.SWAP);
+            push(i);
+            super.visitInsn(Opcodes.SWAP);
+            super.visitInsn(Opcodes.IASTORE);
+        }
+        push(arrayType.getDimensions());
+        push(arrayType.getElementType().getSort());
+        if (arrayType.getElementType().getSort() == Type.OBJECT && dims == arrayType.getDimensions()) {
+            super.visitLdcInsn(arrayType.getElementType());
+        } else {
+            super.visitInsn(Opcodes.ACONST_NULL);
+        }
+    }
+
     /**
      * Loads the phosphor stack frame to the top of the stack
      */
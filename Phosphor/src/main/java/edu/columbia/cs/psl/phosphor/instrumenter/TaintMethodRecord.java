@@ -9,6 +9,9 @@ import edu.columbia.cs.psl.phosphor.struct.harmony.util.Set;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -26,6 +29,7 @@ public enum TaintMethodRecord implements MethodRecord {
     // Methods from Taint
     COMBINE_TAGS_ON_OBJECT_CONTROL(INVOKESTATIC, Taint.class, "combineTagsOnObject", Void.TYPE, false, Object.class, PhosphorStackFrame.class),
     COMBINE_TAGS(INVOKESTATIC, Taint.class, "combineTags", TAINT_TAG_OBJ_CLASS, false, TAINT_TAG_OBJ_CLASS, TAINT_TAG_OBJ_CLASS),
+    COMBINE_OPERAND_TAGS(INVOKESTATIC, Taint.class, "combineOperandTags", TAINT_TAG_OBJ_CLASS, false, TAINT_TAG_OBJ_CLASS, TAINT_TAG_OBJ_CLASS),
     COMBINE_TAGS_CONTROL(INVOKESTATIC, Taint.class, "combineTags", TAINT_TAG_OBJ_CLASS, false, TAINT_TAG_OBJ_CLASS, PhosphorStackFrame.class),
     NEW_EMPTY_TAINT(INVOKESTATIC, Taint.class, "emptyTaint", TAINT_TAG_OBJ_CLASS, false),
     // Methods from TaintUtils
@@ -41,6 +45,7 @@ public enum TaintMethodRecord implements MethodRecord {
     CONTROL_STACK_UNINSTRUMENTED_WRAPPER(INVOKEVIRTUAL, ControlFlowStack.class, "enteringUninstrumentedWrapper", Void.TYPE, false),
     // Methods from MultiDArrayUtils
     BOX_IF_NECESSARY(INVOKESTATIC, MultiDArrayUtils.class, "boxIfNecessary", Object.class, false, Object.class),
+    MULTI_ANEW_ARRAY(INVOKESTATIC, MultiDArrayUtils.class, "MULTIANEWARRAY", TaggedReferenceArray.class, false, int[].class, int.class, int.class, Class.class, PhosphorStackFrame.class),
     // Methods from ReflectionMasker
     REMOVE_EXTRA_STACK_TRACE_ELEMENTS(INVOKESTATIC, ReflectionMasker.class, "removeExtraStackTraceElements", StackTraceElement[].class, false, StackTraceElement[].class, Class.class),
     REMOVE_TAINTED_INTERFACES(INVOKESTATIC, ReflectionMasker.class, "removeTaintedInterfaces", Class[].class, false, Class[].class),
@@ -56,6 +61,8 @@ public enum TaintMethodRecord implements MethodRecord {
 
     INSTRUMENT_CLASS_BYTES(INVOKESTATIC, Phosphor.class, "instrumentClassBytes", byte[].class, false, byte[].class),
     INSTRUMENT_CLASS_BYTES_ANONYMOUS(INVOKESTATIC, Phosphor.class, "instrumentClassBytesAnonymous", byte[].class, false, byte[].class),
+    STRING_CONCAT_BOOTSTRAP(INVOKESTATIC, RuntimeStringConcatPropagator.class, "makeConcatWithConstants", CallSite.class, false, MethodHandles.Lookup.class, String.class, MethodType.class, String.class, Object[].class),
+    STRING_CONCAT_PLAIN_BOOTSTRAP(INVOKESTATIC, RuntimeStringConcatPropagator.class, "makeConcat", CallSite.class, false, MethodHandles.Lookup.class, String.class, MethodType.class),
 
     //Phosphor Stack Frame
     START_STACK_FRAME_TRACKING(INVOKESTATIC, PhosphorStackFrame.class, "initialize", Void.TYPE, false),
@@ -342,7 +342,7 @@ public class TaintPassingMV extends TaintAdapter implements Opcodes {
                 super.visitFieldInsn(opcode, owner, name + TaintUtils.TAINT_FIELD, TaintUtils.getShadowTaintType(desc));
                 // [value taint1 taint2]
                 controlFlowPolicy.visitingInstanceFieldLoad(owner, name, desc);
-                COMBINE_TAGS.delegateVisit(mv);
+                COMBINE_OPERAND_TAGS.delegateVisit(mv);
                 // [value taint]
                 storeStackTopShadowVar();
                 break;
@@ -470,36 +470,16 @@ public class TaintPassingMV extends TaintAdapter implements Opcodes {
             super.visitMultiANewArrayInsn(desc, dims);
             return;
         }
-        Type arrayType = Type.getType(desc);
-        StringBuilder methodToCall = new StringBuilder("MULTIANEWARRAY_");
-        StringBuilder descToCall = new StringBuilder("(");
         int firstArgOffsetFromBottom = analyzer.stack.size() - dims;
+        pushMultiANewArrayArguments(desc, dims);
         pushPhosphorStackFrame();
         for (int i = 0; i < dims; i++) {
-            descToCall.append('I');
             super.visitInsn(DUP);
             super.visitVarInsn(ALOAD, lvs.getStackShadowVar(firstArgOffsetFromBottom + i));
             push(i);
             SET_ARG_TAINT.delegateVisit(mv);
         }
-        if (arrayType.getElementType().getSort() == Type.OBJECT) {
-            methodToCall.append("REFERENCE");
-            if (dims == arrayType.getDimensions()) {
-                descToCall.append("Ljava/lang/Class;");
-                super.visitLdcInsn(arrayType.getElementType());
-                super.visitInsn(SWAP);
-            }
-        } else {
-            methodToCall.append(arrayType.getElementType().getDescriptor());
-        }
-        methodToCall.append('_');
-        methodToCall.append(arrayType.getDimensions());
-        methodToCall.append("DIMS");
-        descToCall.append(PhosphorStackFrame.DESCRIPTOR);
-        descToCall.append(")");
-        descToCall.append(Type.getDescriptor(TaggedReferenceArray.class));
-        super.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(MultiDArrayUtils.class),
-                methodToCall.toString(), descToCall.toString(), false);
+        MULTI_ANEW_ARRAY.delegateVisit(mv);
 
         controlFlowPolicy.generateEmptyTaint(); // TODO array reference taint?
         storeStackTopShadowVar();
@@ -596,8 +576,20 @@ public class TaintPassingMV extends TaintAdapter implements Opcodes {
 
     @Override
     public void visitInvokeDynamicInsn(String name, String desc, Handle bsm, Object... bsmArgs) {
-
-
+        if (Configuration.STRING_CONCAT_BOOTSTRAP && bsm.getTag() == H_INVOKESTATIC
+                && bsm.getOwner().equals("java/lang/invoke/StringConcatFactory")) {
+            // Arguments are passed to the replacement bootstrap method the same way, only the method changes
+            TaintMethodRecord replacement = null;
+            if (bsm.getName().equals("makeConcatWithConstants")) {
+                replacement = STRING_CONCAT_BOOTSTRAP;
+            } else if (bsm.getName().equals("makeConcat")) {
+                replacement = STRING_CONCAT_PLAIN_BOOTSTRAP;
+            }
+            if (replacement != null) {
+                bsm = new Handle(H_INVOKESTATIC, replacement.getOwner(), replacement.getName(),
+                        replacement.getDescriptor(), false);
+            }
+        }
         Type[] args = Type.getArgumentTypes(desc);
         int nParams = args.length;
         // load taint tags into stack frame
@@ -219,6 +219,12 @@ public class TaintTrackingClassVisitor extends ClassVisitor {
             instrumentedDesc = TaintUtils.addPhosphorStackFrameToDesc(desc);
         }
         MethodVisitor mv = super.visitMethod(access, name, instrumentedDesc, signature, _exceptions);
+        ShadowTaintOptimizingMV shadowOptimizingMV = null;
+        if (ShadowTaintOptimizingMV.isApplicable() && mv != null) {
+            shadowOptimizingMV = new ShadowTaintOptimizingMV(mv, className, access, name, instrumentedDesc, signature,
+                    _exceptions);
+            mv = shadowOptimizingMV;
+        }
         MethodVisitor rootmV = new TaintTagFieldCastMV(mv, name);
         mv = rootmV;
         SpecialOpcodeRemovingMV specialOpcodeRemovingMV = new SpecialOpcodeRemovingMV(mv, ignoreFrames, access,
@@ -293,6 +299,9 @@ public class TaintTrackingClassVisitor extends ClassVisitor {
         }
         lvs.setPrimitiveArrayAnalyzer(primitiveArrayFixer);
         reflectionMasker.setLvs(lvs);
+        if (shadowOptimizingMV != null) {
+            shadowOptimizingMV.setLocalVariableManager(lvs);
+        }
         final MethodVisitor prev = preAnalyzer;
         return prev;
     }
@@ -8,7 +8,6 @@ import edu.columbia.cs.psl.phosphor.instrumenter.analyzer.ReferenceArrayTarget;
 import edu.columbia.cs.psl.phosphor.runtime.MultiDArrayUtils;
 import edu.columbia.cs.psl.phosphor.runtime.PhosphorStackFrame;
 import edu.columbia.cs.psl.phosphor.struct.TaggedReferenceArray;
-import edu.columbia.cs.psl.phosphor.struct.harmony.util.StringBuilder;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -31,29 +30,9 @@ public class UninstrumentedCompatMV extends TaintAdapter {
 
     @Override
     public void visitMultiANewArrayInsn(String desc, int dims) {
-        Type arrayType = Type.getType(desc);
-        StringBuilder methodToCall = new StringBuilder("MULTIANEWARRAY_");
-        StringBuilder descToCall = new StringBuilder("(");
+        pushMultiANewArrayArguments(desc, dims);
         pushPhosphorStackFrame();
-
-        if (arrayType.getElementType().getSort() == Type.OBJECT) {
-            methodToCall.append("REFERENCE");
-            if (dims == arrayType.getDimensions()) {
-                descToCall.append("Ljava/lang/Class;");
-                super.visitLdcInsn(arrayType.getElementType());
-                super.visitInsn(SWAP);
-            }
-        } else {
-            methodToCall.append(arrayType.getElementType().getDescriptor());
-        }
-        methodToCall.append('_');
-        methodToCall.append(arrayType.getDimensions());
-        methodToCall.append("DIMS");
-        descToCall.append(PhosphorStackFrame.DESCRIPTOR);
-        descToCall.append(")");
-        descToCall.append(Type.getDescriptor(TaggedReferenceArray.class));
-        super.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(MultiDArrayUtils.class),
-                methodToCall.toString(), descToCall.toString(), false);
+        MULTI_ANEW_ARRAY.delegateVisit(mv);
     }
 
     @Override
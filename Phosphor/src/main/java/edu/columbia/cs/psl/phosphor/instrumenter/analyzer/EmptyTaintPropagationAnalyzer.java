@@ -0,0 +1,324 @@
+package edu.columbia.cs.psl.phosphor.instrumenter.analyzer;
+
+import edu.columbia.cs.psl.phosphor.Configuration;
+import edu.columbia.cs.psl.phosphor.instrumenter.TaintMethodRecord;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+import org.objectweb.asm.tree.analysis.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Performs a forwards dataflow analysis over an instrumented method to determine which taint tags are provably the
+ * empty taint tag, i.e. were produced by a call to {@link edu.columbia.cs.psl.phosphor.runtime.Taint#emptyTaint()}
+ * and only ever copied or combined with other empty tags. Calls to
+ * {@link edu.columbia.cs.psl.phosphor.runtime.Taint#combineTags} or
+ * {@link edu.columbia.cs.psl.phosphor.runtime.Taint#combineOperandTags} that have a provably empty operand are
+ * replaced with the other operand, and the loads that become unused as a result are removed. Loads of local variables
+ * that provably hold the empty taint tag, such as the shadow taint tags of constants and of loop counters initialized
+ * from constants, are replaced with calls to emptyTaint. Stores to shadow taint local variables that are no longer read
+ * can then be removed by {@link ShadowTaintLivenessAnalyzer}.
+ */
+public final class EmptyTaintPropagationAnalyzer implements Opcodes {
+
+    private static final int MAX_STACK_LIMIT = 1 << 16;
+
+    private EmptyTaintPropagationAnalyzer() {
+        // Prevents this class from being instantiated
+    }
+
+    /**
+     * Removes calls to combineTags that have a provably empty operand from the specified method and replaces loads of
+     * local variables that provably hold the empty taint tag with calls to emptyTaint.
+     *
+     * @param owner the internal name of the class that declares the method
+     * @param methodNode the method whose instructions should be optimized
+     * @return the number of calls that were removed plus the number of loads that were replaced
+     */
+    public static int removeEmptyTaintCombines(String owner, MethodNode methodNode) {
+        if(methodNode.instructions.size() == 0 || !containsEmptyTaint(methodNode)) {
+            return 0;
+        }
+        Frame<TaintConstantValue>[] frames = analyze(owner, methodNode);
+        if(frames == null) {
+            return 0;
+        }
+        AbstractInsnNode[] instructions = methodNode.instructions.toArray();
+        List<AbstractInsnNode> pops = new ArrayList<>();
+        int removed = 0;
+        for(int i = 0; i < instructions.length; i++) {
+            Frame<TaintConstantValue> frame = frames[i];
+            if(frame == null) {
+                continue;
+            }
+            if(instructions[i].getOpcode() == ALOAD) {
+                if(frame.getLocal(((VarInsnNode) instructions[i]).var).isEmptyTaint()) {
+                    // Loading the empty tag directly can make the stores to the local variable dead
+                    methodNode.instructions.set(instructions[i], newEmptyTaint());
+                    removed++;
+                }
+                continue;
+            } else if(!isCombineTags(instructions[i])) {
+                continue;
+            }
+            TaintConstantValue t1 = frame.getStack(frame.getStackSize() - 2);
+            TaintConstantValue t2 = frame.getStack(frame.getStackSize() - 1);
+            if(t2.isEmptyTaint()) {
+                // combineTags(t1, empty) always returns t1
+                InsnNode pop = new InsnNode(POP);
+                methodNode.instructions.set(instructions[i], pop);
+                pops.add(pop);
+                removed++;
+            } else if(t1.isEmptyTaint() && t2.isNonNull()) {
+                // combineTags(empty, t2) returns t2 if t2 is not null, but returns t1 if t2 is null
+                InsnNode pop = new InsnNode(POP);
+                methodNode.instructions.insertBefore(instructions[i], new InsnNode(SWAP));
+                methodNode.instructions.set(instructions[i], pop);
+                pops.add(pop);
+                removed++;
+            }
+        }
+        for(AbstractInsnNode pop : pops) {
+            removeUnusedPush(methodNode.instructions, pop);
+        }
+        return removed;
+    }
+
+    private static void removeUnusedPush(InsnList instructions, AbstractInsnNode pop) {
+        AbstractInsnNode previous = pop.getPrevious();
+        if(previous == null) {
+            return;
+        }
+        if(previous.getOpcode() == SWAP) {
+            // X Y SWAP POP -> Y
+            AbstractInsnNode second = previous.getPrevious();
+            AbstractInsnNode first = second == null ? null : second.getPrevious();
+            if(second != null && first != null && isSideEffectFreePush(first) && isSideEffectFreePush(second)) {
+                instructions.remove(first);
+                instructions.remove(previous);
+                instructions.remove(pop);
+            }
+        } else if(isSideEffectFreePush(previous)) {
+            // X POP -> nothing
+            instructions.remove(previous);
+            instructions.remove(pop);
+        }
+    }
+
+    private static boolean isSideEffectFreePush(AbstractInsnNode insn) {
+        switch(insn.getOpcode()) {
+            case ALOAD:
+            case ACONST_NULL:
+                return true;
+            case INVOKESTATIC:
+                return isMethod(insn, TaintMethodRecord.NEW_EMPTY_TAINT);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean containsEmptyTaint(MethodNode methodNode) {
+        // Only the results of calls to emptyTaint can be proven to be empty
+        for(AbstractInsnNode insn = methodNode.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if(isMethod(insn, TaintMethodRecord.NEW_EMPTY_TAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static MethodInsnNode newEmptyTaint() {
+        TaintMethodRecord record = TaintMethodRecord.NEW_EMPTY_TAINT;
+        return new MethodInsnNode(record.getOpcode(), record.getOwner(), record.getName(), record.getDescriptor(),
+                record.isInterface());
+    }
+
+    private static boolean isCombineTags(AbstractInsnNode insn) {
+        return isMethod(insn, TaintMethodRecord.COMBINE_TAGS) || isMethod(insn, TaintMethodRecord.COMBINE_OPERAND_TAGS);
+    }
+
+    private static boolean isMethod(AbstractInsnNode insn, TaintMethodRecord record) {
+        if(insn.getOpcode() != record.getOpcode()) {
+            return false;
+        }
+        MethodInsnNode min = (MethodInsnNode) insn;
+        return min.owner.equals(record.getOwner()) && min.name.equals(record.getName())
+                && min.desc.equals(record.getDescriptor());
+    }
+
+    private static Frame<TaintConstantValue>[] analyze(String owner, MethodNode methodNode) {
+        // Instrumented methods do not carry accurate maximums, they are computed when the class is written
+        int originalMaxLocals = methodNode.maxLocals;
+        int originalMaxStack = methodNode.maxStack;
+        methodNode.maxLocals = calculateMaxLocals(methodNode);
+        methodNode.maxStack = Math.max(16, originalMaxStack);
+        try {
+            while(true) {
+                try {
+                    return new Analyzer<>(new EmptyTaintInterpreter()).analyze(owner, methodNode);
+                } catch(AnalyzerException e) {
+                    if(!(e.getCause() instanceof IndexOutOfBoundsException) || methodNode.maxStack >= MAX_STACK_LIMIT) {
+                        return null;
+                    }
+                    methodNode.maxStack *= 2;
+                }
+            }
+        } finally {
+            methodNode.maxLocals = originalMaxLocals;
+            methodNode.maxStack = originalMaxStack;
+        }
+    }
+
+    private static int calculateMaxLocals(MethodNode methodNode) {
+        int maxLocals = Type.getArgumentsAndReturnSizes(methodNode.desc) >> 2;
+        if((methodNode.access & ACC_STATIC) != 0) {
+            maxLocals--;
+        }
+        for(AbstractInsnNode insn = methodNode.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if(insn instanceof VarInsnNode) {
+                int opcode = insn.getOpcode();
+                int size = (opcode == LLOAD || opcode == DLOAD || opcode == LSTORE || opcode == DSTORE) ? 2 : 1;
+                maxLocals = Math.max(maxLocals, ((VarInsnNode) insn).var + size);
+            } else if(insn instanceof IincInsnNode) {
+                maxLocals = Math.max(maxLocals, ((IincInsnNode) insn).var + 1);
+            }
+        }
+        return maxLocals;
+    }
+
+    /**
+     * A value in a frame that records whether the value is known to be the empty taint tag.
+     */
+    private static final class TaintConstantValue implements Value {
+
+        private final BasicValue value;
+        private final boolean emptyTaint;
+        private final boolean nonNull;
+
+        TaintConstantValue(BasicValue value, boolean emptyTaint, boolean nonNull) {
+            this.value = value;
+            this.emptyTaint = emptyTaint;
+            this.nonNull = emptyTaint || nonNull;
+        }
+
+        BasicValue getValue() {
+            return value;
+        }
+
+        boolean isEmptyTaint() {
+            return emptyTaint;
+        }
+
+        boolean isNonNull() {
+            return nonNull;
+        }
+
+        @Override
+        public int getSize() {
+            return value.getSize();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            } else if(!(o instanceof TaintConstantValue)) {
+                return false;
+            }
+            TaintConstantValue that = (TaintConstantValue) o;
+            return emptyTaint == that.emptyTaint && nonNull == that.nonNull && Objects.equals(value, that.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(value) + (emptyTaint ? 1 : 0) + (nonNull ? 2 : 0);
+        }
+    }
+
+    /**
+     * Delegates to a {@link BasicInterpreter} to track the sizes of values and marks the results of calls to
+     * emptyTaint and of calls to combineTags on two empty tags as being the empty taint tag. A call to combineTags only
+     * returns null if its first operand is null, so its result is marked as non-null if its first operand is known to
+     * be non-null.
+     */
+    private static final class EmptyTaintInterpreter extends Interpreter<TaintConstantValue> {
+
+        private final BasicInterpreter basicInterpreter = new BasicInterpreter(Configuration.ASM_VERSION) {
+        };
+
+        EmptyTaintInterpreter() {
+            super(Configuration.ASM_VERSION);
+        }
+
+        private static TaintConstantValue wrap(BasicValue value) {
+            return value == null ? null : new TaintConstantValue(value, false, false);
+        }
+
+        @Override
+        public TaintConstantValue newValue(Type type) {
+            return wrap(basicInterpreter.newValue(type));
+        }
+
+        @Override
+        public TaintConstantValue newOperation(AbstractInsnNode insn) throws AnalyzerException {
+            return wrap(basicInterpreter.newOperation(insn));
+        }
+
+        @Override
+        public TaintConstantValue copyOperation(AbstractInsnNode insn, TaintConstantValue value) {
+            return value;
+        }
+
+        @Override
+        public TaintConstantValue unaryOperation(AbstractInsnNode insn, TaintConstantValue value) throws AnalyzerException {
+            return wrap(basicInterpreter.unaryOperation(insn, value.getValue()));
+        }
+
+        @Override
+        public TaintConstantValue binaryOperation(AbstractInsnNode insn, TaintConstantValue value1,
+                                                  TaintConstantValue value2) throws AnalyzerException {
+            return wrap(basicInterpreter.binaryOperation(insn, value1.getValue(), value2.getValue()));
+        }
+
+        @Override
+        public TaintConstantValue ternaryOperation(AbstractInsnNode insn, TaintConstantValue value1,
+                                                   TaintConstantValue value2, TaintConstantValue value3) {
+            return null;
+        }
+
+        @Override
+        public TaintConstantValue naryOperation(AbstractInsnNode insn, List<? extends TaintConstantValue> values)
+                throws AnalyzerException {
+            if(isMethod(insn, TaintMethodRecord.NEW_EMPTY_TAINT)) {
+                return new TaintConstantValue(BasicValue.REFERENCE_VALUE, true, true);
+            } else if(isCombineTags(insn)) {
+                TaintConstantValue t1 = values.get(0);
+                TaintConstantValue t2 = values.get(1);
+                return new TaintConstantValue(BasicValue.REFERENCE_VALUE, t1.isEmptyTaint() && t2.isEmptyTaint(),
+                        t1.isNonNull());
+            }
+            List<BasicValue> basicValues = new ArrayList<>(values.size());
+            for(TaintConstantValue value : values) {
+                basicValues.add(value.getValue());
+            }
+            return wrap(basicInterpreter.naryOperation(insn, basicValues));
+        }
+
+        @Override
+        public void returnOperation(AbstractInsnNode insn, TaintConstantValue value, TaintConstantValue expected) {
+        }
+
+        @Override
+        public TaintConstantValue merge(TaintConstantValue value1, TaintConstantValue value2) {
+            if(value1.equals(value2)) {
+                return value1;
+            }
+            BasicValue merged = basicInterpreter.merge(value1.getValue(), value2.getValue());
+            return new TaintConstantValue(merged, false, value1.isNonNull() && value2.isNonNull()
+                    && merged.isReference());
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package edu.columbia.cs.psl.phosphor.instrumenter.analyzer;
+
+import edu.columbia.cs.psl.phosphor.instrumenter.TaintMethodRecord;
+import edu.columbia.cs.psl.phosphor.struct.BitSet;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.Set;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Performs a backwards liveness analysis over the local variables of an instrumented method that hold shadow taint
+ * tags. Stores to those local variables that are never read before being overwritten or before the method exits are
+ * removed, and the analysis is repeated while removing a store also removes a load of another shadow local variable.
+ * Stack map frames are updated so that they do not declare a type for a shadow local variable at points where
+ * it is dead, and local variable table entries for shadow local variables that are no longer accessed are removed.
+ */
+public final class ShadowTaintLivenessAnalyzer implements Opcodes {
+
+    private final MethodNode methodNode;
+    private final AbstractInsnNode[] instructions;
+    /**
+     * Maps local variable indices to their bit index in the liveness sets or -1 if the local variable is not being
+     * analyzed
+     */
+    private final int[] localToBit;
+    private final int numberOfBits;
+    /**
+     * Indices of the instructions that can follow each instruction during normal execution
+     */
+    private final int[][] successors;
+    /**
+     * Indices of the starts of the exception handlers whose range contains each instruction
+     */
+    private final int[][] handlers;
+    private final BitSet[] liveIn;
+    private final BitSet[] liveOut;
+    /**
+     * True if a load of a shadow local variable was removed along with a dead store, which may have made other stores
+     * dead
+     */
+    private boolean removedShadowLoad = false;
+
+    private ShadowTaintLivenessAnalyzer(MethodNode methodNode, int[] localToBit, int numberOfBits) {
+        this.methodNode = methodNode;
+        this.instructions = methodNode.instructions.toArray();
+        this.localToBit = localToBit;
+        this.numberOfBits = numberOfBits;
+        this.successors = new int[instructions.length][];
+        this.handlers = new int[instructions.length][];
+        this.liveIn = new BitSet[instructions.length];
+        this.liveOut = new BitSet[instructions.length];
+    }
+
+    private void calculateSuccessors() {
+        int[] numberOfHandlers = new int[instructions.length];
+        for(TryCatchBlockNode tryCatch : methodNode.tryCatchBlocks) {
+            int end = methodNode.instructions.indexOf(tryCatch.end);
+            for(int i = methodNode.instructions.indexOf(tryCatch.start); i < end; i++) {
+                numberOfHandlers[i]++;
+            }
+        }
+        for(int i = 0; i < instructions.length; i++) {
+            handlers[i] = new int[numberOfHandlers[i]];
+            numberOfHandlers[i] = 0;
+        }
+        for(TryCatchBlockNode tryCatch : methodNode.tryCatchBlocks) {
+            int handler = methodNode.instructions.indexOf(tryCatch.handler);
+            int end = methodNode.instructions.indexOf(tryCatch.end);
+            for(int i = methodNode.instructions.indexOf(tryCatch.start); i < end; i++) {
+                handlers[i][numberOfHandlers[i]++] = handler;
+            }
+        }
+        for(int i = 0; i < instructions.length; i++) {
+            AbstractInsnNode insn = instructions[i];
+            if(insn instanceof JumpInsnNode) {
+                int target = methodNode.instructions.indexOf(((JumpInsnNode) insn).label);
+                successors[i] = insn.getOpcode() == GOTO ? new int[]{target} : new int[]{target, i + 1};
+            } else if(insn instanceof TableSwitchInsnNode) {
+                TableSwitchInsnNode switchInsn = (TableSwitchInsnNode) insn;
+                successors[i] = switchTargets(switchInsn.dflt, switchInsn.labels);
+            } else if(insn instanceof LookupSwitchInsnNode) {
+                LookupSwitchInsnNode switchInsn = (LookupSwitchInsnNode) insn;
+                successors[i] = switchTargets(switchInsn.dflt, switchInsn.labels);
+            } else if(isExitInstruction(insn.getOpcode())) {
+                successors[i] = new int[0];
+            } else if(i + 1 < instructions.length) {
+                successors[i] = new int[]{i + 1};
+            } else {
+                successors[i] = new int[0];
+            }
+        }
+    }
+
+    private int[] switchTargets(LabelNode dflt, List<LabelNode> labels) {
+        int[] targets = new int[labels.size() + 1];
+        targets[0] = methodNode.instructions.indexOf(dflt);
+        int i = 1;
+        for(LabelNode label : labels) {
+            targets[i++] = methodNode.instructions.indexOf(label);
+        }
+        return targets;
+    }
+
+    private void calculateLiveness() {
+        for(int i = 0; i < instructions.length; i++) {
+            liveIn[i] = new BitSet(numberOfBits);
+            liveOut[i] = new BitSet(numberOfBits);
+        }
+        boolean changed = true;
+        while(changed) {
+            changed = false;
+            for(int i = instructions.length - 1; i >= 0; i--) {
+                BitSet out = new BitSet(numberOfBits);
+                for(int successor : successors[i]) {
+                    out.union(liveIn[successor]);
+                }
+                BitSet exceptional = new BitSet(numberOfBits);
+                for(int handler : handlers[i]) {
+                    exceptional.union(liveIn[handler]);
+                }
+                out.union(exceptional);
+                BitSet in = out.copy();
+                AbstractInsnNode insn = instructions[i];
+                if(insn instanceof VarInsnNode) {
+                    int bit = getBit(((VarInsnNode) insn).var);
+                    if(bit != -1) {
+                        if(insn.getOpcode() == ASTORE) {
+                            in.remove(bit);
+                        } else {
+                            in.add(bit);
+                        }
+                    }
+                }
+                // The instruction could throw an exception before it completes
+                in.union(exceptional);
+                if(!out.equals(liveOut[i]) || !in.equals(liveIn[i])) {
+                    liveOut[i] = out;
+                    liveIn[i] = in;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private int getBit(int local) {
+        return local < localToBit.length ? localToBit[local] : -1;
+    }
+
+    private int removeDeadStores() {
+        int removed = 0;
+        for(int i = 0; i < instructions.length; i++) {
+            AbstractInsnNode insn = instructions[i];
+            if(insn.getOpcode() == ASTORE) {
+                int bit = getBit(((VarInsnNode) insn).var);
+                if(bit != -1 && !liveOut[i].contains(bit)) {
+                    AbstractInsnNode previous = insn.getPrevious();
+                    if(previous != null && isSideEffectFreePush(previous)) {
+                        if(previous.getOpcode() == ALOAD && getBit(((VarInsnNode) previous).var) != -1) {
+                            removedShadowLoad = true;
+                        }
+                        methodNode.instructions.remove(previous);
+                        methodNode.instructions.remove(insn);
+                    } else {
+                        methodNode.instructions.set(insn, new InsnNode(POP));
+                    }
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private void removeDeadFrameLocals() {
+        for(int i = 0; i < instructions.length; i++) {
+            if(instructions[i] instanceof FrameNode) {
+                FrameNode frame = (FrameNode) instructions[i];
+                if(frame.local == null) {
+                    continue;
+                }
+                Object[] slots = expandLocals(frame.local);
+                boolean changed = false;
+                for(int local = 0; local < slots.length; local++) {
+                    int bit = getBit(local);
+                    if(bit != -1 && slots[local] instanceof String && !liveIn[i].contains(bit)) {
+                        slots[local] = TOP;
+                        changed = true;
+                    }
+                }
+                if(changed) {
+                    frame.local = compressLocals(slots);
+                }
+            }
+        }
+    }
+
+    private void removeUnusedLocalVariableNodes() {
+        if(methodNode.localVariables == null) {
+            return;
+        }
+        BitSet used = new BitSet(numberOfBits);
+        for(AbstractInsnNode insn = methodNode.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if(insn instanceof VarInsnNode) {
+                int bit = getBit(((VarInsnNode) insn).var);
+                if(bit != -1) {
+                    used.add(bit);
+                }
+            }
+        }
+        Iterator<LocalVariableNode> itr = methodNode.localVariables.iterator();
+        while(itr.hasNext()) {
+            int bit = getBit(itr.next().index);
+            if(bit != -1 && !used.contains(bit)) {
+                itr.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes dead stores to the specified shadow taint local variables of the specified method.
+     *
+     * @param methodNode the method whose instructions should be optimized, its frames must be expanded
+     * @param shadowLocals indices of the local variables that only ever hold taint tags
+     * @return the number of stores that were removed
+     */
+    public static int removeDeadShadowStores(MethodNode methodNode, Set<Integer> shadowLocals) {
+        if(shadowLocals.isEmpty() || methodNode.instructions.size() == 0) {
+            return 0;
+        }
+        int maxLocal = 0;
+        for(int local : shadowLocals) {
+            maxLocal = Math.max(maxLocal, local);
+        }
+        int[] localToBit = new int[maxLocal + 1];
+        Arrays.fill(localToBit, -1);
+        int numberOfBits = 0;
+        for(int local : shadowLocals) {
+            localToBit[local] = numberOfBits++;
+        }
+        for(AbstractInsnNode insn = methodNode.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            int opcode = insn.getOpcode();
+            if(opcode == JSR || opcode == RET) {
+                return 0;
+            } else if(insn instanceof FrameNode && ((FrameNode) insn).type != F_NEW) {
+                return 0;
+            } else if(insn instanceof VarInsnNode && opcode != ALOAD && opcode != ASTORE) {
+                boolean wide = opcode == LLOAD || opcode == DLOAD || opcode == LSTORE || opcode == DSTORE;
+                markUnsafe(localToBit, ((VarInsnNode) insn).var, wide ? 2 : 1);
+            } else if(insn instanceof IincInsnNode) {
+                markUnsafe(localToBit, ((IincInsnNode) insn).var, 1);
+            }
+        }
+        int removed = 0;
+        ShadowTaintLivenessAnalyzer analyzer;
+        do {
+            analyzer = new ShadowTaintLivenessAnalyzer(methodNode, localToBit, numberOfBits);
+            analyzer.calculateSuccessors();
+            analyzer.calculateLiveness();
+            analyzer.removeDeadFrameLocals();
+            removed += analyzer.removeDeadStores();
+        } while(analyzer.removedShadowLoad);
+        analyzer.removeUnusedLocalVariableNodes();
+        return removed;
+    }
+
+    private static void markUnsafe(int[] localToBit, int local, int size) {
+        // A local variable accessed as a non-reference, including the second slot of a long or double
+        for(int i = local; i < local + size && i < localToBit.length; i++) {
+            localToBit[i] = -1;
+        }
+    }
+
+    private static boolean isSideEffectFreePush(AbstractInsnNode insn) {
+        switch(insn.getOpcode()) {
+            case ALOAD:
+            case ACONST_NULL:
+            case DUP:
+                return true;
+            case INVOKESTATIC:
+                MethodInsnNode min = (MethodInsnNode) insn;
+                TaintMethodRecord emptyTaint = TaintMethodRecord.NEW_EMPTY_TAINT;
+                return min.owner.equals(emptyTaint.getOwner()) && min.name.equals(emptyTaint.getName())
+                        && min.desc.equals(emptyTaint.getDescriptor());
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isExitInstruction(int opcode) {
+        return (opcode >= IRETURN && opcode <= RETURN) || opcode == ATHROW;
+    }
+
+    private static Object[] expandLocals(List<Object> locals) {
+        int size = 0;
+        for(Object local : locals) {
+            size += (local == LONG || local == DOUBLE) ? 2 : 1;
+        }
+        Object[] slots = new Object[size];
+        int i = 0;
+        for(Object local : locals) {
+            slots[i++] = local;
+            if(local == LONG || local == DOUBLE) {
+                slots[i++] = TOP;
+            }
+        }
+        return slots;
+    }
+
+    private static List<Object> compressLocals(Object[] slots) {
+        List<Object> locals = new ArrayList<>();
+        int lastNonTop = 0;
+        for(int i = 0; i < slots.length; i++) {
+            locals.add(slots[i]);
+            if(slots[i] != TOP) {
+                lastNonTop = locals.size();
+            }
+            if(slots[i] == LONG || slots[i] == DOUBLE) {
+                i++;
+            }
+        }
+        return new ArrayList<>(locals.subList(0, lastNonTop));
+    }
+}
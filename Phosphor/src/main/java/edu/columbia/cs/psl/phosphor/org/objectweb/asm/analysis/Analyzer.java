@@ -30,6 +30,7 @@ package edu.columbia.cs.psl.phosphor.org.objectweb.asm.analysis;
 //
 // Modifications: private members visibility changed to protected
 
+import edu.columbia.cs.psl.phosphor.struct.IntArrayList;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.*;
@@ -330,11 +331,10 @@ public class Analyzer<V extends Value> implements Opcodes {
     protected void findSubroutine(
             final int insnIndex, final Subroutine subroutine, final List<AbstractInsnNode> jsrInsns)
             throws AnalyzerException {
-        ArrayList<Integer> instructionIndicesToProcess = new ArrayList<>();
+        IntArrayList instructionIndicesToProcess = new IntArrayList();
         instructionIndicesToProcess.add(insnIndex);
         while(!instructionIndicesToProcess.isEmpty()) {
-            int currentInsnIndex =
-                    instructionIndicesToProcess.remove(instructionIndicesToProcess.size() - 1);
+            int currentInsnIndex = instructionIndicesToProcess.removeLast();
             if(currentInsnIndex < 0 || currentInsnIndex >= insnListSize) {
                 throw new AnalyzerException(null, "Execution can fall off the end of the code");
             }
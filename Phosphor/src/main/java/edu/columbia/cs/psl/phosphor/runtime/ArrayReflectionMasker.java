@@ -94,96 +94,31 @@ public class ArrayReflectionMasker {
         stackFrame.returnTaint = Taint.emptyTaint();
         Type t = Type.getType(clazz);
         TaggedIntArray dimstaint = (TaggedIntArray) stackFrame.getArgWrapper(0, dims);
-        if (t.getSort() == Type.ARRAY) {
-            int innerDims = t.getDimensions();
-            if (innerDims == 1) {
-                // 2D array, init only the top level
-                switch (t.getElementType().getSort()) {
-                    case Type.BOOLEAN:
-                        return MultiDArrayUtils.MULTIANEWARRAY_Z_2DIMS(dims[0], stackFrame);
-                    case Type.BYTE:
-                        return MultiDArrayUtils.MULTIANEWARRAY_B_2DIMS(dims[0], stackFrame);
-                    case Type.CHAR:
-                        return MultiDArrayUtils.MULTIANEWARRAY_C_2DIMS(dims[0], stackFrame);
-                    case Type.DOUBLE:
-                        return MultiDArrayUtils.MULTIANEWARRAY_D_2DIMS(dims[0], stackFrame);
-                    case Type.FLOAT:
-                        return MultiDArrayUtils.MULTIANEWARRAY_F_2DIMS(dims[0], stackFrame);
-                    case Type.INT:
-                        return MultiDArrayUtils.MULTIANEWARRAY_I_2DIMS(dims[0], stackFrame);
-                    case Type.LONG:
-                        return MultiDArrayUtils.MULTIANEWARRAY_J_2DIMS(dims[0], stackFrame);
-                    case Type.SHORT:
-                        return MultiDArrayUtils.MULTIANEWARRAY_S_2DIMS(dims[0], stackFrame);
-                    case Type.OBJECT:
-                        return MultiDArrayUtils.MULTIANEWARRAY_REFERENCE_2DIMS(dims[0], clazz.getComponentType(), stackFrame);
-                    default:
-                        throw new UnsupportedOperationException();
-                }
-            } else {
-                throw new UnsupportedOperationException();
-            }
-        } else if(dims.length == 1) {
+        if (dims.length == 0) {
+            throw new IllegalArgumentException("Empty dimensions array");
+        } else if (dims.length == 1 && t.getSort() != Type.ARRAY) {
             if(t.getSort() == Type.OBJECT) {
                 return new TaggedReferenceArray((Object[]) InstrumentedJREMethodHelper.java_lang_reflect_Array_newArray(clazz, dims[0]));
             } else {
                 return newInstanceForType(t.getSort(), dims[0]);
             }
-        } else if (dims.length == 2) {
-            // 2D array, init all levels
-            switch (t.getSort()) {
-                case Type.BOOLEAN:
-                    return MultiDArrayUtils.MULTIANEWARRAY_Z_2DIMS(dims[0], dims[1], stackFrame);
-                case Type.BYTE:
-                    return MultiDArrayUtils.MULTIANEWARRAY_B_2DIMS(dims[0], dims[1], stackFrame);
-                case Type.CHAR:
-                    return MultiDArrayUtils.MULTIANEWARRAY_C_2DIMS(dims[0], dims[1], stackFrame);
-                case Type.DOUBLE:
-                    return MultiDArrayUtils.MULTIANEWARRAY_D_2DIMS(dims[0], dims[1], stackFrame);
-                case Type.FLOAT:
-                    return MultiDArrayUtils.MULTIANEWARRAY_F_2DIMS(dims[0], dims[1], stackFrame);
-                case Type.INT:
-                    return MultiDArrayUtils.MULTIANEWARRAY_I_2DIMS(dims[0], dims[1], stackFrame);
-                case Type.LONG:
-                    return MultiDArrayUtils.MULTIANEWARRAY_J_2DIMS(dims[0], dims[1], stackFrame);
-                case Type.SHORT:
-                    return MultiDArrayUtils.MULTIANEWARRAY_S_2DIMS(dims[0], dims[1], stackFrame);
-                case Type.OBJECT:
-                    return MultiDArrayUtils.MULTIANEWARRAY_REFERENCE_2DIMS(dims[0],
-                            dims[1], clazz, stackFrame);
-            }
-        } else if (dims.length == 3) {
-            switch (t.getSort()) {
-                case Type.BOOLEAN:
-                    return MultiDArrayUtils.MULTIANEWARRAY_Z_3DIMS(dims[0], dims[1], dims[2], stackFrame);
-                case Type.BYTE:
-                    return MultiDArrayUtils.MULTIANEWARRAY_B_3DIMS(dims[0], dims[1], dims[2], stackFrame);
-                case Type.CHAR:
-                    return MultiDArrayUtils.MULTIANEWARRAY_C_3DIMS(dims[0], dims[1], dims[2], stackFrame);
-                case Type.DOUBLE:
-                    return MultiDArrayUtils.MULTIANEWARRAY_D_3DIMS(dims[0], dims[1], dims[2], stackFrame);
-                case Type.FLOAT:
-                    return MultiDArrayUtils.MULTIANEWARRAY_F_3DIMS(dims[0], dims[1], dims[2], stackFrame);
-                case Type.INT:
-                    return MultiDArrayUtils.MULTIANEWARRAY_I_3DIMS(dims[0], dims[1], dims[2], stackFrame);
-                case Type.LONG:
-                    return MultiDArrayUtils.MULTIANEWARRAY_J_3DIMS(dims[0], dims[1], dims[2], stackFrame);
-                case Type.SHORT:
-                    return MultiDArrayUtils.MULTIANEWARRAY_S_3DIMS(dims[0], dims[1], dims[2], stackFrame);
-                case Type.OBJECT:
-                    return MultiDArrayUtils.MULTIANEWARRAY_REFERENCE_3DIMS(dims[0],
-                            dims[1], dims[2], clazz, stackFrame);
-            }
         }
-        throw new UnsupportedOperationException();
+        Class<?> elementClass = clazz;
+        while (elementClass.isArray()) {
+            elementClass = elementClass.getComponentType();
+        }
+        Taint[] lengthTaints = new Taint[dims.length];
+        for (int i = 0; i < dims.length; i++) {
+            Taint tag = dimstaint == null ? null : dimstaint.getTaintOrEmpty(i);
+            lengthTaints[i] = tag == null ? Taint.emptyTaint() : tag;
+        }
+        int dimensions = dims.length + (t.getSort() == Type.ARRAY ? t.getDimensions() : 0);
+        return MultiDArrayUtils.newArray(dims, lengthTaints, dimensions, Type.getType(elementClass).getSort(),
+                elementClass);
     }
 
     static void fillInTaint(PhosphorStackFrame ret, TaggedArray ar, int idx) {
-        if (ar.taints != null) {
-            ret.returnTaint = ar.taints[idx];
-        } else {
-            ret.returnTaint = Taint.emptyTaint();
-        }
+        ret.returnTaint = ar.getTaintOrEmpty(idx);
     }
 
     public static Object get(Object obj, int idx, PhosphorStackFrame stackFrame) {
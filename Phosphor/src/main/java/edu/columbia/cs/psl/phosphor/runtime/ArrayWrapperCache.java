@@ -0,0 +1,56 @@
+package edu.columbia.cs.psl.phosphor.runtime;
+
+import edu.columbia.cs.psl.phosphor.struct.TaggedArray;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * A small direct-mapped cache of the wrappers most recently created for arrays whose wrapper was lost, for example
+ * because the array passed through uninstrumented code. Looking up an array before wrapping it again keeps the same
+ * array mapped to the same wrapper, which preserves the wrapper's taint tags and avoids allocating a new wrapper on
+ * every call along such a path.
+ * <p>
+ * Each slot holds only a wrapper and a lookup checks that the wrapper's array is identical to the requested array, so
+ * a cache shared by racing threads can miss but never returns the wrapper of a different array. Wrappers are only
+ * weakly reachable from the cache, so a cache held by a long-lived stack frame does not keep large arrays and their
+ * taint tags alive after the program has dropped them.
+ */
+final class ArrayWrapperCache {
+
+    // Number of slots, must be a power of 2
+    private static final int SIZE = 32;
+
+    @SuppressWarnings("unchecked")
+    private final WeakReference<TaggedArray>[] wrappers = new WeakReference[SIZE];
+
+    /**
+     * Returns the cached wrapper of the specified array or null if its wrapper is not cached.
+     */
+    TaggedArray get(Object array) {
+        WeakReference<TaggedArray> ref = wrappers[slot(array)];
+        TaggedArray wrapper = ref == null ? null : ref.get();
+        if (wrapper != null && wrapper.getVal() == array) {
+            if (TaintMetrics.ENABLED) {
+                TaintMetrics.ARRAY_WRAPPERS_REUSED.increment();
+            }
+            return wrapper;
+        }
+        return null;
+    }
+
+    /**
+     * Caches the specified newly created wrapper in place of any wrapper whose array maps to the same slot.
+     */
+    <T extends TaggedArray> T put(T wrapper) {
+        if (TaintMetrics.ENABLED) {
+            TaintMetrics.ARRAY_WRAPPERS_ALLOCATED.increment();
+        }
+        wrappers[slot(wrapper.getVal())] = new WeakReference<TaggedArray>(wrapper);
+        return wrapper;
+    }
+
+    private static int slot(Object array) {
+        int hash = System.identityHashCode(array);
+        return (hash ^ (hash >>> 16)) & (SIZE - 1);
+    }
+}
@@ -187,10 +187,7 @@ public class CharacterUtils {
         char[] v = Character.toChars(idx);
         TaggedCharArray ret = new TaggedCharArray(v);
         if(idxTaint != null) {
-            ret.taints = new Taint[v.length];
-            for(int i = 0; i < v.length; i++) {
-                ret.taints[i] = idxTaint;
-            }
+            ret.setTaints(idxTaint);
         }
         phosphorStackFrame.setWrappedReturn(v);
         return v;
@@ -226,10 +223,7 @@ public class CharacterUtils {
         char[] v = InstrumentedJREMethodHelper.java_lang_Character_toUpperCaseCharArray(c);
         TaggedCharArray ret = new TaggedCharArray(v);
         if(idxTaint != null) {
-            ret.taints = new Taint[v.length];
-            for(int i = 0; i < v.length; i++) {
-                ret.taints[i] = idxTaint;
-            }
+            ret.setTaints(idxTaint);
         }
         phosphorStackFrame.setWrappedReturn(v);
         return v;
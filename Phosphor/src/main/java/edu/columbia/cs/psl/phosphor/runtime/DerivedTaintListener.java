@@ -3,6 +3,12 @@ package edu.columbia.cs.psl.phosphor.runtime;
 import edu.columbia.cs.psl.phosphor.control.ControlFlowStack;
 import edu.columbia.cs.psl.phosphor.struct.*;
 
+/**
+ * Receives callbacks when taint tags are derived from other tags. No listener is installed by default; a listener can
+ * be installed by setting {@link edu.columbia.cs.psl.phosphor.Configuration#derivedTaintListener} or through the
+ * derivedTaintListener option. Subclasses that override the array access methods are responsible for propagating the
+ * taint tags of the accessed elements, the implementations in this class perform Phosphor's default propagation.
+ */
 public class DerivedTaintListener {
 
     public void singleDepCreated(Taint in, Taint out) {
@@ -93,10 +99,10 @@ public class DerivedTaintListener {
 
 
     public Object arrayGet(TaggedReferenceArray b, int idx, Taint idxTaint, PhosphorStackFrame ret) {
-        if(b.taints == null) {
+        if(!b.hasTaints()) {
             ret.setReturnTaint(idxTaint);
         } else {
-            ret.setReturnTaint(Taint.combineTags(idxTaint, b.taints[idx]));
+            ret.setReturnTaint(Taint.combineTags(idxTaint, b.getTaintOrEmpty(idx)));
         }
         return b.val[idx];
     }
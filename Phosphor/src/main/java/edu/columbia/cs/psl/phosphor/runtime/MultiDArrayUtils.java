@@ -970,523 +970,93 @@ public class MultiDArrayUtils {
         return in;
     }
 
-    // ============ START GENERATED ===========
-
-    public static TaggedReferenceArray MULTIANEWARRAY_B_2DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedByteArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedByteArray(t2, new byte[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_B_2DIMS(int dim, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedByteArray[dim]);
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_B_3DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedReferenceArray(t2, new TaggedByteArray[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_B_3DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedByteArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedByteArray(t3, new byte[dim3]);
-            }
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_B_4DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedReferenceArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedReferenceArray(t3, new TaggedByteArray[dim3]);
-            }
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_Z_2DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedBooleanArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedBooleanArray(t2, new boolean[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_Z_2DIMS(int dim, PhosphorStackFrame phosphorStackFrame) {
-        Taint tag = phosphorStackFrame.getArgTaint(0);
-
-        TaggedReferenceArray ret = new TaggedReferenceArray(tag, new TaggedBooleanArray[dim]);
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_Z_3DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedReferenceArray(t2, new TaggedBooleanArray[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_Z_3DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedBooleanArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedBooleanArray(t3, new boolean[dim3]);
-            }
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_Z_4DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedReferenceArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedReferenceArray(t3, new TaggedBooleanArray[dim3]);
-            }
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_C_2DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedCharArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedCharArray(t2, new char[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_C_2DIMS(int dim, PhosphorStackFrame phosphorStackFrame) {
-        Taint tag = phosphorStackFrame.getArgTaint(0);
-        TaggedReferenceArray ret = new TaggedReferenceArray(tag, new TaggedCharArray[dim]);
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_C_3DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedReferenceArray(t2, new TaggedCharArray[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_C_3DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedCharArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedCharArray(t3, new char[dim3]);
-            }
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_C_4DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedReferenceArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedReferenceArray(t3, new TaggedCharArray[dim3]);
-            }
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_F_2DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedFloatArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedFloatArray(t2, new float[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_F_2DIMS(int dim, PhosphorStackFrame phosphorStackFrame) {
-        Taint tag = phosphorStackFrame.getArgTaint(0);
-        TaggedReferenceArray ret = new TaggedReferenceArray(tag, new TaggedFloatArray[dim]);
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_F_3DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedReferenceArray(t2, new TaggedFloatArray[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_F_3DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedFloatArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedFloatArray(t3, new float[dim3]);
-            }
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_F_4DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedReferenceArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedReferenceArray(t3, new TaggedFloatArray[dim3]);
-            }
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_I_2DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedIntArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedIntArray(t2, new int[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_I_2DIMS(int dim, PhosphorStackFrame phosphorStackFrame) {
-        Taint tag = phosphorStackFrame.getArgTaint(0);
-        TaggedReferenceArray ret = new TaggedReferenceArray(tag, new TaggedIntArray[dim]);
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_I_3DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedReferenceArray(t2, new TaggedIntArray[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_I_3DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedIntArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedIntArray(t3, new int[dim3]);
-            }
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_I_4DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedReferenceArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedReferenceArray(t3, new TaggedIntArray[dim3]);
-            }
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_D_2DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedDoubleArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedDoubleArray(t2, new double[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_D_2DIMS(int dim, PhosphorStackFrame phosphorStackFrame) {
-        Taint tag = phosphorStackFrame.getArgTaint(0);
-        TaggedReferenceArray ret = new TaggedReferenceArray(tag, new TaggedDoubleArray[dim]);
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_D_3DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedReferenceArray(t2, new TaggedDoubleArray[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_D_3DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedDoubleArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedDoubleArray(t3, new double[dim3]);
-            }
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_D_4DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedReferenceArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedReferenceArray(t3, new TaggedDoubleArray[dim3]);
-            }
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_S_2DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedShortArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedShortArray(t2, new short[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_S_2DIMS(int dim, PhosphorStackFrame phosphorStackFrame) {
-        Taint tag = phosphorStackFrame.getArgTaint(0);
-        TaggedReferenceArray ret = new TaggedReferenceArray(tag, new TaggedShortArray[dim]);
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_S_3DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedReferenceArray(t2, new TaggedShortArray[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_S_3DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedShortArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedShortArray(t3, new short[dim3]);
-            }
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_S_4DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedReferenceArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedReferenceArray(t3, new TaggedShortArray[dim3]);
-            }
+    /**
+     * Creates the wrapper of a multi-dimensional array as the MULTIANEWARRAY instruction would create the array. The
+     * taint tags of the specified lengths are read from the specified stack frame's argument taints.
+     *
+     * @param lengths      the lengths of the outermost levels of the array that are created, at least one
+     * @param dimensions   the number of dimensions of the array's type, at least the number of lengths
+     * @param elementSort  the sort of the array type's element type
+     * @param elementClass the array type's element class, only needed if the element type is a reference type and an
+     *                     array is created for every dimension
+     * @throws NegativeArraySizeException if any of the specified lengths is negative
+     */
+    @InvokedViaInstrumentation(record = TaintMethodRecord.MULTI_ANEW_ARRAY)
+    public static TaggedReferenceArray MULTIANEWARRAY(int[] lengths, int dimensions, int elementSort,
+            Class<?> elementClass, PhosphorStackFrame phosphorStackFrame) {
+        Taint[] lengthTaints = new Taint[lengths.length];
+        for (int i = 0; i < lengths.length; i++) {
+            lengthTaints[i] = phosphorStackFrame.getArgTaint(i);
         }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_J_2DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedLongArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedLongArray(t2, new long[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_J_2DIMS(int dim, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedLongArray[dim]);
-        return ret;
+        return (TaggedReferenceArray) newArray(lengths, lengthTaints, dimensions, elementSort, elementClass);
     }
 
-    public static TaggedReferenceArray MULTIANEWARRAY_J_3DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedReferenceArray(t2, new TaggedLongArray[dim2]);
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_J_3DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedLongArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedLongArray(t3, new long[dim3]);
+    /**
+     * Creates the wrapper of a multi-dimensional array whose outermost levels have the specified lengths and whose
+     * wrappers at each of those levels have the corresponding length taint. Levels beyond the specified lengths are
+     * left null. Every level is built from the same tables of wrapper types instead of a method per element type and
+     * number of dimensions.
+     *
+     * @throws NegativeArraySizeException if any of the specified lengths is negative
+     */
+    public static Object newArray(int[] lengths, Taint[] lengthTaints, int dimensions, int elementSort,
+            Class<?> elementClass) {
+        // Like MULTIANEWARRAY, check every length before allocating anything
+        for (int length : lengths) {
+            if (length < 0) {
+                throw new NegativeArraySizeException(String.valueOf(length));
             }
         }
-        return ret;
+        return newLevel(0, lengths, lengthTaints, dimensions, elementSort, elementClass);
     }
 
-    public static TaggedReferenceArray MULTIANEWARRAY_J_4DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedReferenceArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedReferenceArray(t3, new TaggedLongArray[dim3]);
+    private static Object newLevel(int level, int[] lengths, Taint[] lengthTaints, int dimensions, int elementSort,
+            Class<?> elementClass) {
+        int length = lengths[level];
+        Taint lengthTaint = lengthTaints[level];
+        int remaining = dimensions - level;
+        if (remaining == 1) {
+            if (elementSort == Type.OBJECT || elementSort == Type.ARRAY) {
+                return new TaggedReferenceArray(lengthTaint,
+                        (Object[]) InstrumentedJREMethodHelper.java_lang_reflect_Array_newArray(elementClass, length));
             }
+            TaggedArray ret = ArrayReflectionMasker.newInstanceForType(elementSort, length);
+            ret.lengthTaint = lengthTaint;
+            return ret;
         }
-        return ret;
-    }
-
-    // ============ END GENERATED =============
-
-    public static TaggedReferenceArray MULTIANEWARRAY_REFERENCE_4DIMS(int dim1, int dim2, int dim3, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedReferenceArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[j] = new TaggedReferenceArray(t3, new TaggedReferenceArray[dim3]);
+        Object[] elements = remaining == 2 ? newWrapperArray(elementSort, length) : new TaggedReferenceArray[length];
+        if (level + 1 < lengths.length) {
+            for (int i = 0; i < length; i++) {
+                elements[i] = newLevel(level + 1, lengths, lengthTaints, dimensions, elementSort, elementClass);
             }
         }
-        return ret;
+        return new TaggedReferenceArray(lengthTaint, elements);
     }
 
-    public static TaggedReferenceArray MULTIANEWARRAY_REFERENCE_3DIMS(int dim1, int dim2, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedReferenceArray[dim2]);
-            ret.val[i] = d;
-        }
-        return ret;
-    }
-
-
-    public static TaggedReferenceArray MULTIANEWARRAY_REFERENCE_3DIMS(int dim1, int dim2, int dim3, Class<?> component, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        Taint t3 = phosphorStackFrame.getArgTaint(2);
-
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            TaggedReferenceArray d = new TaggedReferenceArray(t2, new TaggedReferenceArray[dim2]);
-            ret.val[i] = d;
-            for (int j = 0; j < dim2; j++) {
-                d.val[i] = new TaggedReferenceArray(t3, (Object[]) InstrumentedJREMethodHelper.java_lang_reflect_Array_newArray(component, dim3));
-            }
+    /* Returns a new array of the specified length for the wrappers of one-dimensional arrays of the specified sort. */
+    private static Object[] newWrapperArray(int elementSort, int length) {
+        switch (elementSort) {
+            case Type.BOOLEAN:
+                return new TaggedBooleanArray[length];
+            case Type.BYTE:
+                return new TaggedByteArray[length];
+            case Type.CHAR:
+                return new TaggedCharArray[length];
+            case Type.DOUBLE:
+                return new TaggedDoubleArray[length];
+            case Type.FLOAT:
+                return new TaggedFloatArray[length];
+            case Type.INT:
+                return new TaggedIntArray[length];
+            case Type.LONG:
+                return new TaggedLongArray[length];
+            case Type.SHORT:
+                return new TaggedShortArray[length];
+            default:
+                return new TaggedReferenceArray[length];
         }
-        return ret;
-    }
-
-
-    public static TaggedReferenceArray MULTIANEWARRAY_REFERENCE_2DIMS(int dim1, int dim2, Class<?> component, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        Taint t2 = phosphorStackFrame.getArgTaint(1);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        for (int i = 0; i < dim1; i++) {
-            ret.val[i] = new TaggedReferenceArray(t2, (Object[]) InstrumentedJREMethodHelper.java_lang_reflect_Array_newArray(component, dim2));
-        }
-        return ret;
-    }
-
-    public static TaggedReferenceArray MULTIANEWARRAY_REFERENCE_2DIMS(int dim1, Class<?> component, PhosphorStackFrame phosphorStackFrame) {
-        Taint t1 = phosphorStackFrame.getArgTaint(0);
-        TaggedReferenceArray ret = new TaggedReferenceArray(t1, new TaggedReferenceArray[dim1]);
-        return ret;
     }
 
-
     public static Object unbox1D(final Object in) {
         if (in instanceof TaggedArray) {
             return ((TaggedArray) in).getVal();
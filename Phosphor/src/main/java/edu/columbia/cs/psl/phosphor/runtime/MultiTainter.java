@@ -159,11 +159,9 @@ public final class MultiTainter {
     }
 
     private static void taintedArray(TaggedArray in, Object lbl) {
-        if (in.taints == null) {
-            in.taints = new Taint[in.getLength()];
-        }
+        in.ensureTaints();
         for (int i = 0; i < in.getLength(); i++) {
-            in.taints[i] = Taint.withLabel(lbl);
+            in.setTaint(i, Taint.withLabel(lbl));
         }
     }
 
@@ -298,12 +296,14 @@ public final class MultiTainter {
                 InstrumentedJREFieldHelper.JAVA_8setvaluePHOSPHOR_WRAPPER(str, TaggedCharArray.factory(InstrumentedJREFieldHelper.JAVA_8getvalue(str)));
             }
             onStr.taints = tags;
+            onStr.taintsChanged();
         } else {
             TaggedByteArray onStr = InstrumentedJREFieldHelper.getvaluePHOSPHOR_WRAPPER(str);
             if (onStr == null) {
                 InstrumentedJREFieldHelper.setvaluePHOSPHOR_WRAPPER(str, TaggedByteArray.factory(InstrumentedJREFieldHelper.getvalue(str)));
             }
             onStr.taints = tags;
+            onStr.taintsChanged();
         }
     }
 
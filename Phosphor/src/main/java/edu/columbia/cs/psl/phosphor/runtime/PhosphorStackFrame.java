@@ -23,14 +23,18 @@ public class PhosphorStackFrame {
 
     private PhosphorStackFrame spare;
 
-    public PhosphorStackFrame() {
+    // Shared by all of the frames created for a thread from the thread's first frame
+    private final ArrayWrapperCache wrappers;
 
+    public PhosphorStackFrame() {
+        this.wrappers = new ArrayWrapperCache();
     }
 
     public PhosphorStackFrame(PhosphorStackFrame prevFrame) {
         this.isFree = false;
         this.prevFrame = prevFrame;
         this.needsCleanup = true;
+        this.wrappers = prevFrame.wrappers;
     }
 
     public static int computeFrameHash(String name, String desc) {
@@ -135,13 +139,13 @@ public class PhosphorStackFrame {
         Object ret = getAndClearWrappedArgInternal(idx);
         if (ret == null || !(ret instanceof TaggedReferenceArray)) {
             if (actual != null) {
-                return new TaggedReferenceArray(actual);
+                return wrap(actual);
             }
             return null;
         }
         TaggedReferenceArray refWrapper = (TaggedReferenceArray) ret;
         if (refWrapper.val != actual && actual != null) {
-            return new TaggedReferenceArray(actual);
+            return wrap(actual);
         }
         return (TaggedReferenceArray) ret;
     }
@@ -166,13 +170,13 @@ public class PhosphorStackFrame {
         Object ret = getAndClearWrappedArgInternal(idx);
         if (!(ret instanceof TaggedBooleanArray)) {
             if (actual != null) {
-                return new TaggedBooleanArray(actual);
+                return wrap(actual);
             }
             return null;
         }
         TaggedBooleanArray refWrapper = (TaggedBooleanArray) ret;
         if (refWrapper.val != actual && actual != null) {
-            return new TaggedBooleanArray(actual);
+            return wrap(actual);
         }
         return (TaggedBooleanArray) ret;
     }
@@ -182,13 +186,13 @@ public class PhosphorStackFrame {
         Object ret = getAndClearWrappedArgInternal(idx);
         if (!(ret instanceof TaggedByteArray)) {
             if (actual != null) {
-                return new TaggedByteArray(actual);
+                return wrap(actual);
             }
             return null;
         }
         TaggedByteArray refWrapper = (TaggedByteArray) ret;
         if (refWrapper.val != actual && actual != null) {
-            return new TaggedByteArray(actual);
+            return wrap(actual);
         }
         return (TaggedByteArray) ret;
     }
@@ -198,13 +202,13 @@ public class PhosphorStackFrame {
         Object ret = getAndClearWrappedArgInternal(idx);
         if (!(ret instanceof TaggedCharArray)) {
             if (actual != null) {
-                return new TaggedCharArray(actual);
+                return wrap(actual);
             }
             return null;
         }
         TaggedCharArray refWrapper = (TaggedCharArray) ret;
         if (refWrapper.val != actual && actual != null) {
-            return new TaggedCharArray(actual);
+            return wrap(actual);
         }
         return (TaggedCharArray) ret;
     }
@@ -214,13 +218,13 @@ public class PhosphorStackFrame {
         Object ret = getAndClearWrappedArgInternal(idx);
         if (!(ret instanceof TaggedFloatArray)) {
             if (actual != null) {
-                return new TaggedFloatArray(actual);
+                return wrap(actual);
             }
             return null;
         }
         TaggedFloatArray refWrapper = (TaggedFloatArray) ret;
         if (refWrapper.val != actual && actual != null) {
-            return new TaggedFloatArray(actual);
+            return wrap(actual);
         }
         return (TaggedFloatArray) ret;
     }
@@ -230,13 +234,13 @@ public class PhosphorStackFrame {
         Object ret = getAndClearWrappedArgInternal(idx);
         if (!(ret instanceof TaggedIntArray)) {
             if (actual != null) {
-                return new TaggedIntArray(actual);
+                return wrap(actual);
             }
             return null;
         }
         TaggedIntArray refWrapper = (TaggedIntArray) ret;
         if (refWrapper.val != actual && actual != null) {
-            return new TaggedIntArray(actual);
+            return wrap(actual);
         }
         return (TaggedIntArray) ret;
     }
@@ -246,13 +250,13 @@ public class PhosphorStackFrame {
         Object ret = getAndClearWrappedArgInternal(idx);
         if (!(ret instanceof TaggedShortArray)) {
             if (actual != null) {
-                return new TaggedShortArray(actual);
+                return wrap(actual);
             }
             return null;
         }
         TaggedShortArray refWrapper = (TaggedShortArray) ret;
         if (refWrapper.val != actual && actual != null) {
-            return new TaggedShortArray(actual);
+            return wrap(actual);
         }
         return (TaggedShortArray) ret;
     }
@@ -262,13 +266,13 @@ public class PhosphorStackFrame {
         Object ret = getAndClearWrappedArgInternal(idx);
         if (!(ret instanceof TaggedLongArray)) {
             if (actual != null) {
-                return new TaggedLongArray(actual);
+                return wrap(actual);
             }
             return null;
         }
         TaggedLongArray refWrapper = (TaggedLongArray) ret;
         if (refWrapper.val != actual && actual != null) {
-            return new TaggedLongArray(actual);
+            return wrap(actual);
         }
         return (TaggedLongArray) ret;
     }
@@ -278,18 +282,65 @@ public class PhosphorStackFrame {
         Object ret = getAndClearWrappedArgInternal(idx);
         if (!(ret instanceof TaggedDoubleArray)) {
             if (actual != null) {
-                return new TaggedDoubleArray(actual);
+                return wrap(actual);
             }
             return null;
         }
         TaggedDoubleArray refWrapper = (TaggedDoubleArray) ret;
         if (refWrapper.val != actual && actual != null) {
-            return new TaggedDoubleArray(actual);
+            return wrap(actual);
         }
         return (TaggedDoubleArray) ret;
     }
 
 
+    /* Wrappers for arrays whose wrapper was lost are looked up in and added to the cache shared by this thread's frames,
+     * so that the same array keeps being mapped to the same wrapper. */
+    private TaggedReferenceArray wrap(Object[] actual) {
+        TaggedArray cached = wrappers.get(actual);
+        return cached != null ? (TaggedReferenceArray) cached : wrappers.put(new TaggedReferenceArray(actual));
+    }
+
+    private TaggedBooleanArray wrap(boolean[] actual) {
+        TaggedArray cached = wrappers.get(actual);
+        return cached != null ? (TaggedBooleanArray) cached : wrappers.put(new TaggedBooleanArray(actual));
+    }
+
+    private TaggedByteArray wrap(byte[] actual) {
+        TaggedArray cached = wrappers.get(actual);
+        return cached != null ? (TaggedByteArray) cached : wrappers.put(new TaggedByteArray(actual));
+    }
+
+    private TaggedCharArray wrap(char[] actual) {
+        TaggedArray cached = wrappers.get(actual);
+        return cached != null ? (TaggedCharArray) cached : wrappers.put(new TaggedCharArray(actual));
+    }
+
+    private TaggedFloatArray wrap(float[] actual) {
+        TaggedArray cached = wrappers.get(actual);
+        return cached != null ? (TaggedFloatArray) cached : wrappers.put(new TaggedFloatArray(actual));
+    }
+
+    private TaggedIntArray wrap(int[] actual) {
+        TaggedArray cached = wrappers.get(actual);
+        return cached != null ? (TaggedIntArray) cached : wrappers.put(new TaggedIntArray(actual));
+    }
+
+    private TaggedShortArray wrap(short[] actual) {
+        TaggedArray cached = wrappers.get(actual);
+        return cached != null ? (TaggedShortArray) cached : wrappers.put(new TaggedShortArray(actual));
+    }
+
+    private TaggedLongArray wrap(long[] actual) {
+        TaggedArray cached = wrappers.get(actual);
+        return cached != null ? (TaggedLongArray) cached : wrappers.put(new TaggedLongArray(actual));
+    }
+
+    private TaggedDoubleArray wrap(double[] actual) {
+        TaggedArray cached = wrappers.get(actual);
+        return cached != null ? (TaggedDoubleArray) cached : wrappers.put(new TaggedDoubleArray(actual));
+    }
+
     @InvokedViaInstrumentation(record = TaintMethodRecord.SET_ARG_TAINT)
     public void setArgTaint(Taint tag, int idx) {
         ensureArgsLength(idx);
@@ -346,6 +397,9 @@ public class PhosphorStackFrame {
 
         //Base case - we just made a thread, make a new PhosphorStackFrame, will be used by this method and its callees
         if (onThread == null) {
+            if (TaintMetrics.ENABLED) {
+                TaintMetrics.THREAD_FRAMES_ALLOCATED.increment();
+            }
             onThread = new PhosphorStackFrame();
             InstrumentedJREFieldHelper.setphosphorStackFrame(currentThread, onThread);
             return onThread;
@@ -359,8 +413,14 @@ public class PhosphorStackFrame {
                 spare.isFree = false;
                 spare.needsCleanup = true;
                 ret = spare;
+                if (TaintMetrics.ENABLED) {
+                    TaintMetrics.FRAMES_REUSED.increment();
+                }
             } else {
                 ret = new PhosphorStackFrame(onThread);
+                if (TaintMetrics.ENABLED) {
+                    TaintMetrics.FRAMES_ALLOCATED.increment();
+                }
                 if (spare == null) {
                     onThread.spare = ret;
                 }
@@ -380,6 +440,9 @@ public class PhosphorStackFrame {
 
         //Base case - we just made a thread, make a new PhosphorStackFrame, will be used by this method and its callees
         if (onThread == null) {
+            if (TaintMetrics.ENABLED) {
+                TaintMetrics.THREAD_FRAMES_ALLOCATED.increment();
+            }
             onThread = new PhosphorStackFrame();
             InstrumentedJREFieldHelper.setphosphorStackFrame(currentThread, onThread);
             return onThread;
@@ -392,8 +455,14 @@ public class PhosphorStackFrame {
                 spare.prevFrame = onThread;
                 spare.needsCleanup = true;
                 ret = spare;
+                if (TaintMetrics.ENABLED) {
+                    TaintMetrics.FRAMES_REUSED.increment();
+                }
             } else {
                 ret = new PhosphorStackFrame(onThread);
+                if (TaintMetrics.ENABLED) {
+                    TaintMetrics.FRAMES_ALLOCATED.increment();
+                }
                 if (spare == null) {
                     onThread.spare = ret;
                 }
@@ -423,7 +492,7 @@ public class PhosphorStackFrame {
         TaggedReferenceArray ret = (TaggedReferenceArray) wrappedReturn;
         this.wrappedReturn = null;
         if (ret == null || (unwrapped != null && ret.val != unwrapped)) {
-            return new TaggedReferenceArray(unwrapped);
+            return wrap(unwrapped);
         }
         return ret;
     }
@@ -432,14 +501,14 @@ public class PhosphorStackFrame {
     public TaggedCharArray getReturnWrapper(char[] unwrapped) {
         if (!(wrappedReturn instanceof TaggedCharArray)) {
             if (unwrapped != null) {
-                return new TaggedCharArray(unwrapped);
+                return wrap(unwrapped);
             }
             return null;
         }
         TaggedCharArray ret = (TaggedCharArray) wrappedReturn;
         this.wrappedReturn = null;
         if (ret == null || (unwrapped != null && ret.val != unwrapped)) {
-            return new TaggedCharArray(unwrapped);
+            return wrap(unwrapped);
         }
         return ret;
     }
@@ -448,14 +517,14 @@ public class PhosphorStackFrame {
     public TaggedShortArray getReturnWrapper(short[] unwrapped) {
         if (!(wrappedReturn instanceof TaggedShortArray)) {
             if (unwrapped != null) {
-                return new TaggedShortArray(unwrapped);
+                return wrap(unwrapped);
             }
             return null;
         }
         TaggedShortArray ret = (TaggedShortArray) wrappedReturn;
         this.wrappedReturn = null;
         if (ret == null || (unwrapped != null && ret.val != unwrapped)) {
-            return new TaggedShortArray(unwrapped);
+            return wrap(unwrapped);
         }
         return ret;
     }
@@ -464,14 +533,14 @@ public class PhosphorStackFrame {
     public TaggedByteArray getReturnWrapper(byte[] unwrapped) {
         if (!(wrappedReturn instanceof TaggedByteArray)) {
             if (unwrapped != null) {
-                return new TaggedByteArray(unwrapped);
+                return wrap(unwrapped);
             }
             return null;
         }
         TaggedByteArray ret = (TaggedByteArray) wrappedReturn;
         this.wrappedReturn = null;
         if (ret == null || (unwrapped != null && ret.val != unwrapped)) {
-            return new TaggedByteArray(unwrapped);
+            return wrap(unwrapped);
         }
         return ret;
     }
@@ -480,14 +549,14 @@ public class PhosphorStackFrame {
     public TaggedBooleanArray getReturnWrapper(boolean[] unwrapped) {
         if (!(wrappedReturn instanceof TaggedBooleanArray)) {
             if (unwrapped != null) {
-                return new TaggedBooleanArray(unwrapped);
+                return wrap(unwrapped);
             }
             return null;
         }
         TaggedBooleanArray ret = (TaggedBooleanArray) wrappedReturn;
         this.wrappedReturn = null;
         if (ret == null || (unwrapped != null && ret.val != unwrapped)) {
-            return new TaggedBooleanArray(unwrapped);
+            return wrap(unwrapped);
         }
         return ret;
     }
@@ -496,14 +565,14 @@ public class PhosphorStackFrame {
     public TaggedLongArray getReturnWrapper(long[] unwrapped) {
         if (!(wrappedReturn instanceof TaggedLongArray)) {
             if (unwrapped != null) {
-                return new TaggedLongArray(unwrapped);
+                return wrap(unwrapped);
             }
             return null;
         }
         TaggedLongArray ret = (TaggedLongArray) wrappedReturn;
         this.wrappedReturn = null;
         if (ret == null || (unwrapped != null && ret.val != unwrapped)) {
-            return new TaggedLongArray(unwrapped);
+            return wrap(unwrapped);
         }
         return ret;
     }
@@ -512,14 +581,14 @@ public class PhosphorStackFrame {
     public TaggedIntArray getReturnWrapper(int[] unwrapped) {
         if (!(wrappedReturn instanceof TaggedIntArray)) {
             if (unwrapped != null) {
-                return new TaggedIntArray(unwrapped);
+                return wrap(unwrapped);
             }
             return null;
         }
         TaggedIntArray ret = (TaggedIntArray) wrappedReturn;
         this.wrappedReturn = null;
         if (ret == null || (unwrapped != null && ret.val != unwrapped)) {
-            return new TaggedIntArray(unwrapped);
+            return wrap(unwrapped);
         }
         return ret;
     }
@@ -528,14 +597,14 @@ public class PhosphorStackFrame {
     public TaggedFloatArray getReturnWrapper(float[] unwrapped) {
         if (!(wrappedReturn instanceof TaggedFloatArray)) {
             if (unwrapped != null) {
-                return new TaggedFloatArray(unwrapped);
+                return wrap(unwrapped);
             }
             return null;
         }
         TaggedFloatArray ret = (TaggedFloatArray) wrappedReturn;
         this.wrappedReturn = null;
         if (ret == null || (unwrapped != null && ret.val != unwrapped)) {
-            return new TaggedFloatArray(unwrapped);
+            return wrap(unwrapped);
         }
         return ret;
     }
@@ -544,14 +613,14 @@ public class PhosphorStackFrame {
     public TaggedDoubleArray getReturnWrapper(double[] unwrapped) {
         if (!(wrappedReturn instanceof TaggedDoubleArray)) {
             if (unwrapped != null) {
-                return new TaggedDoubleArray(unwrapped);
+                return wrap(unwrapped);
             }
             return null;
         }
         TaggedDoubleArray ret = (TaggedDoubleArray) wrappedReturn;
         this.wrappedReturn = null;
         if (ret == null || (unwrapped != null && ret.val != unwrapped)) {
-            return new TaggedDoubleArray(unwrapped);
+            return wrap(unwrapped);
         }
         return ret;
     }
@@ -45,12 +45,7 @@ public class RuntimeBoxUnboxPropagator {
             } else {
                 nChars = stringSize(l);
             }
-            if(ta.taints == null) {
-                ta.taints = new Taint[ta.val.length];
-            }
-            for(int k = idx - nChars; k < idx; k++) {
-                ta.taints[k] = lt;
-            }
+            ta.setTaints(idx - nChars, Math.min(idx, ta.val.length), lt);
         }
     }
 
@@ -65,12 +60,7 @@ public class RuntimeBoxUnboxPropagator {
             } else {
                 nChars = stringSize(i);
             }
-            if(ta.taints == null) {
-                ta.taints = new Taint[ta.val.length];
-            }
-            for(int k = idx - nChars; k < Math.min(idx, ta.taints.length); k++) {
-                ta.taints[k] = it;
-            }
+            ta.setTaints(idx - nChars, Math.min(idx, ta.val.length), it);
         }
     }
 
@@ -85,12 +75,7 @@ public class RuntimeBoxUnboxPropagator {
             } else {
                 nChars = stringSize(i);
             }
-            if(ta.taints == null) {
-                ta.taints = new Taint[ta.val.length];
-            }
-            for(int k = idx - nChars; k < Math.min(idx, ta.taints.length); k++) {
-                ta.taints[k] = it;
-            }
+            ta.setTaints(idx - nChars, Math.min(idx, ta.val.length), it);
         }
         return ret;
     }
@@ -106,12 +91,7 @@ public class RuntimeBoxUnboxPropagator {
             } else {
                 nChars = stringSize(i);
             }
-            if (ta.taints == null) {
-                ta.taints = new Taint[ta.val.length];
-            }
-            for (int k = idx - nChars; k < Math.min(idx, ta.taints.length); k++) {
-                ta.taints[k] = it;
-            }
+            ta.setTaints(idx - nChars, Math.min(idx, ta.val.length), it);
         }
         return ret;
     }
@@ -119,310 +99,112 @@ public class RuntimeBoxUnboxPropagator {
 
     public static String toString(byte i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Byte.toString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Byte.toString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Byte.toString(i), t, phosphorStackFrame);
     }
 
     public static String toString(char i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Character.toString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Character.toString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Character.toString(i), t, phosphorStackFrame);
     }
 
     public static String toString(int i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Integer.toString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Integer.toString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Integer.toString(i), t, phosphorStackFrame);
     }
 
     public static String toString(int i,  int r, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Integer.toString(i, r);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Integer.toString(i, r).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Integer.toString(i, r), t, phosphorStackFrame);
     }
 
     public static String toUnsignedString(int i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Integer.toUnsignedString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Integer.toUnsignedString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Integer.toUnsignedString(i), t, phosphorStackFrame);
     }
 
     public static String toUnsignedString(int i,  int r, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Integer.toUnsignedString(i, r);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Integer.toUnsignedString(i, r).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Integer.toUnsignedString(i, r), t, phosphorStackFrame);
     }
 
     public static String toOctalString(int i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Integer.toOctalString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Integer.toOctalString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Integer.toOctalString(i), t, phosphorStackFrame);
     }
 
     public static String toHexString(int i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Integer.toHexString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Integer.toHexString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Integer.toHexString(i), t, phosphorStackFrame);
     }
 
     public static String toString(short i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Short.toString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Integer.toString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Short.toString(i), t, phosphorStackFrame);
     }
 
     public static String toString(boolean i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Boolean.toString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Boolean.toString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Boolean.toString(i), t, phosphorStackFrame);
     }
 
     public static String toString(float i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Float.toString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Float.toString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Float.toString(i), t, phosphorStackFrame);
     }
 
     public static String toHexString(float i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Float.toHexString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Float.toHexString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Float.toHexString(i), t, phosphorStackFrame);
     }
 
     public static String toString(double i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Double.toString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Double.toString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Double.toString(i), t, phosphorStackFrame);
     }
 
     public static String toHexString(double i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Double.toHexString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Double.toHexString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Double.toHexString(i), t, phosphorStackFrame);
     }
 
     public static String toString(long i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Long.toString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Long.toString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Long.toString(i), t, phosphorStackFrame);
     }
 
     public static String toString(long i,  int r, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Long.toString(i, r);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Long.toString(i, r).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Long.toString(i, r), t, phosphorStackFrame);
     }
 
     public static String toBinaryString(long i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Long.toBinaryString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Long.toBinaryString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Long.toBinaryString(i), t, phosphorStackFrame);
     }
 
     public static String toBinaryString(int i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Integer.toBinaryString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Integer.toBinaryString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Integer.toBinaryString(i), t, phosphorStackFrame);
     }
 
     public static String toHexString(long i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Long.toHexString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Long.toHexString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Long.toHexString(i), t, phosphorStackFrame);
     }
 
     public static String toUnsignedString(long i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Long.toUnsignedString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Long.toUnsignedString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Long.toUnsignedString(i), t, phosphorStackFrame);
     }
 
     public static String toUnsignedString(long i,  int r, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Long.toUnsignedString(i, r);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Long.toUnsignedString(i, r).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Long.toUnsignedString(i, r), t, phosphorStackFrame);
     }
 
     public static String toOctalString(long i, PhosphorStackFrame phosphorStackFrame) {
         Taint t = phosphorStackFrame.getArgTaint(0);
-        String ret;
-        if(t == null) {
-            ret = Long.toOctalString(i);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-        }
-        ret = new String(Long.toOctalString(i).toCharArray());
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(t);
-        phosphorStackFrame.setReturnTaint(t);
-        return ret;
+        return taintString(Long.toOctalString(i), t, phosphorStackFrame);
     }
 
     public static int digit(char c,  int radix,  PhosphorStackFrame phosphorStackFrame) {
@@ -440,18 +222,8 @@ public class RuntimeBoxUnboxPropagator {
     }
 
     public static Long valueOf(long l, PhosphorStackFrame phosphorStackFrame) {
-        Taint t = phosphorStackFrame.getArgTaint(0);
-        if(t == null) {
-            Long ret = Long.valueOf(l);
-            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
-            return ret;
-
-        } else {
-            phosphorStackFrame.setArgTaint(t, 1);
-            Long ret = new Long(l);
-            phosphorStackFrame.setReturnTaint(t);
-            return ret;
-        }
+        // The tag of a box is carried with the reference, so the cached box can be returned even when l is tainted
+        return valueOfJ(l, phosphorStackFrame);
     }
 
     public static Boolean valueOfZ(String s, PhosphorStackFrame phosphorStackFrame) {
@@ -809,64 +581,55 @@ public class RuntimeBoxUnboxPropagator {
 
     public static String toString(Boolean value, PhosphorStackFrame phosphorStackFrame) {
         Taint tag = phosphorStackFrame.getArgTaint(0);
-        String ret = value.toString();
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(tag);
-        phosphorStackFrame.setReturnTaint(tag);
-        return ret;
+        return taintString(value.toString(), tag, phosphorStackFrame);
     }
 
     public static String toString(Byte value, PhosphorStackFrame phosphorStackFrame) {
         Taint tag = phosphorStackFrame.getArgTaint(0);
-        String ret = value.toString();
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(tag);
-        phosphorStackFrame.setReturnTaint(tag);
-        return ret;
+        return taintString(value.toString(), tag, phosphorStackFrame);
     }
 
     public static String toString(Character value, PhosphorStackFrame phosphorStackFrame) {
         Taint tag = phosphorStackFrame.getArgTaint(0);
-        String ret = value.toString();
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(tag);
-        phosphorStackFrame.setReturnTaint(tag);
-        return ret;
+        return taintString(value.toString(), tag, phosphorStackFrame);
     }
 
     public static String toString(Float value, PhosphorStackFrame phosphorStackFrame) {
         Taint tag = phosphorStackFrame.getArgTaint(0);
-        String ret = value.toString();
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(tag);
-        phosphorStackFrame.setReturnTaint(tag);
-        return ret;
+        return taintString(value.toString(), tag, phosphorStackFrame);
     }
 
     public static String toString(Integer value, PhosphorStackFrame phosphorStackFrame) {
         Taint tag = phosphorStackFrame.getArgTaint(0);
-        String ret = value.toString();
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(tag);
-        phosphorStackFrame.setReturnTaint(tag);
-        return ret;
+        return taintString(value.toString(), tag, phosphorStackFrame);
     }
 
     public static String toString(Long value, PhosphorStackFrame phosphorStackFrame) {
         Taint tag = phosphorStackFrame.getArgTaint(0);
-        String ret = value.toString();
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(tag);
-        phosphorStackFrame.setReturnTaint(tag);
-        return ret;
+        return taintString(value.toString(), tag, phosphorStackFrame);
     }
 
     public static String toString(Short value, PhosphorStackFrame phosphorStackFrame) {
         Taint tag = phosphorStackFrame.getArgTaint(0);
-        String ret = value.toString();
-        ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(tag);
-        phosphorStackFrame.setReturnTaint(tag);
-        return ret;
+        return taintString(value.toString(), tag, phosphorStackFrame);
     }
 
     public static String toString(Double value, PhosphorStackFrame phosphorStackFrame) {
         Taint tag = phosphorStackFrame.getArgTaint(0);
-        String ret = value.toString();
+        return taintString(value.toString(), tag, phosphorStackFrame);
+    }
+
+    /* Returns the specified String formatted from a value with the specified tag and sets the return tag. If the tag is
+     * non-empty a copy of the String is returned instead, since formatting may return a shared constant such as "true"
+     * or "NaN", and the copy and each of its characters are tagged with the same tag. */
+    private static String taintString(String str, Taint tag, PhosphorStackFrame phosphorStackFrame) {
+        if(tag == null || tag.isEmpty()) {
+            phosphorStackFrame.setReturnTaint(Taint.emptyTaint());
+            return str;
+        }
+        String ret = new String(str.toCharArray());
         ((TaintedWithObjTag) (Object) ret).setPHOSPHOR_TAG(tag);
+        TaintSourceWrapper.setStringTaintTag(ret, tag);
         phosphorStackFrame.setReturnTaint(tag);
         return ret;
     }
@@ -179,11 +179,8 @@ public class RuntimeJDKInternalUnsafePropagator {
             long scale = unsafe.arrayIndexScale(clazz);
             // Calculate the index based off the offset
             int index = (int) ((offset - baseOffset) / scale);
-            if (tags.taints == null && valueTaint != null && !valueTaint.isEmpty()) {
-                tags.taints = new Taint[tags.getLength()];
-            }
-            if (tags.taints != null) {
-                tags.taints[index] = valueTaint;
+            if (tags.hasTaints() || (valueTaint != null && !valueTaint.isEmpty())) {
+                tags.setTaint(index, valueTaint);
             }
         }
     }
@@ -911,7 +908,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putByte(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -925,7 +922,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putInt(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -939,7 +936,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putLong(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -953,7 +950,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putFloat(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -967,7 +964,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putReference(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -996,7 +993,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putChar(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -1010,7 +1007,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putShort(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -1024,7 +1021,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putDouble(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -1038,7 +1035,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putBoolean(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -1053,7 +1050,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putByteVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -1067,7 +1064,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putIntVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -1081,7 +1078,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putLongVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -1095,7 +1092,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putFloatVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -1109,7 +1106,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putReferenceVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -1138,7 +1135,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putCharVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -1152,7 +1149,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putShortVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -1166,7 +1163,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putDoubleVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -1180,7 +1177,7 @@ public class RuntimeJDKInternalUnsafePropagator {
         Taint valTaint = phosphorStackFrame.getArgTaint(3);
         if (obj instanceof TaggedArray) {
             unsafe.putBooleanVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if ((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -0,0 +1,112 @@
+package edu.columbia.cs.psl.phosphor.runtime;
+
+import edu.columbia.cs.psl.phosphor.Configuration;
+import edu.columbia.cs.psl.phosphor.instrumenter.InvokedViaInstrumentation;
+import edu.columbia.cs.psl.phosphor.instrumenter.TaintMethodRecord;
+import edu.columbia.cs.psl.phosphor.runtime.proxied.InstrumentedJREFieldHelper;
+import edu.columbia.cs.psl.phosphor.struct.TaggedByteArray;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Replaces StringConcatFactory.makeConcatWithConstants and StringConcatFactory.makeConcat as the bootstrap methods of invokedynamic string concatenations
+ * when {@link Configuration#STRING_CONCAT_BOOTSTRAP} is enabled. StringConcatFactory generates classes for each new
+ * shape of concatenation which must be instrumented at runtime, and every concatenation then propagates taint tags
+ * character by character through instrumented JDK code. Instead, the concatenations bootstrapped by this class build
+ * their result directly from the string values of their arguments and copy the taint tags of each argument to the
+ * result as a single run. The tag of a reference argument, and the object tag of its value, are combined with the tags
+ * of the characters of its string value.
+ */
+public final class RuntimeStringConcatPropagator {
+
+    private RuntimeStringConcatPropagator() {
+        // Prevents this class from being instantiated
+    }
+
+    @InvokedViaInstrumentation(record = TaintMethodRecord.STRING_CONCAT_BOOTSTRAP)
+    public static CallSite makeConcatWithConstants(MethodHandles.Lookup lookup, String name, MethodType concatType,
+                                                   String recipe, Object... constants)
+            throws ReflectiveOperationException {
+        String descriptor = concatType.toMethodDescriptorString();
+        String argumentsDescriptor = descriptor.substring(0, descriptor.indexOf(')') + 1);
+        ConcatSite site = new ConcatSite(StringConcatRecipe.compile(recipe, constants, concatType.parameterArray()),
+                name + argumentsDescriptor, PhosphorStackFrame.computeFrameHash(name, argumentsDescriptor));
+        MethodHandle concat = MethodHandles.lookup().findStatic(RuntimeStringConcatPropagator.class, "concat",
+                MethodType.methodType(String.class, ConcatSite.class, Object[].class));
+        MethodHandle target = MethodHandles.insertArguments(concat, 0, site)
+                .asCollector(Object[].class, concatType.parameterCount())
+                .asType(concatType);
+        return new ConstantCallSite(target);
+    }
+
+    /**
+     * Replaces StringConcatFactory.makeConcat, which concatenates all of its arguments without constants.
+     */
+    @InvokedViaInstrumentation(record = TaintMethodRecord.STRING_CONCAT_PLAIN_BOOTSTRAP)
+    public static CallSite makeConcat(MethodHandles.Lookup lookup, String name, MethodType concatType)
+            throws ReflectiveOperationException {
+        char[] recipe = new char[concatType.parameterCount()];
+        for(int i = 0; i < recipe.length; i++) {
+            recipe[i] = StringConcatRecipe.TAG_ARG;
+        }
+        return makeConcatWithConstants(lookup, name, concatType, new String(recipe));
+    }
+
+    private static String concat(ConcatSite site, Object[] args) {
+        // The caller stores the taint tags of the arguments in its stack frame before the call
+        PhosphorStackFrame frame = Configuration.DEBUG_STACK_FRAME_WRAPPERS ? PhosphorStackFrame.forMethod(site.frameDescriptor)
+                : PhosphorStackFrame.forMethod(site.frameHash);
+        boolean shouldPop = frame.getAndClearCleanupFlag();
+        StringConcatRecipe recipe = site.recipe;
+        Taint[] argTaints = recipe.argumentTaints(args, frame.argsPassed);
+        String[] values = recipe.toStrings(args);
+        String result = StringConcatRecipe.join(values);
+        Taint[][] valueTaints = null;
+        for(int i = 0; i < values.length; i++) {
+            if(recipe.isReferenceArgument(i)) {
+                TaggedByteArray tags = InstrumentedJREFieldHelper.getvaluePHOSPHOR_WRAPPER(values[i]);
+                if(tags != null && tags.mayContainTaint()) {
+                    if(valueTaints == null) {
+                        valueTaints = new Taint[values.length][];
+                    }
+                    valueTaints[i] = tags.taints;
+                }
+            }
+        }
+        byte[] value = InstrumentedJREFieldHelper.getvalue(result);
+        // Strings store each character in one or two bytes depending on their coder
+        int width = result.isEmpty() ? 1 : value.length / result.length();
+        Taint[] taints = recipe.concatenateTaints(values, valueTaints, argTaints, width);
+        if(taints != null) {
+            InstrumentedJREFieldHelper.setvaluePHOSPHOR_WRAPPER(result, new TaggedByteArray(value, taints));
+        }
+        frame.setReturnTaint(Taint.emptyTaint());
+        frame.popStackFrameIfNeeded(shouldPop);
+        return result;
+    }
+
+    /**
+     * Information about a concatenation call site that is bound to its target method handle.
+     */
+    private static final class ConcatSite {
+        private final StringConcatRecipe recipe;
+        /**
+         * The name and argument descriptor passed by the caller when preparing its stack frame for the call
+         */
+        private final String frameDescriptor;
+        /**
+         * The hash of the name and argument descriptor passed by the caller when preparing its stack frame for the call
+         */
+        private final int frameHash;
+
+        ConcatSite(StringConcatRecipe recipe, String frameDescriptor, int frameHash) {
+            this.recipe = recipe;
+            this.frameDescriptor = frameDescriptor;
+            this.frameHash = frameHash;
+        }
+    }
+}
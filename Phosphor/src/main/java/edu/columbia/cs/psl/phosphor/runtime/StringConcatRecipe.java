@@ -0,0 +1,272 @@
+package edu.columbia.cs.psl.phosphor.runtime;
+
+import edu.columbia.cs.psl.phosphor.struct.TaintedWithObjTag;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.StringBuilder;
+
+/**
+ * A compiled recipe for a string concatenation bootstrapped by {@link RuntimeStringConcatPropagator}. A recipe is
+ * divided into segments each of which is either a literal string or one of the arguments of the concatenation.
+ * Consecutive literal characters and constants are merged into a single literal segment.
+ */
+public final class StringConcatRecipe {
+
+    /**
+     * Marks the position of an argument in a recipe passed to StringConcatFactory.makeConcatWithConstants
+     */
+    static final char TAG_ARG = '\u0001';
+    /**
+     * Marks the position of a constant in a recipe passed to StringConcatFactory.makeConcatWithConstants
+     */
+    private static final char TAG_CONST = '\u0002';
+
+    /**
+     * For each segment, the literal string for the segment or null if the segment is an argument
+     */
+    private final String[] literals;
+    /**
+     * For each segment, the index of the argument for the segment or -1 if the segment is a literal
+     */
+    private final int[] arguments;
+    /**
+     * For each argument, whether the argument has a primitive type
+     */
+    private final boolean[] primitives;
+
+    private StringConcatRecipe(String[] literals, int[] arguments, boolean[] primitives) {
+        this.literals = literals;
+        this.arguments = arguments;
+        this.primitives = primitives;
+    }
+
+    public int getNumberOfSegments() {
+        return literals.length;
+    }
+
+    /**
+     * @param args the arguments of the concatenation
+     * @return the string value of each segment of this recipe
+     */
+    public String[] toStrings(Object[] args) {
+        String[] values = new String[literals.length];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = arguments[i] == -1 ? literals[i] : stringOf(args[arguments[i]]);
+        }
+        return values;
+    }
+
+    /**
+     * @param i the index of a segment of this recipe
+     * @return true if the specified segment is an argument whose characters may have their own taint tags
+     */
+    public boolean isReferenceArgument(int i) {
+        return arguments[i] != -1 && !primitives[arguments[i]];
+    }
+
+    /**
+     * Calculates the tag of each argument of this concatenation. The tag of an argument with a primitive type is the tag
+     * passed for it. The tag of an argument with a reference type is the tag passed for the reference combined with the
+     * object tag of its value. The object tag of a string is not included since it is already applied to the tags of the
+     * string's characters.
+     *
+     * @param args      the arguments of the concatenation
+     * @param argTaints for each argument, the tag passed for the argument
+     * @return for each argument, the tag of the argument
+     */
+    public Taint[] argumentTaints(Object[] args, Taint[] argTaints) {
+        Taint[] result = new Taint[primitives.length];
+        for(int i = 0; i < result.length; i++) {
+            Taint tag = argTaints[i];
+            if(!primitives[i] && args[i] instanceof TaintedWithObjTag && !(args[i] instanceof String)) {
+                tag = Taint.combineTags(tag, (Taint) ((TaintedWithObjTag) args[i]).getPHOSPHOR_TAG());
+            }
+            result[i] = tag;
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the taint tags for the result of this concatenation. Characters from a segment for an argument with a
+     * primitive type are tainted with the tag of the argument. Characters from a segment for an argument with a
+     * reference type are tainted with the tags of the segment's characters combined with the tag of the argument. Each
+     * segment's tags are written as a run, only the tags of reference arguments that are themselves tainted are
+     * combined.
+     *
+     * @param values        the string value of each segment of this recipe
+     * @param valueTaints   for each segment, the tags of the bytes of the segment's string value or null if the
+     *                      segment is not tainted, may be null if no segment is tainted
+     * @param argTaints     for each argument, the tag of the argument as calculated by
+     *                      {@link #argumentTaints(Object[], Taint[])}
+     * @param width         the number of bytes used to store each character of the result
+     * @return the tags of the bytes of the result or null if the result is not tainted
+     */
+    public Taint[] concatenateTaints(String[] values, Taint[][] valueTaints, Taint[] argTaints, int width) {
+        Taint[] result = null;
+        int offset = 0;
+        for(int i = 0; i < values.length; i++) {
+            int length = values[i].length();
+            int arg = arguments[i];
+            if(arg != -1 && length > 0) {
+                if(primitives[arg]) {
+                    Taint tag = argTaints[arg];
+                    if(tag != null && !tag.isEmpty()) {
+                        if(result == null) {
+                            result = new Taint[totalLength(values) * width];
+                        }
+                        for(int j = offset * width; j < (offset + length) * width; j++) {
+                            result[j] = tag;
+                        }
+                    }
+                } else {
+                    Taint[] source = valueTaints == null ? null : valueTaints[i];
+                    Taint tag = argTaints[arg];
+                    boolean tainted = tag != null && !tag.isEmpty();
+                    if(source != null || tainted) {
+                        if(result == null) {
+                            result = new Taint[totalLength(values) * width];
+                        }
+                        if(source != null) {
+                            copyTaints(source, length, result, offset, width);
+                        }
+                        if(tainted) {
+                            unionTaints(result, offset * width, (offset + length) * width, tag);
+                        }
+                    }
+                }
+            }
+            offset += length;
+        }
+        return result;
+    }
+
+    /**
+     * @param values the string value of each segment of this recipe
+     * @return the concatenation of the specified values
+     */
+    public static String join(String[] values) {
+        char[] chars = new char[totalLength(values)];
+        int offset = 0;
+        for(String value : values) {
+            value.getChars(0, value.length(), chars, offset);
+            offset += value.length();
+        }
+        return new String(chars);
+    }
+
+    /* Copies the tags of the characters of a string with the specified length into the specified destination starting
+     * at the specified character offset. */
+    private static void copyTaints(Taint[] source, int length, Taint[] dest, int offset, int width) {
+        int sourceWidth = source.length / length;
+        if(sourceWidth == width) {
+            System.arraycopy(source, 0, dest, offset * width, length * width);
+        } else {
+            for(int i = 0; i < length; i++) {
+                Taint tag = source[i * sourceWidth];
+                for(int j = 0; j < width; j++) {
+                    dest[(offset + i) * width + j] = tag;
+                }
+            }
+        }
+    }
+
+    /* Combines the tags in the specified range of the specified array with the specified non-empty tag. Tags are
+     * stored as runs, so the union for the previous tag is reused while the run continues. */
+    private static void unionTaints(Taint[] tags, int start, int end, Taint tag) {
+        Taint previous = null;
+        Taint previousUnion = tag;
+        for(int i = start; i < end; i++) {
+            Taint t = tags[i];
+            if(t == null || t.isEmpty()) {
+                tags[i] = tag;
+            } else {
+                if(t != previous) {
+                    previous = t;
+                    previousUnion = t.union(tag);
+                }
+                tags[i] = previousUnion;
+            }
+        }
+    }
+
+    private static int totalLength(String[] values) {
+        int length = 0;
+        for(String value : values) {
+            length += value.length();
+        }
+        return length;
+    }
+
+    /* Converts the specified argument to a string in the same way as StringConcatFactory. */
+    private static String stringOf(Object value) {
+        String s;
+        return (value == null || (s = value.toString()) == null) ? "null" : s;
+    }
+
+    /**
+     * @param recipe         the recipe passed to StringConcatFactory.makeConcatWithConstants
+     * @param constants      the constants passed to StringConcatFactory.makeConcatWithConstants
+     * @param parameterTypes the types of the arguments of the concatenation
+     * @return the compiled recipe
+     * @throws IllegalArgumentException if the recipe does not match the specified constants and parameter types
+     */
+    public static StringConcatRecipe compile(String recipe, Object[] constants, Class<?>[] parameterTypes) {
+        int numberOfSegments = 0;
+        boolean inLiteral = false;
+        for(int i = 0; i < recipe.length(); i++) {
+            if(recipe.charAt(i) == TAG_ARG) {
+                numberOfSegments++;
+                inLiteral = false;
+            } else if(!inLiteral) {
+                numberOfSegments++;
+                inLiteral = true;
+            }
+        }
+        String[] literals = new String[numberOfSegments];
+        int[] arguments = new int[numberOfSegments];
+        int segment = 0;
+        int argument = 0;
+        int constant = 0;
+        StringBuilder literal = new StringBuilder();
+        for(int i = 0; i < recipe.length(); i++) {
+            char c = recipe.charAt(i);
+            if(c == TAG_ARG) {
+                if(literal.length() > 0) {
+                    literals[segment] = literal.toString();
+                    arguments[segment++] = -1;
+                    literal.setLength(0);
+                }
+                if(argument >= parameterTypes.length) {
+                    throw new IllegalArgumentException("Too few arguments for recipe: " + recipe);
+                }
+                arguments[segment++] = argument++;
+            } else if(c == TAG_CONST) {
+                if(constants == null || constant >= constants.length) {
+                    throw new IllegalArgumentException("Too few constants for recipe: " + recipe);
+                }
+                literal.append(String.valueOf(constants[constant++]));
+            } else {
+                literal.append(c);
+            }
+        }
+        if(literal.length() > 0) {
+            literals[segment] = literal.toString();
+            arguments[segment++] = -1;
+        }
+        if(segment < numberOfSegments) {
+            // Some literal segments only contained empty constants
+            String[] trimmedLiterals = new String[segment];
+            int[] trimmedArguments = new int[segment];
+            System.arraycopy(literals, 0, trimmedLiterals, 0, segment);
+            System.arraycopy(arguments, 0, trimmedArguments, 0, segment);
+            literals = trimmedLiterals;
+            arguments = trimmedArguments;
+        }
+        if(argument != parameterTypes.length) {
+            throw new IllegalArgumentException("Too many arguments for recipe: " + recipe);
+        }
+        boolean[] primitives = new boolean[parameterTypes.length];
+        for(int i = 0; i < parameterTypes.length; i++) {
+            primitives[i] = parameterTypes[i].isPrimitive();
+        }
+        return new StringConcatRecipe(literals, arguments, primitives);
+    }
+}
@@ -116,8 +116,25 @@ public abstract class Taint<T> implements Serializable {
         return withLabel(label);
     }
 
+    /* Combines the tags of the operands of a primitive operation. Only checks the cases that can be decided without
+     * combining the tags (identical tags, or a missing or empty operand, which covers the common case of a clean operand
+     * combined with a tainted one) so that this method is small enough to be inlined at every call site; all other
+     * cases are handed off to combineTags. */
+    @InvokedViaInstrumentation(record = COMBINE_OPERAND_TAGS)
+    public static <T> Taint<T> combineOperandTags(Taint<T> t1, Taint<T> t2) {
+        if(t1 == t2 || t2 == null || t2.isEmpty()) {
+            return t1;
+        } else if(t1 == null || t1.isEmpty()) {
+            return t2;
+        }
+        return combineTags(t1, t2);
+    }
+
     @InvokedViaInstrumentation(record = COMBINE_TAGS)
     public static <T> Taint<T> combineTags(Taint<T> t1, Taint<T> t2) {
+        if(TaintMetrics.ENABLED) {
+            TaintMetrics.COMBINE_TAGS_CALLS.increment();
+        }
         if(t1 == Taint.emptyTaint() && t2 == Taint.emptyTaint()) {
             return Taint.emptyTaint();
         } else if(t2 == null || t2.isEmpty()) {
@@ -127,6 +144,9 @@ public abstract class Taint<T> implements Serializable {
         } else if(t1.equals(t2) || IGNORE_TAINTING) {
             return t1;
         } else {
+            if(TaintMetrics.ENABLED) {
+                TaintMetrics.COMBINE_TAGS_UNIONS.increment();
+            }
             Taint<T> r = t1.union(t2);
             if(Configuration.derivedTaintListener != null) {
                 Configuration.derivedTaintListener.doubleDepCreated(t1, t2, r);
@@ -147,6 +167,9 @@ public abstract class Taint<T> implements Serializable {
         } else if(IGNORE_TAINTING) {
             return t1;
         }
+        if(TaintMetrics.ENABLED) {
+            TaintMetrics.COMBINE_TAGS_UNIONS.increment();
+        }
         return tagsTaint.union(t1);
     }
 
@@ -219,19 +242,18 @@ public abstract class Taint<T> implements Serializable {
             }
         }
 
-        if (tags.taints == null) {
-            tags.taints = new Taint[str.length()];
-        }
+        Taint[] taints = tags.ensureTaints();
         // SetNode representation is being used
         Taint originalPreviousTaint = null;
-        for(int i = 0; i < tags.taints.length; i++) {
-            if(originalPreviousTaint != null && originalPreviousTaint.equals(tags.taints[i])) {
-                tags.taints[i] = tags.taints[i - 1];
+        for(int i = 0; i < taints.length; i++) {
+            if(originalPreviousTaint != null && originalPreviousTaint.equals(taints[i])) {
+                taints[i] = taints[i - 1];
             } else {
-                originalPreviousTaint = tags.taints[i];
-                tags.taints[i] = combineTags(tags.taints[i], stackFrame);
+                originalPreviousTaint = taints[i];
+                taints[i] = combineTags(taints[i], stackFrame);
             }
         }
+        tags.taintsChanged();
     }
 
     public static boolean isEmpty(Taint in) {
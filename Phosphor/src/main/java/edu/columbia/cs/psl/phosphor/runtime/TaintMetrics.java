@@ -0,0 +1,198 @@
+package edu.columbia.cs.psl.phosphor.runtime;
+
+import edu.columbia.cs.psl.phosphor.Configuration;
+import edu.columbia.cs.psl.phosphor.struct.PowerSetTree;
+import edu.columbia.cs.psl.phosphor.struct.StripedCounter;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counters for the creation and propagation of taint tags at runtime. Counting is enabled by the taintMetrics option.
+ * Every update is guarded by {@link #ENABLED} which is constant once this class is initialized, so the JIT compiler
+ * removes the updates entirely when counting is disabled. The counters are exposed through the platform MBean server
+ * and can optionally be written to standard error periodically.
+ */
+public final class TaintMetrics implements TaintMetricsMXBean {
+
+    public static final String OBJECT_NAME = "edu.columbia.cs.psl.phosphor:type=TaintMetrics";
+
+    /**
+     * True if counters should be updated. Instrumented JDK code creates stack frames before the agent's options are
+     * parsed, so the value of {@link Configuration#TAINT_METRICS} when the JDK is instrumented is embedded here in
+     * place of the read of {@link Configuration}.
+     */
+    public static final boolean ENABLED = Configuration.TAINT_METRICS;
+
+    public static final StripedCounter COMBINE_TAGS_CALLS = new StripedCounter();
+    public static final StripedCounter COMBINE_TAGS_UNIONS = new StripedCounter();
+    public static final StripedCounter SET_UNIONS = new StripedCounter();
+    public static final StripedCounter SET_CHILD_LOOKUPS = new StripedCounter();
+    public static final StripedCounter SET_NODES_CREATED = new StripedCounter();
+    public static final StripedCounter RANKS_ASSIGNED = new StripedCounter();
+    public static final StripedCounter RANKS_REUSED = new StripedCounter();
+    public static final StripedCounter THREAD_FRAMES_ALLOCATED = new StripedCounter();
+    public static final StripedCounter FRAMES_ALLOCATED = new StripedCounter();
+    public static final StripedCounter FRAMES_REUSED = new StripedCounter();
+    public static final StripedCounter ARRAY_WRAPPERS_ALLOCATED = new StripedCounter();
+    public static final StripedCounter ARRAY_WRAPPERS_REUSED = new StripedCounter();
+
+    private static final TaintMetrics INSTANCE = new TaintMetrics();
+    private static volatile int maxSetDepth = 0;
+
+    private TaintMetrics() {
+    }
+
+    public static TaintMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records that a set of the specified size was created.
+     */
+    public static void recordSetDepth(int depth) {
+        if (depth > maxSetDepth) {
+            synchronized (TaintMetrics.class) {
+                if (depth > maxSetDepth) {
+                    maxSetDepth = depth;
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers the counters with the platform MBean server and starts writing snapshots of them to standard error
+     * if {@link Configuration#TAINT_METRICS_LOG_INTERVAL} is positive. Both happen on a background thread so that
+     * they do not delay the start of the JVM.
+     */
+    public static void start() {
+        if (!ENABLED) {
+            System.err.println("Phosphor taint metrics will not be collected because the JDK was not instrumented " +
+                    "with the taintMetrics option");
+            return;
+        }
+        final int interval = Configuration.TAINT_METRICS_LOG_INTERVAL;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+                } catch (Throwable t) {
+                    System.err.println("Failed to register the taint metrics MBean: " + t);
+                }
+                while (interval > 0) {
+                    try {
+                        Thread.sleep(interval * 1000L);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    System.err.println("Phosphor taint metrics: " + INSTANCE.snapshot());
+                }
+            }
+        }, "Phosphor-Taint-Metrics");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public long getCombineTagsCalls() {
+        return COMBINE_TAGS_CALLS.sum();
+    }
+
+    @Override
+    public long getCombineTagsUnions() {
+        return COMBINE_TAGS_UNIONS.sum();
+    }
+
+    @Override
+    public long getSetUnions() {
+        return SET_UNIONS.sum();
+    }
+
+    @Override
+    public long getSetChildLookups() {
+        return SET_CHILD_LOOKUPS.sum();
+    }
+
+    @Override
+    public long getSetNodesCreated() {
+        return SET_NODES_CREATED.sum();
+    }
+
+    @Override
+    public int getMaxSetDepth() {
+        return maxSetDepth;
+    }
+
+    @Override
+    public int getRankPoolSize() {
+        return PowerSetTree.getInstance().getRankPoolSize();
+    }
+
+    @Override
+    public long getRanksAssigned() {
+        return RANKS_ASSIGNED.sum();
+    }
+
+    @Override
+    public long getRanksReused() {
+        return RANKS_REUSED.sum();
+    }
+
+    @Override
+    public long getThreadFramesAllocated() {
+        return THREAD_FRAMES_ALLOCATED.sum();
+    }
+
+    @Override
+    public long getFramesAllocated() {
+        return FRAMES_ALLOCATED.sum();
+    }
+
+    @Override
+    public long getFramesReused() {
+        return FRAMES_REUSED.sum();
+    }
+
+    @Override
+    public long getArrayWrappersAllocated() {
+        return ARRAY_WRAPPERS_ALLOCATED.sum();
+    }
+
+    @Override
+    public long getArrayWrappersReused() {
+        return ARRAY_WRAPPERS_REUSED.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (StripedCounter counter : new StripedCounter[]{COMBINE_TAGS_CALLS, COMBINE_TAGS_UNIONS, SET_UNIONS,
+                SET_CHILD_LOOKUPS, SET_NODES_CREATED, RANKS_ASSIGNED, RANKS_REUSED, THREAD_FRAMES_ALLOCATED,
+                FRAMES_ALLOCATED, FRAMES_REUSED, ARRAY_WRAPPERS_ALLOCATED, ARRAY_WRAPPERS_REUSED}) {
+            counter.reset();
+        }
+        synchronized (TaintMetrics.class) {
+            maxSetDepth = 0;
+        }
+    }
+
+    /**
+     * @return the current values of the counters as a single line of comma-separated key-value pairs
+     */
+    public String snapshot() {
+        return "combineTagsCalls=" + getCombineTagsCalls()
+                + ", combineTagsUnions=" + getCombineTagsUnions()
+                + ", setUnions=" + getSetUnions()
+                + ", setChildLookups=" + getSetChildLookups()
+                + ", setNodesCreated=" + getSetNodesCreated()
+                + ", maxSetDepth=" + getMaxSetDepth()
+                + ", rankPoolSize=" + getRankPoolSize()
+                + ", ranksAssigned=" + getRanksAssigned()
+                + ", ranksReused=" + getRanksReused()
+                + ", threadFramesAllocated=" + getThreadFramesAllocated()
+                + ", framesAllocated=" + getFramesAllocated()
+                + ", framesReused=" + getFramesReused()
+                + ", arrayWrappersAllocated=" + getArrayWrappersAllocated()
+                + ", arrayWrappersReused=" + getArrayWrappersReused();
+    }
+}
@@ -0,0 +1,80 @@
+package edu.columbia.cs.psl.phosphor.runtime;
+
+/**
+ * Management interface for the counters collected by {@link TaintMetrics}.
+ */
+public interface TaintMetricsMXBean {
+
+    /**
+     * @return the number of calls to {@link Taint#combineTags(Taint, Taint)}
+     */
+    long getCombineTagsCalls();
+
+    /**
+     * @return the number of calls to combine taint tags that computed the union of two distinct, non-empty tags
+     */
+    long getCombineTagsUnions();
+
+    /**
+     * @return the number of unions of two sets performed by the power set tree
+     */
+    long getSetUnions();
+
+    /**
+     * @return the number of times a child node was looked up or added in the power set tree
+     */
+    long getSetChildLookups();
+
+    /**
+     * @return the number of nodes created in the power set tree, including nodes that have since been garbage
+     * collected
+     */
+    long getSetNodesCreated();
+
+    /**
+     * @return the size of the largest set created in the power set tree, i.e., the depth of its deepest node
+     */
+    int getMaxSetDepth();
+
+    /**
+     * @return the number of distinct labels currently ranked by the power set tree's rank pool
+     */
+    int getRankPoolSize();
+
+    /**
+     * @return the number of ranks assigned to labels by the power set tree's rank pool
+     */
+    long getRanksAssigned();
+
+    /**
+     * @return the number of ranks assigned that reused the rank of a garbage collected label
+     */
+    long getRanksReused();
+
+    /**
+     * @return the number of stack frames allocated for threads that did not have one
+     */
+    long getThreadFramesAllocated();
+
+    /**
+     * @return the number of stack frames allocated for calls that could not reuse a thread's spare frame
+     */
+    long getFramesAllocated();
+
+    /**
+     * @return the number of calls that reused a thread's spare stack frame
+     */
+    long getFramesReused();
+
+    /**
+     * @return the number of array wrappers allocated because an array's wrapper was lost and was not cached
+     */
+    long getArrayWrappersAllocated();
+
+    /**
+     * @return the number of times an array's lost wrapper was found in its thread's wrapper cache
+     */
+    long getArrayWrappersReused();
+
+    void reset();
+}
@@ -4,10 +4,10 @@ import edu.columbia.cs.psl.phosphor.Configuration;
 import edu.columbia.cs.psl.phosphor.instrumenter.InvokedViaInstrumentation;
 import edu.columbia.cs.psl.phosphor.runtime.proxied.InstrumentedJREFieldHelper;
 import edu.columbia.cs.psl.phosphor.struct.*;
-import edu.columbia.cs.psl.phosphor.struct.harmony.util.HashSet;
-import edu.columbia.cs.psl.phosphor.struct.harmony.util.Set;
+import edu.columbia.cs.psl.phosphor.struct.harmony.util.IdentityHashMap;
 
 import java.lang.reflect.Array;
+import java.lang.reflect.Method;
 
 import static edu.columbia.cs.psl.phosphor.instrumenter.TaintMethodRecord.AUTO_TAINT;
 
@@ -31,6 +31,11 @@ import static edu.columbia.cs.psl.phosphor.instrumenter.TaintMethodRecord.AUTO_T
  */
 public class TaintSourceWrapper<T extends AutoTaintLabel> {
 
+    /* Whether sink methods may skip the call to checkTaint when hasTaint finds none of their arguments tainted.
+     * Subclasses that override checkTaint but not hasTaint may check for more than hasTaint does. */
+    private final boolean skipsUntaintedSinkCalls = getClass() == TaintSourceWrapper.class
+            || !overridesCheckTaintOnly(getClass());
+
     public boolean shouldInstrumentMethodForImplicitLightTracking(String className, String methodName, String methodDescriptor) {
         return className.equals("edu/columbia/cs/psl/test/phosphor/SelectiveLightImplicitObjTagITCase") && methodName.equals("hasImplicitTracking");
     }
@@ -40,16 +45,15 @@ public class TaintSourceWrapper<T extends AutoTaintLabel> {
     public void combineTaintsOnArray(Object inputArray, Taint tag) {
         if(inputArray instanceof TaggedArray) {
             TaggedArray array = ((TaggedArray) inputArray);
-            if(array.taints == null) {
-                array.taints = new Taint[array.getLength()];
-            }
+            Taint[] taints = array.ensureTaints();
             for(int i = 0; i < array.getLength(); i++) {
-                if(array.taints[i] == null) {
-                    array.taints[i] = tag;
+                if(taints[i] == null) {
+                    taints[i] = tag;
                 } else {
-                    array.taints[i] = array.taints[i].union(tag);
+                    taints[i] = taints[i].union(tag);
                 }
             }
+            array.taintsChanged();
         } else if(inputArray instanceof Object[]) {
             for(int i = 0; i < ((Object[]) inputArray).length; i++) {
                 Object o = ((Object[]) inputArray)[i];
@@ -134,8 +138,8 @@ public class TaintSourceWrapper<T extends AutoTaintLabel> {
 
     @SuppressWarnings("unchecked")
     public TaggedArray autoTaint(TaggedArray ret, Taint<? extends AutoTaintLabel> tag) {
-        Taint[] taintArray = ret.taints;
-        if(taintArray != null) {
+        if(ret.hasTaints()) {
+            Taint[] taintArray = ret.ensureTaints();
             for(int i = 0; i < taintArray.length; i++) {
                 if(taintArray[i] == null) {
                     taintArray[i] = tag;
@@ -143,6 +147,7 @@ public class TaintSourceWrapper<T extends AutoTaintLabel> {
                     taintArray[i] = taintArray[i].union(tag);
                 }
             }
+            ret.taintsChanged();
         } else {
             ret.setTaints(tag);
         }
@@ -170,44 +175,132 @@ public class TaintSourceWrapper<T extends AutoTaintLabel> {
         }
     }
 
-    @SuppressWarnings("unchecked")
+    /* Reports a violation for each distinct non-empty taint tag found on the specified object, the characters of the
+     * specified string, or the elements of the specified array. Arrays of references are searched recursively. */
     public void checkTaint(Object obj, String baseSink, String actualSink) {
+        checkTaint(obj, baseSink, actualSink, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void checkTaint(Object obj, String baseSink, String actualSink, IdentityHashMap<Object, Object> visited) {
         if(obj instanceof String) {
-            Taint[] taints = getStringValueTaints((String) obj);
-            if(taints != null) {
-                Set<String> reported = new HashSet<>();
-                for(Taint t : taints) {
-                    if(t != null) {
-                        String _t = new String(t.toString().getBytes());
-                        if(reported.add(_t)) {
-                            taintViolation(t, obj, baseSink, actualSink);
-                        }
-                    }
-                }
+            TaggedArray tags = getStringValueTag((String) obj);
+            if(tags != null && tags.mayContainTaint()) {
+                reportDistinctTaints(tags.taints, obj, baseSink, actualSink);
             }
         } else if(obj instanceof TaintedWithObjTag) {
-            if(((TaintedWithObjTag) obj).getPHOSPHOR_TAG() != null) {
-                taintViolation((Taint<T>) ((TaintedWithObjTag) obj).getPHOSPHOR_TAG(), obj, baseSink, actualSink);
+            Taint<T> tag = (Taint<T>) ((TaintedWithObjTag) obj).getPHOSPHOR_TAG();
+            if(tag != null && !tag.isEmpty()) {
+                taintViolation(tag, obj, baseSink, actualSink);
             }
         } else if(obj instanceof TaggedArray) {
             TaggedArray tags = ((TaggedArray) obj);
-            if(tags.taints != null) {
-                for(Object i : tags.taints) {
-                    if(i != null) {
-                        taintViolation((Taint<T>) i, obj, baseSink, actualSink);
+            // Does not use ensureTaints, which would move the tags of a sparse array into a dense array
+            Taint[] taints = tags.mayContainTaint() ? tags.viewTaints() : null;
+            if(taints != null) {
+                reportDistinctTaints(taints, obj, baseSink, actualSink);
+            }
+            if(obj instanceof TaggedReferenceArray) {
+                visited = markVisited(obj, visited);
+                if(visited != null) {
+                    for(Object each : ((TaggedReferenceArray) obj).val) {
+                        checkTaint(each, baseSink, actualSink, visited);
                     }
                 }
             }
-            if(obj instanceof TaggedReferenceArray) {
-                for(Object each : ((TaggedReferenceArray) obj).val) {
-                    checkTaint(each, baseSink, actualSink);
+        } else if(obj instanceof Object[]) {
+            visited = markVisited(obj, visited);
+            if(visited != null) {
+                for(Object o : ((Object[]) obj)) {
+                    checkTaint(o, baseSink, actualSink, visited);
                 }
             }
+        }
+    }
+
+    /* Reports a violation for each distinct non-empty taint tag in the specified array. Tags are compared by identity,
+     * equal sets of labels are represented by the same tag. */
+    @SuppressWarnings("unchecked")
+    private void reportDistinctTaints(Taint[] taints, Object obj, String baseSink, String actualSink) {
+        IdentityHashMap<Taint, Taint> reported = null;
+        Taint previous = null;
+        for(Taint t : taints) {
+            if(t == null || t == previous || t.isEmpty()) {
+                continue;
+            }
+            previous = t;
+            if(reported == null) {
+                reported = new IdentityHashMap<>();
+            }
+            if(reported.put(t, t) == null) {
+                taintViolation((Taint<T>) t, obj, baseSink, actualSink);
+            }
+        }
+    }
+
+    /* Returns whether checkTaint(Object, String, String) would report a violation for the specified object. Called
+     * by sink methods before boxing their arguments to skip the call to checkTaint when none of the arguments are
+     * tainted. Sink methods always call checkTaint if a subclass overrides checkTaint without overriding this
+     * method. */
+    public boolean hasTaint(Object obj) {
+        return hasTaint(obj, null);
+    }
+
+    /* Called by sink methods. Returns whether they may skip the call to checkTaint when hasTaint finds none of their
+     * arguments tainted. */
+    @SuppressWarnings("unused")
+    public final boolean canSkipCheckTaint() {
+        return skipsUntaintedSinkCalls;
+    }
+
+    /* Returns whether the specified subclass or one of its superclasses overrides checkTaint while none of them
+     * override hasTaint. */
+    private static boolean overridesCheckTaintOnly(Class<?> clazz) {
+        boolean overridesCheckTaint = false;
+        for(Class<?> c = clazz; c != TaintSourceWrapper.class; c = c.getSuperclass()) {
+            for(Method method : c.getDeclaredMethods()) {
+                if(method.getName().equals("hasTaint")) {
+                    return false;
+                } else if(method.getName().equals("checkTaint")) {
+                    overridesCheckTaint = true;
+                }
+            }
+        }
+        return overridesCheckTaint;
+    }
+
+    private boolean hasTaint(Object obj, IdentityHashMap<Object, Object> visited) {
+        if(obj instanceof String) {
+            TaggedArray tags = getStringValueTag((String) obj);
+            return tags != null && tags.mayContainTaint();
+        } else if(obj instanceof TaintedWithObjTag) {
+            Taint tag = (Taint) ((TaintedWithObjTag) obj).getPHOSPHOR_TAG();
+            return tag != null && !tag.isEmpty();
+        } else if(obj instanceof TaggedArray) {
+            if(((TaggedArray) obj).mayContainTaint()) {
+                return true;
+            }
+            return obj instanceof TaggedReferenceArray && hasTaint(((TaggedReferenceArray) obj).val, visited);
         } else if(obj instanceof Object[]) {
-            for(Object o : ((Object[]) obj)) {
-                checkTaint(o, baseSink, actualSink);
+            visited = markVisited(obj, visited);
+            if(visited != null) {
+                for(Object o : ((Object[]) obj)) {
+                    if(hasTaint(o, visited)) {
+                        return true;
+                    }
+                }
             }
         }
+        return false;
+    }
+
+    /* Adds the specified array to the specified set of visited arrays, creating the set if it is null. Returns the set or
+     * null if the array was already visited. */
+    private static IdentityHashMap<Object, Object> markVisited(Object array, IdentityHashMap<Object, Object> visited) {
+        if(visited == null) {
+            visited = new IdentityHashMap<>();
+        }
+        return visited.put(array, array) == null ? visited : null;
     }
 
     public void taintViolation(Taint<T> tag, Object obj, String baseSink, String actualSink) {
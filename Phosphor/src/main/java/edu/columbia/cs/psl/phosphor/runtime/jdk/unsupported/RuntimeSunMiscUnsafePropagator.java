@@ -171,11 +171,8 @@ public class RuntimeSunMiscUnsafePropagator {
             long scale = unsafe.arrayIndexScale(clazz);
             // Calculate the index based off the offset
             int index = (int) ((offset - baseOffset) / scale);
-            if(tags.taints == null && valueTaint != null && !valueTaint.isEmpty()) {
-                tags.taints = new Taint[tags.getLength()];
-            }
-            if(tags.taints != null) {
-                tags.taints[index] = valueTaint;
+            if(tags.hasTaints() || (valueTaint != null && !valueTaint.isEmpty())) {
+                tags.setTaint(index, valueTaint);
             }
         }
     }
@@ -399,7 +396,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putByte(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -412,7 +409,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putByteVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -445,7 +442,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putBoolean(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -458,7 +455,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putBooleanVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -491,7 +488,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putChar(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -504,7 +501,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putCharVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -537,7 +534,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putFloat(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -551,7 +548,7 @@ public class RuntimeSunMiscUnsafePropagator {
 
         if(obj instanceof TaggedArray) {
             unsafe.putFloatVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -584,7 +581,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putOrderedInt(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -597,7 +594,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putInt(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -610,7 +607,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putIntVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -643,7 +640,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putDouble(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -656,7 +653,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putDoubleVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -689,7 +686,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putShort(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -702,7 +699,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putShortVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -735,7 +732,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putLong(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -748,7 +745,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putOrderedLong(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -761,7 +758,7 @@ public class RuntimeSunMiscUnsafePropagator {
         Taint valTaint = stackFrame.getArgTaint(3);
         if(obj instanceof TaggedArray) {
             unsafe.putLongVolatile(((TaggedArray) obj).getVal(), offset, val);
-            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).taints != null) {
+            if((valTaint != null && !valTaint.isEmpty()) || ((TaggedArray) obj).hasTaints()) {
                 ((TaggedArray) obj).setTaint(unsafeIndexFor(unsafe, (TaggedArray) obj, offset), valTaint);
             }
         } else {
@@ -40,6 +40,11 @@ public class BitSet {
         packets[getPacketIndex(bitIndex)] |= getBitMask(bitIndex);
     }
 
+    /* Removes the element represented by the bit at the specified index from the set.*/
+    public void remove(int bitIndex) {
+        packets[getPacketIndex(bitIndex)] &= ~getBitMask(bitIndex);
+    }
+
     /* Returns whether or not the element represented by the bit at the specified index is in the set. */
     public boolean contains(int bitIndex) {
         return (packets[getPacketIndex(bitIndex)] & getBitMask(bitIndex)) != 0;
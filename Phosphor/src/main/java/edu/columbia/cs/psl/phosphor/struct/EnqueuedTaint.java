@@ -1,5 +0,0 @@
-package edu.columbia.cs.psl.phosphor.struct;
-
-public class EnqueuedTaint {
-    public int activeCount;
-}
@@ -0,0 +1,95 @@
+package edu.columbia.cs.psl.phosphor.struct;
+
+/* Resizable array of primitive ints to help avoid the cost of boxing ints to Integers. Implementation is not
+ * threadsafe. */
+public class IntArrayList {
+
+    // Initial length of the backing array
+    private static final int INITIAL_CAPACITY = 8;
+
+    // Backing array whose first size elements are the items in the list
+    private int[] items;
+    // The number of items in the list
+    private int size;
+
+    /* Constructs a new empty list. */
+    public IntArrayList() {
+        this.items = new int[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /* Returns the number of items in the list. */
+    public int size() {
+        return size;
+    }
+
+    /* Returns whether the list is empty. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /* Removes all of the items in the list. */
+    public void clear() {
+        size = 0;
+    }
+
+    /* Adds the specified item to the end of the list. */
+    public void add(int item) {
+        if(size == items.length) {
+            int[] temp = new int[items.length << 1];
+            System.arraycopy(items, 0, temp, 0, size);
+            items = temp;
+        }
+        items[size++] = item;
+    }
+
+    /* Returns the item at the specified index. Throws an IndexOutOfBoundsException if the index is out of range. */
+    public int get(int index) {
+        checkIndex(index);
+        return items[index];
+    }
+
+    /* Replaces the item at the specified index with the specified item and returns the item previously at that index.
+     * Throws an IndexOutOfBoundsException if the index is out of range. */
+    public int set(int index, int item) {
+        checkIndex(index);
+        int previous = items[index];
+        items[index] = item;
+        return previous;
+    }
+
+    /* Removes and returns the last item in the list. Throws an IndexOutOfBoundsException if the list is empty. */
+    public int removeLast() {
+        checkIndex(size - 1);
+        return items[--size];
+    }
+
+    /* Returns the index of the first occurrence of the specified item in the list or -1 if the list does not contain
+     * the item. */
+    public int indexOf(int item) {
+        for(int i = 0; i < size; i++) {
+            if(items[i] == item) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /* Returns whether the list contains the specified item. */
+    public boolean contains(int item) {
+        return indexOf(item) != -1;
+    }
+
+    /* Returns a new array containing the items in the list in order. */
+    public int[] toArray() {
+        int[] result = new int[size];
+        System.arraycopy(items, 0, result, 0, size);
+        return result;
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
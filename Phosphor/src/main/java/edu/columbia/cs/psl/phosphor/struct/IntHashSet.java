@@ -0,0 +1,128 @@
+package edu.columbia.cs.psl.phosphor.struct;
+
+/* Hash set of primitive ints that uses open addressing with linear probing to help avoid the cost of boxing elements
+ * and allocating an entry object for each element. Implementation is not threadsafe. */
+public class IntHashSet {
+
+    // Initial number of slots, must be a power of 2
+    private static final int INITIAL_CAPACITY = 16;
+    // The table is grown once more than 3/4 of its slots are occupied
+    private static final int LOAD_FACTOR_NUMERATOR = 3;
+    private static final int LOAD_FACTOR_DENOMINATOR = 4;
+
+    // The element stored in each slot
+    private int[] elements;
+    // Whether each slot contains an element
+    private boolean[] occupied;
+    // The number of elements in the set
+    private int size;
+
+    /* Constructs a new empty set. */
+    public IntHashSet() {
+        elements = new int[INITIAL_CAPACITY];
+        occupied = new boolean[INITIAL_CAPACITY];
+    }
+
+    /* Returns the number of elements in the set. */
+    public int size() {
+        return size;
+    }
+
+    /* Returns true if this set contains 0 elements. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /* Removes all elements. */
+    public void clear() {
+        if(size > 0) {
+            for(int i = 0; i < occupied.length; i++) {
+                occupied[i] = false;
+            }
+            size = 0;
+        }
+    }
+
+    /* Returns whether the set contains the specified element. */
+    public boolean contains(int element) {
+        int mask = elements.length - 1;
+        for(int slot = IntObjectHashMap.hash(element) & mask; occupied[slot]; slot = (slot + 1) & mask) {
+            if(elements[slot] == element) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* Adds the specified element to the set. Returns true if the set did not already contain the element. */
+    public boolean add(int element) {
+        int mask = elements.length - 1;
+        int slot = IntObjectHashMap.hash(element) & mask;
+        while(occupied[slot]) {
+            if(elements[slot] == element) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        elements[slot] = element;
+        occupied[slot] = true;
+        if(++size * LOAD_FACTOR_DENOMINATOR > elements.length * LOAD_FACTOR_NUMERATOR) {
+            resize(elements.length << 1);
+        }
+        return true;
+    }
+
+    /* Removes the specified element from the set. Returns true if the set contained the element. */
+    public boolean remove(int element) {
+        int mask = elements.length - 1;
+        int hole = IntObjectHashMap.hash(element) & mask;
+        while(true) {
+            if(!occupied[hole]) {
+                return false;
+            } else if(elements[hole] == element) {
+                break;
+            }
+            hole = (hole + 1) & mask;
+        }
+        // Shift back later elements in the probe sequence so that lookups do not need tombstones
+        for(int next = (hole + 1) & mask; occupied[next]; next = (next + 1) & mask) {
+            int home = IntObjectHashMap.hash(elements[next]) & mask;
+            if(((next - home) & mask) >= ((next - hole) & mask)) {
+                elements[hole] = elements[next];
+                hole = next;
+            }
+        }
+        occupied[hole] = false;
+        size--;
+        return true;
+    }
+
+    /* Returns a new array containing the elements of the set. */
+    public int[] toArray() {
+        int[] result = new int[size];
+        for(int slot = 0, i = 0; i < size; slot++) {
+            if(occupied[slot]) {
+                result[i++] = elements[slot];
+            }
+        }
+        return result;
+    }
+
+    private void resize(int capacity) {
+        int[] oldElements = elements;
+        boolean[] oldOccupied = occupied;
+        elements = new int[capacity];
+        occupied = new boolean[capacity];
+        int mask = capacity - 1;
+        for(int i = 0; i < oldElements.length; i++) {
+            if(oldOccupied[i]) {
+                int slot = IntObjectHashMap.hash(oldElements[i]) & mask;
+                while(occupied[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                elements[slot] = oldElements[i];
+                occupied[slot] = true;
+            }
+        }
+    }
+}
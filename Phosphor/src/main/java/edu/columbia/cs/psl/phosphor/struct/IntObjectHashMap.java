@@ -0,0 +1,207 @@
+package edu.columbia.cs.psl.phosphor.struct;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/* Hash map from primitive ints to objects that uses open addressing with linear probing to help avoid the cost of
+ * boxing keys and allocating an entry object for each mapping. Implementation is not threadsafe. */
+public class IntObjectHashMap<V> {
+
+    // Initial number of slots, must be a power of 2
+    private static final int INITIAL_CAPACITY = 16;
+    // The table is grown once more than 3/4 of its slots are occupied
+    private static final int LOAD_FACTOR_NUMERATOR = 3;
+    private static final int LOAD_FACTOR_DENOMINATOR = 4;
+
+    // The key stored in each slot
+    private int[] keys;
+    // The value stored in each slot
+    private Object[] values;
+    // Whether each slot contains a mapping
+    private boolean[] occupied;
+    // The number of mappings in the map
+    private int size;
+
+    /* Constructs a new empty map. */
+    public IntObjectHashMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /* Returns the number of mappings in the map. */
+    public int size() {
+        return size;
+    }
+
+    /* Returns true if this map contains 0 mappings. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /* Removes all mappings. */
+    public void clear() {
+        if(size > 0) {
+            for(int i = 0; i < occupied.length; i++) {
+                occupied[i] = false;
+                values[i] = null;
+            }
+            size = 0;
+        }
+    }
+
+    /* Returns whether a mapping exists for the specified key. */
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    /* Returns the value associated with the specified key or null if the specified key is not in the map. */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /* Associates the specified value with the specified key. Returns the value previously associated with the key or
+     * null if the key was not in the map. */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while(occupied[slot]) {
+            if(keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        occupied[slot] = true;
+        if(++size * LOAD_FACTOR_DENOMINATOR > keys.length * LOAD_FACTOR_NUMERATOR) {
+            resize(keys.length << 1);
+        }
+        return null;
+    }
+
+    /* Removes the mapping for the specified key. Returns the value that was associated with the key or null if the key
+     * was not in the map. */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = findSlot(key);
+        if(slot < 0) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        deleteSlot(slot);
+        return previous;
+    }
+
+    /* Returns a new array containing the keys of the mappings in the map. */
+    public int[] keys() {
+        int[] result = new int[size];
+        for(int slot = 0, i = 0; i < size; slot++) {
+            if(occupied[slot]) {
+                result[i++] = keys[slot];
+            }
+        }
+        return result;
+    }
+
+    /* Returns a view of the values of the mappings in the map that can be iterated over as long as the map is not
+     * structurally modified. */
+    public Iterable<V> values() {
+        return new Iterable<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+        };
+    }
+
+    /* Returns the index of the slot containing the specified key or -1 if the key is not in the map. */
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        for(int slot = hash(key) & mask; occupied[slot]; slot = (slot + 1) & mask) {
+            if(keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /* Empties the specified slot and shifts back any later mappings in its probe sequence so that lookups do not
+     * need tombstones. */
+    private void deleteSlot(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        for(int next = (hole + 1) & mask; occupied[next]; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            // Move the mapping into the hole unless its home slot lies cyclically in (hole, next]
+            if(((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        occupied[hole] = false;
+        values[hole] = null;
+        size--;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        occupied = new boolean[capacity];
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        boolean[] oldOccupied = occupied;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldOccupied[i]) {
+                int slot = hash(oldKeys[i]) & mask;
+                while(occupied[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                occupied[slot] = true;
+            }
+        }
+    }
+
+    /* Spreads the bits of the specified key so that keys that differ only in their high bits, or that are consecutive,
+     * do not cluster. */
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        // The index of the next slot to check for a mapping
+        private int slot = 0;
+        // The number of values that have not been returned yet
+        private int remaining = size;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if(remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            while(!occupied[slot]) {
+                slot++;
+            }
+            remaining--;
+            return (V) values[slot++];
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package edu.columbia.cs.psl.phosphor.struct;
 
 import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import edu.columbia.cs.psl.phosphor.runtime.TaintMetrics;
 
 import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.lang.ref.WeakReference;
@@ -67,6 +69,13 @@ public class PowerSetTree {
         return root.addChild(RankPoolSingleton.POOL.getRankedElement(element));
     }
 
+    /**
+     * Returns the number of distinct elements that currently have a rank.
+     */
+    public int getRankPoolSize() {
+        return RankPoolSingleton.POOL.size();
+    }
+
     /* Returns the singleton tree instance. */
     public static PowerSetTree getInstance() {
         return PowerSetTreeSingleton.INSTANCE;
@@ -81,7 +90,7 @@ public class PowerSetTree {
      * the root of the tree.
      */
     public static final class SetNode extends Taint {
-        private static final long serialVersionUID = 7385461591854398858L;
+        private static final long serialVersionUID = -4380924727021460374L;
         /**
          * The element with the greater rank in this set.
          */
@@ -138,6 +147,9 @@ public class PowerSetTree {
          * Returns the child node for the specified key.
          */
         private SetNode addChild(RankedElement childKey) {
+            if (TaintMetrics.ENABLED) {
+                TaintMetrics.SET_CHILD_LOOKUPS.increment();
+            }
             synchronized (this) {
                 if (children == null) {
                     // Initialize the child map
@@ -147,6 +159,7 @@ public class PowerSetTree {
                     // There is no entry for child key
                     SetNode node = new SetNode(childKey, this);
                     children.put(childKey.getRank(), new WeakReference<>(node));
+                    recordCreation(node);
                     return node;
                 } else {
                     SetNode childNode = children.get(childKey.getRank()).get();
@@ -157,12 +170,24 @@ public class PowerSetTree {
                         // The entry for the child key has been garbage collected
                         SetNode node = new SetNode(childKey, this);
                         children.put(childKey.getRank(), new WeakReference<>(node));
+                        recordCreation(node);
                         return node;
                     }
                 }
             }
         }
 
+        private static void recordCreation(SetNode node) {
+            if (TaintMetrics.ENABLED) {
+                TaintMetrics.SET_NODES_CREATED.increment();
+                int depth = 0;
+                for (SetNode cur = node; cur != null && !cur.isEmpty(); cur = cur.parent) {
+                    depth++;
+                }
+                TaintMetrics.recordSetDepth(depth);
+            }
+        }
+
         /**
          * Returns true if this set does not contain any elements.
          *
@@ -199,6 +224,9 @@ public class PowerSetTree {
          * @return the union of this set and the specified other set.
          */
         public SetNode union(SetNode other) {
+            if (TaintMetrics.ENABLED) {
+                TaintMetrics.SET_UNIONS.increment();
+            }
             SinglyLinkedList<RankedElement> mergedList = new SinglyLinkedList<>();
             // If this set is empty, ensure the canonical empty set is used
             SetNode cur = this.isEmpty() ? PowerSetTree.getInstance().emptySet() : this;
@@ -342,19 +370,56 @@ public class PowerSetTree {
             return list;
         }
 
+        /**
+         * Writes the size of this set followed by its elements in decreasing rank order. Elements shared between sets
+         * written to the same stream are only written once, later occurrences refer back to the first.
+         */
         private void writeObject(ObjectOutputStream out) throws IOException {
             out.defaultWriteObject();
-            out.writeObject(toList());
+            int size = 0;
+            for (SetNode cur = this; !cur.isEmpty(); cur = cur.parent) {
+                size++;
+            }
+            out.writeInt(size);
+            for (SetNode cur = this; !cur.isEmpty(); cur = cur.parent) {
+                out.writeObject(cur.key.getElement());
+            }
         }
 
         private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
             in.defaultReadObject();
-            SinglyLinkedList<?> labels = (SinglyLinkedList<?>) in.readObject();
-            SetNode ret = (SetNode) Taint.emptyTaint();
-            for (Object o : labels) {
-                ret = ret.union(Taint.withLabel(o));
+            int size = in.readInt();
+            if (size < 0) {
+                throw new InvalidObjectException("Negative set size: " + size);
+            }
+            RankedElement[] elements = new RankedElement[size];
+            for (int i = 0; i < size; i++) {
+                elements[i] = RankPoolSingleton.POOL.getRankedElement(in.readObject());
             }
-            this.parent = ret;
+            this.parent = fromRankedElements(elements);
+        }
+
+        /**
+         * Returns the set containing the specified elements. The path to the set is walked once from the root of the
+         * tree instead of building the set through repeated unions.
+         */
+        private static SetNode fromRankedElements(RankedElement[] elements) {
+            // Ranks assigned in this JVM may order the elements differently than the JVM that wrote them
+            for (int i = 1; i < elements.length; i++) {
+                RankedElement element = elements[i];
+                int j = i - 1;
+                for (; j >= 0 && elements[j].getRank() > element.getRank(); j--) {
+                    elements[j + 1] = elements[j];
+                }
+                elements[j + 1] = element;
+            }
+            SetNode cur = PowerSetTree.getInstance().emptySet();
+            for (int i = 0; i < elements.length; i++) {
+                if (i == 0 || elements[i].getRank() != elements[i - 1].getRank()) {
+                    cur = cur.addChild(elements[i]);
+                }
+            }
+            return cur;
         }
 
         private Object readResolve() {
@@ -1,5 +1,7 @@
 package edu.columbia.cs.psl.phosphor.struct;
 
+import edu.columbia.cs.psl.phosphor.runtime.TaintMetrics;
+
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 
@@ -53,6 +55,9 @@ final class RankPool {
             }
         }
         RankedElement result = new RankedElement(element, getNextRank());
+        if (TaintMetrics.ENABLED) {
+            TaintMetrics.RANKS_ASSIGNED.increment();
+        }
         Entry entry = new Entry(result, referenceQueue);
         entry.next = entries[index];
         entries[index] = entry;
@@ -62,6 +67,11 @@ final class RankPool {
         return result;
     }
 
+    public synchronized int size() {
+        reclaimRanks();
+        return size;
+    }
+
     private void reclaimRanks() {
         for (Entry entry; (entry = (Entry) referenceQueue.poll()) != null; ) {
             removeEntry(entry);
@@ -72,6 +82,9 @@ final class RankPool {
         reclaimRanks();
         if (!availableRanks.isEmpty()) {
             // Reuse an existing rank
+            if (TaintMetrics.ENABLED) {
+                TaintMetrics.RANKS_REUSED.increment();
+            }
             return availableRanks.pop();
         } else {
             // There are no available ranks to be reused; create a new one
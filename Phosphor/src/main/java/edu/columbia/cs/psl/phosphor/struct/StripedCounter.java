@@ -0,0 +1,70 @@
+package edu.columbia.cs.psl.phosphor.struct;
+
+/**
+ * A counter that spreads updates from different threads over a fixed number of padded cells so that threads
+ * incrementing it concurrently rarely contend for the same lock or cache line. Unlike
+ * {@link java.util.concurrent.atomic.LongAdder}, this class does not call into any JDK code other than
+ * {@link Thread#currentThread()} and {@link System#identityHashCode(Object)}, so it can be safely updated from
+ * Phosphor's runtime methods which are themselves called by instrumented JDK code.
+ */
+public final class StripedCounter {
+
+    /**
+     * Number of cells, must be a power of two
+     */
+    private static final int NUMBER_OF_CELLS = 16;
+
+    private final Cell[] cells = new Cell[NUMBER_OF_CELLS];
+
+    public StripedCounter() {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new Cell();
+        }
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long x) {
+        int h = System.identityHashCode(Thread.currentThread());
+        Cell cell = cells[(h ^ (h >>> 16)) & (NUMBER_OF_CELLS - 1)];
+        synchronized (cell) {
+            cell.value += x;
+        }
+    }
+
+    /**
+     * @return the current total of this counter; updates made concurrently with this call may or may not be included
+     */
+    public long sum() {
+        long sum = 0;
+        for (Cell cell : cells) {
+            sum += cell.value;
+        }
+        return sum;
+    }
+
+    public void reset() {
+        for (Cell cell : cells) {
+            synchronized (cell) {
+                cell.value = 0;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(sum());
+    }
+
+    /**
+     * Padded so that adjacent cells are unlikely to share a cache line
+     */
+    @SuppressWarnings("unused")
+    private static final class Cell {
+        private long p0, p1, p2, p3, p4, p5, p6;
+        private volatile long value;
+        private long q0, q1, q2, q3, q4, q5, q6;
+    }
+}
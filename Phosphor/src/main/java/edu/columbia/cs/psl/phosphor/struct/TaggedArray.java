@@ -4,15 +4,34 @@ import edu.columbia.cs.psl.phosphor.runtime.PhosphorStackFrame;
 import edu.columbia.cs.psl.phosphor.runtime.Taint;
 
 import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 public abstract class TaggedArray implements Cloneable, Serializable {
 
-    private static final long serialVersionUID = -2635717960621951243L;
+    private static final long serialVersionUID = 5138036462791250947L;
 
+    // Value of summary when no element of this array has a non-empty taint tag
+    private static final int SUMMARY_CLEAN = -1;
+    // Value of summary when some element of this array may have a non-empty taint tag
+    private static final int SUMMARY_TAINTED = -2;
+
+    /**
+     * The taint tags of the elements of this array. Code that writes to this array without using the methods of this
+     * class should obtain it through {@link #ensureTaints()} and call {@link #taintsChanged()} afterwards.
+     */
     public Taint[] taints;
+    /*
+     * Summary of the taint tags of this array: SUMMARY_CLEAN, SUMMARY_TAINTED, or, if it is not known whether this
+     * array is tainted, a non-negative number that changes every time the summary is invalidated. Only changed while
+     * holding the lock on this array, so a scan of the tags that raced with a change to them does not record a result.
+     * A tainted summary may be stale after tags are cleared, which only causes a needless check of the tags.
+     */
+    private transient volatile int summary;
+    // The number of times that summary was invalidated, guarded by the lock on this array
+    private transient int summaryVersion;
     public Taint lengthTaint = Taint.emptyTaint();
     // Used to mark this object as visited when searching
     public int $$PHOSPHOR_MARK = Integer.MIN_VALUE;
@@ -34,15 +53,163 @@ public abstract class TaggedArray implements Cloneable, Serializable {
 
     public void setTaints(Taint tag) {
         if(getVal() != null && getLength() != 0) {
+            int version = invalidateSummary();
             if(taints == null) {
                 taints = new Taint[getLength()];
             }
             for(int i = 0; i < taints.length; i++) {
                 taints[i] = tag;
             }
+            if(tag != null && !tag.isEmpty()) {
+                markTainted();
+            } else {
+                markClean(version);
+            }
+        }
+    }
+
+    /**
+     * Sets the taint tags of the elements of this array from the specified start index (inclusive) to the specified
+     * end index (exclusive) to the specified tag. No tags are allocated if the specified tag is empty and no tags have
+     * been stored for this array.
+     */
+    public void setTaints(int start, int end, Taint tag) {
+        if(start >= end || ((tag == null || tag.isEmpty()) && !hasTaints())) {
+            return;
+        }
+        Taint[] tags = ensureTaints();
+        for(int i = start; i < end; i++) {
+            tags[i] = tag;
+        }
+        taintStored(tag);
+    }
+
+    /**
+     * Returns whether taint tags may have been stored for the elements of this array. Code that checks whether
+     * {@link #taints} is null to decide whether an element's tag needs to be written should use this instead, since
+     * subclasses may store tags outside of {@link #taints}.
+     */
+    public boolean hasTaints() {
+        return taints != null;
+    }
+
+    /**
+     * Returns {@link #taints}, allocating it first if necessary. Code that writes to {@link #taints} directly must
+     * obtain it through this method and call {@link #taintsChanged()} once it is done writing.
+     */
+    public Taint[] ensureTaints() {
+        if(taints == null) {
+            taints = new Taint[getLength()];
+        }
+        if(summary == SUMMARY_CLEAN) {
+            invalidateSummary();
+        }
+        return taints;
+    }
+
+    /**
+     * Returns false if no element of this array has a non-empty taint tag. Takes constant time if the tags of this
+     * array have not changed since they were last checked; otherwise checks every tag.
+     */
+    public boolean mayContainTaint() {
+        Taint[] tags = taints;
+        if(tags == null) {
+            return false;
+        }
+        int current = summary;
+        if(current == SUMMARY_TAINTED) {
+            return true;
+        } else if(current == SUMMARY_CLEAN) {
+            return false;
+        }
+        for(Taint t : tags) {
+            if(t != null && !t.isEmpty()) {
+                markTainted();
+                return true;
+            }
+        }
+        markClean(current);
+        return false;
+    }
+
+    /**
+     * Returns false if no element of this array from the specified start index (inclusive) to the specified end index
+     * (exclusive) has a non-empty taint tag. Takes constant time if this array is known to have no non-empty tags;
+     * otherwise checks every tag in the range.
+     */
+    public boolean mayContainTaint(int start, int end) {
+        Taint[] tags = taints;
+        if(tags == null || summary == SUMMARY_CLEAN) {
+            return false;
+        }
+        for(int i = start; i < end; i++) {
+            if(tags[i] != null && !tags[i].isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the taint tags of the specified range of this array's elements into the specified array in the same way
+     * that {@link System#arraycopy} copies elements.
+     */
+    public void copyTaints(int srcPos, TaggedArray dest, int destPos, int length) {
+        Taint[] srcTaints = taints;
+        if(srcTaints == null) {
+            return;
+        }
+        boolean tainted = mayContainTaint(srcPos, srcPos + length);
+        Taint[] destTaints = dest.taints;
+        if(destTaints == null) {
+            if(!tainted) {
+                // Copying tags that are all empty cannot taint the destination
+                return;
+            }
+            destTaints = dest.ensureTaints();
+        }
+        System.arraycopy(srcTaints, srcPos, destTaints, destPos, length);
+        if(tainted) {
+            dest.markTainted();
+        }
+    }
+
+    /**
+     * Discards the summary of this array's taint tags. Must be called after tags in {@link #taints} are written without
+     * using the methods of this class.
+     */
+    public void taintsChanged() {
+        invalidateSummary();
+    }
+
+    /**
+     * Updates the summary of this array's taint tags to reflect that the specified tag was stored in this array.
+     */
+    protected final void taintStored(Taint tag) {
+        if(tag != null && !tag.isEmpty() && summary != SUMMARY_TAINTED) {
+            markTainted();
         }
     }
 
+    /* Records that some element of this array may have a non-empty tag. */
+    protected final synchronized void markTainted() {
+        summary = SUMMARY_TAINTED;
+    }
+
+    /* Records that this array has no non-empty tags unless its summary changed since it had the specified value. */
+    private synchronized void markClean(int expected) {
+        if(summary == expected) {
+            summary = SUMMARY_CLEAN;
+        }
+    }
+
+    /* Marks the summary of this array as unknown and returns its new value. */
+    private synchronized int invalidateSummary() {
+        summaryVersion = (summaryVersion + 1) & Integer.MAX_VALUE;
+        summary = summaryVersion;
+        return summaryVersion;
+    }
+
     protected void checkAIOOB(Taint idxTaint, int idx, PhosphorStackFrame ctrl) {
         if(idx >= getLength()) {
             ArrayIndexOutOfBoundsException ex = new ArrayIndexOutOfBoundsException("" + idx);
@@ -89,18 +256,36 @@ public abstract class TaggedArray implements Cloneable, Serializable {
             taints = new Taint[getLength()];
         }
         taints[idx] = valTaint;
+        taintStored(valTaint);
     }
 
+    /**
+     * Returns the taint tags of the elements of this array, or null if no tags have been stored, without changing how
+     * this array stores them. The returned array may be {@link #taints} itself and must not be modified.
+     */
+    public Taint[] viewTaints() {
+        return taints;
+    }
+
+    /* Writes runs of identical taint tags as the length of the run followed by the tag. Tags are canonical, so each
+     * distinct tag is only written once per stream, later runs refer back to it. */
     private void writeObject(ObjectOutputStream stream) throws IOException {
-        if(taints == null) {
+        Taint[] tags = viewTaints();
+        if(tags == null) {
             stream.writeInt(-1);
         } else {
-            stream.writeInt(taints.length);
-            for(Taint el : taints) {
-                stream.writeObject(el);
+            stream.writeInt(tags.length);
+            for(int start = 0; start < tags.length; ) {
+                Taint tag = tags[start];
+                int end = start + 1;
+                while(end < tags.length && tags[end] == tag) {
+                    end++;
+                }
+                stream.writeInt(end - start);
+                stream.writeObject(tag);
+                start = end;
             }
         }
-        // stream.writeObject(taints);
     }
 
     private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
@@ -109,10 +294,18 @@ public abstract class TaggedArray implements Cloneable, Serializable {
             taints = null;
         } else {
             taints = new Taint[len];
-            for(int i = 0; i < len; i++) {
-                taints[i] = (Taint) stream.readObject();
+            for(int start = 0; start < len; ) {
+                int run = stream.readInt();
+                if(run <= 0 || run > len - start) {
+                    throw new InvalidObjectException("Invalid run length: " + run);
+                }
+                Taint tag = (Taint) stream.readObject();
+                for(int i = start; i < start + run; i++) {
+                    taints[i] = tag;
+                }
+                start += run;
             }
         }
-        // taints = (Taint[]) stream.readObject();
+        invalidateSummary();
     }
 }
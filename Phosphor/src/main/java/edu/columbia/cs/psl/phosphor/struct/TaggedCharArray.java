@@ -2,6 +2,7 @@ package edu.columbia.cs.psl.phosphor.struct;
 
 import edu.columbia.cs.psl.phosphor.Configuration;
 import edu.columbia.cs.psl.phosphor.instrumenter.InvokedViaInstrumentation;
+import edu.columbia.cs.psl.phosphor.runtime.DerivedTaintListener;
 import edu.columbia.cs.psl.phosphor.runtime.PhosphorStackFrame;
 import edu.columbia.cs.psl.phosphor.runtime.Taint;
 
@@ -38,7 +39,12 @@ public final class TaggedCharArray extends TaggedArray {
 
     @InvokedViaInstrumentation(record = TAINTED_CHAR_ARRAY_SET)
     public void set(int idx, char val, Taint idxTaint, Taint valTaint, PhosphorStackFrame stackFrame) {
-        set(idx, val, Configuration.derivedTaintListener.arraySet(this, idx, val, idxTaint, valTaint, stackFrame));
+        DerivedTaintListener listener = Configuration.derivedTaintListener;
+        if(listener != null) {
+            set(idx, val, listener.arraySet(this, idx, val, idxTaint, valTaint, stackFrame));
+        } else {
+            set(idx, val, Taint.combineTags(idxTaint, Taint.combineTags(valTaint, stackFrame)));
+        }
     }
 
     @Override
@@ -53,12 +59,18 @@ public final class TaggedCharArray extends TaggedArray {
         }
         if(taints != null) {
             taints[idx] = tag;
+            taintStored(tag);
         }
     }
 
     @InvokedViaInstrumentation(record = TAINTED_CHAR_ARRAY_GET)
     public char get(int idx, Taint idxTaint, PhosphorStackFrame ret) {
-        return Configuration.derivedTaintListener.arrayGet(this, idx, idxTaint, ret);
+        DerivedTaintListener listener = Configuration.derivedTaintListener;
+        if(listener != null) {
+            return listener.arrayGet(this, idx, idxTaint, ret);
+        }
+        ret.setReturnTaint(taints == null ? idxTaint : Taint.combineTags(idxTaint, taints[idx]));
+        return this.val[idx];
     }
 
     public static TaggedCharArray factory(char[] array) {
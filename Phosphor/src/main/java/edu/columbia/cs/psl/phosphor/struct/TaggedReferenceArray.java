@@ -3,6 +3,7 @@ package edu.columbia.cs.psl.phosphor.struct;
 import edu.columbia.cs.psl.phosphor.Configuration;
 import edu.columbia.cs.psl.phosphor.control.ControlFlowStack;
 import edu.columbia.cs.psl.phosphor.instrumenter.InvokedViaInstrumentation;
+import edu.columbia.cs.psl.phosphor.runtime.DerivedTaintListener;
 import edu.columbia.cs.psl.phosphor.runtime.PhosphorStackFrame;
 import edu.columbia.cs.psl.phosphor.runtime.Taint;
 import edu.columbia.cs.psl.phosphor.runtime.MultiDArrayUtils;
@@ -17,8 +18,23 @@ import static edu.columbia.cs.psl.phosphor.instrumenter.TaintMethodRecord.*;
 public final class TaggedReferenceArray extends TaggedArray {
 
     private static final long serialVersionUID = -4189650314277328488L;
+    // Arrays shorter than this always store their taint tags in taints
+    private static final int SPARSE_MIN_LENGTH = 32;
+    // Upper bound on the number of tags stored sparsely before the array's tags are moved into taints
+    private static final int SPARSE_MAX_SIZE = 64;
+    private static final int SPARSE_INITIAL_CAPACITY = 4;
 
     public Object[] val;
+    /*
+     * Until taints is allocated, the non-empty taint tags of a large array are stored sparsely: the first sparseSize
+     * elements of sparseIndices are the indices of the tagged elements in ascending order and the corresponding
+     * elements of sparseTaints are their tags. Once taints is non-null it holds all of the array's tags and the sparse
+     * entries are ignored. The sparse entries are only read or written while holding the lock on this array, which
+     * also guards the allocation of taints while tags are stored sparsely; taints is never reset to null.
+     */
+    private transient int[] sparseIndices;
+    private transient Taint[] sparseTaints;
+    private transient int sparseSize;
 
     public TaggedReferenceArray(int len) {
         // val = new Object[len];
@@ -40,13 +56,26 @@ public final class TaggedReferenceArray extends TaggedArray {
     }
 
     @Override
-    public Object clone() {
-        return new TaggedReferenceArray(val.clone(), (taints != null) ? taints.clone() : null);
+    public synchronized Object clone() {
+        TaggedReferenceArray ret = new TaggedReferenceArray(val.clone(), (taints != null) ? taints.clone() : null);
+        if(taints == null && sparseSize > 0) {
+            ret.sparseIndices = new int[sparseIndices.length];
+            ret.sparseTaints = new Taint[sparseTaints.length];
+            System.arraycopy(sparseIndices, 0, ret.sparseIndices, 0, sparseSize);
+            System.arraycopy(sparseTaints, 0, ret.sparseTaints, 0, sparseSize);
+            ret.sparseSize = sparseSize;
+        }
+        return ret;
     }
 
     @InvokedViaInstrumentation(record = TAINTED_REFERENCE_ARRAY_SET)
     public void set(int idx, Object val, Taint idxTaint, Taint valTaint, PhosphorStackFrame stackFrame) {
-        set(idx, val, Configuration.derivedTaintListener.arraySet(this, idx, val, idxTaint, valTaint, stackFrame));
+        DerivedTaintListener listener = Configuration.derivedTaintListener;
+        if(listener != null) {
+            set(idx, val, listener.arraySet(this, idx, val, idxTaint, valTaint, stackFrame));
+        } else {
+            set(idx, val, Taint.combineTags(idxTaint, Taint.combineTags(valTaint, stackFrame)));
+        }
     }
 
     public void setUninst(int idx, Object val) {
@@ -55,17 +84,30 @@ public final class TaggedReferenceArray extends TaggedArray {
 
     public void set(int idx, Object val, Taint tag) {
         this.val[idx] = val;
-        if (taints == null && tag != null && !tag.isEmpty()) {
-            taints = new Taint[this.val.length];
-        }
-        if (taints != null) {
-            taints[idx] = tag;
+        Taint[] tags = taints;
+        if (tags != null) {
+            tags[idx] = tag;
+            taintStored(tag);
+        } else if (sparseSize > 0 || (tag != null && !tag.isEmpty())) {
+            setSparseTaint(idx, tag);
         }
     }
 
     @InvokedViaInstrumentation(record = TAINTED_REFERENCE_ARRAY_GET)
     public Object get(int idx, Taint idxTaint, PhosphorStackFrame ret) {
-        return Configuration.derivedTaintListener.arrayGet(this, idx, idxTaint, ret);
+        DerivedTaintListener listener = Configuration.derivedTaintListener;
+        if(listener != null) {
+            return listener.arrayGet(this, idx, idxTaint, ret);
+        }
+        Taint[] tags = taints;
+        if (tags != null) {
+            ret.setReturnTaint(Taint.combineTags(idxTaint, tags[idx]));
+        } else if (sparseSize > 0) {
+            ret.setReturnTaint(Taint.combineTags(idxTaint, getTaintOrEmpty(idx)));
+        } else {
+            ret.setReturnTaint(idxTaint);
+        }
+        return this.val[idx];
     }
 
     //"Uninstrumented" code is allowed to see LazyReferenceArrays, so uses this to retrieve items.
@@ -80,11 +122,288 @@ public final class TaggedReferenceArray extends TaggedArray {
         return val.length;
     }
 
+    @Override
+    public Taint getTaintOrEmpty(int idx) {
+        Taint[] tags = taints;
+        if (tags != null) {
+            return tags[idx];
+        }
+        return getSparseTaint(idx);
+    }
+
+    @Override
+    public void setTaint(int idx, Taint valTaint) {
+        if (taints != null) {
+            super.setTaint(idx, valTaint);
+        } else {
+            setSparseTaint(idx, valTaint);
+        }
+    }
+
+    @Override
+    public synchronized void setTaints(Taint tag) {
+        clearSparse();
+        super.setTaints(tag);
+    }
+
+    @Override
+    public void setTaints(int start, int end, Taint tag) {
+        if (taints != null) {
+            super.setTaints(start, end, tag);
+        } else {
+            synchronized (this) {
+                for (int i = start; i < end; i++) {
+                    setTaint(i, tag);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean hasTaints() {
+        return taints != null || sparseSize > 0;
+    }
+
+    @Override
+    public Taint[] ensureTaints() {
+        if (taints == null) {
+            promoteSparse();
+        }
+        return super.ensureTaints();
+    }
+
+    @Override
+    public boolean mayContainTaint() {
+        if (taints == null) {
+            // Only non-empty tags are stored sparsely
+            return sparseSize > 0;
+        }
+        return super.mayContainTaint();
+    }
+
+    @Override
+    public boolean mayContainTaint(int start, int end) {
+        if (taints == null) {
+            return hasSparseTaint(start, end);
+        }
+        return super.mayContainTaint(start, end);
+    }
+
+    @Override
+    public synchronized Taint[] viewTaints() {
+        if (taints == null && sparseSize > 0) {
+            Taint[] dense = new Taint[val.length];
+            for (int i = 0; i < sparseSize; i++) {
+                dense[sparseIndices[i]] = sparseTaints[i];
+            }
+            return dense;
+        }
+        return taints;
+    }
+
+    /**
+     * Copies the taint tags of the specified range of this array's elements into the specified reference array in the
+     * same way that {@link System#arraycopy} copies elements. The source and destination ranges may overlap. The lock
+     * on this array and the lock on the destination array are never held at the same time.
+     */
+    @Override
+    public void copyTaints(int srcPos, TaggedArray dest, int destPos, int length) {
+        TaggedReferenceArray destArr = (TaggedReferenceArray) dest;
+        Taint[] srcTaints = taints;
+        Taint[] destTaints = destArr.taints;
+        if (srcTaints != null && destTaints != null) {
+            boolean tainted = super.mayContainTaint(srcPos, srcPos + length);
+            System.arraycopy(srcTaints, srcPos, destTaints, destPos, length);
+            if (tainted) {
+                destArr.markTainted();
+            }
+            return;
+        }
+        // Collect the tagged elements of the source range before the destination range is cleared in case they overlap
+        SparseRange range = srcTaints != null ? collectTaints(srcTaints, srcPos, length) : collectSparse(srcPos, length);
+        destArr.replaceTaints(destPos, length, range, destPos - srcPos);
+    }
+
+    /* Returns whether an element of the specified range of this array has a non-empty tag. */
+    private synchronized boolean hasSparseTaint(int start, int end) {
+        if (taints != null) {
+            return super.mayContainTaint(start, end);
+        }
+        return sparseSize > 0 && lowerBoundSparse(end) > lowerBoundSparse(start);
+    }
+
+    /* Returns the tagged elements of the specified range of the specified dense tags. */
+    private static SparseRange collectTaints(Taint[] tags, int start, int length) {
+        SparseRange range = new SparseRange();
+        for (int i = start; i < start + length; i++) {
+            if (tags[i] != null && !tags[i].isEmpty()) {
+                if (range.indices == null || range.count == range.indices.length) {
+                    int capacity = range.indices == null ? SPARSE_INITIAL_CAPACITY : range.count << 1;
+                    int[] tempIndices = new int[capacity];
+                    Taint[] tempTags = new Taint[capacity];
+                    if (range.indices != null) {
+                        System.arraycopy(range.indices, 0, tempIndices, 0, range.count);
+                        System.arraycopy(range.tags, 0, tempTags, 0, range.count);
+                    }
+                    range.indices = tempIndices;
+                    range.tags = tempTags;
+                }
+                range.indices[range.count] = i;
+                range.tags[range.count++] = tags[i];
+            }
+        }
+        return range;
+    }
+
+    /* Returns the tagged elements of the specified range of this array. */
+    private synchronized SparseRange collectSparse(int start, int length) {
+        if (taints != null) {
+            return collectTaints(taints, start, length);
+        }
+        SparseRange range = new SparseRange();
+        if (sparseSize > 0) {
+            int first = lowerBoundSparse(start);
+            range.count = lowerBoundSparse(start + length) - first;
+            range.indices = new int[range.count];
+            range.tags = new Taint[range.count];
+            System.arraycopy(sparseIndices, first, range.indices, 0, range.count);
+            System.arraycopy(sparseTaints, first, range.tags, 0, range.count);
+        }
+        return range;
+    }
+
+    /* Clears the tags of the specified range of this array, then stores the specified tags at their indices shifted by
+     * the specified offset. */
+    private synchronized void replaceTaints(int start, int length, SparseRange range, int offset) {
+        if (taints != null) {
+            for (int i = start; i < start + length; i++) {
+                taints[i] = null;
+            }
+            taintsChanged();
+        } else if (sparseSize > 0) {
+            int first = lowerBoundSparse(start);
+            int end = lowerBoundSparse(start + length);
+            System.arraycopy(sparseIndices, end, sparseIndices, first, sparseSize - end);
+            System.arraycopy(sparseTaints, end, sparseTaints, first, sparseSize - end);
+            for (int i = sparseSize - (end - first); i < sparseSize; i++) {
+                sparseTaints[i] = null;
+            }
+            sparseSize -= end - first;
+        }
+        for (int i = 0; i < range.count; i++) {
+            setTaint(range.indices[i] + offset, range.tags[i]);
+        }
+    }
+
+    /* Moves the sparsely stored tags of this array into taints unless another thread already did. */
+    private synchronized void promoteSparse() {
+        if (taints == null) {
+            // Fill the tags before publishing them, writers that see taints do not take the lock
+            Taint[] dense = new Taint[val.length];
+            for (int i = 0; i < sparseSize; i++) {
+                dense[sparseIndices[i]] = sparseTaints[i];
+            }
+            taints = dense;
+            taintsChanged();
+            clearSparse();
+        }
+    }
+
+    /* Returns the tag of the element at the specified index while taints may be null. */
+    private synchronized Taint getSparseTaint(int idx) {
+        if (taints != null) {
+            return taints[idx];
+        }
+        int pos = searchSparse(idx);
+        return pos < 0 ? Taint.emptyTaint() : sparseTaints[pos];
+    }
+
+    /* Stores the specified tag for the element at the specified index while taints is null. Moves all of this array's
+     * tags into taints if the array is too short or too many of its elements are tagged to store them sparsely. */
+    private synchronized void setSparseTaint(int idx, Taint tag) {
+        if (taints != null) {
+            // Another thread moved this array's tags into taints
+            super.setTaint(idx, tag);
+            return;
+        }
+        if (idx < 0 || idx >= val.length) {
+            throw new ArrayIndexOutOfBoundsException(idx);
+        }
+        int pos = searchSparse(idx);
+        if (tag == null || tag.isEmpty()) {
+            if (pos >= 0) {
+                System.arraycopy(sparseIndices, pos + 1, sparseIndices, pos, sparseSize - pos - 1);
+                System.arraycopy(sparseTaints, pos + 1, sparseTaints, pos, sparseSize - pos - 1);
+                sparseTaints[--sparseSize] = null;
+            }
+        } else if (pos >= 0) {
+            sparseTaints[pos] = tag;
+        } else if (val.length < SPARSE_MIN_LENGTH || sparseSize >= Math.min(SPARSE_MAX_SIZE, val.length >>> 3)) {
+            ensureTaints()[idx] = tag;
+            taintStored(tag);
+        } else {
+            pos = -(pos + 1);
+            if (sparseIndices == null || sparseSize == sparseIndices.length) {
+                int capacity = sparseIndices == null ? SPARSE_INITIAL_CAPACITY : sparseIndices.length << 1;
+                int[] tempIndices = new int[capacity];
+                Taint[] tempTaints = new Taint[capacity];
+                if (sparseIndices != null) {
+                    System.arraycopy(sparseIndices, 0, tempIndices, 0, sparseSize);
+                    System.arraycopy(sparseTaints, 0, tempTaints, 0, sparseSize);
+                }
+                sparseIndices = tempIndices;
+                sparseTaints = tempTaints;
+            }
+            System.arraycopy(sparseIndices, pos, sparseIndices, pos + 1, sparseSize - pos);
+            System.arraycopy(sparseTaints, pos, sparseTaints, pos + 1, sparseSize - pos);
+            sparseIndices[pos] = idx;
+            sparseTaints[pos] = tag;
+            sparseSize++;
+        }
+    }
+
+    /* Returns the position of the specified index in sparseIndices if it is stored sparsely, otherwise returns
+     * -(insertion point) - 1. Must be called while holding the lock on this array. */
+    private int searchSparse(int idx) {
+        int low = 0;
+        int high = sparseSize - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (sparseIndices[mid] < idx) {
+                low = mid + 1;
+            } else if (sparseIndices[mid] > idx) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /* Returns the position of the first sparsely stored index that is greater than or equal to the specified index. */
+    private int lowerBoundSparse(int idx) {
+        int pos = searchSparse(idx);
+        return pos < 0 ? -(pos + 1) : pos;
+    }
+
+    private void clearSparse() {
+        sparseIndices = null;
+        sparseTaints = null;
+        sparseSize = 0;
+    }
+
     @Override
     public Object getVal() {
         return val;
     }
 
+    /* The tagged elements of a range of an array, in ascending order of their indices. */
+    private static final class SparseRange {
+        private int[] indices;
+        private Taint[] tags;
+        private int count;
+    }
+
     public void ensureVal(Object[] v) {
         if (v != val) {
             val = v;
@@ -2,110 +2,363 @@ package edu.columbia.cs.psl.phosphor.struct;
 
 import edu.columbia.cs.psl.phosphor.struct.harmony.util.*;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 
+/**
+ * A thread-safe map that compares keys by identity and only weakly references its keys. Entries are spread across a
+ * fixed number of independently locked segments. Lookups do not lock or allocate: they hash the key with
+ * {@link System#identityHashCode(Object)} and compare it directly against the referents of a segment's entries.
+ * Entries whose keys have been garbage collected are removed from a segment a bounded number at a time whenever the
+ * segment is modified, and all at once whenever it is resized or its size is queried.
+ * <p>
+ * Values are strongly referenced, so a value that refers to its key will prevent that entry from being removed.
+ */
 public class WeakIdentityHashMap<K, V> implements Serializable {
 
-    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
-    private final Map<IdentityWeakReference<K>, V> map;
+    private static final long serialVersionUID = -1637467251962617340L;
+    private static final int NUMBER_OF_SEGMENTS = 16;
+    private static final int SEGMENT_SHIFT = 28;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    /**
+     * Maximum number of stale entries removed from a segment each time the segment is modified
+     */
+    private static final int EXPUNGE_BATCH_SIZE = 8;
+
+    private transient Segment<K, V>[] segments;
 
     public WeakIdentityHashMap() {
-        this.map = new HashMap<>();
+        initSegments();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void initSegments() {
+        segments = (Segment<K, V>[]) new Segment[NUMBER_OF_SEGMENTS];
+        for(int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        return segments[hash >>> SEGMENT_SHIFT];
     }
 
     public int size() {
-        expungeStaleEntries();
-        return map.size();
+        int size = 0;
+        for(Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
     }
 
     public boolean isEmpty() {
-        expungeStaleEntries();
-        return map.isEmpty();
+        return size() == 0;
     }
 
     public boolean containsKey(Object key) {
-        expungeStaleEntries();
-        return map.containsKey(new IdentityWeakReference<>(key, queue));
+        if(key == null) {
+            return false;
+        }
+        int hash = hash(key);
+        return segmentFor(hash).getEntry(key, hash) != null;
     }
 
     public boolean containsValue(Object value) {
-        expungeStaleEntries();
-        return map.containsValue(value);
+        for(Segment<K, V> segment : segments) {
+            if(segment.containsValue(value)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public V get(Object key) {
-        expungeStaleEntries();
-        return map.get(new IdentityWeakReference<>(key, queue));
+        if(key == null) {
+            return null;
+        }
+        int hash = hash(key);
+        return segmentFor(hash).get(key, hash);
     }
 
     public V put(K key, V value) {
         if(key == null) {
             throw new IllegalArgumentException("WeakIdentityHashMap cannot have null keys");
         }
-        expungeStaleEntries();
-        return map.put(new IdentityWeakReference<>(key, queue), value);
+        int hash = hash(key);
+        return segmentFor(hash).put(key, hash, value);
     }
 
     public V remove(Object key) {
-        expungeStaleEntries();
-        return map.remove(new IdentityWeakReference<>(key, queue));
+        if(key == null) {
+            return null;
+        }
+        int hash = hash(key);
+        return segmentFor(hash).remove(key, hash);
     }
 
     public void clear() {
-        expungeStaleEntries();
-        map.clear();
+        for(Segment<K, V> segment : segments) {
+            segment.clear();
+        }
     }
 
+    /**
+     * @return an unmodifiable snapshot of the keys of this map that have not been garbage collected
+     */
     public Set<K> keySet() {
-        expungeStaleEntries();
-        Set<K> ret = new HashSet<>();
-        for(IdentityWeakReference<K> ref : map.keySet()) {
-            K value = ref.get();
-            if(value != null) {
-                ret.add(value);
-            }
+        IdentityHashMap<K, Boolean> keys = new IdentityHashMap<>();
+        for(Segment<K, V> segment : segments) {
+            segment.addKeys(keys);
         }
-        return Collections.unmodifiableSet(ret);
+        return Collections.unmodifiableSet(keys.keySet());
     }
 
+    /**
+     * @return an unmodifiable snapshot of the values of this map whose keys have not been garbage collected
+     */
     public Collection<V> values() {
-        expungeStaleEntries();
-        return map.values();
+        List<V> values = new ArrayList<>();
+        for(Segment<K, V> segment : segments) {
+            segment.addValues(values);
+        }
+        return Collections.unmodifiableCollection(values);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        IdentityHashMap<K, V> entries = new IdentityHashMap<>();
+        for(Segment<K, V> segment : segments) {
+            segment.addEntries(entries);
+        }
+        out.writeInt(entries.size());
+        for(Map.Entry<K, V> entry : entries.entrySet()) {
+            out.writeObject(entry.getKey());
+            out.writeObject(entry.getValue());
+        }
     }
 
-    private void expungeStaleEntries() {
-        for(Reference ref; (ref = queue.poll()) != null;) {
-            map.remove(ref);
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        initSegments();
+        int size = in.readInt();
+        for(int i = 0; i < size; i++) {
+            K key = (K) in.readObject();
+            V value = (V) in.readObject();
+            if(key != null) {
+                put(key, value);
+            }
         }
     }
 
-    private static class IdentityWeakReference<T> extends WeakReference<T> {
+    private static int hash(Object key) {
+        int h = System.identityHashCode(key);
+        // Spread the bits of the hash so that both the high bits used to pick a segment and the low bits used to pick
+        // a bucket vary
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        return h ^ (h >>> 13);
+    }
+
+    /**
+     * A hash table containing a subset of the entries of a map. Writers lock the segment. Readers do not lock: every
+     * write ends with a write to the volatile count field and every read starts by reading it.
+     */
+    private static final class Segment<K, V> {
 
-        private final int hashCode;
+        private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+        private volatile Entry<K, V>[] table;
+        private volatile int count;
 
-        IdentityWeakReference(T referent, ReferenceQueue<? super T> queue) {
-            super(referent, queue);
-            hashCode = System.identityHashCode(referent);
+        @SuppressWarnings("unchecked")
+        Segment() {
+            table = (Entry<K, V>[]) new Entry[INITIAL_SEGMENT_CAPACITY];
         }
 
-        public int hashCode() {
-            return hashCode;
+        Entry<K, V> getEntry(Object key, int hash) {
+            if(count != 0) {
+                Entry<K, V>[] tab = table;
+                for(Entry<K, V> e = tab[hash & (tab.length - 1)]; e != null; e = e.next) {
+                    if(e.hash == hash && e.get() == key) {
+                        return e;
+                    }
+                }
+            }
+            return null;
         }
 
-        @Override
-        public boolean equals(Object o) {
-            if(this == o) {
-                return true;
+        V get(Object key, int hash) {
+            Entry<K, V> e = getEntry(key, hash);
+            if(e == null) {
+                return null;
+            }
+            V value = e.value;
+            if(value == null) {
+                // The entry may have been read before its initialization was visible to this thread
+                synchronized(this) {
+                    value = e.value;
+                }
             }
-            if(o == null || getClass() != o.getClass()) {
-                return false;
+            return value;
+        }
+
+        synchronized V put(K key, int hash, V value) {
+            expungeStaleEntries(EXPUNGE_BATCH_SIZE);
+            Entry<K, V>[] tab = table;
+            int index = hash & (tab.length - 1);
+            for(Entry<K, V> e = tab[index]; e != null; e = e.next) {
+                if(e.hash == hash && e.get() == key) {
+                    V previous = e.value;
+                    e.value = value;
+                    return previous;
+                }
             }
-            WeakReference that = (WeakReference) o;
-            T referent = this.get();
-            return referent != null && referent == that.get();
+            if(count + 1 > tab.length - (tab.length >>> 2)) {
+                expungeStaleEntries(Integer.MAX_VALUE);
+                if(count + 1 > tab.length - (tab.length >>> 2)) {
+                    tab = resize();
+                    index = hash & (tab.length - 1);
+                }
+            }
+            tab[index] = new Entry<>(key, hash, value, tab[index], queue);
+            count++;
+            return null;
+        }
+
+        synchronized V remove(Object key, int hash) {
+            expungeStaleEntries(EXPUNGE_BATCH_SIZE);
+            Entry<K, V>[] tab = table;
+            int index = hash & (tab.length - 1);
+            for(Entry<K, V> prev = null, e = tab[index]; e != null; prev = e, e = e.next) {
+                if(e.hash == hash && e.get() == key) {
+                    unlink(tab, index, prev, e);
+                    return e.value;
+                }
+            }
+            return null;
+        }
+
+        synchronized int size() {
+            expungeStaleEntries(Integer.MAX_VALUE);
+            return count;
+        }
+
+        synchronized boolean containsValue(Object value) {
+            for(Entry<K, V> head : table) {
+                for(Entry<K, V> e = head; e != null; e = e.next) {
+                    if(e.get() != null && (value == null ? e.value == null : value.equals(e.value))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized void clear() {
+            table = (Entry<K, V>[]) new Entry[INITIAL_SEGMENT_CAPACITY];
+            count = 0;
+        }
+
+        synchronized void addKeys(IdentityHashMap<K, Boolean> keys) {
+            for(Entry<K, V> head : table) {
+                for(Entry<K, V> e = head; e != null; e = e.next) {
+                    K key = e.get();
+                    if(key != null) {
+                        keys.put(key, Boolean.TRUE);
+                    }
+                }
+            }
+        }
+
+        synchronized void addValues(List<V> values) {
+            for(Entry<K, V> head : table) {
+                for(Entry<K, V> e = head; e != null; e = e.next) {
+                    if(e.get() != null) {
+                        values.add(e.value);
+                    }
+                }
+            }
+        }
+
+        synchronized void addEntries(IdentityHashMap<K, V> entries) {
+            for(Entry<K, V> head : table) {
+                for(Entry<K, V> e = head; e != null; e = e.next) {
+                    K key = e.get();
+                    if(key != null) {
+                        entries.put(key, e.value);
+                    }
+                }
+            }
+        }
+
+        /* Removes the specified entry which must be the successor of prev in the specified bucket. Readers that are
+         * currently traversing the bucket either see the entry or skip it. */
+        private void unlink(Entry<K, V>[] tab, int index, Entry<K, V> prev, Entry<K, V> e) {
+            if(prev == null) {
+                tab[index] = e.next;
+            } else {
+                prev.next = e.next;
+            }
+            count--;
+        }
+
+        /* Removes up to the specified number of entries whose keys have been garbage collected. */
+        private void expungeStaleEntries(int limit) {
+            Reference<?> ref;
+            for(int i = 0; i < limit && (ref = queue.poll()) != null; i++) {
+                Entry<?, ?> stale = (Entry<?, ?>) ref;
+                Entry<K, V>[] tab = table;
+                int index = stale.hash & (tab.length - 1);
+                for(Entry<K, V> prev = null, e = tab[index]; e != null; prev = e, e = e.next) {
+                    if(e == stale) {
+                        unlink(tab, index, prev, e);
+                        break;
+                    }
+                }
+                // Stale entries that are not found were replaced when the table was resized or cleared
+            }
+        }
+
+        /* Doubles the capacity of this segment's table. Live entries are copied into the new table instead of being
+         * relinked so that readers traversing the old table are not redirected into the wrong bucket. */
+        @SuppressWarnings("unchecked")
+        private Entry<K, V>[] resize() {
+            Entry<K, V>[] oldTable = table;
+            Entry<K, V>[] newTable = (Entry<K, V>[]) new Entry[oldTable.length << 1];
+            int newCount = 0;
+            for(Entry<K, V> head : oldTable) {
+                for(Entry<K, V> e = head; e != null; e = e.next) {
+                    K key = e.get();
+                    if(key != null) {
+                        int index = e.hash & (newTable.length - 1);
+                        newTable[index] = new Entry<>(key, e.hash, e.value, newTable[index], queue);
+                        newCount++;
+                    }
+                }
+            }
+            table = newTable;
+            count = newCount;
+            return newTable;
+        }
+    }
+
+    private static final class Entry<K, V> extends WeakReference<K> {
+
+        private final int hash;
+        private volatile V value;
+        private volatile Entry<K, V> next;
+
+        Entry(K key, int hash, V value, Entry<K, V> next, ReferenceQueue<Object> queue) {
+            super(key, queue);
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
         }
     }
 }
@@ -0,0 +1,97 @@
+package edu.columbia.cs.psl.phosphor;
+
+import edu.columbia.cs.psl.phosphor.BasicSourceSinkManager.AutoTaint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BasicSourceSinkManagerTest {
+
+    private static final String LIST_ADD = "java/util/List.add(Ljava/lang/Object;)Z";
+    private static final String ARRAY_LIST_ADD = "java/util/ArrayList.add(Ljava/lang/Object;)Z";
+    private static final String LINKED_LIST_ADD = "java/util/LinkedList.add(Ljava/lang/Object;)Z";
+
+    private LinkedList<String> prevSources;
+    private LinkedList<String> prevSinks;
+
+    @Before
+    public void replaceAutoTaintMethods() {
+        prevSources = BasicSourceSinkManager.replaceAutoTaintMethods(Arrays.asList(LIST_ADD), AutoTaint.SOURCE);
+        prevSinks = BasicSourceSinkManager.replaceAutoTaintMethods(Arrays.asList(LIST_ADD), AutoTaint.SINK);
+    }
+
+    @After
+    public void restoreAutoTaintMethods() {
+        BasicSourceSinkManager.replaceAutoTaintMethods(prevSources, AutoTaint.SOURCE);
+        BasicSourceSinkManager.replaceAutoTaintMethods(prevSinks, AutoTaint.SINK);
+    }
+
+    /* Checks that methods that override a listed method of a supertype are considered to be sinks. */
+    @Test
+    public void testInheritedSink() {
+        BasicSourceSinkManager manager = BasicSourceSinkManager.getInstance();
+        assertTrue(manager.isSink(LIST_ADD));
+        assertTrue(manager.isSink(ARRAY_LIST_ADD));
+        assertFalse(manager.isSink("java/util/ArrayList.remove(Ljava/lang/Object;)Z"));
+        assertFalse(manager.isSink("java/lang/String.length()I"));
+        assertFalse(manager.isSink("[Ljava/lang/Object;.clone()Ljava/lang/Object;"));
+        assertFalse(manager.isTaintThrough(ARRAY_LIST_ADD));
+        assertEquals(LIST_ADD, manager.getBaseSink(ARRAY_LIST_ADD));
+        assertNull(manager.getBaseSink("java/lang/String.length()I"));
+    }
+
+    /* Checks that methods that inherit their source property use the label of the listed method. */
+    @Test
+    public void testInheritedSourceLabel() {
+        BasicSourceSinkManager manager = BasicSourceSinkManager.getInstance();
+        assertTrue(manager.isSource(ARRAY_LIST_ADD));
+        assertEquals(LIST_ADD, manager.getLabel(ARRAY_LIST_ADD));
+    }
+
+    /* Checks that replacing the sink methods discards the sinks that were inherited from the previous sink methods. */
+    @Test
+    public void testReplaceSinks() {
+        BasicSourceSinkManager manager = BasicSourceSinkManager.getInstance();
+        assertTrue(manager.isSink(ARRAY_LIST_ADD));
+        BasicSourceSinkManager.replaceAutoTaintMethods(Arrays.asList("java/util/Set.add(Ljava/lang/Object;)Z"),
+                AutoTaint.SINK);
+        assertFalse(manager.isSink(ARRAY_LIST_ADD));
+        assertTrue(manager.isSink("java/util/HashSet.add(Ljava/lang/Object;)Z"));
+    }
+
+    /* Checks that queries made concurrently from multiple threads agree with one another. */
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        final BasicSourceSinkManager manager = BasicSourceSinkManager.getInstance();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            LinkedList<Future<Boolean>> results = new LinkedList<>();
+            for(int i = 0; i < 16; i++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return manager.isSink(LINKED_LIST_ADD) && manager.isSink(ARRAY_LIST_ADD)
+                                && !manager.isSink("java/util/HashMap.put(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;");
+                    }
+                }));
+            }
+            for(Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package edu.columbia.cs.psl.phosphor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.objectweb.asm.Opcodes.*;
+
+public class InstrumentationProfilerTest {
+
+    @Before
+    public void enableProfiler() {
+        InstrumentationProfiler.enable(null);
+    }
+
+    @After
+    public void disableProfiler() {
+        InstrumentationProfiler.disable();
+    }
+
+    /* Checks that instrumenting a class records the bytes in and out and the time spent in the visitors and
+     * analyses. */
+    @Test
+    public void testInstrumentationIsProfiled() throws Exception {
+        InstrumentationProfiler profiler = InstrumentationProfiler.getInstance();
+        assertNotNull(profiler);
+        assertTrue(ManagementFactory.getPlatformMBeanServer()
+                .isRegistered(new ObjectName(InstrumentationProfiler.OBJECT_NAME)));
+        byte[] classFileBuffer = createClass();
+        byte[] instrumented = new PCLoggingTransformer().transform(null, null, null, null, classFileBuffer, false);
+        assertEquals(1, profiler.getClassesInstrumented());
+        assertEquals(classFileBuffer.length, profiler.getBytesIn());
+        assertEquals(instrumented.length, profiler.getBytesOut());
+        Map<String, Long> counts = profiler.getStageCounts();
+        for (String stage : new String[]{"ClassPreScan", "ClassReader", "ClassWriter.toByteArray",
+                "visitor:HackyClassWriter", "visitor:TaintTrackingClassVisitor", "visitor:OurSerialVersionUIDAdder",
+                "analysis:PrimitiveArrayAnalyzer", "analysis:ControlFlowAnalyzer"}) {
+            assertEquals(stage, Long.valueOf(1), counts.get(stage));
+        }
+        for (Long nanos : profiler.getStageNanos().values()) {
+            assertTrue(nanos >= 0);
+        }
+        // Already instrumented classes are skipped
+        new PCLoggingTransformer().transform(null, null, null, null, instrumented, false);
+        assertEquals(1, profiler.getClassesSkipped());
+        String json = profiler.toJson();
+        assertTrue(json.contains("\"classesInstrumented\": 1,"));
+        assertTrue(json.contains("\"visitor:TaintTrackingClassVisitor\": {\"nanos\": "));
+        profiler.reset();
+        assertEquals(0, profiler.getClassesInstrumented());
+        assertTrue(profiler.getStageNanos().isEmpty());
+    }
+
+    @Test
+    public void testNothingIsRecordedWhenDisabled() {
+        InstrumentationProfiler.disable();
+        assertNull(InstrumentationProfiler.getInstance());
+        assertEquals(0, InstrumentationProfiler.start());
+        new PCLoggingTransformer().transform(null, null, null, null, createClass(), false);
+        assertNull(InstrumentationProfiler.getInstance());
+    }
+
+    private static byte[] createClass() {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_8, ACC_PUBLIC | ACC_SUPER, "Example", null, "java/lang/Object", null);
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "add", "(II)I", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ILOAD, 0);
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitInsn(IADD);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+}
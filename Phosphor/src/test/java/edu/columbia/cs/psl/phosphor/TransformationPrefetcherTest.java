@@ -0,0 +1,100 @@
+package edu.columbia.cs.psl.phosphor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.ProtectionDomain;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.*;
+
+public class TransformationPrefetcherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /* Checks that classes instrumented by the workers are returned without calling the transformer again and that
+     * classes whose bytes differ from the prefetched bytes are transformed again. */
+    @Test
+    public void testPrefetchedClassesAreReused() throws Exception {
+        int numberOfClasses = 20;
+        File jar = createJar(numberOfClasses);
+        CountingTransformer delegate = new CountingTransformer();
+        TransformationPrefetcher prefetcher = TransformationPrefetcher.create(delegate,
+                "missing.jar" + File.pathSeparator + jar.getPath(), 2);
+        // The first transformation starts the workers
+        byte[] other = new byte[]{42};
+        assertArrayEquals(instrumented(other), prefetcher.transform(null, "other/Example", null, null, other, false));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while(prefetcher.getPrefetched() < numberOfClasses && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(numberOfClasses, prefetcher.getPrefetched());
+        int calls = delegate.calls.get();
+        for(int i = 0; i < numberOfClasses - 1; i++) {
+            assertArrayEquals(instrumented(classBytes(i)), transform(prefetcher, i, classBytes(i)));
+        }
+        assertEquals(calls, delegate.calls.get());
+        assertEquals(numberOfClasses - 1, prefetcher.getHits());
+        assertEquals(0, prefetcher.getMisses());
+        byte[] changed = new byte[]{7};
+        assertArrayEquals(instrumented(changed), transform(prefetcher, numberOfClasses - 1, changed));
+        assertEquals(1, prefetcher.getStale());
+        assertEquals(calls + 1, delegate.calls.get());
+        // A class that is not on the class path is always passed to the transformer
+        assertArrayEquals(instrumented(other), prefetcher.transform(null, "other/Example", null, null, other, false));
+        assertEquals(calls + 2, delegate.calls.get());
+    }
+
+    private static byte[] transform(TransformationPrefetcher prefetcher, int i, byte[] bytes) {
+        return prefetcher.transform(null, className(i), null, null, bytes, false);
+    }
+
+    private File createJar(int numberOfClasses) throws IOException {
+        File jar = folder.newFile("classes.jar");
+        try(JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("META-INF/versions/9/example/Example0.class"));
+            out.write(new byte[]{1});
+            out.closeEntry();
+            for(int i = 0; i < numberOfClasses; i++) {
+                out.putNextEntry(new JarEntry(className(i) + ".class"));
+                out.write(classBytes(i));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static String className(int i) {
+        return "example/Example" + i;
+    }
+
+    private static byte[] classBytes(int i) {
+        return new byte[]{(byte) i, (byte) (i + 1), (byte) (i + 2)};
+    }
+
+    private static byte[] instrumented(byte[] bytes) {
+        byte[] result = new byte[bytes.length + 1];
+        System.arraycopy(bytes, 0, result, 0, bytes.length);
+        result[bytes.length] = -1;
+        return result;
+    }
+
+    private static final class CountingTransformer extends PhosphorBaseTransformer {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                                ProtectionDomain protectionDomain, byte[] classfileBuffer,
+                                boolean isAnonymousClassDefinition) {
+            calls.incrementAndGet();
+            return instrumented(classfileBuffer);
+        }
+    }
+}
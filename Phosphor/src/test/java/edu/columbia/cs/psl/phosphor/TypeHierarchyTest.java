@@ -0,0 +1,109 @@
+package edu.columbia.cs.psl.phosphor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.objectweb.asm.Opcodes.*;
+
+public class TypeHierarchyTest {
+
+    private static final Class<?>[] CLASSES = new Class<?>[]{Object.class, String.class, Integer.class, Long.class,
+            Number.class, ArrayList.class, LinkedList.class, AbstractList.class, HashMap.class, TreeMap.class,
+            List.class, Collection.class, Serializable.class, Comparable.class, RuntimeException.class,
+            IllegalArgumentException.class, IllegalStateException.class, IOException.class, Exception.class};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /* Checks that the hierarchy read from class files agrees with the hierarchy of the loaded classes. */
+    @Test
+    public void testCommonSuperClassMatchesReflection() {
+        checkAgainstReflection(new TypeHierarchy(TypeHierarchyTest.class.getClassLoader()));
+    }
+
+    /* Checks that the hierarchy read from ClassNodeCache, which is used at runtime, agrees with the hierarchy of the
+     * loaded classes. */
+    @Test
+    public void testCommonSuperClassMatchesReflectionWithClassNodeCache() {
+        checkAgainstReflection(new TypeHierarchy(null));
+    }
+
+    @Test
+    public void testMissingClassesAreObject() throws IOException {
+        File dir = folder.newFolder();
+        // Child extends Parent which is not written
+        writeClass(dir, "example/Child", "example/Parent");
+        TypeHierarchy hierarchy = new TypeHierarchy(new URLClassLoader(new URL[]{dir.toURI().toURL()}, null));
+        assertEquals("java/lang/Object", hierarchy.getCommonSuperClass("example/Child", "java/lang/String"));
+        assertEquals("java/lang/Object", hierarchy.getCommonSuperClass("example/Missing", "java/lang/String"));
+    }
+
+    /* Checks that classes are resolved without being loaded. */
+    @Test
+    public void testClassesAreNotLoaded() throws IOException {
+        File dir = folder.newFolder();
+        writeClass(dir, "example/Base", "java/lang/Object");
+        writeClass(dir, "example/Left", "example/Base");
+        writeClass(dir, "example/Right", "example/Base");
+        final AtomicInteger loads = new AtomicInteger();
+        ClassLoader loader = new URLClassLoader(new URL[]{dir.toURI().toURL()}, null) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                loads.incrementAndGet();
+                return super.findClass(name);
+            }
+        };
+        TypeHierarchy hierarchy = new TypeHierarchy(loader);
+        assertEquals("example/Base", hierarchy.getCommonSuperClass("example/Left", "example/Right"));
+        assertEquals("example/Base", hierarchy.getCommonSuperClass("example/Base", "example/Right"));
+        assertEquals(0, loads.get());
+    }
+
+    private static void checkAgainstReflection(TypeHierarchy hierarchy) {
+        for (Class<?> c1 : CLASSES) {
+            for (Class<?> c2 : CLASSES) {
+                String type1 = c1.getName().replace('.', '/');
+                String type2 = c2.getName().replace('.', '/');
+                assertEquals(type1 + ", " + type2, reflectiveCommonSuperClass(c1, c2),
+                        hierarchy.getCommonSuperClass(type1, type2));
+            }
+        }
+    }
+
+    private static String reflectiveCommonSuperClass(Class<?> c1, Class<?> c2) {
+        if (c1.isAssignableFrom(c2)) {
+            return c1.getName().replace('.', '/');
+        } else if (c2.isAssignableFrom(c1)) {
+            return c2.getName().replace('.', '/');
+        } else if (c1.isInterface() || c2.isInterface()) {
+            return "java/lang/Object";
+        }
+        do {
+            c1 = c1.getSuperclass();
+        } while (!c1.isAssignableFrom(c2));
+        return c1.getName().replace('.', '/');
+    }
+
+    private static void writeClass(File dir, String name, String superName) throws IOException {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(V1_8, ACC_PUBLIC | ACC_SUPER, name, null, superName, null);
+        cw.visitEnd();
+        File file = new File(dir, name + ".class");
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(cw.toByteArray());
+        }
+    }
+}
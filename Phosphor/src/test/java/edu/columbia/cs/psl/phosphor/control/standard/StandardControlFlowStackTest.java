@@ -0,0 +1,94 @@
+package edu.columbia.cs.psl.phosphor.control.standard;
+
+import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("unchecked")
+public class StandardControlFlowStackTest {
+
+    /* Checks that tags pushed for branches are reflected by copyTag and are removed when the branches are popped. */
+    @Test
+    public void testPushPopBranches() {
+        StandardControlFlowStack<Object> stack = new StandardControlFlowStack<>(false);
+        int[] branchTags = null;
+        for(int i = 0; i < 20; i++) {
+            branchTags = stack.push(Taint.withLabel(i), branchTags, i, 20);
+        }
+        assertTrue(stack.copyTag().containsOnlyLabels(labels(0, 20)));
+        for(int i = 19; i >= 10; i--) {
+            stack.pop(branchTags, i);
+        }
+        assertTrue(stack.copyTag().containsOnlyLabels(labels(0, 10)));
+        stack.pop(branchTags);
+        assertTrue(stack.copyTag().isEmpty());
+    }
+
+    /* Checks that pushing a tag for a branch that was already pushed merges the tag into the top of the stack. */
+    @Test
+    public void testRepushBranch() {
+        StandardControlFlowStack<Object> stack = new StandardControlFlowStack<>(false);
+        int[] branchTags = stack.push(Taint.withLabel(0), null, 0, 2);
+        branchTags = stack.push(Taint.withLabel(1), branchTags, 1, 2);
+        branchTags = stack.push(Taint.withLabel(2), branchTags, 1, 2);
+        assertTrue(stack.copyTag().containsOnlyLabels(labels(0, 3)));
+        stack.pop(branchTags, 1);
+        assertTrue(stack.copyTag().containsOnlyLabels(labels(0, 1)));
+    }
+
+    /* Checks that changes made to a stack after copyTop is called are not visible in the copy and vice versa. */
+    @Test
+    public void testCopyTopIsIndependent() {
+        StandardControlFlowStack<Object> stack = new StandardControlFlowStack<>(false);
+        int[] branchTags = stack.push(Taint.withLabel(0), null, 0, 2);
+        StandardControlFlowStack<Object> copy = stack.copyTop();
+        assertTrue(copy.copyTag().containsOnlyLabels(labels(0, 1)));
+        // Modify the original stack's top in place
+        branchTags = stack.push(Taint.withLabel(1), branchTags, 0, 2);
+        assertTrue(stack.copyTag().containsOnlyLabels(labels(0, 2)));
+        assertTrue(copy.copyTag().containsOnlyLabels(labels(0, 1)));
+        // Push onto the copy
+        int[] copyBranchTags = copy.push(Taint.withLabel(5), null, 0, 1);
+        assertTrue(copy.copyTag().containsOnlyLabels(new Object[]{0, 5}));
+        assertTrue(stack.copyTag().containsOnlyLabels(labels(0, 2)));
+        copy.pop(copyBranchTags);
+        assertTrue(copy.copyTag().containsOnlyLabels(labels(0, 1)));
+        stack.pop(branchTags);
+        assertTrue(stack.copyTag().isEmpty());
+        assertTrue(copy.copyTag().containsOnlyLabels(labels(0, 1)));
+    }
+
+    /* Checks that the count returned by exceptionHandlerStart can be used to remove the pushed exception taints. */
+    @Test
+    public void testExceptionHandlerCounts() {
+        StandardControlFlowStack<Object> stack = new StandardControlFlowStack<>(false);
+        Throwable t = new Throwable();
+        int count = stack.exceptionHandlerStart(t, Taint.withLabel(0), 0);
+        count = stack.exceptionHandlerStart(t, Taint.emptyTaint(), count);
+        count = stack.exceptionHandlerStart(t, Taint.withLabel(1), count);
+        assertTrue(count == 2);
+        assertTrue(stack.copyTag().containsOnlyLabels(labels(0, 2)));
+        stack.exceptionHandlerEnd(count);
+        assertTrue(stack.copyTag().isEmpty());
+    }
+
+    /* Checks that resetting a stack clears its tags without affecting a stack copied from it. */
+    @Test
+    public void testResetCopy() {
+        StandardControlFlowStack<Object> stack = new StandardControlFlowStack<>(false);
+        stack.push(Taint.withLabel(0), null, 0, 1);
+        StandardControlFlowStack<Object> copy = stack.copyTop();
+        copy.reset();
+        assertTrue(copy.copyTag().isEmpty());
+        assertTrue(stack.copyTag().containsOnlyLabels(labels(0, 1)));
+    }
+
+    private static Object[] labels(int start, int end) {
+        Object[] labels = new Object[end - start];
+        for(int i = start; i < end; i++) {
+            labels[i - start] = i;
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,147 @@
+package edu.columbia.cs.psl.phosphor.instrumenter;
+
+import edu.columbia.cs.psl.phosphor.runtime.TaintInstrumented;
+import edu.columbia.cs.psl.phosphor.struct.TaintedWithObjTag;
+import org.junit.Test;
+import org.objectweb.asm.*;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ClassPreScanTest implements Opcodes {
+
+    /* Checks that a class with no Phosphor markers is not reported as already instrumented and that its version, access
+     * and fields match those read by a ClassReader. */
+    @Test
+    public void testPlainClassMatchesClassNode() {
+        byte[] buffer = generateClass(null, false, false);
+        ClassPreScan scan = ClassPreScan.scan(new ClassReader(buffer));
+        assertFalse(scan.isAlreadyInstrumented());
+        assertFalse(scan.isInterface());
+        assertMatchesClassNode(buffer, scan);
+    }
+
+    /* Checks that a class annotated as TaintInstrumented after other annotations with element values is detected. */
+    @Test
+    public void testTaintInstrumentedAnnotation() {
+        byte[] buffer = generateClass(Type.getDescriptor(TaintInstrumented.class), false, false);
+        ClassPreScan scan = ClassPreScan.scan(new ClassReader(buffer));
+        assertTrue(scan.isAlreadyInstrumented());
+        assertMatchesClassNode(buffer, scan);
+    }
+
+    /* Checks that a class that declares getPHOSPHOR_TAG is detected. */
+    @Test
+    public void testGetTagMethod() {
+        byte[] buffer = generateClass(null, true, false);
+        assertTrue(ClassPreScan.scan(new ClassReader(buffer)).isAlreadyInstrumented());
+    }
+
+    /* Checks that an interface that extends TaintedWithObjTag is detected. */
+    @Test
+    public void testTaintedInterface() {
+        byte[] buffer = generateClass(null, false, true);
+        ClassPreScan scan = ClassPreScan.scan(new ClassReader(buffer));
+        assertTrue(scan.isAlreadyInstrumented());
+        assertTrue(scan.isInterface());
+    }
+
+    /* Checks that scanning compiled JDK and Phosphor classes produces the same fields as a ClassReader. */
+    @Test
+    public void testCompiledClassesMatchClassNode() throws IOException {
+        for(Class<?> clazz : new Class<?>[]{java.util.HashMap.class, String.class, ClassPreScan.class,
+                TaintTrackingClassVisitor.class, ClassPreScanTest.class}) {
+            byte[] buffer = readClass(clazz);
+            ClassPreScan scan = ClassPreScan.scan(new ClassReader(buffer));
+            assertFalse(scan.isAlreadyInstrumented());
+            assertMatchesClassNode(buffer, scan);
+        }
+    }
+
+    private static void assertMatchesClassNode(byte[] buffer, ClassPreScan scan) {
+        ClassNode cn = new ClassNode();
+        new ClassReader(buffer).accept(cn, ClassReader.SKIP_CODE);
+        assertEquals(cn.version, scan.getVersion());
+        assertEquals(cn.access, scan.getAccess());
+        List<FieldNode> actual = new ArrayList<>();
+        for(FieldNode fn : scan.getFields()) {
+            actual.add(fn);
+        }
+        assertEquals(cn.fields.size(), actual.size());
+        for(int i = 0; i < actual.size(); i++) {
+            FieldNode expected = cn.fields.get(i);
+            assertEquals(expected.access, actual.get(i).access);
+            assertEquals(expected.name, actual.get(i).name);
+            assertEquals(expected.desc, actual.get(i).desc);
+            assertEquals(expected.signature, actual.get(i).signature);
+            assertEquals(expected.value, actual.get(i).value);
+        }
+    }
+
+    private static byte[] generateClass(String annotationDesc, boolean addGetTag, boolean isInterface) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        int access = isInterface ? ACC_PUBLIC | ACC_ABSTRACT | ACC_INTERFACE : ACC_PUBLIC | ACC_SUPER;
+        String[] interfaces = isInterface ? new String[]{"java/io/Serializable", Type.getInternalName(TaintedWithObjTag.class)}
+                : new String[]{"java/io/Serializable"};
+        cw.visit(V1_8, access, "Example", null, "java/lang/Object", interfaces);
+        AnnotationVisitor av = cw.visitAnnotation("LOther;", false);
+        av.visit("value", 7);
+        av.visitEnum("kind", "LKind;", "A");
+        AnnotationVisitor array = av.visitArray("names");
+        array.visit(null, "x");
+        array.visit(null, Type.getType("Ljava/lang/String;"));
+        array.visitEnd();
+        AnnotationVisitor nested = av.visitAnnotation("inner", "LInner;");
+        nested.visit("flag", true);
+        nested.visitEnd();
+        av.visitEnd();
+        cw.visitAnnotation("LVisible;", true).visitEnd();
+        if(annotationDesc != null) {
+            cw.visitAnnotation(annotationDesc, false).visitEnd();
+        }
+        cw.visitField(ACC_PUBLIC | ACC_STATIC | ACC_FINAL, "CONSTANT", "J", null, 42L).visitEnd();
+        cw.visitField(ACC_PRIVATE, "list", "Ljava/util/List;", "Ljava/util/List<Ljava/lang/String;>;", null)
+                .visitEnd();
+        FieldVisitor fv = cw.visitField(ACC_PROTECTED | ACC_SYNTHETIC | ACC_DEPRECATED, "hidden", "I", null, null);
+        fv.visitAnnotation("LOther;", false).visitEnd();
+        fv.visitEnd();
+        if(!isInterface) {
+            MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        if(addGetTag) {
+            MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "getPHOSPHOR_TAG", "()Ljava/lang/Object;", null, null);
+            mv.visitCode();
+            mv.visitInsn(ACONST_NULL);
+            mv.visitInsn(ARETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static byte[] readClass(Class<?> clazz) throws IOException {
+        String resource = "/" + clazz.getName().replace('.', '/') + ".class";
+        try(InputStream in = clazz.getResourceAsStream(resource)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for(int read; (read = in.read(buffer)) != -1; ) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
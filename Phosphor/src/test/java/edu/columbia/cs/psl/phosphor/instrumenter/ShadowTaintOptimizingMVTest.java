@@ -0,0 +1,267 @@
+package edu.columbia.cs.psl.phosphor.instrumenter;
+
+import edu.columbia.cs.psl.phosphor.Configuration;
+import edu.columbia.cs.psl.phosphor.PCLoggingTransformer;
+import edu.columbia.cs.psl.phosphor.Phosphor;
+import edu.columbia.cs.psl.phosphor.runtime.PhosphorStackFrame;
+import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import edu.columbia.cs.psl.phosphor.struct.TaggedIntArray;
+import edu.columbia.cs.psl.test.phopshor.ShadowTaintLivenessTestMethods;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShadowTaintOptimizingMVTest {
+
+    @Before
+    public void clearErrorFlag() {
+        Phosphor.INSTRUMENTATION_EXCEPTION_OCCURRED = false;
+    }
+
+    @After
+    public void disableOptimizations() {
+        Configuration.TAINT_LIVENESS_ANALYSIS = false;
+        Configuration.TAINT_CONSTANT_PROPAGATION = false;
+    }
+
+    /* Checks that the liveness pass removes stores and still produces classes that pass bytecode verification. */
+    @Test
+    public void testRemovesStoresAndVerifies() throws Exception {
+        byte[] original = readClass(ShadowTaintLivenessTestMethods.class);
+        Configuration.TAINT_LIVENESS_ANALYSIS = false;
+        byte[] baseline = new PCLoggingTransformer().transform(null, null, null, null, original, false);
+        Configuration.TAINT_LIVENESS_ANALYSIS = true;
+        byte[] optimized = new PCLoggingTransformer().transform(null, null, null, null, original, false);
+        assertFalse(Phosphor.INSTRUMENTATION_EXCEPTION_OCCURRED);
+        assertTrue(countReferenceStores(optimized) < countReferenceStores(baseline));
+        String name = ShadowTaintLivenessTestMethods.class.getName();
+        // Initializing the class forces the JVM to verify it
+        Class.forName(name, true, new SingleClassLoader(name, optimized));
+    }
+
+    /* Checks that constant taint propagation removes combineTags calls and still produces classes that pass bytecode
+     * verification. */
+    @Test
+    public void testRemovesEmptyTaintCombinesAndVerifies() throws Exception {
+        byte[] original = readClass(ShadowTaintLivenessTestMethods.class);
+        byte[] baseline = new PCLoggingTransformer().transform(null, null, null, null, original, false);
+        Configuration.TAINT_CONSTANT_PROPAGATION = true;
+        byte[] propagated = new PCLoggingTransformer().transform(null, null, null, null, original, false);
+        Configuration.TAINT_LIVENESS_ANALYSIS = true;
+        byte[] optimized = new PCLoggingTransformer().transform(null, null, null, null, original, false);
+        assertFalse(Phosphor.INSTRUMENTATION_EXCEPTION_OCCURRED);
+        assertTrue(countCombineTags(propagated) < countCombineTags(baseline));
+        assertTrue(countReferenceStores(optimized) < countReferenceStores(propagated));
+        String name = ShadowTaintLivenessTestMethods.class.getName();
+        Class.forName(name, true, new SingleClassLoader(name, propagated));
+        Class.forName(name, true, new SingleClassLoader(name, optimized));
+    }
+
+    /* Checks that the optimized loop still propagates the taint tag of an array element to the return value and that
+     * the shadow taint tags of its constants and loop counter are untainted. */
+    @Test
+    public void testOptimizedLoopPropagatesTaints() throws Exception {
+        byte[] original = readClass(ShadowTaintLivenessTestMethods.class);
+        Configuration.TAINT_CONSTANT_PROPAGATION = true;
+        Configuration.TAINT_LIVENESS_ANALYSIS = true;
+        byte[] optimized = new PCLoggingTransformer().transform(null, null, null, null, original, false);
+        assertFalse(Phosphor.INSTRUMENTATION_EXCEPTION_OCCURRED);
+        int[] values = new int[]{1, 2, 3};
+        TaggedIntArray clean = new TaggedIntArray(values);
+        Taint<?> cleanTag = invokeLoop(optimized, clean);
+        assertTrue(cleanTag == null || cleanTag.isEmpty());
+        TaggedIntArray tainted = new TaggedIntArray(values);
+        tainted.set(1, values[1], Taint.withLabel("element"));
+        assertArrayEquals(new Object[]{"element"}, invokeLoop(optimized, tainted).getLabels());
+    }
+
+    /* Checks that the optimized methods return the same values and taint tags as the unoptimized methods along every
+     * branch of a switch and of an if statement. */
+    @Test
+    public void testOptimizedBranchesPropagateTaints() throws Exception {
+        byte[] original = readClass(ShadowTaintLivenessTestMethods.class);
+        byte[] baseline = new PCLoggingTransformer().transform(null, null, null, null, original, false);
+        Configuration.TAINT_CONSTANT_PROPAGATION = true;
+        Configuration.TAINT_LIVENESS_ANALYSIS = true;
+        byte[] optimized = new PCLoggingTransformer().transform(null, null, null, null, original, false);
+        assertFalse(Phosphor.INSTRUMENTATION_EXCEPTION_OCCURRED);
+        // Covers the return from the switch, both switch cases that break and both sides of the if statement
+        for(int x : new int[]{0, 1, 2, 20}) {
+            Object[] args = new Object[]{x, 9};
+            Taint<?>[] argTaints = new Taint<?>[]{Taint.withLabel("x"), Taint.withLabel("y")};
+            Taint<?> tag = checkSameResult(baseline, optimized, "select", args, argTaints);
+            if(x == 20) {
+                assertTrue(tag.containsLabel("x") && tag.containsLabel("y"));
+            }
+        }
+        for(long a : new long[]{-5, 5}) {
+            Object[] args = new Object[]{a, (double) a};
+            Taint<?>[] argTaints = new Taint<?>[]{Taint.withLabel("a"), Taint.withLabel("b")};
+            Taint<?> tag = checkSameResult(baseline, optimized, "overwrite", args, argTaints);
+            assertTrue(tag.containsLabel("a"));
+        }
+    }
+
+    /* Checks that the optimized methods return the same values and taint tags as the unoptimized methods when an
+     * exception handler and a finally block are executed. */
+    @Test
+    public void testOptimizedExceptionHandlersPropagateTaints() throws Exception {
+        byte[] original = readClass(ShadowTaintLivenessTestMethods.class);
+        byte[] baseline = new PCLoggingTransformer().transform(null, null, null, null, original, false);
+        Configuration.TAINT_CONSTANT_PROPAGATION = true;
+        Configuration.TAINT_LIVENESS_ANALYSIS = true;
+        byte[] optimized = new PCLoggingTransformer().transform(null, null, null, null, original, false);
+        assertFalse(Phosphor.INSTRUMENTATION_EXCEPTION_OCCURRED);
+        // The first index completes the try block and the second throws an ArrayIndexOutOfBoundsException
+        for(int index : new int[]{1, 7}) {
+            Object[] args = new Object[]{new int[]{1, 2, 3}, index};
+            Taint<?>[] argTaints = new Taint<?>[]{Taint.emptyTaint(), Taint.withLabel("index")};
+            Taint<?> tag = checkSameResult(baseline, optimized, "exceptional", args, argTaints);
+            assertTrue(tag.containsLabel("index"));
+        }
+    }
+
+    private static Taint<?> checkSameResult(byte[] baseline, byte[] optimized, String methodName, Object[] args,
+                                            Taint<?>[] argTaints) throws Exception {
+        PhosphorStackFrame baselineFrame = newFrame(argTaints);
+        Object expected = invoke(baseline, methodName, baselineFrame, args);
+        Taint<?> expectedTag = baselineFrame.getReturnTaint();
+        PhosphorStackFrame optimizedFrame = newFrame(argTaints);
+        Object actual = invoke(optimized, methodName, optimizedFrame, args);
+        Taint<?> actualTag = optimizedFrame.getReturnTaint();
+        assertEquals(expected, actual);
+        assertEquals(labels(expectedTag), labels(actualTag));
+        return actualTag;
+    }
+
+    private static PhosphorStackFrame newFrame(Taint<?>[] argTaints) {
+        PhosphorStackFrame frame = new PhosphorStackFrame();
+        for(int i = 0; i < argTaints.length; i++) {
+            frame.setArgTaint(argTaints[i], i);
+        }
+        return frame;
+    }
+
+    private static HashSet<Object> labels(Taint<?> tag) {
+        return tag == null ? new HashSet<>() : new HashSet<>(Arrays.asList(tag.getLabels()));
+    }
+
+    private static Taint<?> invokeLoop(byte[] classFile, TaggedIntArray values) throws Exception {
+        PhosphorStackFrame frame = new PhosphorStackFrame();
+        frame.setArgWrapper(values, 0);
+        frame.setArgTaint(Taint.emptyTaint(), 0);
+        Object result = invoke(classFile, "loop", frame, values.val);
+        assertEquals(6 * 31, result);
+        return frame.getReturnTaint();
+    }
+
+    /* Invokes the instrumented version of the static method with the specified name, which takes the specified
+     * stack frame as its last argument. */
+    private static Object invoke(byte[] classFile, String methodName, PhosphorStackFrame frame, Object... args)
+            throws Exception {
+        String name = ShadowTaintLivenessTestMethods.class.getName();
+        Class<?> clazz = Class.forName(name, true, new SingleClassLoader(name, classFile));
+        for(Method method : clazz.getDeclaredMethods()) {
+            Class<?>[] types = method.getParameterTypes();
+            if(method.getName().equals(methodName) && types.length == args.length + 1
+                    && types[args.length] == PhosphorStackFrame.class) {
+                Object[] arguments = new Object[types.length];
+                System.arraycopy(args, 0, arguments, 0, args.length);
+                arguments[args.length] = frame;
+                return method.invoke(null, arguments);
+            }
+        }
+        throw new NoSuchMethodException(methodName);
+    }
+
+    private static int countReferenceStores(byte[] classFile) {
+        int count = 0;
+        for(MethodNode mn : readMethods(classFile)) {
+            for(AbstractInsnNode insn = mn.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+                if(insn.getOpcode() == Opcodes.ASTORE) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int countCombineTags(byte[] classFile) {
+        int count = 0;
+        for(MethodNode mn : readMethods(classFile)) {
+            for(AbstractInsnNode insn = mn.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+                if(isMethod(insn, TaintMethodRecord.COMBINE_TAGS) || isMethod(insn, TaintMethodRecord.COMBINE_OPERAND_TAGS)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static boolean isMethod(AbstractInsnNode insn, TaintMethodRecord record) {
+        return insn instanceof MethodInsnNode && ((MethodInsnNode) insn).name.equals(record.getName())
+                && ((MethodInsnNode) insn).desc.equals(record.getDescriptor());
+    }
+
+    private static List<MethodNode> readMethods(byte[] classFile) {
+        ClassNode cn = new ClassNode();
+        new ClassReader(classFile).accept(cn, 0);
+        return cn.methods;
+    }
+
+    private static byte[] readClass(Class<?> clazz) throws IOException {
+        try(InputStream in = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static final class SingleClassLoader extends ClassLoader {
+        private final String name;
+        private final byte[] classFile;
+
+        SingleClassLoader(String name, byte[] classFile) {
+            super(ShadowTaintOptimizingMVTest.class.getClassLoader());
+            this.name = name;
+            this.classFile = classFile;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if(this.name.equals(name)) {
+                synchronized(getClassLoadingLock(name)) {
+                    Class<?> c = findLoadedClass(name);
+                    if(c == null) {
+                        c = defineClass(name, classFile, 0, classFile.length);
+                    }
+                    return c;
+                }
+            }
+            return super.loadClass(name, resolve);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package edu.columbia.cs.psl.phosphor.instrumenter;
+
+import edu.columbia.cs.psl.phosphor.BasicSourceSinkManager;
+import edu.columbia.cs.psl.phosphor.BasicSourceSinkManager.AutoTaint;
+import edu.columbia.cs.psl.phosphor.Configuration;
+import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import edu.columbia.cs.psl.phosphor.runtime.TaintSourceWrapper;
+import edu.columbia.cs.psl.phosphor.struct.TaggedIntArray;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.AnalyzerAdapter;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SinkTaintingMVTest implements Opcodes {
+
+    private static final String OWNER = "edu/columbia/cs/psl/phosphor/instrumenter/GeneratedSink";
+    private static final String SINK_DESC = "(ILjava/lang/Object;)V";
+
+    // The shadow taint tag of the int argument of the generated sink
+    public static Taint intTaint;
+
+    private LinkedList<String> prevSinks;
+    private TaintSourceWrapper<?> prevAutoTainter;
+    private RecordingTaintSourceWrapper wrapper;
+
+    @Before
+    public void installSink() {
+        prevSinks = BasicSourceSinkManager.replaceAutoTaintMethods(
+                Collections.singletonList(OWNER + ".sink" + SINK_DESC), AutoTaint.SINK);
+        prevAutoTainter = Configuration.autoTainter;
+        wrapper = new RecordingTaintSourceWrapper();
+        Configuration.autoTainter = wrapper;
+        intTaint = Taint.emptyTaint();
+    }
+
+    @After
+    public void restoreSink() {
+        BasicSourceSinkManager.replaceAutoTaintMethods(prevSinks, AutoTaint.SINK);
+        Configuration.autoTainter = prevAutoTainter;
+        intTaint = null;
+    }
+
+    /* Checks that the inline checks skip the call to checkTaint when no argument is tainted. */
+    @Test
+    public void testFastPathCleanArguments() throws Exception {
+        Method sink = generateSink(true);
+        sink.invoke(null, 5, new TaggedIntArray(new int[3]));
+        intTaint = null;
+        sink.invoke(null, 5, new Object());
+        assertEquals(0, wrapper.checkTaintCalls);
+        assertEquals(0, wrapper.reported.size());
+    }
+
+    /* Checks that the inline checks call checkTaint, which reports the violation, when a shadow taint tag is
+     * tainted. */
+    @Test
+    public void testFastPathTaintedShadowTag() throws Exception {
+        Method sink = generateSink(true);
+        intTaint = Taint.withLabel("label");
+        sink.invoke(null, 5, null);
+        assertEquals(1, wrapper.checkTaintCalls);
+        assertEquals(1, wrapper.reported.size());
+        assertSame(intTaint, wrapper.reported.get(0));
+    }
+
+    /* Checks that the inline checks call checkTaint, which reports the violation, when a reference argument is
+     * tainted. */
+    @Test
+    public void testFastPathTaintedReferenceArgument() throws Exception {
+        Method sink = generateSink(true);
+        Taint tag = Taint.withLabel("label");
+        TaggedIntArray array = new TaggedIntArray(new int[3]);
+        array.setTaint(1, tag);
+        sink.invoke(null, 5, array);
+        assertEquals(1, wrapper.checkTaintCalls);
+        assertEquals(1, wrapper.reported.size());
+        assertSame(tag, wrapper.reported.get(0));
+    }
+
+    /* Checks that without frame information every call goes through checkTaint, which only reports tainted
+     * arguments. */
+    @Test
+    public void testFallbackPath() throws Exception {
+        Method sink = generateSink(false);
+        sink.invoke(null, 5, new TaggedIntArray(new int[3]));
+        assertEquals(1, wrapper.checkTaintCalls);
+        assertEquals(0, wrapper.reported.size());
+        intTaint = Taint.withLabel("label");
+        sink.invoke(null, 5, null);
+        assertEquals(2, wrapper.checkTaintCalls);
+        assertEquals(1, wrapper.reported.size());
+        assertSame(intTaint, wrapper.reported.get(0));
+    }
+
+    /* Checks that every call goes through checkTaint if the auto-tainter overrides checkTaint but not hasTaint. */
+    @Test
+    public void testCheckTaintOverrideWithoutHasTaint() throws Exception {
+        CountingTaintSourceWrapper counting = new CountingTaintSourceWrapper();
+        Configuration.autoTainter = counting;
+        Method sink = generateSink(true);
+        sink.invoke(null, 5, new TaggedIntArray(new int[3]));
+        assertEquals(1, counting.checkTaintCalls);
+    }
+
+    /* Generates a static sink method that stores the shadow taint tag of its int argument in a local variable before
+     * marking the argument taint positions, as instrumented methods do, and passes it through SinkTaintingMV. */
+    private static Method generateSink(boolean withFrames) throws Exception {
+        MethodNode body = new MethodNode(Configuration.ASM_VERSION, ACC_PUBLIC | ACC_STATIC, "sink", SINK_DESC,
+                null, null);
+        body.visitCode();
+        body.visitFieldInsn(GETSTATIC, Type.getInternalName(SinkTaintingMVTest.class), "intTaint",
+                Configuration.TAINT_TAG_DESC);
+        body.visitVarInsn(ASTORE, 2);
+        body.visitLdcInsn("PhosphorArgTaintIndices=2");
+        body.visitInsn(POP);
+        body.visitInsn(RETURN);
+        body.visitMaxs(0, 0);
+        body.visitEnd();
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_8, ACC_PUBLIC, OWNER, null, "java/lang/Object", null);
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "sink", SINK_DESC, null, null);
+        AnalyzerAdapter analyzer = new AnalyzerAdapter(OWNER, ACC_PUBLIC | ACC_STATIC, "sink", SINK_DESC, mv);
+        SinkTaintingMV sinkMV = new SinkTaintingMV(analyzer, ACC_PUBLIC | ACC_STATIC, OWNER, "sink", SINK_DESC);
+        if(withFrames) {
+            sinkMV.setAnalyzerAdapter(analyzer);
+        }
+        sinkMV.setNumberOfTryCatchBlocks(0);
+        body.accept(sinkMV);
+        cw.visitEnd();
+        byte[] classFile = cw.toByteArray();
+        ClassLoader loader = new ClassLoader(SinkTaintingMVTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                if(name.equals(OWNER.replace('/', '.'))) {
+                    return defineClass(name, classFile, 0, classFile.length);
+                }
+                throw new ClassNotFoundException(name);
+            }
+        };
+        return loader.loadClass(OWNER.replace('/', '.')).getMethod("sink", int.class, Object.class);
+    }
+
+    private static final class RecordingTaintSourceWrapper extends TaintSourceWrapper {
+        private final List<Taint> reported = new ArrayList<>();
+        private int checkTaintCalls = 0;
+
+        @Override
+        public void checkTaint(Object[] arguments, Taint[] argTaints, String baseSink, String actualSink) {
+            checkTaintCalls++;
+            super.checkTaint(arguments, argTaints, baseSink, actualSink);
+        }
+
+        /* Only counts the calls to checkTaint, so hasTaint still matches it. */
+        @Override
+        public boolean hasTaint(Object obj) {
+            return super.hasTaint(obj);
+        }
+
+        @Override
+        public void taintViolation(Taint tag, Object obj, String baseSink, String actualSink) {
+            reported.add(tag);
+        }
+    }
+
+    private static final class CountingTaintSourceWrapper extends TaintSourceWrapper {
+        private int checkTaintCalls = 0;
+
+        @Override
+        public void checkTaint(Object[] arguments, Taint[] argTaints, String baseSink, String actualSink) {
+            checkTaintCalls++;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package edu.columbia.cs.psl.phosphor.instrumenter.analyzer;
+
+import edu.columbia.cs.psl.phosphor.instrumenter.TaintMethodRecord;
+import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.*;
+
+public class EmptyTaintPropagationAnalyzerTest implements Opcodes {
+
+    private static final String TAINT_DESC = Type.getDescriptor(Taint.class);
+    private static final String OWNER = "edu/columbia/cs/psl/phosphor/instrumenter/analyzer/GeneratedCombines";
+
+    /* Checks that combineTags(empty, t2) is not replaced with t2 when t2 may be null, since the call returns the empty
+     * tag in that case. */
+    @Test
+    public void testCombineWithPossiblyNullSecondOperandKept() throws Exception {
+        MethodNode mn = newMethod("combine");
+        mn.instructions.add(newEmptyTaint());
+        mn.instructions.add(new VarInsnNode(ALOAD, 0));
+        mn.instructions.add(combineTags());
+        mn.instructions.add(new InsnNode(ARETURN));
+        assertEquals(0, EmptyTaintPropagationAnalyzer.removeEmptyTaintCombines(OWNER, mn));
+        Object result = invoke(mn, null);
+        assertNotNull(result);
+        assertTrue(((Taint) result).isEmpty());
+    }
+
+    /* Checks that combineTags(empty, t2) is replaced with t2 when t2 is the result of a combine whose first operand is
+     * non-null. */
+    @Test
+    public void testCombineWithNonNullSecondOperandRemoved() throws Exception {
+        MethodNode mn = newMethod("combine");
+        mn.instructions.add(newEmptyTaint());
+        mn.instructions.add(newEmptyTaint());
+        mn.instructions.add(new VarInsnNode(ALOAD, 0));
+        mn.instructions.add(combineTags());
+        mn.instructions.add(combineTags());
+        mn.instructions.add(new InsnNode(ARETURN));
+        assertEquals(1, EmptyTaintPropagationAnalyzer.removeEmptyTaintCombines(OWNER, mn));
+        Taint tag = Taint.withLabel("label");
+        assertSame(tag, invoke(mn, tag));
+        Object result = invoke(mn, null);
+        assertNotNull(result);
+        assertTrue(((Taint) result).isEmpty());
+    }
+
+    /* Checks that combineTags(t1, empty) is replaced with t1 whether or not t1 may be null. */
+    @Test
+    public void testCombineWithEmptySecondOperandRemoved() throws Exception {
+        MethodNode mn = newMethod("combine");
+        mn.instructions.add(new VarInsnNode(ALOAD, 0));
+        mn.instructions.add(newEmptyTaint());
+        mn.instructions.add(combineTags());
+        mn.instructions.add(new InsnNode(ARETURN));
+        assertEquals(1, EmptyTaintPropagationAnalyzer.removeEmptyTaintCombines(OWNER, mn));
+        assertNull(invoke(mn, null));
+    }
+
+    private static MethodNode newMethod(String name) {
+        return new MethodNode(ACC_PUBLIC | ACC_STATIC, name, "(" + TAINT_DESC + ")" + TAINT_DESC, null, null);
+    }
+
+    private static AbstractInsnNode newEmptyTaint() {
+        return toInsn(TaintMethodRecord.NEW_EMPTY_TAINT);
+    }
+
+    private static AbstractInsnNode combineTags() {
+        return toInsn(TaintMethodRecord.COMBINE_TAGS);
+    }
+
+    private static AbstractInsnNode toInsn(TaintMethodRecord record) {
+        return new MethodInsnNode(record.getOpcode(), record.getOwner(), record.getName(), record.getDescriptor(),
+                record.isInterface());
+    }
+
+    private static Object invoke(MethodNode mn, Taint argument) throws Exception {
+        ClassNode cn = new ClassNode();
+        cn.version = V1_8;
+        cn.access = ACC_PUBLIC;
+        cn.name = OWNER;
+        cn.superName = "java/lang/Object";
+        cn.methods.add(mn);
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        cn.accept(cw);
+        byte[] classFile = cw.toByteArray();
+        ClassLoader loader = new ClassLoader(EmptyTaintPropagationAnalyzerTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                if(name.equals(OWNER.replace('/', '.'))) {
+                    return defineClass(name, classFile, 0, classFile.length);
+                }
+                throw new ClassNotFoundException(name);
+            }
+        };
+        Method method = loader.loadClass(OWNER.replace('/', '.')).getMethod(mn.name, Taint.class);
+        return method.invoke(null, argument);
+    }
+}
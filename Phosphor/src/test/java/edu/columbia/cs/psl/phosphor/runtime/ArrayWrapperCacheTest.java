@@ -0,0 +1,34 @@
+package edu.columbia.cs.psl.phosphor.runtime;
+
+import edu.columbia.cs.psl.phosphor.struct.TaggedIntArray;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ArrayWrapperCacheTest {
+
+    /* Checks that a cached wrapper is returned for its own array but not for a different array. */
+    @Test
+    public void testGetReturnsWrapperOfSameArray() {
+        ArrayWrapperCache cache = new ArrayWrapperCache();
+        int[] array = new int[4];
+        TaggedIntArray wrapper = cache.put(new TaggedIntArray(array));
+        assertSame(wrapper, cache.get(array));
+        assertNull(cache.get(new int[4]));
+    }
+
+    /* Checks that the cache does not keep a wrapper or its array reachable once nothing else refers to them. */
+    @Test
+    public void testCacheDoesNotPinWrappers() throws InterruptedException {
+        ArrayWrapperCache cache = new ArrayWrapperCache();
+        WeakReference<int[]> array = new WeakReference<>(cache.put(new TaggedIntArray(new int[1 << 20])).val);
+        for(int i = 0; i < 50 && array.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(array.get());
+    }
+}
@@ -0,0 +1,77 @@
+package edu.columbia.cs.psl.phosphor.runtime;
+
+import edu.columbia.cs.psl.phosphor.struct.TaggedDoubleArray;
+import edu.columbia.cs.psl.phosphor.struct.TaggedLongArray;
+import edu.columbia.cs.psl.phosphor.struct.TaggedReferenceArray;
+import org.junit.Test;
+import org.objectweb.asm.Type;
+
+import static org.junit.Assert.*;
+
+public class MultiDArrayUtilsTest {
+
+    /* Checks that a fully specified two-dimensional primitive array is built from wrappers of the right types and
+     * lengths, and that the inner wrappers start without a dense array of tags. */
+    @Test
+    public void testPrimitive2D() {
+        Taint outer = Taint.withLabel("outer");
+        Taint inner = Taint.withLabel("inner");
+        Object ret = MultiDArrayUtils.newArray(new int[]{3, 5}, new Taint[]{outer, inner}, 2, Type.DOUBLE, null);
+        TaggedReferenceArray array = (TaggedReferenceArray) ret;
+        assertEquals(TaggedDoubleArray[].class, array.val.getClass());
+        assertEquals(3, array.val.length);
+        assertSame(outer, array.lengthTaint);
+        for(Object element : array.val) {
+            TaggedDoubleArray row = (TaggedDoubleArray) element;
+            assertEquals(5, row.val.length);
+            assertSame(inner, row.lengthTaint);
+            assertNull(row.taints);
+        }
+        assertNotSame(array.val[0], array.val[1]);
+    }
+
+    /* Checks that arrays with more dimensions than the old generated helpers supported are built at every level. */
+    @Test
+    public void testPrimitive5D() {
+        Taint[] taints = new Taint[5];
+        for(int i = 0; i < taints.length; i++) {
+            taints[i] = Taint.withLabel(i);
+        }
+        Object ret = MultiDArrayUtils.newArray(new int[]{2, 2, 2, 2, 3}, taints, 5, Type.LONG, null);
+        TaggedReferenceArray array = (TaggedReferenceArray) ret;
+        for(int level = 0; level < 3; level++) {
+            assertEquals(TaggedReferenceArray[].class, array.val.getClass());
+            assertSame(taints[level], array.lengthTaint);
+            assertNotNull(array.val[1]);
+            array = (TaggedReferenceArray) array.val[1];
+        }
+        assertEquals(TaggedLongArray[].class, array.val.getClass());
+        assertSame(taints[3], array.lengthTaint);
+        TaggedLongArray inner = (TaggedLongArray) array.val[1];
+        assertEquals(3, inner.val.length);
+        assertSame(taints[4], inner.lengthTaint);
+    }
+
+    /* Checks that levels beyond the specified lengths are left null, as they are for new int[2][3][]. */
+    @Test
+    public void testPartialDimensions() {
+        Taint empty = Taint.emptyTaint();
+        Object ret = MultiDArrayUtils.newArray(new int[]{2, 3}, new Taint[]{empty, empty}, 3, Type.INT, null);
+        TaggedReferenceArray array = (TaggedReferenceArray) ret;
+        for(Object element : array.val) {
+            TaggedReferenceArray middle = (TaggedReferenceArray) element;
+            assertEquals(3, middle.val.length);
+            for(Object inner : middle.val) {
+                assertNull(inner);
+            }
+        }
+    }
+
+    /* Checks that every length is checked before anything is allocated, so a negative inner length is reported even
+     * when the outer length is zero. */
+    @Test(expected = NegativeArraySizeException.class)
+    public void testNegativeInnerLength() {
+        Taint empty = Taint.emptyTaint();
+        MultiDArrayUtils.newArray(new int[]{0, -1}, new Taint[]{empty, empty}, 2, Type.INT, null);
+    }
+}
@@ -0,0 +1,54 @@
+package edu.columbia.cs.psl.phosphor.runtime;
+
+import edu.columbia.cs.psl.phosphor.struct.TaggedByteArray;
+import edu.columbia.cs.psl.phosphor.struct.TaggedReferenceArray;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PhosphorStackFrameTest {
+
+    /* Checks that an array whose wrapper was lost is mapped back to the same wrapper, with its tags, by later calls made
+     * on the same thread. */
+    @Test
+    public void testLostArgWrapperIsReused() {
+        PhosphorStackFrame frame = new PhosphorStackFrame();
+        byte[] array = new byte[8];
+        TaggedByteArray wrapper = frame.getArgWrapper(0, array);
+        assertSame(array, wrapper.val);
+        wrapper.setTaint(3, Taint.withLabel("label"));
+        PhosphorStackFrame callee = new PhosphorStackFrame(frame);
+        TaggedByteArray rewrapped = callee.getArgWrapper(1, array);
+        assertSame(wrapper, rewrapped);
+        assertTrue(rewrapped.getTaintOrEmpty(3).containsOnlyLabels(new Object[]{"label"}));
+        assertSame(wrapper, callee.getReturnWrapper(array));
+    }
+
+    /* Checks that a wrapper passed for a different array is not returned and does not replace the actual array's
+     * cached wrapper. */
+    @Test
+    public void testMismatchedArgWrapper() {
+        PhosphorStackFrame frame = new PhosphorStackFrame();
+        Object[] array = new Object[4];
+        TaggedReferenceArray wrapper = frame.getArgWrapper(0, array);
+        frame.setArgWrapper(new TaggedReferenceArray(new Object[4]), 0);
+        assertSame(wrapper, frame.getArgWrapper(0, array));
+        TaggedReferenceArray passed = new TaggedReferenceArray(array);
+        frame.setArgWrapper(passed, 0);
+        assertSame(passed, frame.getArgWrapper(0, array));
+    }
+
+    /* Checks that arrays which map to the same slot of the cache evict one another without being confused. */
+    @Test
+    public void testManyArrays() {
+        PhosphorStackFrame frame = new PhosphorStackFrame();
+        byte[][] arrays = new byte[1000][1];
+        for(byte[] array : arrays) {
+            assertSame(array, frame.getArgWrapper(0, array).val);
+        }
+        for(byte[] array : arrays) {
+            assertSame(array, frame.getArgWrapper(0, array).val);
+        }
+        assertNull(frame.getArgWrapper(0, (byte[]) null));
+    }
+}
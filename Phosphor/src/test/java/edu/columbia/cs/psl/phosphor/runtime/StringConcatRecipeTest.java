@@ -0,0 +1,147 @@
+package edu.columbia.cs.psl.phosphor.runtime;
+
+import edu.columbia.cs.psl.phosphor.struct.TaintedWithObjTag;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StringConcatRecipeTest {
+
+    /* Checks that literal characters and constants are merged into segments between the arguments. */
+    @Test
+    public void testCompileMergesLiteralsAndConstants() {
+        StringConcatRecipe recipe = StringConcatRecipe.compile("a\u0002b\u0001\u0001c", new Object[]{7},
+                new Class<?>[]{String.class, int.class});
+        assertEquals(4, recipe.getNumberOfSegments());
+        String[] values = recipe.toStrings(new Object[]{"x", 42});
+        assertArrayEquals(new String[]{"a7b", "x", "42", "c"}, values);
+        assertEquals("a7bx42c", StringConcatRecipe.join(values));
+        assertFalse(recipe.isReferenceArgument(0));
+        assertTrue(recipe.isReferenceArgument(1));
+        assertFalse(recipe.isReferenceArgument(2));
+    }
+
+    /* Checks that empty constants do not produce segments. */
+    @Test
+    public void testCompileEmptyConstant() {
+        StringConcatRecipe recipe = StringConcatRecipe.compile("\u0002\u0001", new Object[]{""},
+                new Class<?>[]{Object.class});
+        assertEquals(1, recipe.getNumberOfSegments());
+        assertArrayEquals(new String[]{"null"}, recipe.toStrings(new Object[]{null}));
+    }
+
+    /* Checks that recipes whose arguments do not match the specified parameter types are rejected. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompileTooManyParameters() {
+        StringConcatRecipe.compile("\u0001", new Object[0], new Class<?>[]{int.class, int.class});
+    }
+
+    /* Checks that the characters of a primitive argument are tainted with the argument's tag as a single run. */
+    @Test
+    public void testPrimitiveArgumentTaint() {
+        StringConcatRecipe recipe = StringConcatRecipe.compile("id=\u0001;", new Object[0], new Class<?>[]{int.class});
+        String[] values = recipe.toStrings(new Object[]{123});
+        Taint tag = Taint.withLabel("id");
+        Taint[] taints = recipe.concatenateTaints(values, null, new Taint[]{tag}, 1);
+        assertArrayEquals(new Taint[]{null, null, null, tag, tag, tag, null}, taints);
+    }
+
+    /* Checks that the tags of the characters of a reference argument are copied to the result. */
+    @Test
+    public void testReferenceArgumentTaints() {
+        StringConcatRecipe recipe = StringConcatRecipe.compile("<\u0001>", new Object[0], new Class<?>[]{String.class});
+        String[] values = recipe.toStrings(new Object[]{"ab"});
+        Taint a = Taint.withLabel("a");
+        Taint[][] valueTaints = new Taint[][]{null, {a, null}, null};
+        assertArrayEquals(new Taint[]{null, a, null, null}, recipe.concatenateTaints(values, valueTaints,
+                new Taint[1], 1));
+        // Each character of the result is stored in two bytes
+        assertArrayEquals(new Taint[]{null, null, a, a, null, null, null, null}, recipe.concatenateTaints(values,
+                valueTaints, new Taint[1], 2));
+    }
+
+    /* Checks that concatenations without tainted arguments do not allocate taint tags. */
+    @Test
+    public void testUntaintedConcatenation() {
+        StringConcatRecipe recipe = StringConcatRecipe.compile("\u0001 \u0001", new Object[0],
+                new Class<?>[]{String.class, long.class});
+        String[] values = recipe.toStrings(new Object[]{"x", 5L});
+        assertNull(recipe.concatenateTaints(values, null, new Taint[]{null, Taint.emptyTaint()}, 1));
+    }
+
+    /* Checks that the same tag instance is used for every character of a run. */
+    @Test
+    public void testRunSharesTag() {
+        StringConcatRecipe recipe = StringConcatRecipe.compile("\u0001", new Object[0], new Class<?>[]{char.class});
+        Taint tag = Taint.withLabel("c");
+        Taint[] taints = recipe.concatenateTaints(recipe.toStrings(new Object[]{'c'}), null, new Taint[]{tag}, 2);
+        assertSame(taints[0], taints[1]);
+    }
+
+    /* Checks that concatenating a tainted string and a tainted int taints the characters of the string with the tags
+     * of its characters combined with the tag of the string reference, and the characters of the int with its tag. */
+    @Test
+    public void testTaintedStringAndTaintedInt() {
+        StringConcatRecipe recipe = StringConcatRecipe.compile("\u0001\u0001", new Object[0],
+                new Class<?>[]{String.class, int.class});
+        Object[] args = new Object[]{"abc", 98};
+        String[] values = recipe.toStrings(args);
+        Taint chars = Taint.withLabel("string");
+        Taint reference = Taint.withLabel("reference");
+        Taint number = Taint.withLabel("int");
+        Taint[] argTaints = recipe.argumentTaints(args, new Taint[]{reference, number});
+        Taint[][] valueTaints = new Taint[][]{{chars, chars, null}, null};
+        Taint[] taints = recipe.concatenateTaints(values, valueTaints, argTaints, 1);
+        Taint union = chars.union(reference);
+        assertArrayEquals(new Taint[]{union, union, reference, number, number}, taints);
+        assertSame(taints[0], taints[1]);
+    }
+
+    /* Checks that the tag of a reference argument taints its characters even if its string value is not tainted. */
+    @Test
+    public void testTaintedReferenceWithUntaintedValue() {
+        StringConcatRecipe recipe = StringConcatRecipe.compile("[\u0001]", new Object[0],
+                new Class<?>[]{String.class});
+        Object[] args = new Object[]{"ab"};
+        Taint tag = Taint.withLabel("reference");
+        Taint[] taints = recipe.concatenateTaints(recipe.toStrings(args), null,
+                recipe.argumentTaints(args, new Taint[]{tag}), 2);
+        assertArrayEquals(new Taint[]{null, null, tag, tag, tag, tag, null, null}, taints);
+    }
+
+    /* Checks that the object tag of a reference argument's value is combined with the tag of the argument. */
+    @Test
+    public void testObjectTagOfReferenceArgument() {
+        StringConcatRecipe recipe = StringConcatRecipe.compile("\u0001\u0001", new Object[0],
+                new Class<?>[]{Object.class, int.class});
+        TaggedObject object = new TaggedObject();
+        object.tag = Taint.withLabel("object");
+        Taint[] argTaints = recipe.argumentTaints(new Object[]{object, 1}, new Taint[]{null, null});
+        assertSame(object.tag, argTaints[0]);
+        assertNull(argTaints[1]);
+    }
+
+    private static final class TaggedObject implements TaintedWithObjTag {
+        private Taint tag;
+
+        @Override
+        public Object getPHOSPHOR_TAG() {
+            return tag;
+        }
+
+        @Override
+        public void setPHOSPHOR_TAG(Object t) {
+            tag = (Taint) t;
+        }
+
+        @Override
+        public String toString() {
+            return "object";
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package edu.columbia.cs.psl.phosphor.runtime;
+
+import edu.columbia.cs.psl.phosphor.Configuration;
+import edu.columbia.cs.psl.phosphor.agent.EmbeddedPhosphorPatcher;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+public class TaintMetricsTest {
+
+    @After
+    public void resetConfiguration() {
+        Configuration.TAINT_METRICS = false;
+    }
+
+    /* Checks that the value of the taintMetrics option is embedded into TaintMetrics so that it is enabled without
+     * reading Configuration at runtime. */
+    @Test
+    public void testEnabledFlagIsEmbedded() throws Exception {
+        assertFalse(TaintMetrics.ENABLED);
+        Configuration.TAINT_METRICS = true;
+        assertTrue(loadPatched().getField("ENABLED").getBoolean(null));
+        Configuration.TAINT_METRICS = false;
+        assertFalse(loadPatched().getField("ENABLED").getBoolean(null));
+    }
+
+    @Test
+    public void testSnapshotContainsEveryCounter() {
+        TaintMetrics metrics = TaintMetrics.getInstance();
+        metrics.reset();
+        TaintMetrics.FRAMES_REUSED.add(3);
+        TaintMetrics.recordSetDepth(5);
+        TaintMetrics.recordSetDepth(2);
+        assertEquals(3, metrics.getFramesReused());
+        assertEquals(5, metrics.getMaxSetDepth());
+        String snapshot = metrics.snapshot();
+        assertTrue(snapshot.contains("framesReused=3"));
+        assertTrue(snapshot.contains("maxSetDepth=5"));
+        assertTrue(snapshot.contains("rankPoolSize="));
+        metrics.reset();
+        assertEquals(0, metrics.getFramesReused());
+        assertEquals(0, metrics.getMaxSetDepth());
+    }
+
+    private static Class<?> loadPatched() throws IOException, ClassNotFoundException {
+        final String name = TaintMetrics.class.getName();
+        final byte[] patched = new EmbeddedPhosphorPatcher(false).patch(name.replace('.', '/') + ".class",
+                readClassFile(name));
+        ClassLoader loader = new ClassLoader(TaintMetricsTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+                if (className.equals(name)) {
+                    synchronized (getClassLoadingLock(className)) {
+                        Class<?> c = findLoadedClass(className);
+                        return c != null ? c : defineClass(className, patched, 0, patched.length);
+                    }
+                }
+                return super.loadClass(className, resolve);
+            }
+        };
+        return Class.forName(name, true, loader);
+    }
+
+    private static byte[] readClassFile(String name) throws IOException {
+        try (InputStream in = TaintMetrics.class.getResourceAsStream("/" + name.replace('.', '/') + ".class")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package edu.columbia.cs.psl.phosphor.runtime;
+
+import edu.columbia.cs.psl.phosphor.struct.TaggedIntArray;
+import edu.columbia.cs.psl.phosphor.struct.TaggedReferenceArray;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TaintSourceWrapperTest {
+
+    /* Checks that each distinct taint tag on the elements of an array is only reported once. */
+    @Test
+    public void testCheckTaintReportsDistinctTags() {
+        Taint a = Taint.withLabel("a");
+        Taint b = Taint.withLabel("b");
+        TaggedIntArray array = new TaggedIntArray(new int[5], new Taint[]{a, a, null, b, a});
+        RecordingTaintSourceWrapper wrapper = new RecordingTaintSourceWrapper();
+        wrapper.checkTaint(array, "sink", "sink");
+        assertEquals(2, wrapper.reported.size());
+        assertTrue(wrapper.reported.contains(a));
+        assertTrue(wrapper.reported.contains(b));
+    }
+
+    /* Checks that arrays whose elements only have empty taint tags are not reported. */
+    @Test
+    public void testCheckTaintIgnoresEmptyTags() {
+        TaggedIntArray array = new TaggedIntArray(new int[3]);
+        array.setTaints(Taint.emptyTaint());
+        RecordingTaintSourceWrapper wrapper = new RecordingTaintSourceWrapper();
+        wrapper.checkTaint(array, "sink", "sink");
+        assertTrue(wrapper.reported.isEmpty());
+        assertFalse(wrapper.hasTaint(array));
+    }
+
+    /* Checks that arrays of references that contain themselves are only searched once. */
+    @Test
+    public void testCheckTaintOnCyclicArray() {
+        Taint a = Taint.withLabel("a");
+        Object[] outer = new Object[2];
+        Object[] inner = new Object[]{outer, new TaggedIntArray(new int[1], new Taint[]{a})};
+        outer[0] = inner;
+        outer[1] = outer;
+        RecordingTaintSourceWrapper wrapper = new RecordingTaintSourceWrapper();
+        wrapper.checkTaint(outer, "sink", "sink");
+        assertEquals(1, wrapper.reported.size());
+        assertTrue(wrapper.hasTaint(outer));
+        inner[1] = null;
+        assertFalse(wrapper.hasTaint(outer));
+    }
+
+    /* Checks that the tags of a reference array that stores its tags sparsely are reported without moving them into a
+     * dense array. */
+    @Test
+    public void testCheckTaintDoesNotDensifySparseArray() {
+        Taint a = Taint.withLabel("a");
+        TaggedReferenceArray array = new TaggedReferenceArray(new Object[1024]);
+        array.setTaint(100, a);
+        array.setTaint(900, a);
+        RecordingTaintSourceWrapper wrapper = new RecordingTaintSourceWrapper();
+        wrapper.checkTaint(array, "sink", "sink");
+        assertEquals(1, wrapper.reported.size());
+        assertTrue(wrapper.reported.contains(a));
+        assertNull(array.taints);
+    }
+
+    private static class RecordingTaintSourceWrapper extends TaintSourceWrapper<AutoTaintLabel> {
+        private final List<Taint> reported = new ArrayList<>();
+
+        @Override
+        public void taintViolation(Taint<AutoTaintLabel> tag, Object obj, String baseSink, String actualSink) {
+            reported.add(tag);
+        }
+    }
+}
@@ -56,6 +56,22 @@ public class BitSetTest {
         }
     }
 
+    /* Checks that removing an element only removes that element from the set. */
+    @Test
+    public void testBitSetRemove() {
+        BitSet set = new BitSet(200);
+        int[] addIndices = new int[]{0, 63, 64, 100, 199};
+        for(int index : addIndices) {
+            set.add(index);
+        }
+        set.remove(64);
+        set.remove(5);
+        for(int index : addIndices) {
+            assertEquals(index != 64, set.contains(index));
+        }
+        assertFalse(set.contains(5));
+    }
+
     /* Checks that a large bit indices are correctly added. */
     @Test
     public void testBitSetLargeBitAdd() {
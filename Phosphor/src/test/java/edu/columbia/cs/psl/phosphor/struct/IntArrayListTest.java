@@ -0,0 +1,48 @@
+package edu.columbia.cs.psl.phosphor.struct;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IntArrayListTest {
+
+    /* Checks that items added to an IntArrayList beyond its initial capacity are retained in order. */
+    @Test
+    public void testAddGrowsList() {
+        IntArrayList list = new IntArrayList();
+        for(int i = 0; i < 1000; i++) {
+            list.add(i * 2);
+        }
+        assertEquals(1000, list.size());
+        for(int i = 0; i < 1000; i++) {
+            assertEquals(i * 2, list.get(i));
+        }
+        assertEquals(10, list.indexOf(20));
+        assertTrue(list.contains(1998));
+        assertFalse(list.contains(1));
+        assertEquals(1000, list.toArray().length);
+    }
+
+    @Test
+    public void testSetAndRemoveLast() {
+        IntArrayList list = new IntArrayList();
+        list.add(1);
+        list.add(2);
+        assertEquals(2, list.set(1, 3));
+        assertEquals(3, list.removeLast());
+        assertEquals(1, list.removeLast());
+        assertTrue(list.isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        IntArrayList list = new IntArrayList();
+        list.add(1);
+        list.get(1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRemoveLastEmpty() {
+        new IntArrayList().removeLast();
+    }
+}
@@ -0,0 +1,51 @@
+package edu.columbia.cs.psl.phosphor.struct;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class IntHashSetTest {
+
+    /* Checks that an IntHashSet agrees with a java.util.HashSet after a random sequence of adds and removes over a small
+     * range of elements, which forces long probe sequences and shifting on removal. */
+    @Test
+    public void testRandomOperationsMatchHashSet() {
+        Random random = new Random(8675309);
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+        for(int i = 0; i < 200000; i++) {
+            int element = random.nextInt(2000) - 1000;
+            if(random.nextInt(3) == 0) {
+                assertEquals(expected.remove(element), set.remove(element));
+            } else {
+                assertEquals(expected.add(element), set.add(element));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for(int element = -1000; element < 1000; element++) {
+            assertEquals(expected.contains(element), set.contains(element));
+        }
+        Set<Integer> elements = new HashSet<>();
+        for(int element : set.toArray()) {
+            assertTrue(elements.add(element));
+        }
+        assertEquals(expected, elements);
+    }
+
+    @Test
+    public void testClear() {
+        IntHashSet set = new IntHashSet();
+        for(int i = 0; i < 100; i++) {
+            set.add(i * 31);
+        }
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(31));
+        assertEquals(0, set.toArray().length);
+        assertTrue(set.add(31));
+    }
+}
@@ -0,0 +1,79 @@
+package edu.columbia.cs.psl.phosphor.struct;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class IntObjectHashMapTest {
+
+    /* Checks that an IntObjectHashMap agrees with a java.util.HashMap after a random sequence of puts and removes over a
+     * small range of keys, which forces long probe sequences and shifting on removal. */
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        Random random = new Random(422719);
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        for(int i = 0; i < 200000; i++) {
+            int key = random.nextInt(2000) - 1000;
+            if(random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = "" + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for(int key = -1000; key < 1000; key++) {
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+            assertEquals(expected.get(key), map.get(key));
+        }
+        Set<Integer> keys = new HashSet<>();
+        for(int key : map.keys()) {
+            assertTrue(keys.add(key));
+        }
+        assertEquals(expected.keySet(), keys);
+        Set<String> values = new HashSet<>();
+        for(String value : map.values()) {
+            values.add(value);
+        }
+        assertEquals(new HashSet<>(expected.values()), values);
+    }
+
+    /* Checks that mappings for Integer.MIN_VALUE, Integer.MAX_VALUE and 0 can be added to and removed from an
+     * IntObjectHashMap without issue. */
+    @Test
+    public void testExtremeKeys() {
+        IntObjectHashMap<Object> map = new IntObjectHashMap<>();
+        int[] keys = new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, 0};
+        for(int key : keys) {
+            map.put(key, key);
+        }
+        for(int key : keys) {
+            assertTrue(map.containsKey(key));
+            assertEquals(key, map.get(key));
+            assertEquals(key, map.remove(key));
+            assertFalse(map.containsKey(key));
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testClear() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        for(int i = 0; i < 100; i++) {
+            map.put(i, "" + i);
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(5));
+        assertNull(map.get(5));
+        assertFalse(map.values().iterator().hasNext());
+        assertEquals(0, map.keys().length);
+    }
+}
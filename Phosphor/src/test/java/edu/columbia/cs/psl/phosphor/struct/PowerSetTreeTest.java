@@ -4,6 +4,10 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -41,4 +45,27 @@ public class PowerSetTreeTest {
         Set<Object> result = new HashSet<>(Arrays.asList(set.filter((o) -> o instanceof Integer).getLabels()));
         Assert.assertEquals(expected, result);
     }
+
+    @Test
+    public void testSerializationReturnsCanonicalSets() throws Exception {
+        PowerSetTree.SetNode set1 = PowerSetTree.getInstance().makeSingletonSet(5).add("a").add(7);
+        PowerSetTree.SetNode set2 = PowerSetTree.getInstance().makeSingletonSet("a");
+        PowerSetTree.SetNode empty = PowerSetTree.getInstance().emptySet();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new Object[]{set1, set2, set1, empty});
+        }
+        // Ranks are assigned in a different order when the sets are read
+        PowerSetTree.getInstance().reset();
+        PowerSetTree.getInstance().makeSingletonSet(7).add("a");
+        Object[] result;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            result = (Object[]) in.readObject();
+        }
+        PowerSetTree.SetNode expected1 = PowerSetTree.getInstance().makeSingletonSet(7).add(5).add("a");
+        Assert.assertSame(expected1, result[0]);
+        Assert.assertSame(PowerSetTree.getInstance().makeSingletonSet("a"), result[1]);
+        Assert.assertSame(result[0], result[2]);
+        Assert.assertSame(PowerSetTree.getInstance().emptySet(), result[3]);
+    }
 }
@@ -0,0 +1,192 @@
+package edu.columbia.cs.psl.phosphor.struct;
+
+import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import org.junit.Test;
+
+import java.io.*;
+
+import static org.junit.Assert.*;
+
+public class TaggedArrayTest {
+
+    /* Checks that an array whose taint tags were never set is not considered to contain taint. */
+    @Test
+    public void testUntaintedArrayDoesNotContainTaint() {
+        TaggedIntArray array = new TaggedIntArray(new int[4]);
+        assertFalse(array.mayContainTaint());
+        array.set(0, 1, Taint.emptyTaint());
+        assertFalse(array.mayContainTaint());
+    }
+
+    /* Checks that an array with taint tags that are all empty is not considered to contain taint. */
+    @Test
+    public void testArrayWithEmptyTagsDoesNotContainTaint() {
+        TaggedIntArray array = new TaggedIntArray(new int[4]);
+        array.setTaint(2, Taint.emptyTaint());
+        assertFalse(array.mayContainTaint());
+        array.setTaints(Taint.emptyTaint());
+        assertFalse(array.mayContainTaint());
+    }
+
+    /* Checks that storing a non-empty tag into an array whose summary is clean marks the array as containing taint. */
+    @Test
+    public void testSetTaintedElementAfterCleanSummary() {
+        TaggedIntArray array = new TaggedIntArray(new int[4]);
+        array.setTaint(0, Taint.emptyTaint());
+        assertFalse(array.mayContainTaint());
+        array.set(3, 5, Taint.withLabel("label"));
+        assertTrue(array.mayContainTaint());
+    }
+
+    /* Checks that the result of checking an array with no non-empty tags is remembered until the array's tags are
+     * changed. */
+    @Test
+    public void testCleanSummaryIsCached() {
+        TaggedIntArray array = new TaggedIntArray(new int[4]);
+        array.setTaint(0, Taint.emptyTaint());
+        assertFalse(array.mayContainTaint());
+        // Bypasses the summary, so this write is not seen
+        array.taints[1] = Taint.withLabel("label");
+        assertFalse(array.mayContainTaint());
+        array.taintsChanged();
+        assertTrue(array.mayContainTaint());
+    }
+
+    /* Checks that obtaining the taint tags of an array for writing discards a clean summary. */
+    @Test
+    public void testEnsureTaintsDiscardsCleanSummary() {
+        TaggedIntArray array = new TaggedIntArray(new int[4]);
+        array.setTaints(Taint.emptyTaint());
+        assertFalse(array.mayContainTaint());
+        array.ensureTaints()[2] = Taint.withLabel("label");
+        assertTrue(array.mayContainTaint());
+    }
+
+    /* Checks that copying tags only checks the copied range of the source and marks the destination as tainted when a
+     * non-empty tag is copied. */
+    @Test
+    public void testCopyTaintsRange() {
+        TaggedIntArray src = new TaggedIntArray(new int[8]);
+        Taint tag = Taint.withLabel("label");
+        src.setTaint(6, tag);
+        TaggedIntArray dest = new TaggedIntArray(new int[8]);
+        src.copyTaints(0, dest, 0, 4);
+        assertNull(dest.taints);
+        dest.setTaints(Taint.emptyTaint());
+        assertFalse(dest.mayContainTaint());
+        src.copyTaints(4, dest, 0, 4);
+        assertTrue(dest.mayContainTaint());
+        assertSame(tag, dest.taints[2]);
+    }
+
+    /* Checks that direct writes clearing the taint tags of an array are reflected in the summary once taintsChanged is
+     * called. */
+    @Test
+    public void testDirectClearAfterTaintsChanged() {
+        TaggedIntArray array = new TaggedIntArray(new int[4]);
+        array.setTaint(1, Taint.withLabel("label"));
+        assertTrue(array.mayContainTaint());
+        array.taints[1] = null;
+        array.taintsChanged();
+        assertFalse(array.mayContainTaint());
+    }
+
+    /* Checks that direct writes to the taint tags of an array are reflected in the summary once taintsChanged is
+     * called. */
+    @Test
+    public void testDirectWriteAfterTaintsChanged() {
+        TaggedIntArray array = new TaggedIntArray(new int[4]);
+        array.setTaint(0, Taint.emptyTaint());
+        assertFalse(array.mayContainTaint());
+        array.taints[1] = Taint.withLabel("label");
+        array.taintsChanged();
+        assertTrue(array.mayContainTaint());
+    }
+
+    /* Checks that an array constructed with tainted tags is considered to contain taint. */
+    @Test
+    public void testConstructedWithTaintedTags() {
+        Taint[] taints = new Taint[]{null, Taint.withLabel("label")};
+        assertTrue(new TaggedIntArray(new int[2], taints).mayContainTaint());
+    }
+
+    /* Checks that setting every element's tag to the empty tag clears the summary of a tainted array. */
+    @Test
+    public void testSetTaintsClearsSummary() {
+        TaggedIntArray array = new TaggedIntArray(new int[4]);
+        array.setTaints(Taint.withLabel("label"));
+        assertTrue(array.mayContainTaint());
+        array.setTaints(Taint.emptyTaint());
+        assertFalse(array.mayContainTaint());
+    }
+
+    /* Checks that setting the tags of a range of elements tags only those elements and does not allocate tags for an
+     * untainted array when the tag is empty. */
+    @Test
+    public void testSetTaintsRange() {
+        TaggedCharArray array = new TaggedCharArray(new char[8]);
+        array.setTaints(2, 6, Taint.emptyTaint());
+        assertNull(array.taints);
+        Taint tag = Taint.withLabel("label");
+        array.setTaints(2, 6, tag);
+        assertTrue(array.mayContainTaint());
+        for(int i = 0; i < 8; i++) {
+            if(i >= 2 && i < 6) {
+                assertSame(tag, array.taints[i]);
+            } else {
+                assertNull(array.taints[i]);
+            }
+        }
+        array.setTaints(0, 8, Taint.emptyTaint());
+        assertTrue(array.getTaintOrEmpty(3).isEmpty());
+    }
+
+    /* Checks that the taint tags of an array are preserved when the array is serialized and deserialized. */
+    @Test
+    public void testSerializationPreservesTags() throws Exception {
+        Taint a = Taint.withLabel("a");
+        Taint ab = a.union(Taint.withLabel("b"));
+        Taint[] taints = new Taint[]{null, null, a, a, a, ab, Taint.emptyTaint(), ab, null};
+        TaggedIntArray array = new TaggedIntArray(new int[taints.length], taints);
+        TaggedIntArray copy = roundTrip(array);
+        assertEquals(taints.length, copy.taints.length);
+        for(int i = 0; i < taints.length; i++) {
+            if(taints[i] == null) {
+                assertNull(copy.taints[i]);
+            } else {
+                assertSame(taints[i], copy.taints[i]);
+            }
+        }
+        assertTrue(copy.mayContainTaint());
+        assertNull(roundTrip(new TaggedIntArray(new int[3])).taints);
+    }
+
+    /* Checks that a long run of identical tags is written once. */
+    @Test
+    public void testSerializationOfRuns() throws Exception {
+        int length = 1 << 16;
+        TaggedByteArray array = new TaggedByteArray(new byte[length]);
+        array.setTaints(Taint.withLabel("label"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(array);
+        }
+        // The values of the array and a single run
+        assertTrue(bytes.size() < length + 1024);
+        TaggedByteArray copy = roundTrip(array);
+        for(Taint tag : copy.taints) {
+            assertSame(array.taints[0], tag);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T obj) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(obj);
+        }
+        try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package edu.columbia.cs.psl.phosphor.struct;
+
+import edu.columbia.cs.psl.phosphor.TaintUtils;
+import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.Assert.*;
+
+public class TaggedReferenceArrayTest {
+
+    /* Checks that tagging a few elements of a large array does not allocate a dense array of tags. */
+    @Test
+    public void testFewTaggedElementsStoredSparsely() {
+        TaggedReferenceArray array = new TaggedReferenceArray(new Object[1024]);
+        Taint a = Taint.withLabel("a");
+        array.set(700, "x", a);
+        array.set(3, "y", a);
+        array.setTaint(42, Taint.withLabel("b"));
+        assertNull(array.taints);
+        assertTrue(array.hasTaints());
+        assertTrue(array.mayContainTaint());
+        assertSame(a, array.getTaintOrEmpty(700));
+        assertSame(a, array.getTaintOrEmpty(3));
+        assertTrue(array.getTaintOrEmpty(42).containsOnlyLabels(new Object[]{"b"}));
+        assertTrue(array.getTaintOrEmpty(4).isEmpty());
+    }
+
+    /* Checks that clearing the only tagged element of a sparse array leaves it untainted. */
+    @Test
+    public void testClearSparseTag() {
+        TaggedReferenceArray array = new TaggedReferenceArray(new Object[100]);
+        array.set(10, "x", Taint.withLabel("a"));
+        array.set(10, "x", Taint.emptyTaint());
+        assertNull(array.taints);
+        assertFalse(array.hasTaints());
+        assertFalse(array.mayContainTaint());
+        assertTrue(array.getTaintOrEmpty(10).isEmpty());
+    }
+
+    /* Checks that the tags of a sparse array are moved into a dense array once enough elements are tagged and that no
+     * tags are lost when this happens. */
+    @Test
+    public void testPromotionToDense() {
+        TaggedReferenceArray array = new TaggedReferenceArray(new Object[256]);
+        Taint[] expected = new Taint[256];
+        for(int i = 255; i >= 0 && array.taints == null; i -= 3) {
+            expected[i] = Taint.withLabel(i);
+            array.setTaint(i, expected[i]);
+        }
+        assertNotNull(array.taints);
+        for(int i = 0; i < expected.length; i++) {
+            if(expected[i] == null) {
+                assertTrue(array.getTaintOrEmpty(i) == null || array.getTaintOrEmpty(i).isEmpty());
+            } else {
+                assertSame(expected[i], array.getTaintOrEmpty(i));
+            }
+        }
+        assertTrue(array.mayContainTaint());
+    }
+
+    /* Checks that tagging a short range of a large array keeps its tags sparse. */
+    @Test
+    public void testSetTaintsRangeSparse() {
+        TaggedReferenceArray array = new TaggedReferenceArray(new Object[1024]);
+        Taint a = Taint.withLabel("a");
+        array.setTaints(10, 14, a);
+        assertNull(array.taints);
+        assertSame(a, array.getTaintOrEmpty(13));
+        assertTrue(array.getTaintOrEmpty(14).isEmpty());
+        array.setTaints(10, 14, Taint.emptyTaint());
+        assertFalse(array.mayContainTaint());
+    }
+
+    /* Checks that ensureTaints returns the dense tags of an array without waiting for its lock and that it moves sparse
+     * tags into a dense array. */
+    @Test(timeout = 10000)
+    public void testEnsureTaintsDenseDoesNotLock() throws Exception {
+        final TaggedReferenceArray array = new TaggedReferenceArray(new Object[1024]);
+        Taint a = Taint.withLabel("a");
+        array.set(700, "x", a);
+        Taint[] dense = array.ensureTaints();
+        assertSame(a, dense[700]);
+        assertTrue(array.mayContainTaint());
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread holder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                synchronized(array) {
+                    locked.countDown();
+                    try {
+                        done.await();
+                    } catch(InterruptedException e) {
+                        // Release the lock
+                    }
+                }
+            }
+        });
+        holder.start();
+        locked.await();
+        try {
+            assertSame(dense, array.ensureTaints());
+        } finally {
+            done.countDown();
+            holder.join();
+        }
+    }
+
+    /* Checks that small arrays keep storing their tags densely. */
+    @Test
+    public void testSmallArrayStoredDensely() {
+        TaggedReferenceArray array = new TaggedReferenceArray(new Object[4]);
+        array.set(1, "x", Taint.withLabel("a"));
+        assertNotNull(array.taints);
+        assertTrue(array.mayContainTaint());
+    }
+
+    /* Checks that a clone of a sparse array has the same tags and does not share them with the original. */
+    @Test
+    public void testCloneSparse() {
+        TaggedReferenceArray array = new TaggedReferenceArray(new Object[512]);
+        Taint a = Taint.withLabel("a");
+        array.setTaint(100, a);
+        TaggedReferenceArray copy = (TaggedReferenceArray) array.clone();
+        assertSame(a, copy.getTaintOrEmpty(100));
+        copy.setTaint(100, Taint.emptyTaint());
+        copy.setTaint(200, a);
+        assertSame(a, array.getTaintOrEmpty(100));
+        assertTrue(array.getTaintOrEmpty(200).isEmpty());
+    }
+
+    /* Checks that copying a range of a sparse array into a fresh array moves the tags with their elements and keeps
+     * the destination sparse. */
+    @Test
+    public void testArraycopySparseToUntainted() {
+        TaggedReferenceArray src = new TaggedReferenceArray(new Object[100]);
+        TaggedReferenceArray dest = new TaggedReferenceArray(new Object[200]);
+        Taint a = Taint.withLabel("a");
+        src.set(5, "x", a);
+        src.set(50, "y", a);
+        TaintUtils.arraycopy(src, 10, dest, 0, 90);
+        assertNull(dest.taints);
+        assertSame(a, dest.getTaintOrEmpty(40));
+        assertTrue(dest.getTaintOrEmpty(50).isEmpty());
+        assertTrue(dest.mayContainTaint());
+    }
+
+    /* Checks that copying clean elements over tagged elements of a sparse array clears their tags. */
+    @Test
+    public void testArraycopyOverwritesSparseTags() {
+        TaggedReferenceArray src = new TaggedReferenceArray(new Object[100]);
+        TaggedReferenceArray dest = new TaggedReferenceArray(new Object[100]);
+        src.setTaint(99, Taint.withLabel("b"));
+        dest.setTaint(10, Taint.withLabel("a"));
+        dest.setTaint(60, Taint.withLabel("a"));
+        TaintUtils.arraycopy(src, 0, dest, 0, 50);
+        assertTrue(dest.getTaintOrEmpty(10).isEmpty());
+        assertTrue(dest.getTaintOrEmpty(60).containsOnlyLabels(new Object[]{"a"}));
+    }
+
+    /* Checks that shifting the elements of a sparse array within itself, as ArrayList does on insertion and removal,
+     * shifts their tags. */
+    @Test
+    public void testArraycopyOverlapping() {
+        TaggedReferenceArray array = new TaggedReferenceArray(new Object[64]);
+        Taint a = Taint.withLabel("a");
+        Taint b = Taint.withLabel("b");
+        array.setTaint(0, a);
+        array.setTaint(1, b);
+        TaintUtils.arraycopy(array, 0, array, 1, 63);
+        assertTrue(array.getTaintOrEmpty(0).containsOnlyLabels(new Object[]{"a"}));
+        assertSame(a, array.getTaintOrEmpty(1));
+        assertSame(b, array.getTaintOrEmpty(2));
+        TaintUtils.arraycopy(array, 2, array, 0, 62);
+        assertSame(b, array.getTaintOrEmpty(0));
+        assertTrue(array.getTaintOrEmpty(1).isEmpty());
+        assertTrue(array.getTaintOrEmpty(2).isEmpty());
+    }
+
+    /* Checks that copying between a dense array and a sparse array preserves tags in both directions. */
+    @Test
+    public void testArraycopyBetweenDenseAndSparse() {
+        Taint a = Taint.withLabel("a");
+        TaggedReferenceArray dense = new TaggedReferenceArray(new Object[64], new Taint[64]);
+        dense.setTaint(7, a);
+        TaggedReferenceArray sparse = new TaggedReferenceArray(new Object[64]);
+        TaintUtils.arraycopy(dense, 0, sparse, 0, 64);
+        assertNull(sparse.taints);
+        assertSame(a, sparse.getTaintOrEmpty(7));
+        sparse.setTaint(8, a);
+        TaintUtils.arraycopy(sparse, 0, dense, 0, 64);
+        assertSame(a, dense.taints[7]);
+        assertSame(a, dense.taints[8]);
+    }
+
+    /* Checks that the tags of a sparse array are preserved when the array is serialized and deserialized. */
+    @Test
+    public void testSerializationOfSparseArray() throws Exception {
+        TaggedReferenceArray array = new TaggedReferenceArray(new Object[128]);
+        Taint a = Taint.withLabel("a");
+        array.set(64, "x", a);
+        TaggedReferenceArray copy;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(array);
+        }
+        try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (TaggedReferenceArray) in.readObject();
+        }
+        assertEquals("x", copy.val[64]);
+        assertTrue(copy.getTaintOrEmpty(64).containsOnlyLabels(new Object[]{"a"}));
+        assertTrue(copy.getTaintOrEmpty(63) == null || copy.getTaintOrEmpty(63).isEmpty());
+    }
+
+    /* Checks that no tags are lost when several threads tag distinct elements of sparse arrays concurrently, including
+     * while their tags are moved into dense arrays. */
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        final int threads = 4;
+        final int rounds = 500;
+        final int length = 1024;
+        final TaggedReferenceArray[] arrays = new TaggedReferenceArray[rounds];
+        for(int r = 0; r < rounds; r++) {
+            arrays[r] = new TaggedReferenceArray(new Object[length]);
+        }
+        final Taint[] expected = new Taint[length];
+        for(int i = 0; i < length; i += 8) {
+            expected[i] = Taint.withLabel(i);
+        }
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        final Throwable[] failure = new Throwable[1];
+        Thread[] writers = new Thread[threads];
+        for(int t = 0; t < threads; t++) {
+            final int offset = t * 8;
+            writers[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for(TaggedReferenceArray array : arrays) {
+                            barrier.await();
+                            for(int i = offset; i < length; i += threads * 8) {
+                                array.set(i, "x", expected[i]);
+                            }
+                        }
+                    } catch(Throwable e) {
+                        synchronized(failure) {
+                            if(failure[0] == null) {
+                                failure[0] = e;
+                            }
+                        }
+                        // Releases the other writers
+                        barrier.reset();
+                    }
+                }
+            };
+            writers[t].start();
+        }
+        for(Thread writer : writers) {
+            writer.join();
+        }
+        assertNull(failure[0]);
+        for(TaggedReferenceArray array : arrays) {
+            for(int i = 0; i < length; i++) {
+                if(expected[i] == null) {
+                    assertTrue(array.getTaintOrEmpty(i) == null || array.getTaintOrEmpty(i).isEmpty());
+                } else {
+                    assertSame(expected[i], array.getTaintOrEmpty(i));
+                }
+            }
+        }
+    }
+}
@@ -4,6 +4,8 @@ import edu.columbia.cs.psl.phosphor.runtime.Taint;
 import org.junit.Test;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 @SuppressWarnings("unchecked")
@@ -83,4 +85,30 @@ public abstract class TaintTest {
         assertTrue(t.isSuperset(t2));
         assertFalse(t2.isSuperset(t));
     }
+
+    /* Checks that combineOperandTags returns the same tag as combineTags for every pairing of null, empty, identical,
+     * and distinct tags. */
+    @Test
+    public void testCombineOperandTagsMatchesCombineTags() {
+        Taint[] tags = new Taint[]{null, Taint.emptyTaint(), Taint.withLabel(1), Taint.withLabel(2),
+                Taint.withLabel(1).union(Taint.withLabel(2))};
+        for(Taint t1 : tags) {
+            for(Taint t2 : tags) {
+                assertSame(Taint.combineTags(t1, t2), Taint.combineOperandTags(t1, t2));
+            }
+        }
+    }
+
+    /* Checks that combining a clean operand with a tainted one returns the tainted operand itself, whichever side the
+     * clean operand is on. */
+    @Test
+    public void testCombineOperandTagsWithEmptyOperand() {
+        Taint tainted = Taint.withLabel(1);
+        Taint empty = Taint.emptyTaint();
+        assertSame(tainted, Taint.combineOperandTags(empty, tainted));
+        assertSame(tainted, Taint.combineOperandTags(tainted, empty));
+        assertSame(tainted, Taint.combineOperandTags(null, tainted));
+        assertSame(empty, Taint.combineOperandTags(empty, null));
+        assertNull(Taint.combineOperandTags(null, empty));
+    }
 }
@@ -0,0 +1,138 @@
+package edu.columbia.cs.psl.phosphor.struct;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class WeakIdentityHashMapTest {
+
+    /* Checks that keys are compared by identity instead of equality. */
+    @Test
+    public void testKeysAreComparedByIdentity() {
+        WeakIdentityHashMap<String, Integer> map = new WeakIdentityHashMap<>();
+        String key1 = new String("key");
+        String key2 = new String("key");
+        map.put(key1, 1);
+        assertTrue(map.containsKey(key1));
+        assertFalse(map.containsKey(key2));
+        assertNull(map.get(key2));
+        map.put(key2, 2);
+        assertEquals(Integer.valueOf(1), map.get(key1));
+        assertEquals(Integer.valueOf(2), map.get(key2));
+        assertEquals(2, map.size());
+        assertEquals(2, map.keySet().size());
+    }
+
+    /* Checks that put replaces and returns the previous value for a key and that remove removes only that key. */
+    @Test
+    public void testPutReplaceAndRemove() {
+        WeakIdentityHashMap<Object, String> map = new WeakIdentityHashMap<>();
+        Object key = new Object();
+        Object other = new Object();
+        assertNull(map.put(key, "a"));
+        assertEquals("a", map.put(key, "b"));
+        map.put(other, "c");
+        assertEquals("b", map.remove(key));
+        assertNull(map.remove(key));
+        assertFalse(map.containsKey(key));
+        assertEquals("c", map.get(other));
+        assertTrue(map.containsValue("c"));
+        assertFalse(map.containsValue("b"));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(other));
+    }
+
+    /* Checks that a null key is rejected by put and is never contained in the map. */
+    @Test
+    public void testNullKeys() {
+        WeakIdentityHashMap<Object, Object> map = new WeakIdentityHashMap<>();
+        assertNull(map.get(null));
+        assertFalse(map.containsKey(null));
+        assertNull(map.remove(null));
+        try {
+            map.put(null, "value");
+            fail("Expected an IllegalArgumentException");
+        } catch(IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /* Checks that entries remain reachable after segments are resized. */
+    @Test
+    public void testManyEntries() {
+        WeakIdentityHashMap<Object, Integer> map = new WeakIdentityHashMap<>();
+        List<Object> keys = new ArrayList<>();
+        for(int i = 0; i < 10_000; i++) {
+            Object key = new Object();
+            keys.add(key);
+            map.put(key, i);
+        }
+        assertEquals(keys.size(), map.size());
+        assertEquals(keys.size(), map.values().size());
+        for(int i = 0; i < keys.size(); i++) {
+            assertEquals(Integer.valueOf(i), map.get(keys.get(i)));
+        }
+    }
+
+    /* Checks that entries put concurrently by many threads can all be read back. */
+    @Test
+    public void testConcurrentPutAndGet() throws InterruptedException {
+        final WeakIdentityHashMap<Object, Integer> map = new WeakIdentityHashMap<>();
+        final int numberOfThreads = 8;
+        final int entriesPerThread = 5_000;
+        final Object[][] keys = new Object[numberOfThreads][entriesPerThread];
+        final boolean[] failed = new boolean[numberOfThreads];
+        Thread[] threads = new Thread[numberOfThreads];
+        for(int t = 0; t < numberOfThreads; t++) {
+            final int thread = t;
+            threads[t] = new Thread(() -> {
+                for(int i = 0; i < entriesPerThread; i++) {
+                    keys[thread][i] = new Object();
+                    map.put(keys[thread][i], i);
+                    if(!Integer.valueOf(i).equals(map.get(keys[thread][i]))) {
+                        failed[thread] = true;
+                    }
+                    if(i % 2 == 1) {
+                        map.remove(keys[thread][i - 1]);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        for(int t = 0; t < numberOfThreads; t++) {
+            assertFalse(failed[t]);
+            for(int i = 0; i < entriesPerThread; i++) {
+                assertEquals(i % 2 == 1 ? Integer.valueOf(i) : null, map.get(keys[t][i]));
+            }
+        }
+        assertEquals(numberOfThreads * entriesPerThread / 2, map.size());
+    }
+
+    /* Checks that a map's entries are preserved when the map is serialized. */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        WeakIdentityHashMap<String, Integer> map = new WeakIdentityHashMap<>();
+        String key = "key";
+        map.put(key, 7);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new Object[]{key, map});
+        }
+        Object[] result;
+        try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            result = (Object[]) in.readObject();
+        }
+        WeakIdentityHashMap<String, Integer> copy = (WeakIdentityHashMap<String, Integer>) result[1];
+        assertEquals(1, copy.size());
+        assertEquals(Integer.valueOf(7), copy.get((String) result[0]));
+    }
+}
@@ -0,0 +1,68 @@
+package edu.columbia.cs.psl.test.phopshor;
+
+@SuppressWarnings("unused")
+public class ShadowTaintLivenessTestMethods {
+
+    public static int loop(int[] values) {
+        int sum = 0;
+        for(int i = 0; i < values.length; i++) {
+            sum += values[i] * 31;
+        }
+        return sum;
+    }
+
+    public static long overwrite(long a, double b) {
+        long x = a + 1;
+        x = a * 2;
+        double y = b / 3;
+        if(y > 0) {
+            x += (long) y;
+        }
+        return x;
+    }
+
+    public static int exceptional(int[] values, int index) {
+        int result = -1;
+        try {
+            result = values[index];
+            index++;
+        } catch(ArrayIndexOutOfBoundsException e) {
+            result = index;
+        } finally {
+            index--;
+        }
+        return result + index;
+    }
+
+    public static String branches(int x, String s) {
+        switch(x) {
+            case 0:
+                return s;
+            case 1:
+                x = s.length();
+                break;
+            default:
+                x = x * x;
+        }
+        return s + x;
+    }
+
+    public static int select(int x, int y) {
+        int result;
+        switch(x) {
+            case 0:
+                return y;
+            case 1:
+                result = y * 2;
+                break;
+            default:
+                result = x;
+        }
+        if(result > 10) {
+            result -= y;
+        } else {
+            result = 7;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package edu.columbia.cs.psl.test.phosphor;
+
+import edu.columbia.cs.psl.phosphor.org.objectweb.asm.ClassWriter;
+import edu.columbia.cs.psl.phosphor.org.objectweb.asm.Handle;
+import edu.columbia.cs.psl.phosphor.org.objectweb.asm.MethodVisitor;
+import edu.columbia.cs.psl.phosphor.org.objectweb.asm.Opcodes;
+import edu.columbia.cs.psl.phosphor.org.objectweb.asm.Type;
+import edu.columbia.cs.psl.phosphor.runtime.MultiTainter;
+import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/* Runs with the stringConcat option. The test classes are compiled for Java 8 and concatenate strings with
+ * StringBuilder, so the invokedynamic concatenation is generated at runtime. */
+public class StringConcatBootstrapITCase extends BasePhosphorTest {
+
+	private static final String OWNER = "edu/columbia/cs/psl/test/phosphor/GeneratedIndyConcat";
+
+	public interface IntConcat {
+		String concat(String s, int i);
+	}
+
+	@Test
+	public void testIndyConcatStringInt() throws Exception {
+		checkConcatStringInt(generateConcat("makeConcatWithConstants"));
+	}
+
+	@Test
+	public void testIndyConcatStringIntWithoutRecipe() throws Exception {
+		checkConcatStringInt(generateConcat("makeConcat"));
+	}
+
+	private static void checkConcatStringInt(IntConcat concat) {
+		String s = new String("abc");
+		int val = 98;
+
+		MultiTainter.taintedObject(s, Taint.withLabel("string"));
+		val = MultiTainter.taintedInt(val, "int");
+
+		String concatenated = concat.concat(s, val);
+		assertEquals("abc98", concatenated);
+
+		for (int i = 0; i < concatenated.length(); i++) {
+			Taint ct = MultiTainter.getTaint(concatenated.charAt(i));
+			if (i < 3) {
+				assertEquals("string", ct.getLabels()[0]);
+			} else {
+				assertEquals("int", ct.getLabels()[0]);
+			}
+		}
+	}
+
+	/* Generates an implementation of IntConcat whose method concatenates its arguments with an invokedynamic
+	 * instruction bootstrapped by the specified method of StringConcatFactory, as javac does for Java 9+. */
+	private static IntConcat generateConcat(String bootstrapName) throws Exception {
+		Assume.assumeFalse(System.getProperty("java.version").startsWith("1."));
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V9, Opcodes.ACC_PUBLIC, OWNER, null, "java/lang/Object",
+				new String[]{Type.getInternalName(IntConcat.class)});
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "concat", "(Ljava/lang/String;I)Ljava/lang/String;", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 1);
+		mv.visitVarInsn(Opcodes.ILOAD, 2);
+		boolean withRecipe = bootstrapName.equals("makeConcatWithConstants");
+		String bootstrapDesc = "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;"
+				+ (withRecipe ? "Ljava/lang/String;[Ljava/lang/Object;" : "") + ")Ljava/lang/invoke/CallSite;";
+		Handle bootstrap = new Handle(Opcodes.H_INVOKESTATIC, "java/lang/invoke/StringConcatFactory", bootstrapName,
+				bootstrapDesc, false);
+		Object[] bootstrapArgs = withRecipe ? new Object[]{"\u0001\u0001"} : new Object[0];
+		mv.visitInvokeDynamicInsn(bootstrapName, "(Ljava/lang/String;I)Ljava/lang/String;", bootstrap,
+				bootstrapArgs);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		cw.visitEnd();
+		final byte[] classFile = cw.toByteArray();
+		ClassLoader loader = new ClassLoader(StringConcatBootstrapITCase.class.getClassLoader()) {
+			@Override
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				if (name.equals(OWNER.replace('/', '.'))) {
+					return defineClass(name, classFile, 0, classFile.length);
+				}
+				throw new ClassNotFoundException(name);
+			}
+		};
+		return (IntConcat) loader.loadClass(OWNER.replace('/', '.')).newInstance();
+	}
+}
@@ -8,15 +8,35 @@ import jdk.tools.jlink.plugin.ResourcePoolEntry;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class InstrumentJLinkPlugin implements Plugin {
     public static final Set<String> seenClasses = new HashSet<>();
+    /**
+     * Maximum number of classes per worker thread that are instrumented ahead of jlink's traversal of the pool
+     */
+    private static final int CLASSES_AHEAD_PER_THREAD = 16;
     private Instrumentation instrumentation;
     private ResourcePoolPacker packer;
+    private ExecutorService executor;
+    /**
+     * Class entries of the pool, in the pool's order, that have not yet been submitted to the executor
+     */
+    private Iterator<ResourcePoolEntry> unsubmitted;
+    /**
+     * Maps the paths of submitted class entries to their pending instrumented bytes
+     */
+    private final Map<String, Future<byte[]>> submitted = new HashMap<>();
+    private int maxSubmitted;
 
     @Override
     public String getName() {
@@ -52,10 +72,62 @@ public class InstrumentJLinkPlugin implements Plugin {
     @Override
     public ResourcePool transform(ResourcePool pool, ResourcePoolBuilder out) {
         packer = new ResourcePoolPacker(instrumentation, pool, out);
-        pool.transformAndCopy(this::transform, out);
+        // Classes are instrumented by the worker threads in the order that transformAndCopy visits them, a bounded
+        // number of entries ahead; results are still added to the output on this thread in the pool's order
+        int threads = Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "phosphor-instrument");
+            thread.setDaemon(true);
+            return thread;
+        });
+        unsubmitted = pool.entries().filter(InstrumentJLinkPlugin::isInstrumentedClass).iterator();
+        maxSubmitted = threads * CLASSES_AHEAD_PER_THREAD;
+        try {
+            submitClasses();
+            pool.transformAndCopy(this::transform, out);
+        } finally {
+            executor.shutdownNow();
+            submitted.clear();
+        }
         return out.build();
     }
 
+    private void submitClasses() {
+        while (submitted.size() < maxSubmitted && unsubmitted.hasNext()) {
+            ResourcePoolEntry entry = unsubmitted.next();
+            submitted.put(entry.path(), executor.submit(() -> instrumentation.apply(entry.contentBytes())));
+        }
+    }
+
+    private byte[] instrument(ResourcePoolEntry entry) {
+        Future<byte[]> future = submitted.remove(entry.path());
+        submitClasses();
+        if (future == null) {
+            // Not reached by the workers; only expected if the pool's entries are visited in a different order
+            return instrumentation.apply(entry.contentBytes());
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while instrumenting: " + entry.path(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException("Failed to instrument: " + entry.path(), cause);
+        }
+    }
+
+    private static boolean isInstrumentedClass(ResourcePoolEntry entry) {
+        return entry.type().equals(ResourcePoolEntry.Type.CLASS_OR_RESOURCE)
+                && entry.path().endsWith(".class")
+                && !entry.path().endsWith("module-info.class");
+    }
+
     private ResourcePoolEntry transform(ResourcePoolEntry entry) {
         if (entry.type().equals(ResourcePoolEntry.Type.CLASS_OR_RESOURCE)
                 && entry.path().endsWith(".class")) {
@@ -66,7 +138,7 @@ public class InstrumentJLinkPlugin implements Plugin {
                     return packer.pack(entry);
                 }
             } else {
-                byte[] instrumented = instrumentation.apply(entry.contentBytes());
+                byte[] instrumented = instrument(entry);
                 return instrumented == null ? entry : entry.copyWithContent(instrumented);
             }
         }
@@ -0,0 +1,147 @@
+package edu.columbia.cs.psl.phosphor.driver;
+
+import edu.columbia.cs.psl.phosphor.agent.InstrumentUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dumps a default class data sharing (CDS) archive into an instrumented Java installation.
+ * The archive shipped with the original installation does not match the instrumented classes and is not used, so
+ * without a new archive every instrumented class is parsed and verified each time the JVM starts.
+ * <p>
+ * The archive is created with a static dump ({@code -Xshare:dump}) so that it is picked up by every JVM started from
+ * the installation without any additional options. If training arguments are provided, the JVM is first run with them
+ * to record the classes that they load; the archive then contains those classes instead of the default class list.
+ * <p>
+ * Each JVM run is limited by a timeout, after which it is destroyed and its output is reported.
+ * This class is not exposed as an instrumentation option since dumping an archive for a fully instrumented Java
+ * installation has not yet been shown to finish and the resulting archive to load.
+ */
+public final class SharedArchiveGenerator {
+    /**
+     * Name of the file in the lib directory of the Java installation to which the classes loaded by the training run
+     * are written.
+     */
+    private static final String CLASS_LIST_NAME = "phosphor.classlist";
+    /**
+     * Maximum number of lines of a failed run's output included in the exception thrown for it.
+     */
+    private static final int MAX_OUTPUT_LINES = 50;
+
+    private SharedArchiveGenerator() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Creates a default CDS archive for the specified Java installation, replacing any existing default archive.
+     *
+     * @param javaHome          the Java installation
+     * @param trainingArguments arguments for a training run of the JVM used to choose the archived classes or an
+     *                          empty list if the default class list of the installation should be used
+     * @param timeout           the maximum time to wait for each JVM run
+     * @param unit              the unit of the timeout
+     * @param verbose           true if the commands run and their output should be logged
+     * @return the time taken in milliseconds
+     * @throws IOException if the archive could not be created or a JVM run did not finish before the timeout
+     */
+    public static long generate(File javaHome, List<String> trainingArguments, long timeout, TimeUnit unit,
+                                boolean verbose) throws IOException {
+        if (!InstrumentUtil.isJavaHome(javaHome)) {
+            throw new IllegalArgumentException("Expected Java installation at: " + javaHome);
+        }
+        long startTime = System.currentTimeMillis();
+        delete(javaHome);
+        List<String> dumpCommand = new ArrayList<>();
+        dumpCommand.add(InstrumentUtil.javaHomeToJavaExec(javaHome).getAbsolutePath());
+        if (!trainingArguments.isEmpty()) {
+            File classList = getClassList(javaHome);
+            List<String> trainingCommand = new ArrayList<>();
+            trainingCommand.add(InstrumentUtil.javaHomeToJavaExec(javaHome).getAbsolutePath());
+            trainingCommand.add("-Xshare:off");
+            trainingCommand.add("-XX:DumpLoadedClassList=" + classList.getAbsolutePath());
+            trainingCommand.addAll(trainingArguments);
+            run(trainingCommand, timeout, unit, verbose, "Training run for shared archive failed");
+            if (!classList.isFile()) {
+                throw new IOException("Training run did not produce a class list: " + classList);
+            }
+            dumpCommand.add("-XX:SharedClassListFile=" + classList.getAbsolutePath());
+        }
+        dumpCommand.add("-Xshare:dump");
+        run(dumpCommand, timeout, unit, verbose, "Failed to dump shared archive");
+        return System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Deletes the default CDS archives and the training class list from the specified Java installation.
+     *
+     * @param javaHome the Java installation
+     * @throws IOException if a file could not be deleted
+     */
+    public static void delete(File javaHome) throws IOException {
+        InstrumentUtil.deleteFile(getClassList(javaHome));
+        for (File vmDirectory : listFiles(new File(javaHome, "lib"))) {
+            if (vmDirectory.isDirectory()) {
+                for (File file : listFiles(vmDirectory)) {
+                    if (file.getName().startsWith("classes") && file.getName().endsWith(".jsa")) {
+                        InstrumentUtil.deleteFile(file);
+                    }
+                }
+            }
+        }
+    }
+
+    private static File getClassList(File javaHome) {
+        return new File(new File(javaHome, "lib"), CLASS_LIST_NAME);
+    }
+
+    private static File[] listFiles(File directory) {
+        return directory.isDirectory() ? Objects.requireNonNull(directory.listFiles()) : new File[0];
+    }
+
+    private static void run(List<String> command, long timeout, TimeUnit unit, boolean verbose, String message)
+            throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(command);
+        if (verbose) {
+            System.out.println(String.join(" ", builder.command()));
+        }
+        File log = InstrumentUtil.createTemporaryFile("phosphor-cds", ".log");
+        try {
+            Process process = builder.redirectErrorStream(true).redirectOutput(log).start();
+            try {
+                if (!process.waitFor(timeout, unit)) {
+                    process.destroyForcibly().waitFor();
+                    throw new IOException(String.format("%s: timed out after %d %s%n%s", message, timeout,
+                            unit.toString().toLowerCase(), readOutput(log)));
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new IOException(message, e);
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException(String.format("%s: exit code %d%n%s", message, process.exitValue(),
+                        readOutput(log)));
+            }
+            if (verbose) {
+                System.out.println(readOutput(log));
+            }
+        } finally {
+            InstrumentUtil.deleteFile(log);
+        }
+    }
+
+    /**
+     * @return the last lines of the specified output of a run
+     */
+    private static String readOutput(File log) throws IOException {
+        String[] lines = new String(InstrumentUtil.readAllBytes(log)).split("\\R");
+        int start = Math.max(0, lines.length - MAX_OUTPUT_LINES);
+        return String.join(System.lineSeparator(), Arrays.asList(lines).subList(start, lines.length));
+    }
+}
@@ -0,0 +1,143 @@
+package edu.columbia.cs.psl.phosphor.plugin;
+
+import edu.columbia.cs.psl.phosphor.agent.InstrumentUtil;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Properties;
+
+/**
+ * Computes checksums of files and memoizes them in a small index file keyed by each file's absolute path, size, and
+ * last modified time.
+ * Files are digested by streaming them through a fixed size buffer, so a file is never held in memory, and a file is
+ * only read if it changed since its checksum was last recorded.
+ */
+final class ChecksumIndex {
+    private static final String ALGORITHM = "MD5";
+
+    /**
+     * File in which checksums are memoized or null if checksums should not be memoized.
+     */
+    private final File indexFile;
+    /**
+     * Memoized checksums; values are of the form "size:lastModified:hexDigest".
+     * <p>
+     * Non-null.
+     */
+    private final Properties entries = new Properties();
+    /**
+     * True if {@link #entries} differs from the contents of {@link #indexFile}.
+     */
+    private boolean modified = false;
+
+    ChecksumIndex(File indexFile) {
+        this.indexFile = indexFile;
+        if (indexFile != null && indexFile.isFile()) {
+            try (Reader reader = new FileReader(indexFile)) {
+                entries.load(reader);
+            } catch (IOException | IllegalArgumentException e) {
+                // A damaged index only means that the files are digested again
+                entries.clear();
+            }
+        }
+    }
+
+    /**
+     * @return a checksum of the contents of the specified files in the specified order; directories and files that
+     * do not exist are skipped
+     * @throws IOException if a file could not be read
+     */
+    byte[] checksum(Collection<File> files) throws IOException {
+        MessageDigest combined = createDigest();
+        for (File file : files) {
+            if (file.isFile()) {
+                combined.update(checksum(file));
+            }
+        }
+        return combined.digest();
+    }
+
+    /**
+     * Writes the memoized checksums to the index file if they changed.
+     * The index file is replaced atomically so that concurrent builds never read a partially written index.
+     *
+     * @throws IOException if the index file could not be written
+     */
+    void save() throws IOException {
+        if (indexFile == null || !modified) {
+            return;
+        }
+        File parent = indexFile.getAbsoluteFile().getParentFile();
+        InstrumentUtil.ensureDirectory(parent);
+        File temp = File.createTempFile(indexFile.getName(), ".tmp", parent);
+        try {
+            try (Writer writer = new FileWriter(temp)) {
+                entries.store(writer, null);
+            }
+            Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            InstrumentUtil.deleteFile(temp);
+        }
+        modified = false;
+    }
+
+    private byte[] checksum(File file) throws IOException {
+        String key = file.getAbsolutePath();
+        String prefix = file.length() + ":" + file.lastModified() + ":";
+        String entry = entries.getProperty(key);
+        if (entry != null && entry.startsWith(prefix)) {
+            byte[] digest = fromHex(entry.substring(prefix.length()));
+            if (digest != null) {
+                return digest;
+            }
+        }
+        MessageDigest digest = createDigest();
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            for (int len; (len = in.read(buffer)) != -1; ) {
+                digest.update(buffer, 0, len);
+            }
+        }
+        byte[] result = digest.digest();
+        entries.setProperty(key, prefix + toHex(result));
+        modified = true;
+        return result;
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            return null;
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high == -1 || low == -1) {
+                return null;
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+}
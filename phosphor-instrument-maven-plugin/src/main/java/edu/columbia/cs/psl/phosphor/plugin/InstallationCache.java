@@ -0,0 +1,290 @@
+package edu.columbia.cs.psl.phosphor.plugin;
+
+import edu.columbia.cs.psl.phosphor.driver.DeletingFileVisitor;
+import edu.columbia.cs.psl.phosphor.agent.InstrumentUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Content-addressed store of instrumented Java installations that is shared between modules and builds.
+ * <p>
+ * Each installation is stored in a subdirectory of the cache directory named by its key.
+ * Access to an entry is guarded by a file lock on a sibling file named "key.lock" so that concurrent builds on the same
+ * machine create each entry only once.
+ * Because file locks are held on behalf of the entire JVM, a lock per key is also held within the JVM so that
+ * modules built in parallel by the same Maven process are serialized as well.
+ * The last modified time of an entry's directory records when the entry was last used; the least recently used
+ * entries are deleted once the cache holds more than its maximum number of entries.
+ * <p>
+ * An entry is never deleted while it is in use or linked:
+ * <ul>
+ *     <li>A build that uses an entry holds a shared file lock on a sibling file named "key.use" until its JVM exits.
+ *     <li>The symbolic links made to an entry are recorded in a sibling file named "key.links". An entry is kept as
+ *     long as one of them still points to it.
+ * </ul>
+ * When an entry is deleted, its lock file is retired by writing to it before it is deleted, so that builds that
+ * were waiting on the old lock file retry with a new one. Lock files whose entry no longer exists are deleted in the
+ * same way.
+ */
+final class InstallationCache {
+    private static final ConcurrentHashMap<String, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+    /**
+     * Shared locks on the "key.use" files of the entries used by this JVM, held until it exits.
+     */
+    private static final ConcurrentHashMap<String, FileLock> RETAINED = new ConcurrentHashMap<>();
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final String USE_SUFFIX = ".use";
+    private static final String LINKS_SUFFIX = ".links";
+
+    /**
+     * Directory in which entries are stored.
+     * <p>
+     * Non-null.
+     */
+    private final File directory;
+    /**
+     * Maximum number of entries retained after {@link #evict} is called.
+     */
+    private final int maxEntries;
+
+    InstallationCache(File directory, int maxEntries) {
+        if (directory == null) {
+            throw new NullPointerException();
+        }
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return the directory in which the installation for the specified key is stored
+     */
+    File getEntry(String key) {
+        return new File(directory, key);
+    }
+
+    /**
+     * Acquires exclusive access to the entry for the specified key, blocking until it is available.
+     *
+     * @throws IOException if the lock file could not be created or locked
+     */
+    EntryLock lock(String key) throws IOException {
+        InstrumentUtil.ensureDirectory(directory);
+        ReentrantLock threadLock = LOCKS.computeIfAbsent(key, k -> new ReentrantLock());
+        threadLock.lock();
+        try {
+            while (true) {
+                FileChannel channel = openLockFile(key);
+                try {
+                    FileLock fileLock = channel.lock();
+                    if (channel.size() == 0) {
+                        return new EntryLock(threadLock, channel, fileLock);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    channel.close();
+                    throw e;
+                }
+                // The lock file was retired by a build that deleted the entry
+                channel.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            threadLock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Marks the entry for the specified key as in use until this JVM exits.
+     * Must be called while holding the lock for the entry.
+     *
+     * @throws IOException if the entry's use file could not be created or locked
+     */
+    void retain(String key) throws IOException {
+        if (RETAINED.containsKey(key)) {
+            return;
+        }
+        FileChannel channel = FileChannel.open(getSibling(key, USE_SUFFIX), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            RETAINED.put(key, channel.lock(0, Long.MAX_VALUE, true));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Records that the specified symbolic link points to the entry for the specified key.
+     * Recorded links that no longer point to the entry are forgotten.
+     * Must be called while holding the lock for the entry.
+     *
+     * @throws IOException if the entry's links file could not be read or written
+     */
+    void recordLink(String key, Path link) throws IOException {
+        Set<String> links = new LinkedHashSet<>(readLiveLinks(key));
+        links.add(link.toAbsolutePath().toString());
+        Files.write(getSibling(key, LINKS_SUFFIX), links, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Records that the entry for the specified key was just used.
+     */
+    void markUsed(String key) {
+        // A failure only affects the order of eviction
+        getEntry(key).setLastModified(System.currentTimeMillis());
+    }
+
+    /**
+     * Deletes the least recently used entries until at most {@link #maxEntries} remain and deletes lock files whose
+     * entry no longer exists.
+     * The entry for the specified key and entries that are locked, in use, or linked are never deleted, so more than
+     * {@link #maxEntries} entries may remain.
+     *
+     * @return the entries that were deleted
+     * @throws IOException if an entry could not be deleted
+     */
+    List<File> evict(String retainedKey) throws IOException {
+        List<File> entries = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (file.isDirectory()) {
+                    if (!name.equals(retainedKey)) {
+                        entries.add(file);
+                    }
+                } else if (name.endsWith(LOCK_SUFFIX)) {
+                    String key = name.substring(0, name.length() - LOCK_SUFFIX.length());
+                    if (!key.equals(retainedKey) && !getEntry(key).exists()) {
+                        // Left behind by a build that failed or by a cache that did not delete lock files
+                        tryDelete(key);
+                    }
+                }
+            }
+        }
+        // Most recently used first
+        entries.sort(Comparator.comparingLong(File::lastModified).reversed());
+        List<File> evicted = new ArrayList<>();
+        for (int i = Math.max(0, maxEntries - 1); i < entries.size(); i++) {
+            if (tryDelete(entries.get(i).getName())) {
+                evicted.add(entries.get(i));
+            }
+        }
+        return evicted;
+    }
+
+    private boolean tryDelete(String key) throws IOException {
+        if (RETAINED.containsKey(key)) {
+            return false;
+        }
+        ReentrantLock threadLock = LOCKS.computeIfAbsent(key, k -> new ReentrantLock());
+        if (!threadLock.tryLock()) {
+            return false;
+        }
+        try (FileChannel channel = openLockFile(key); FileLock lock = channel.tryLock()) {
+            if (lock == null || channel.size() != 0 || isInUse(key) || !readLiveLinks(key).isEmpty()) {
+                return false;
+            }
+            File entry = getEntry(key);
+            if (entry.exists()) {
+                Files.walkFileTree(entry.toPath(), new DeletingFileVisitor());
+            }
+            Files.deleteIfExists(getSibling(key, USE_SUFFIX));
+            Files.deleteIfExists(getSibling(key, LINKS_SUFFIX));
+            // Retire the lock file before deleting it so that builds waiting on it do not use it
+            channel.write(ByteBuffer.wrap(new byte[]{1}));
+            Files.deleteIfExists(getSibling(key, LOCK_SUFFIX));
+            return true;
+        } finally {
+            threadLock.unlock();
+        }
+    }
+
+    /**
+     * @return true if a build in another JVM holds a shared lock on the use file of the entry for the specified key
+     */
+    private boolean isInUse(String key) throws IOException {
+        Path use = getSibling(key, USE_SUFFIX);
+        if (!Files.exists(use)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(use, StandardOpenOption.WRITE);
+             FileLock lock = channel.tryLock()) {
+            return lock == null;
+        }
+    }
+
+    /**
+     * @return the recorded symbolic links that still point to the entry for the specified key
+     */
+    private List<String> readLiveLinks(String key) throws IOException {
+        Path file = getSibling(key, LINKS_SUFFIX);
+        List<String> links = new ArrayList<>();
+        if (Files.exists(file)) {
+            Path target = getEntry(key).getAbsoluteFile().toPath();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (isLinkTo(Paths.get(line), target)) {
+                    links.add(line);
+                }
+            }
+        }
+        return links;
+    }
+
+    private static boolean isLinkTo(Path link, Path target) {
+        try {
+            return Files.isSymbolicLink(link) && Files.readSymbolicLink(link).equals(target);
+        } catch (IOException e) {
+            // The link was deleted after it was checked
+            return false;
+        }
+    }
+
+    private FileChannel openLockFile(String key) throws IOException {
+        return FileChannel.open(getSibling(key, LOCK_SUFFIX), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private Path getSibling(String key, String suffix) {
+        return new File(directory, key + suffix).toPath();
+    }
+
+    /**
+     * Exclusive access to an entry of the cache, released by {@link #close}.
+     */
+    static final class EntryLock implements AutoCloseable {
+        private final ReentrantLock threadLock;
+        private final FileChannel channel;
+        private final FileLock fileLock;
+
+        private EntryLock(ReentrantLock threadLock, FileChannel channel, FileLock fileLock) {
+            this.threadLock = threadLock;
+            this.channel = channel;
+            this.fileLock = fileLock;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                fileLock.release();
+                channel.close();
+            } finally {
+                threadLock.unlock();
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import edu.columbia.cs.psl.phosphor.driver.DeletingFileVisitor;
 import edu.columbia.cs.psl.phosphor.agent.InstrumentUtil;
 import edu.columbia.cs.psl.phosphor.driver.Instrumentation;
 import edu.columbia.cs.psl.phosphor.driver.Instrumenter;
+import edu.columbia.cs.psl.phosphor.driver.SharedArchiveGenerator;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -11,11 +12,11 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Properties;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Creates an instrumented Java installation (i.e., Java Development Kit or Java Runtime Environment).
@@ -39,6 +40,22 @@ import java.util.Properties;
  * An instance of the specified {@link InstrumentMojo#instrumentationType instrumentation class} is created and
  * configured using the specified {@link InstrumentMojo#options}.
  * This instance determines the type of instrumentation applied.
+ * <p>
+ * If {@link InstrumentMojo#sharedArchive} is {@code true}, a default class data sharing archive is dumped into the
+ * instrumented Java installation after it is created.
+ * If an existing instrumented Java installation does not need to be recreated, but was created with different
+ * shared archive settings, then only its shared archive is recreated or deleted.
+ * <p>
+ * If {@link InstrumentMojo#cacheDirectory} is specified, instrumented Java installations are instead stored in that
+ * directory under a key computed from the {@link InstrumentMojo#javaHome uninstrumented Java installation}, the
+ * {@link InstrumentMojo#instrumentationType}, the {@link InstrumentMojo#options}, the
+ * {@link InstrumentMojo#modules}, the shared archive settings, and the checksum of the instrumentation's class path.
+ * An installation is only created if the cache does not already contain one for the key, and
+ * {@link InstrumentMojo#outputDirectory} is made a symbolic link to it.
+ * Builds on the same machine that use the same cache directory, including concurrent ones, share the installations.
+ * The least recently used installations are deleted when the cache holds more than
+ * {@link InstrumentMojo#cacheSize} installations, except for installations that are in use by a running build or
+ * that an output directory still links to.
  *
  * @see Instrumentation
  */
@@ -98,6 +115,47 @@ public class InstrumentMojo extends AbstractMojo {
      */
     @Parameter(property = "phosphor.verbose", defaultValue = "false")
     private boolean verbose;
+    /**
+     * True if a default class data sharing archive should be dumped into the instrumented Java installation to
+     * reduce the startup time of JVMs run from it.
+     */
+    @Parameter(property = "phosphor.sharedArchive", defaultValue = "false")
+    private boolean sharedArchive;
+    /**
+     * Arguments for a training run of the instrumented JVM (e.g., "-cp", "app.jar", "com.example.Main").
+     * If specified, the shared archive contains the classes loaded during this run instead of the default class list
+     * of the Java installation.
+     * Used only if {@link InstrumentMojo#sharedArchive} is {@code true}.
+     */
+    @Parameter
+    private List<String> sharedArchiveTrainingArguments = new LinkedList<>();
+    /**
+     * Maximum number of seconds to wait for the training run and for the dump of the shared archive.
+     * Used only if {@link InstrumentMojo#sharedArchive} is {@code true}.
+     */
+    @Parameter(property = "phosphor.sharedArchiveTimeout", defaultValue = "600")
+    private long sharedArchiveTimeout;
+    /**
+     * Directory in which instrumented Java installations should be cached and shared between modules and builds.
+     * If not specified, then the instrumented Java installation is created directly in
+     * {@link InstrumentMojo#outputDirectory}.
+     */
+    @Parameter(property = "phosphor.cacheDirectory")
+    private File cacheDirectory;
+    /**
+     * Maximum number of instrumented Java installations retained in {@link InstrumentMojo#cacheDirectory}.
+     * Installations that are in use or linked to are retained even if this number is exceeded.
+     */
+    @Parameter(property = "phosphor.cacheSize", defaultValue = "4")
+    private int cacheSize;
+    /**
+     * File in which the checksums of the instrumentation's class path elements are memoized by path, size, and last
+     * modified time so that unchanged elements are not read on every build.
+     */
+    @Parameter(
+            property = "phosphor.checksumIndex",
+            defaultValue = "${project.build.directory}/phosphor/class-path-checksums.properties")
+    private File checksumIndex;
 
     /**
      * Creates an instrumented Java installation.
@@ -112,28 +170,148 @@ public class InstrumentMojo extends AbstractMojo {
         Instrumentation instance = createInstrumentation();
         byte[] checksum = computeChecksum(instance);
         String info = String.format("%s%n%s", javaHome.getAbsolutePath(), instrumentationType);
+        String archiveInfo = getSharedArchiveInfo();
+        if (cacheDirectory != null) {
+            executeWithCache(instance, checksum, info, archiveInfo);
+            return;
+        }
         MatchInfo match = new MatchInfo(outputDirectory);
         if (InstrumentUtil.isJavaHome(outputDirectory) && match.exists()) {
             if (!forceCreation && match.check(checksum, info, options)) {
                 getLog().info("Existing instrumented Java installation with correct settings found: "
                         + outputDirectory);
                 getLog().info("Skipping creation.");
+                if (!match.checkSharedArchive(archiveInfo)) {
+                    getLog().info("Existing shared archive did not have correct settings.");
+                    createSharedArchive(outputDirectory, archiveInfo, match);
+                }
             } else {
                 if (!forceCreation) {
                     getLog().info("Existing Java installation did not have correct settings.");
                 }
                 deleteExisting();
-                instrument(instance, checksum, info, match);
+                instrument(instance, outputDirectory, checksum, info, match);
+                createSharedArchive(outputDirectory, archiveInfo, match);
             }
         } else if (outputDirectory.exists()) {
             String message = "Failed to create instrumented Java installation."
                     + " %s already exists and is not an instrumented Java installation.";
             throw new MojoExecutionException(String.format(message, outputDirectory));
         } else {
-            instrument(instance, checksum, info, match);
+            instrument(instance, outputDirectory, checksum, info, match);
+            createSharedArchive(outputDirectory, archiveInfo, match);
         }
     }
 
+    private void executeWithCache(Instrumentation instance, byte[] checksum, String info, String archiveInfo)
+            throws MojoExecutionException {
+        InstallationCache cache = new InstallationCache(cacheDirectory, cacheSize);
+        String key = computeKey(checksum, info, archiveInfo);
+        File entry = cache.getEntry(key);
+        try (InstallationCache.EntryLock ignored = cache.lock(key)) {
+            MatchInfo match = new MatchInfo(entry);
+            if (!forceCreation && InstrumentUtil.isJavaHome(entry) && match.exists()
+                    && match.check(checksum, info, options)) {
+                getLog().info("Cached instrumented Java installation with correct settings found: " + entry);
+            } else {
+                if (entry.exists()) {
+                    // Left behind by a build that failed or was interrupted
+                    Files.walkFileTree(entry.toPath(), new DeletingFileVisitor());
+                }
+                instrument(instance, entry, checksum, info, match);
+            }
+            if (!match.checkSharedArchive(archiveInfo)) {
+                createSharedArchive(entry, archiveInfo, match);
+            }
+            cache.markUsed(key);
+            cache.retain(key);
+            linkOutputDirectory(entry);
+            cache.recordLink(key, outputDirectory.toPath());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to access instrumented Java installation cache", e);
+        }
+        try {
+            for (File evicted : cache.evict(key)) {
+                getLog().info("Deleted least recently used Java installation from cache: " + evicted);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to delete Java installations from cache", e);
+        }
+    }
+
+    /**
+     * @return the name of the cache entry for the specified settings
+     */
+    private String computeKey(byte[] checksum, String info, String archiveInfo) {
+        StringBuilder builder = new StringBuilder(info).append('\n').append(modules).append('\n').append(archiveInfo);
+        for (String name : new TreeSet<>(options.stringPropertyNames())) {
+            builder.append('\n').append(name).append('=').append(options.getProperty(name));
+        }
+        byte[] settings = builder.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] input = Arrays.copyOf(checksum, checksum.length + settings.length);
+        System.arraycopy(settings, 0, input, checksum.length, settings.length);
+        return ChecksumIndex.toHex(InstrumentUtil.checksum(input));
+    }
+
+    /**
+     * Makes {@link InstrumentMojo#outputDirectory} a symbolic link to the specified cached Java installation.
+     */
+    private void linkOutputDirectory(File entry) throws MojoExecutionException {
+        Path link = outputDirectory.toPath();
+        Path target = entry.getAbsoluteFile().toPath();
+        try {
+            if (Files.isSymbolicLink(link)) {
+                if (Files.readSymbolicLink(link).equals(target)) {
+                    return;
+                }
+                Files.delete(link);
+                deleteLinkedCaches();
+            } else if (InstrumentUtil.isJavaHome(outputDirectory) && new MatchInfo(outputDirectory).exists()) {
+                deleteExisting();
+            } else if (outputDirectory.exists()) {
+                String message = "Failed to link instrumented Java installation."
+                        + " %s already exists and is not an instrumented Java installation.";
+                throw new MojoExecutionException(String.format(message, outputDirectory));
+            }
+            InstrumentUtil.ensureDirectory(outputDirectory.getAbsoluteFile().getParentFile());
+            Files.createSymbolicLink(link, target);
+            getLog().info("Linked " + outputDirectory + " to cached Java installation: " + entry);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to link cached Java installation to " + outputDirectory, e);
+        }
+    }
+
+    /**
+     * @return a description of the shared archive settings or the empty string if no shared archive should be created
+     */
+    private String getSharedArchiveInfo() {
+        if (!sharedArchive) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder("-Xshare:dump");
+        for (String argument : sharedArchiveTrainingArguments) {
+            builder.append(System.lineSeparator()).append(argument);
+        }
+        return builder.toString();
+    }
+
+    private void createSharedArchive(File directory, String archiveInfo, MatchInfo match)
+            throws MojoExecutionException {
+        try {
+            if (sharedArchive) {
+                getLog().info("Creating shared archive for: " + directory);
+                long elapsedTime = SharedArchiveGenerator.generate(directory, sharedArchiveTrainingArguments,
+                        sharedArchiveTimeout, TimeUnit.SECONDS, verbose);
+                getLog().info(String.format("Finished creating shared archive after %d ms", elapsedTime));
+            } else {
+                SharedArchiveGenerator.delete(directory);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to create shared archive.", e);
+        }
+        match.writeSharedArchive(archiveInfo);
+    }
+
     private Instrumentation createInstrumentation() throws MojoExecutionException {
         try {
             return Instrumentation.create(instrumentationType, javaHome, options);
@@ -147,6 +325,14 @@ public class InstrumentMojo extends AbstractMojo {
         try {
             Files.walkFileTree(outputDirectory.toPath(), new DeletingFileVisitor());
             getLog().info("Deleted existing Java installation: " + outputDirectory);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to delete existing instrumented Java installation and caches", e);
+        }
+        deleteLinkedCaches();
+    }
+
+    private void deleteLinkedCaches() throws MojoExecutionException {
+        try {
             for (File file : linkedCaches) {
                 if (file.exists()) {
                     Files.walkFileTree(file.toPath(), new DeletingFileVisitor());
@@ -158,12 +344,11 @@ public class InstrumentMojo extends AbstractMojo {
         }
     }
 
-    private void instrument(Instrumentation instance, byte[] checksum, String info, MatchInfo match)
-            throws MojoExecutionException {
-        getLog().info("Creating Java installation: " + outputDirectory);
+    private void instrument(Instrumentation instance, File destination, byte[] checksum, String info,
+                            MatchInfo match) throws MojoExecutionException {
+        getLog().info("Creating Java installation: " + destination);
         try {
-            long elapsedTime =
-                    Instrumenter.instrument(javaHome, outputDirectory, options, instance, verbose, modules);
+            long elapsedTime = Instrumenter.instrument(javaHome, destination, options, instance, verbose, modules);
             getLog().info(String.format("Finished creating instrumented Java installation after %d ms", elapsedTime));
         } catch (IOException e) {
             throw new MojoExecutionException("Failed to create instrumented Java instrumentation.", e);
@@ -171,18 +356,20 @@ public class InstrumentMojo extends AbstractMojo {
         match.write(checksum, info, options);
     }
 
-    private static byte[] computeChecksum(Instrumentation instrumentation) throws MojoExecutionException {
+    private byte[] computeChecksum(Instrumentation instrumentation) throws MojoExecutionException {
+        ChecksumIndex index = new ChecksumIndex(checksumIndex);
+        byte[] checksum;
         try {
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-            for (File f : instrumentation.getClassPathElements()) {
-                if (f.isFile()) {
-                    buffer.write(InstrumentUtil.readAllBytes(f));
-                }
-            }
-            return InstrumentUtil.checksum(buffer.toByteArray());
+            checksum = index.checksum(instrumentation.getClassPathElements());
         } catch (IOException e) {
             throw new MojoExecutionException("Failed to compute instrumentation checksum", e);
         }
+        try {
+            index.save();
+        } catch (IOException e) {
+            getLog().warn("Failed to write checksum index: " + checksumIndex, e);
+        }
+        return checksum;
     }
 
     private static final class MatchInfo {
@@ -204,12 +391,19 @@ public class InstrumentMojo extends AbstractMojo {
          * implementation of {@link Instrumentation} used to instrument a location.
          */
         private final File infoFile;
+        /**
+         * File used to store the settings used to create the shared archive of a location.
+         * Locations created before shared archives were supported do not have this file and are treated as not
+         * having a shared archive.
+         */
+        private final File sharedArchiveFile;
 
         public MatchInfo(File directory) {
             File parent = new File(directory, "phosphor-instrument-match");
             this.optionsFile = new File(parent, "options.properties");
             this.checksumFile = new File(parent, "class-path.md5");
             this.infoFile = new File(parent, "info.txt");
+            this.sharedArchiveFile = new File(parent, "shared-archive.txt");
         }
 
         public boolean exists() {
@@ -228,6 +422,25 @@ public class InstrumentMojo extends AbstractMojo {
             }
         }
 
+        private boolean checkSharedArchive(String archiveInfo) throws MojoExecutionException {
+            try {
+                String found = sharedArchiveFile.isFile()
+                        ? new String(InstrumentUtil.readAllBytes(sharedArchiveFile)) : "";
+                return found.equals(archiveInfo);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to read match info", e);
+            }
+        }
+
+        public void writeSharedArchive(String archiveInfo) throws MojoExecutionException {
+            try {
+                InstrumentUtil.ensureDirectory(sharedArchiveFile.getParentFile());
+                Files.write(sharedArchiveFile.toPath(), archiveInfo.getBytes());
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to write match info", e);
+            }
+        }
+
         public void write(byte[] checksum, String info, Properties options) throws MojoExecutionException {
             try {
                 InstrumentUtil.ensureDirectory(optionsFile.getParentFile());
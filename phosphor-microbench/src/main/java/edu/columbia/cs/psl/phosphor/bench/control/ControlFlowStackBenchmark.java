@@ -0,0 +1,89 @@
+package edu.columbia.cs.psl.phosphor.bench.control;
+
+import edu.columbia.cs.psl.phosphor.control.standard.StandardControlFlowStack;
+import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.concurrent.TimeUnit;
+
+/* Mimics the sequence of calls made to the control flow stack by code like that in DeepImplicitITCase: branches on
+ * tainted values nested inside of calls to other methods which each start and end their own branches. */
+@Fork(3)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class ControlFlowStackBenchmark {
+
+    // The number of distinct branch locations in each simulated method
+    private static final int BRANCHES_PER_METHOD = 4;
+    // The depth of the simulated call chain
+    @Param({"1", "8", "32"})
+    private int callDepth;
+    private StandardControlFlowStack<Object> stack;
+    private Taint<Object>[] taints;
+    private Throwable exception;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void initStack() {
+        stack = new StandardControlFlowStack<>(false);
+        taints = new Taint[BRANCHES_PER_METHOD];
+        for(int i = 0; i < taints.length; i++) {
+            taints[i] = Taint.withLabel("branch" + i);
+        }
+        exception = new Throwable();
+    }
+
+    @Benchmark
+    public StandardControlFlowStack<Object> nestedBranchesTest() {
+        callChain(stack, 0);
+        return stack;
+    }
+
+    @Benchmark
+    public StandardControlFlowStack<Object> copyTopTest() {
+        int[] branchTags = stack.push(taints[0], null, 0, 1);
+        StandardControlFlowStack<Object> copy = stack.copyTop();
+        callChain(copy, 0);
+        stack.pop(branchTags);
+        return copy;
+    }
+
+    @Benchmark
+    public StandardControlFlowStack<Object> exceptionHandlerTest() {
+        int count = 0;
+        for(int i = 0; i < callDepth; i++) {
+            count = stack.exceptionHandlerStart(exception, taints[i % taints.length], count);
+        }
+        stack.exceptionHandlerEnd(count);
+        return stack;
+    }
+
+    private void callChain(StandardControlFlowStack<Object> stack, int depth) {
+        int[] branchTags = null;
+        for(int i = 0; i < BRANCHES_PER_METHOD; i++) {
+            branchTags = stack.push(taints[i], branchTags, i, BRANCHES_PER_METHOD);
+        }
+        if(depth < callDepth) {
+            callChain(stack, depth + 1);
+        }
+        // Revisit a branch that was already pushed
+        stack.push(taints[0], branchTags, BRANCHES_PER_METHOD - 1, BRANCHES_PER_METHOD);
+        stack.pop(branchTags);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include("edu\\.columbia\\.cs\\.psl\\.phosphor\\.bench\\.control\\..*Benchmark")
+                .verbosity(VerboseMode.NORMAL)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+        new Runner(opt).run();
+    }
+}
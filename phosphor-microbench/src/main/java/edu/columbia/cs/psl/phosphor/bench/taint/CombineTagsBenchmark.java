@@ -0,0 +1,77 @@
+package edu.columbia.cs.psl.phosphor.bench.taint;
+
+import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.concurrent.TimeUnit;
+
+/* Mimics the taint propagation logic that is added to a tight loop that sums the elements of an int array, i.e.
+ * "sum += values[i] * 31", by comparing the general combineTags method against the combineOperandTags fast path that
+ * is emitted for the operands of primitive operations. */
+@Fork(3)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class CombineTagsBenchmark {
+
+    @Param({"1024"})
+    private int length;
+    // The fraction of array elements whose tags are non-empty
+    @Param({"0", "0.1", "1"})
+    private double taintedFraction;
+    private int[] values;
+    private Taint<Object>[] valueTaints;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void initArray() {
+        values = new int[length];
+        valueTaints = new Taint[length];
+        int tainted = (int) (length * taintedFraction);
+        for(int i = 0; i < length; i++) {
+            values[i] = i;
+            valueTaints[i] = i < tainted ? Taint.withLabel("value" + (i % 4)) : Taint.emptyTaint();
+        }
+    }
+
+    @Benchmark
+    public Taint<Object> combineTagsLoop() {
+        int sum = 0;
+        Taint<Object> sumTaint = Taint.emptyTaint();
+        Taint<Object> constantTaint = Taint.emptyTaint();
+        for(int i = 0; i < values.length; i++) {
+            Taint<Object> productTaint = Taint.combineTags(valueTaints[i], constantTaint);
+            sumTaint = Taint.combineTags(sumTaint, productTaint);
+            sum += values[i] * 31;
+        }
+        return sum == 0 ? null : sumTaint;
+    }
+
+    @Benchmark
+    public Taint<Object> combineOperandTagsLoop() {
+        int sum = 0;
+        Taint<Object> sumTaint = Taint.emptyTaint();
+        Taint<Object> constantTaint = Taint.emptyTaint();
+        for(int i = 0; i < values.length; i++) {
+            Taint<Object> productTaint = Taint.combineOperandTags(valueTaints[i], constantTaint);
+            sumTaint = Taint.combineOperandTags(sumTaint, productTaint);
+            sum += values[i] * 31;
+        }
+        return sum == 0 ? null : sumTaint;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include("edu\\.columbia\\.cs\\.psl\\.phosphor\\.bench\\.taint\\..*Benchmark")
+                .verbosity(VerboseMode.NORMAL)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,93 @@
+package edu.columbia.cs.psl.phosphor.bench.taint;
+
+import edu.columbia.cs.psl.phosphor.runtime.MultiDArrayUtils;
+import edu.columbia.cs.psl.phosphor.runtime.PhosphorStackFrame;
+import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import edu.columbia.cs.psl.phosphor.struct.TaggedDoubleArray;
+import edu.columbia.cs.psl.phosphor.struct.TaggedReferenceArray;
+import org.objectweb.asm.Type;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.concurrent.TimeUnit;
+
+/* Measures the calls that instrumented numerical code makes to allocate two- and three-dimensional double arrays and
+ * to read and write their elements in a matrix multiplication. */
+@Fork(3)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class MultiDArrayBenchmark {
+
+    @Param({"64", "256"})
+    private int size;
+    private PhosphorStackFrame frame;
+    private TaggedReferenceArray left;
+    private TaggedReferenceArray right;
+    private TaggedReferenceArray product;
+
+    @Setup(Level.Trial)
+    public void initMatrices() {
+        frame = new PhosphorStackFrame();
+        left = newMatrix();
+        right = newMatrix();
+        product = newMatrix();
+        Taint<?> empty = Taint.emptyTaint();
+        Taint<Object> valueTaint = Taint.withLabel("value");
+        for(int i = 0; i < size; i++) {
+            TaggedDoubleArray leftRow = (TaggedDoubleArray) left.get(i, empty, frame);
+            TaggedDoubleArray rightRow = (TaggedDoubleArray) right.get(i, empty, frame);
+            for(int j = 0; j < size; j++) {
+                leftRow.set(j, i + j, empty, (i + j) % 8 == 0 ? valueTaint : empty, frame);
+                rightRow.set(j, i - j, empty, empty, frame);
+            }
+        }
+    }
+
+    private TaggedReferenceArray newMatrix() {
+        return MultiDArrayUtils.MULTIANEWARRAY(new int[]{size, size}, 2, Type.DOUBLE, null, frame);
+    }
+
+    @Benchmark
+    public TaggedReferenceArray allocate2DTest() {
+        return newMatrix();
+    }
+
+    @Benchmark
+    public TaggedReferenceArray allocate3DTest() {
+        int depth = size / 8;
+        return MultiDArrayUtils.MULTIANEWARRAY(new int[]{depth, size, size}, 3, Type.DOUBLE, null, frame);
+    }
+
+    @Benchmark
+    public TaggedReferenceArray multiplyTest() {
+        Taint<?> empty = Taint.emptyTaint();
+        for(int i = 0; i < size; i++) {
+            TaggedDoubleArray leftRow = (TaggedDoubleArray) left.get(i, empty, frame);
+            TaggedDoubleArray productRow = (TaggedDoubleArray) product.get(i, empty, frame);
+            for(int j = 0; j < size; j++) {
+                double sum = 0;
+                for(int k = 0; k < size; k++) {
+                    TaggedDoubleArray rightRow = (TaggedDoubleArray) right.get(k, empty, frame);
+                    sum += leftRow.get(k, empty, frame) * rightRow.get(j, empty, frame);
+                }
+                productRow.set(j, sum, empty, empty, frame);
+            }
+        }
+        return product;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include("edu\\.columbia\\.cs\\.psl\\.phosphor\\.bench\\.taint\\..*Benchmark")
+                .verbosity(VerboseMode.NORMAL)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+        new Runner(opt).run();
+    }
+}
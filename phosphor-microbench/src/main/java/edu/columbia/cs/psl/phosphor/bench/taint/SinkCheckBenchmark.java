@@ -0,0 +1,73 @@
+package edu.columbia.cs.psl.phosphor.bench.taint;
+
+import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import edu.columbia.cs.psl.phosphor.runtime.TaintSourceWrapper;
+import edu.columbia.cs.psl.phosphor.struct.TaggedCharArray;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.concurrent.TimeUnit;
+
+/* Mimics the code that SinkTaintingMV adds to the start of a sink method with the signature (char[], int, long) when
+ * none of the arguments are tainted: either every argument is boxed and checked by checkTaint or the shadow tags and
+ * reference arguments are tested first and checkTaint is skipped. */
+@Fork(3)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class SinkCheckBenchmark {
+
+    private static final String BASE_SINK = "Sink.sink([CIJ)V";
+    private static final String ACTUAL_SINK = "Sink.sink([CIJLedu/columbia/cs/psl/phosphor/runtime/PhosphorStackFrame;)V";
+    @Param({"16", "1024"})
+    private int payloadLength;
+    private TaintSourceWrapper<?> wrapper;
+    private TaggedCharArray payload;
+    private int count;
+    private long id;
+    private Taint<?> payloadTaint;
+    private Taint<?> countTaint;
+    private Taint<?> idTaint;
+
+    @Setup(Level.Trial)
+    public void initArguments() {
+        wrapper = new TaintSourceWrapper<>();
+        payload = new TaggedCharArray(new char[payloadLength]);
+        count = payloadLength;
+        id = 42L;
+        payloadTaint = Taint.emptyTaint();
+        countTaint = Taint.emptyTaint();
+        idTaint = Taint.emptyTaint();
+    }
+
+    @Benchmark
+    public TaintSourceWrapper<?> boxingCheckTest() {
+        wrapper.checkTaint(new Object[]{payload, count, id}, new Taint[]{payloadTaint, countTaint, idTaint},
+                BASE_SINK, ACTUAL_SINK);
+        return wrapper;
+    }
+
+    @Benchmark
+    public TaintSourceWrapper<?> fastPathCheckTest() {
+        if((payloadTaint != null && !payloadTaint.isEmpty()) || (countTaint != null && !countTaint.isEmpty())
+                || (idTaint != null && !idTaint.isEmpty()) || wrapper.hasTaint(payload)) {
+            wrapper.checkTaint(new Object[]{payload, count, id}, new Taint[]{payloadTaint, countTaint, idTaint},
+                    BASE_SINK, ACTUAL_SINK);
+        }
+        return wrapper;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include("edu\\.columbia\\.cs\\.psl\\.phosphor\\.bench\\.taint\\..*Benchmark")
+                .verbosity(VerboseMode.NORMAL)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,92 @@
+package edu.columbia.cs.psl.phosphor.bench.taint;
+
+import edu.columbia.cs.psl.phosphor.runtime.StringConcatRecipe;
+import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.concurrent.TimeUnit;
+
+/* Measures the cost of calculating the taint tags of a formatted log message built by an invokedynamic string
+ * concatenation. Compares copying the tags of each argument as a run with propagating tags character by character,
+ * combining each character's tag with the tag of its argument. Tag lookups on strings require an instrumented JVM, so
+ * the tags of the string arguments are precomputed. */
+@Fork(3)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class StringConcatBenchmark {
+
+    // Whether the arguments of the concatenation are tainted
+    @Param({"false", "true"})
+    private boolean tainted;
+    private StringConcatRecipe recipe;
+    private Object[] args;
+    private Taint[] argTaints;
+    private Taint[][] valueTaints;
+
+    @Setup(Level.Trial)
+    public void initRecipe() {
+        // Equivalent to "User " + user + " logged in from " + host + " after " + attempts + " attempts"
+        recipe = StringConcatRecipe.compile("User \u0001 logged in from \u0001 after \u0001 attempts", new Object[0],
+                new Class<?>[]{String.class, String.class, int.class});
+        args = new Object[]{"alice.smith", "192.168.100.200", 3};
+        argTaints = new Taint[3];
+        String[] values = recipe.toStrings(args);
+        valueTaints = new Taint[values.length][];
+        if(tainted) {
+            Taint<Object> user = Taint.withLabel("user");
+            Taint<Object> host = Taint.withLabel("host");
+            valueTaints[1] = new Taint[values[1].length()];
+            for(int i = 0; i < valueTaints[1].length; i++) {
+                valueTaints[1][i] = user;
+            }
+            valueTaints[3] = new Taint[values[3].length()];
+            for(int i = 0; i < valueTaints[3].length; i++) {
+                valueTaints[3][i] = i % 2 == 0 ? host : host.union(user);
+            }
+            argTaints[2] = Taint.withLabel("attempts");
+        }
+    }
+
+    @Benchmark
+    public Taint[] runTest() {
+        String[] values = recipe.toStrings(args);
+        return recipe.concatenateTaints(values, valueTaints, argTaints, 1);
+    }
+
+    @Benchmark
+    public Taint[] perCharacterTest() {
+        String[] values = recipe.toStrings(args);
+        int length = 0;
+        for(String value : values) {
+            length += value.length();
+        }
+        Taint[] result = new Taint[length];
+        int offset = 0;
+        int arg = 0;
+        for(int i = 0; i < values.length; i++) {
+            boolean isArgument = i % 2 == 1;
+            Taint argTaint = isArgument ? argTaints[arg++] : null;
+            for(int j = 0; j < values[i].length(); j++) {
+                Taint charTaint = valueTaints[i] == null ? null : valueTaints[i][j];
+                result[offset++] = Taint.combineTags(charTaint, argTaint);
+            }
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include("edu\\.columbia\\.cs\\.psl\\.phosphor\\.bench\\.taint\\..*Benchmark")
+                .verbosity(VerboseMode.NORMAL)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+        new Runner(opt).run();
+    }
+}
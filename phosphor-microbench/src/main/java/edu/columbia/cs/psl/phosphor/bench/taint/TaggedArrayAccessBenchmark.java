@@ -0,0 +1,80 @@
+package edu.columbia.cs.psl.phosphor.bench.taint;
+
+import edu.columbia.cs.psl.phosphor.Configuration;
+import edu.columbia.cs.psl.phosphor.runtime.DerivedTaintListener;
+import edu.columbia.cs.psl.phosphor.runtime.PhosphorStackFrame;
+import edu.columbia.cs.psl.phosphor.runtime.Taint;
+import edu.columbia.cs.psl.phosphor.struct.TaggedIntArray;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.concurrent.TimeUnit;
+
+/* Measures the cost of the calls that instrumented code makes to read and write the elements of a tainted int array
+ * with and without a DerivedTaintListener installed. */
+@Fork(3)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class TaggedArrayAccessBenchmark {
+
+    @Param({"1024"})
+    private int length;
+    // Whether a listener that performs the default propagation is installed
+    @Param({"false", "true"})
+    private boolean listenerInstalled;
+    private TaggedIntArray array;
+    private PhosphorStackFrame frame;
+    private Taint<Object> valueTaint;
+    private DerivedTaintListener originalListener;
+
+    @Setup(Level.Trial)
+    public void initArray() {
+        originalListener = Configuration.derivedTaintListener;
+        Configuration.derivedTaintListener = listenerInstalled ? new DerivedTaintListener() : null;
+        array = new TaggedIntArray(new int[length]);
+        frame = new PhosphorStackFrame();
+        valueTaint = Taint.withLabel("value");
+        for(int i = 0; i < length; i += 2) {
+            array.set(i, i, Taint.emptyTaint(), valueTaint, frame);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreListener() {
+        Configuration.derivedTaintListener = originalListener;
+    }
+
+    @Benchmark
+    public int getTest() {
+        int sum = 0;
+        Taint<?> idxTaint = Taint.emptyTaint();
+        for(int i = 0; i < length; i++) {
+            sum += array.get(i, idxTaint, frame);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public TaggedIntArray setTest() {
+        Taint<?> idxTaint = Taint.emptyTaint();
+        for(int i = 0; i < length; i++) {
+            array.set(i, i, idxTaint, valueTaint, frame);
+        }
+        return array;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include("edu\\.columbia\\.cs\\.psl\\.phosphor\\.bench\\.taint\\..*Benchmark")
+                .verbosity(VerboseMode.NORMAL)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+        new Runner(opt).run();
+    }
+}